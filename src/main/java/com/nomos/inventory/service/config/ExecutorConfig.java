@@ -0,0 +1,66 @@
+package com.nomos.inventory.service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Pools de hilos acotados para el trabajo que no debe ocupar los hilos de las peticiones HTTP.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Ejecuta las importaciones masivas de productos. Pocas a la vez: cada una ya escribe en lotes
+     * y varias en paralelo solo compiten por las mismas conexiones.
+     */
+    @Bean(name = "importExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor importExecutor(
+            @Value("${inventory.import.max-concurrent-jobs:2}") int maxConcurrentJobs,
+            @Value("${inventory.import.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentJobs);
+        executor.setMaxPoolSize(maxConcurrentJobs);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("product-import-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Consultas en paralelo del detalle agregado de producto. El tamaño acota las conexiones que puede
+     * tomar esta vista; si el pool se satura, la parte se ejecuta en el hilo de la petición en vez de fallar.
+     */
+    @Bean(name = "productDetailExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor productDetailExecutor(
+            @Value("${inventory.product-detail.pool-size:8}") int poolSize,
+            @Value("${inventory.product-detail.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("product-detail-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Conciliación de stock: un hilo coordina la ejecución y {@code parallelism} hilos revisan bloques de
+     * lotes. El coordinador nunca tiene más de {@code parallelism} bloques en curso, así que la cola no se llena.
+     */
+    @Bean(name = "reconciliationExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor reconciliationExecutor(
+            @Value("${inventory.reconciliation.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism + 1);
+        executor.setMaxPoolSize(parallelism + 1);
+        executor.setQueueCapacity(parallelism + 1);
+        executor.setThreadNamePrefix("reconciliation-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,322 @@
+package com.nomos.inventory.service.config;
+
+import com.nomos.inventory.service.service.IdempotencyService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Soporte de {@code Idempotency-Key} para los POST de las rutas configuradas
+ * ({@code inventory.idempotency.paths}). Un reintento con la misma clave, ruta y usuario recibe la
+ * respuesta guardada (con {@code Idempotent-Replayed: true}) sin volver a ejecutar el handler.
+ * Las peticiones sin el encabezado pasan sin cambios.
+ * <p>
+ * El cuerpo se lee en memoria para calcular su hash, así que se limita a {@code max-request-bytes}
+ * (413 si lo supera). En las rutas de {@code inventory.idempotency.spooled-paths} ({@code /bulk}, que
+ * procesa cuerpos grandes en streaming) el cuerpo se copia a un archivo temporal mientras se calcula el
+ * hash, hasta {@code max-spooled-request-bytes}, y el handler lo lee de ahí. Las rutas de
+ * {@code inventory.idempotency.excluded-paths} no pasan por el filtro.
+ * <p>
+ * Se registra después de la cadena de Spring Security, así el usuario autenticado ya está disponible.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final String BODY_OMITTED_HEADER = "Idempotent-Body-Omitted";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyService idempotencyService;
+    private final List<String> paths;
+    private final List<String> excludedPaths;
+    private final List<String> spooledPaths;
+    private final int maxRequestBytes;
+    private final long maxSpooledRequestBytes;
+
+    public IdempotencyFilter(IdempotencyService idempotencyService,
+                             @Value("${inventory.idempotency.paths:/api/v1/inventory-movements,/api/v1/purchase-orders,/api/v1/quotations}")
+                             List<String> paths,
+                             @Value("${inventory.idempotency.excluded-paths:}") List<String> excludedPaths,
+                             @Value("${inventory.idempotency.spooled-paths:/api/v1/inventory-movements/bulk}")
+                             List<String> spooledPaths,
+                             @Value("${inventory.idempotency.max-request-bytes:1048576}") int maxRequestBytes,
+                             @Value("${inventory.idempotency.max-spooled-request-bytes:67108864}") long maxSpooledRequestBytes) {
+        this.idempotencyService = idempotencyService;
+        this.paths = paths;
+        this.excludedPaths = excludedPaths;
+        this.spooledPaths = spooledPaths;
+        this.maxRequestBytes = maxRequestBytes;
+        this.maxSpooledRequestBytes = maxSpooledRequestBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod()) || request.getHeader(HEADER) == null) {
+            return true;
+        }
+        String path = pathOf(request);
+        return paths.stream().noneMatch(prefix -> matches(path, prefix))
+                || excludedPaths.stream().anyMatch(prefix -> matches(path, prefix));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                    "El encabezado " + HEADER + " debe tener entre 1 y " + MAX_KEY_LENGTH + " caracteres");
+            return;
+        }
+
+        String path = pathOf(request);
+        boolean spooled = spooledPaths.stream().anyMatch(prefix -> matches(path, prefix));
+        long maxBytes = spooled ? maxSpooledRequestBytes : maxRequestBytes;
+        CachedBody body = request.getContentLengthLong() > maxBytes ? null
+                : spooled ? spool(request.getInputStream(), maxBytes) : buffer(request.getInputStream(), maxRequestBytes);
+        if (body == null) {
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                    "El cuerpo de una petición con " + HEADER + " no puede superar " + maxBytes + " bytes");
+            return;
+        }
+        try {
+            filterWithKey(request, response, chain, new IdempotencyService.Scope(key, path, principalOf()), body);
+        } finally {
+            body.discard();
+        }
+    }
+
+    private void filterWithKey(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                               IdempotencyService.Scope scope, CachedBody body) throws ServletException, IOException {
+        IdempotencyService.Outcome outcome;
+        try {
+            outcome = idempotencyService.begin(scope, body.sha256());
+        } catch (ResponseStatusException e) {
+            response.sendError(e.getStatusCode().value(), e.getReason());
+            return;
+        }
+
+        if (outcome.replay() != null) {
+            IdempotencyService.StoredResponse stored = outcome.replay();
+            response.setStatus(stored.status());
+            if (stored.contentType() != null) {
+                response.setContentType(stored.contentType());
+            }
+            response.setHeader(REPLAYED_HEADER, "true");
+            if (stored.bodyOmitted()) {
+                response.setHeader(BODY_OMITTED_HEADER, "true");
+            }
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+            return;
+        }
+
+        IdempotencyService.Execution execution = outcome.execution();
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), cachingResponse);
+            if (!request.isAsyncStarted()) {
+                idempotencyService.complete(execution, cachingResponse.getStatus(),
+                        cachingResponse.getContentType(), cachingResponse.getContentAsByteArray());
+                completed = true;
+            }
+        } catch (IOException | ServletException | RuntimeException e) {
+            // El handler pudo confirmar antes de fallar: la clave queda cerrada con un 500 en lugar de liberarse.
+            idempotencyService.complete(execution, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, null, new byte[0]);
+            completed = true;
+            throw e;
+        } finally {
+            if (!completed) {
+                idempotencyService.abandon(execution);
+            }
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    private static boolean matches(String path, String prefix) {
+        return path.equals(prefix) || path.startsWith(prefix + "/");
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static String principalOf() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : "anonymous";
+    }
+
+    /** @return el cuerpo en memoria, o null si supera {@code maxBytes}. */
+    private static CachedBody buffer(InputStream in, int maxBytes) throws IOException {
+        byte[] bytes = in.readNBytes(maxBytes + 1);
+        if (bytes.length > maxBytes) {
+            return null;
+        }
+        return new CachedBody(bytes, null, bytes.length, HexFormat.of().formatHex(sha256().digest(bytes)));
+    }
+
+    /** @return el cuerpo copiado a un archivo temporal, o null (sin archivo) si supera {@code maxBytes}. */
+    private static CachedBody spool(InputStream in, long maxBytes) throws IOException {
+        Path file = Files.createTempFile("idempotency-", ".body");
+        MessageDigest digest = sha256();
+        long length = 0;
+        try (OutputStream out = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[8192];
+            for (int read; length <= maxBytes && (read = in.read(buffer)) != -1; ) {
+                length += read;
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        if (length > maxBytes) {
+            Files.deleteIfExists(file);
+            return null;
+        }
+        return new CachedBody(null, file, length, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Cuerpo ya leído para calcular el hash: en memoria ({@code bytes}) o en un archivo temporal ({@code file}). */
+    private record CachedBody(byte[] bytes, Path file, long length, String sha256) {
+
+        InputStream open() throws IOException {
+            return bytes != null ? new ByteArrayInputStream(bytes) : Files.newInputStream(file);
+        }
+
+        void discard() throws IOException {
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /** Petición cuyo cuerpo ya se leyó para calcular el hash; el handler lo vuelve a leer de la copia. */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final CachedBody body;
+
+        private CachedBodyRequest(HttpServletRequest request, CachedBody body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            InputStream in = body.open();
+            return new ServletInputStream() {
+                private long position;
+
+                @Override
+                public boolean isFinished() {
+                    return position >= body.length();
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * El cuerpo ya está completo (en memoria o en disco), así que no hay que esperar datos: se
+                 * avisa enseguida que hay datos y, si el listener leyó hasta el final, que no quedan más.
+                 */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    if (listener == null) {
+                        throw new NullPointerException("listener");
+                    }
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() throws IOException {
+                    int value = in.read();
+                    if (value != -1) {
+                        position++;
+                    }
+                    return value;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int read = in.read(b, off, len);
+                    if (read > 0) {
+                        position += read;
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    in.close();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(body.open(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length() > Integer.MAX_VALUE ? -1 : (int) body.length();
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length();
+        }
+    }
+}
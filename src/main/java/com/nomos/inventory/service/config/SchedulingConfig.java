@@ -0,0 +1,12 @@
+package com.nomos.inventory.service.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas {@code @Scheduled} de mantenimiento (purga de claves de idempotencia, etc.).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
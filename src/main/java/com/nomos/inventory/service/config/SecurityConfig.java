@@ -2,6 +2,8 @@ package com.nomos.inventory.service.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -21,6 +23,7 @@ import java.util.stream.Collectors;
 
 @Configuration
 @EnableWebSecurity
+@EnableMethodSecurity
 public class SecurityConfig {
 
     private static final String ROLES_CLAIM = "https://nomosstore.com/roles";
@@ -52,7 +55,23 @@ public class SecurityConfig {
 
                 .authorizeHttpRequests(auth -> auth
 
-
+                        // Operaciones de mantenimiento del libro de movimientos: solo administradores.
+                        .requestMatchers("/api/v1/inventory-movements/partitions/**").hasAuthority("ROLE_ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/v1/inventory-movements/export")
+                        .hasAnyAuthority("ROLE_ADMIN", "ROLE_AUDITOR")
+                        .requestMatchers(HttpMethod.GET, "/api/v1/reconciliation/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_AUDITOR")
+                        .requestMatchers("/api/v1/reconciliation/**").hasAuthority("ROLE_ADMIN")
+
+                        // Consultas que los @PreAuthorize del controlador abren también a los auditores.
+                        .requestMatchers(HttpMethod.GET, "/api/inventory/items/product/**", "/api/inventory/warehouses",
+                                "/api/inventory/warehouses/*", "/api/inventory/items/stock-matrix",
+                                "/api/inventory/items/stock-as-of")
+                        .hasAnyAuthority("ROLE_ADMIN", "ROLE_VENDOR", "ROLE_SUPPLIER", "ROLE_AUDITOR")
+                        .requestMatchers(HttpMethod.POST, "/api/inventory/items/stock:batch")
+                        .hasAnyAuthority("ROLE_ADMIN", "ROLE_VENDOR", "ROLE_SUPPLIER", "ROLE_AUDITOR")
+                        .requestMatchers(HttpMethod.GET, "/api/inventory/items/stock-as-of/all",
+                                "/api/inventory/items/snapshots")
+                        .hasAnyAuthority("ROLE_ADMIN", "ROLE_AUDITOR")
 
                         .requestMatchers("/api/inventory/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_VENDOR", "ROLE_SUPPLIER")
 
@@ -0,0 +1,25 @@
+package com.nomos.inventory.service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Tiempo máximo de las respuestas asíncronas (por ejemplo, las exportaciones con
+ * {@code StreamingResponseBody}); el valor por defecto del contenedor corta las descargas grandes.
+ */
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    private final long asyncTimeoutMillis;
+
+    public WebAsyncConfig(@Value("${inventory.web.async-timeout-ms:1800000}") long asyncTimeoutMillis) {
+        this.asyncTimeoutMillis = asyncTimeoutMillis;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncTimeoutMillis);
+    }
+}
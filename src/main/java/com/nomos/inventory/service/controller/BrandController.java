@@ -2,11 +2,15 @@ package com.nomos.inventory.service.controller;
 
 import com.nomos.inventory.service.model.Brand;
 import com.nomos.inventory.service.repository.BrandRepository;
+import com.nomos.inventory.service.service.MasterDataCacheService;
+import com.nomos.inventory.service.service.ProductSearchIndex;
+import com.nomos.inventory.service.service.CollectionVersionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import jakarta.validation.Valid;
 import java.util.List;
 
@@ -16,11 +20,18 @@ import java.util.List;
 public class BrandController {
 
     private final BrandRepository brandRepository;
+    private final MasterDataCacheService masterDataCacheService;
+    private final ProductSearchIndex productSearchIndex;
+    private final CollectionVersionService collectionVersionService;
 
     @GetMapping
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER')")
-    public ResponseEntity<List<Brand>> getAllBrands() {
-        return ResponseEntity.ok(brandRepository.findAll());
+    public ResponseEntity<List<Brand>> getAllBrands(WebRequest request) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Collection.BRANDS);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(brandRepository.findAll());
     }
 
     @PostMapping
@@ -35,6 +46,8 @@ public class BrandController {
                     .body("Ya existe una marca con el código '" + brand.getCode() + "'.");
         }
         Brand savedBrand = brandRepository.save(brand);
+        masterDataCacheService.putBrand(savedBrand);
+        collectionVersionService.bump(CollectionVersionService.Collection.BRANDS);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedBrand);
     }
 
@@ -59,6 +72,9 @@ public class BrandController {
             brand.setLogoUrl(brandDetails.getLogoUrl());
 
             Brand updatedBrand = brandRepository.save(brand);
+            masterDataCacheService.putBrand(updatedBrand);
+            collectionVersionService.bump(CollectionVersionService.Collection.BRANDS, CollectionVersionService.Collection.PRODUCTS);
+            productSearchIndex.reindexBrand(id);
             return ResponseEntity.ok(updatedBrand);
         }).orElse(ResponseEntity.notFound().build());
     }
@@ -72,6 +88,8 @@ public class BrandController {
 
 
             brandRepository.deleteById(id);
+            masterDataCacheService.evictBrand(id);
+            collectionVersionService.bump(CollectionVersionService.Collection.BRANDS, CollectionVersionService.Collection.PRODUCTS);
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
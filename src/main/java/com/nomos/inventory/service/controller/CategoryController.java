@@ -1,13 +1,22 @@
 package com.nomos.inventory.service.controller;
 
 import com.nomos.inventory.service.model.Category;
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.dto.CursorPage;
 import com.nomos.inventory.service.repository.CategoryRepository;
+import com.nomos.inventory.service.service.CategoryTreeService;
+import com.nomos.inventory.service.service.MasterDataCacheService;
+import com.nomos.inventory.service.service.ProductCatalogService;
+import com.nomos.inventory.service.service.CollectionVersionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/inventory/categories")
@@ -15,13 +24,19 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryRepository categoryRepository;
+    private final MasterDataCacheService masterDataCacheService;
+    private final CategoryTreeService categoryTreeService;
+    private final ProductCatalogService productCatalogService;
+    private final CollectionVersionService collectionVersionService;
 
     @GetMapping
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER')")
-    public ResponseEntity<List<Category>> getAllCategories() {
-
-
-        return ResponseEntity.ok(categoryRepository.findAll());
+    public ResponseEntity<List<Category>> getAllCategories(WebRequest request) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Collection.CATEGORIES);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(categoryRepository.findAll());
     }
 
     @GetMapping("/{id}")
@@ -32,43 +47,94 @@ public class CategoryController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Ids de la categoría y de todas sus subcategorías, leídos del árbol materializado.
+     */
+    @GetMapping("/{id}/descendants")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER')")
+    public ResponseEntity<Set<Long>> getSubtreeIds(@PathVariable Long id) {
+        Set<Long> subtree = categoryTreeService.subtreeIds(id);
+        if (subtree.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(subtree);
+    }
+
+    /**
+     * Productos de la categoría y de todo su subárbol, paginados por cursor.
+     */
+    @GetMapping("/{id}/products")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER')")
+    public ResponseEntity<CursorPage<Product>> getSubtreeProducts(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productCatalogService.findPage(
+                id, true, null, null, null, null, ProductCatalogService.SortKey.ID, cursor, limit));
+    }
+
     @PostMapping
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<Category> createCategory(@Valid @RequestBody Category category) {
 
 
         Category savedCategory = categoryRepository.save(category);
+        masterDataCacheService.putCategory(savedCategory);
+        categoryTreeService.onCreated(savedCategory.getId(), parentIdOf(savedCategory));
+        collectionVersionService.bump(CollectionVersionService.Collection.CATEGORIES);
         return ResponseEntity.ok(savedCategory);
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ResponseEntity<Category> updateCategory(@PathVariable Long id, @Valid @RequestBody Category categoryDetails) {
+    public ResponseEntity<?> updateCategory(@PathVariable Long id, @Valid @RequestBody Category categoryDetails) {
         return categoryRepository.findById(id).map(category -> {
 
+            Long newParentId = parentIdOf(categoryDetails);
+            if (categoryTreeService.wouldCreateCycle(id, newParentId)) {
+                return ResponseEntity.badRequest()
+                        .body("La categoría " + newParentId + " es la misma categoría o una de sus subcategorías; no puede ser su padre.");
+            }
+
             category.setName(categoryDetails.getName());
             category.setDescription(categoryDetails.getDescription());
 
             category.setParent(categoryDetails.getParent());
+            category.setAllocationPolicy(categoryDetails.getAllocationPolicy());
 
             Category updatedCategory = categoryRepository.save(category);
+            masterDataCacheService.putCategory(updatedCategory);
+            categoryTreeService.onMoved(id, newParentId);
+            collectionVersionService.bump(CollectionVersionService.Collection.CATEGORIES, CollectionVersionService.Collection.PRODUCTS);
             return ResponseEntity.ok(updatedCategory);
         }).orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ResponseEntity<Void> deleteCategory(@PathVariable Long id) {
+    public ResponseEntity<?> deleteCategory(@PathVariable Long id) {
         if (categoryRepository.existsById(id)) {
 
+            if (categoryTreeService.hasChildren(id)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body("La categoría " + id + " tiene subcategorías. Muévalas o elimínelas primero.");
+            }
+
 
 
 
 
             categoryRepository.deleteById(id);
+            masterDataCacheService.evictCategory(id);
+            categoryTreeService.onDeleted(id);
+            collectionVersionService.bump(CollectionVersionService.Collection.CATEGORIES, CollectionVersionService.Collection.PRODUCTS);
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
         }
     }
+
+    private static Long parentIdOf(Category category) {
+        return category.getParent() != null ? category.getParent().getId() : null;
+    }
 }
@@ -3,17 +3,30 @@ package com.nomos.inventory.service.controller;
 import com.nomos.inventory.service.model.InventoryItem;
 import com.nomos.inventory.service.model.Product;
 import com.nomos.inventory.service.model.Warehouse;
+import com.nomos.inventory.service.model.dto.StockAsOfReportDTO;
+import com.nomos.inventory.service.model.dto.StockBatchRequestDTO;
+import com.nomos.inventory.service.model.dto.StockBatchResponseDTO;
+import com.nomos.inventory.service.model.dto.StockMatrixDTO;
 import com.nomos.inventory.service.repository.InventoryItemRepository;
 import com.nomos.inventory.service.repository.ProductRepository;
-import com.nomos.inventory.service.repository.WarehouseRepository;
+import com.nomos.inventory.service.service.MasterDataCacheService;
+import com.nomos.inventory.service.service.ProductStockSummaryService;
+import com.nomos.inventory.service.service.StockLookupService;
+import com.nomos.inventory.service.service.StockMatrixService;
+import com.nomos.inventory.service.service.StockSnapshotService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import jakarta.validation.Valid;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -23,7 +36,11 @@ public class InventoryItemController {
 
     private final InventoryItemRepository itemRepository;
     private final ProductRepository productRepository;
-    private final WarehouseRepository warehouseRepository; 
+    private final MasterDataCacheService masterDataCacheService;
+    private final ProductStockSummaryService productStockSummaryService;
+    private final StockLookupService stockLookupService;
+    private final StockMatrixService stockMatrixService;
+    private final StockSnapshotService stockSnapshotService;
 
     @GetMapping("/product/{productId}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER', 'ROLE_AUDITOR')")
@@ -37,6 +54,7 @@ public class InventoryItemController {
 
     @PostMapping
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPPLIER')")
+    @Transactional
     public ResponseEntity<?> createItem(@Valid @RequestBody InventoryItem item) {
 
         Long productId = item.getProduct().getId();
@@ -44,7 +62,7 @@ public class InventoryItemController {
         String lotNumber = item.getLotNumber();
 
         Optional<Product> productOpt = productRepository.findById(productId);
-        Optional<Warehouse> warehouseOpt = warehouseRepository.findById(warehouseId);
+        Optional<Warehouse> warehouseOpt = masterDataCacheService.getWarehouse(warehouseId);
 
         if (productOpt.isEmpty() || warehouseOpt.isEmpty()) {
             return ResponseEntity.badRequest().body("El Producto o el Almacén referenciado no existen.");
@@ -60,11 +78,13 @@ public class InventoryItemController {
         item.setWarehouse(warehouseOpt.get());
 
         InventoryItem savedItem = itemRepository.save(item);
+        productStockSummaryService.itemCreated(savedItem);
         return new ResponseEntity<>(savedItem, HttpStatus.CREATED);
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @Transactional
     public ResponseEntity<?> updateItem(@PathVariable Long id, @Valid @RequestBody InventoryItem itemDetails) {
         return itemRepository.findById(id).map(existingItem -> {
 
@@ -73,7 +93,7 @@ public class InventoryItemController {
             String newLotNumber = itemDetails.getLotNumber();
 
             Optional<Product> productOpt = productRepository.findById(newProductId);
-            Optional<Warehouse> warehouseOpt = warehouseRepository.findById(newWarehouseId);
+            Optional<Warehouse> warehouseOpt = masterDataCacheService.getWarehouse(newWarehouseId);
 
             if (productOpt.isEmpty() || warehouseOpt.isEmpty()) {
                 return ResponseEntity.badRequest().body("El Producto o el Almacén referenciado no existen.");
@@ -92,6 +112,10 @@ public class InventoryItemController {
                 }
             }
 
+            Long previousProductId = existingItem.getProduct().getId();
+            int previousQuantity = existingItem.getQuantity();
+            LocalDate previousExpiration = existingItem.getExpirationDate();
+
             existingItem.setProduct(productOpt.get());
             existingItem.setWarehouse(warehouseOpt.get());
             existingItem.setQuantity(itemDetails.getQuantity());
@@ -101,30 +125,106 @@ public class InventoryItemController {
             existingItem.setLocation(itemDetails.getLocation());
 
             InventoryItem updatedItem = itemRepository.save(existingItem);
+            productStockSummaryService.itemUpdated(previousProductId, previousQuantity, previousExpiration, updatedItem);
             return ResponseEntity.ok(updatedItem);
         }).orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    @Transactional
     public ResponseEntity<Void> deleteItem(@PathVariable Long id) {
-        if (itemRepository.existsById(id)) {
-            itemRepository.deleteById(id);
-            return ResponseEntity.noContent().build();
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+        return itemRepository.findById(id).map(item -> {
+            itemRepository.delete(item);
+            productStockSummaryService.itemDeleted(item);
+            return ResponseEntity.noContent().<Void>build();
+        }).orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/product/{productId}/total-stock")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER', 'ROLE_AUDITOR')")
-    @Transactional(readOnly = true)
     public ResponseEntity<Integer> getTotalStockByProduct(@PathVariable Long productId) {
-        if (!productRepository.existsById(productId)) {
-            return ResponseEntity.notFound().build();
+        return productStockSummaryService.getOnHand(productId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Stock de hasta {@value StockLookupService#MAX_BATCH_SIZE} productos en una sola llamada,
+     * opcionalmente desglosado por almacén. Los ids inexistentes se informan en {@code missingProductIds}.
+     */
+    @PostMapping("/stock:batch")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER', 'ROLE_AUDITOR')")
+    public ResponseEntity<StockBatchResponseDTO> getStockBatch(@Valid @RequestBody StockBatchRequestDTO request) {
+        return ResponseEntity.ok(stockLookupService.lookup(request.getProductIds(), request.isByWarehouse()));
+    }
+
+    /**
+     * Stock de todos los productos por almacén en formato columnar. Admite {@code If-None-Match}
+     * con el ETag de la respuesta anterior.
+     */
+    @GetMapping("/stock-matrix")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER', 'ROLE_AUDITOR')")
+    public ResponseEntity<StockMatrixDTO> getStockMatrix(WebRequest request) {
+        StockMatrixDTO matrix = stockMatrixService.getMatrix();
+        String etag = "\"stock-matrix-" + Long.toHexString(matrix.getVersion()) + "\"";
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
         }
+        return ResponseEntity.ok().eTag(etag).body(matrix);
+    }
+
+    /**
+     * Recalcula desde cero el resumen de stock por producto (por ejemplo, tras cargas hechas
+     * directamente en la base de datos).
+     */
+    @PostMapping("/stock-summary/rebuild")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Integer>> rebuildStockSummary() {
+        int products = productStockSummaryService.rebuild();
+        stockMatrixService.invalidateAll();
+        return ResponseEntity.ok(Map.of("products", products));
+    }
+
+    /**
+     * Existencias de un producto en un almacén en un instante pasado ({@code at}, ISO date-time), a partir
+     * de la foto diaria anterior más cercana y los movimientos posteriores a ella.
+     */
+    @GetMapping("/stock-as-of")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER', 'ROLE_AUDITOR')")
+    public ResponseEntity<StockAsOfReportDTO> getStockAsOf(
+            @RequestParam Long productId,
+            @RequestParam Long warehouseId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(stockSnapshotService.stockAsOf(productId, warehouseId, at));
+    }
+
+    /**
+     * Existencias de todos los productos por almacén en un instante pasado (cierre de mes).
+     */
+    @GetMapping("/stock-as-of/all")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_AUDITOR')")
+    public ResponseEntity<StockAsOfReportDTO> getStockAsOfAll(
+            @RequestParam(required = false) Long warehouseId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(stockSnapshotService.stockAsOfAll(warehouseId, at));
+    }
 
-        Integer totalStock = itemRepository.calculateTotalStockByProductId(productId);
-        return ResponseEntity.ok(totalStock != null ? totalStock : 0);
+    @GetMapping("/snapshots")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_AUDITOR')")
+    public ResponseEntity<List<LocalDate>> getSnapshotDates() {
+        return ResponseEntity.ok(stockSnapshotService.listSnapshotDates());
+    }
+
+    /**
+     * Toma (o vuelve a tomar) la foto de existencias del inicio de {@code date}; por defecto, hoy.
+     */
+    @PostMapping("/snapshots")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> takeSnapshot(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        LocalDate snapshotDate = date != null ? date : LocalDate.now();
+        int items = stockSnapshotService.takeSnapshot(snapshotDate);
+        return ResponseEntity.ok(Map.of("snapshotDate", snapshotDate, "items", items));
     }
 }
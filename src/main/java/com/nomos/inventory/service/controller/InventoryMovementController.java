@@ -1,20 +1,47 @@
 package com.nomos.inventory.service.controller;
 
 import com.nomos.inventory.service.model.Product;
-import com.nomos.inventory.service.model.InventoryItem; 
 import com.nomos.inventory.service.model.InventoryMovement;
+import com.nomos.inventory.service.model.MovementType;
 import com.nomos.inventory.service.repository.ProductRepository;
 import com.nomos.inventory.service.repository.InventoryItemRepository; 
 import com.nomos.inventory.service.repository.InventoryMovementRepository;
+import com.nomos.inventory.service.model.dto.AllocationRequestDTO;
+import com.nomos.inventory.service.model.dto.AllocationResultDTO;
+import com.nomos.inventory.service.model.dto.CursorPage;
+import com.nomos.inventory.service.model.dto.MovementBulkResultDTO;
+import com.nomos.inventory.service.model.dto.TransferBatchRequestDTO;
+import com.nomos.inventory.service.model.dto.TransferRequestDTO;
+import com.nomos.inventory.service.model.dto.TransferResultDTO;
+import com.nomos.inventory.service.service.LotAllocationService;
+import com.nomos.inventory.service.service.MovementBulkService;
+import com.nomos.inventory.service.service.MovementExportService;
+import com.nomos.inventory.service.service.MovementHistoryService;
+import com.nomos.inventory.service.service.MovementCommand;
+import com.nomos.inventory.service.service.MovementPipeline;
+import com.nomos.inventory.service.service.MovementResult;
+import com.nomos.inventory.service.service.StockPostingService;
+import com.nomos.inventory.service.service.MovementPartitionService;
+import com.nomos.inventory.service.service.StockTransferService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
-import org.springframework.transaction.annotation.Transactional;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Controlador REST para la gestión de Movimientos de Inventario (InventoryMovement).
@@ -27,24 +54,108 @@ public class InventoryMovementController {
     private final InventoryMovementRepository movementRepository;
     private final ProductRepository productRepository;
     private final InventoryItemRepository inventoryItemRepository; 
+    private final StockPostingService stockPostingService;
+    private final MovementPipeline movementPipeline;
+    private final MovementBulkService movementBulkService;
+    private final LotAllocationService lotAllocationService;
+    private final StockTransferService stockTransferService;
+    private final MovementPartitionService movementPartitionService;
+    private final MovementHistoryService movementHistoryService;
+    private final MovementExportService movementExportService;
 
     @Autowired
     public InventoryMovementController(
             InventoryMovementRepository movementRepository,
             ProductRepository productRepository,
-            InventoryItemRepository inventoryItemRepository) {
+            InventoryItemRepository inventoryItemRepository,
+            StockPostingService stockPostingService,
+            MovementPipeline movementPipeline,
+            MovementBulkService movementBulkService,
+            LotAllocationService lotAllocationService,
+            StockTransferService stockTransferService,
+            MovementPartitionService movementPartitionService,
+            MovementHistoryService movementHistoryService,
+            MovementExportService movementExportService) {
         this.movementRepository = movementRepository;
         this.productRepository = productRepository;
         this.inventoryItemRepository = inventoryItemRepository;
+        this.stockPostingService = stockPostingService;
+        this.movementPipeline = movementPipeline;
+        this.movementBulkService = movementBulkService;
+        this.lotAllocationService = lotAllocationService;
+        this.stockTransferService = stockTransferService;
+        this.movementPartitionService = movementPartitionService;
+        this.movementHistoryService = movementHistoryService;
+        this.movementExportService = movementExportService;
     }
 
     /**
-     * GET /api/v1/inventory-movements : Obtener todos los movimientos de inventario.
+     * GET /api/v1/inventory-movements : Historial de movimientos paginado por cursor, del más reciente al
+     * más antiguo, con filtros opcionales. Sin fechas se toman los últimos
+     * {@code inventory.movements.history.default-days} días; el {@code nextCursor} devuelto se reenvía
+     * con los mismos filtros para obtener la página siguiente.
      */
     @GetMapping
-    public ResponseEntity<List<InventoryMovement>> getAllMovements() {
-        List<InventoryMovement> movements = movementRepository.findAll();
-        return ResponseEntity.ok(movements);
+    public ResponseEntity<CursorPage<InventoryMovement>> getAllMovements(
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) Long warehouseId,
+            @RequestParam(required = false) MovementType type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long referenceId,
+            @RequestParam(required = false) String referenceService,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(movementHistoryService.findPage(
+                productId, warehouseId, type, from, to, referenceId, referenceService, cursor, limit));
+    }
+
+    /**
+     * GET /api/v1/inventory-movements/export : Exportar en streaming ({@code format=ndjson} por defecto, o
+     * {@code csv}) los movimientos con fecha en {@code [from, to)}, opcionalmente de un almacén. Si el cliente
+     * acepta gzip, la salida se comprime a medida que se escribe. La memoria usada no depende de la cantidad de filas.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_AUDITOR')")
+    public ResponseEntity<StreamingResponseBody> exportMovements(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long warehouseId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        MovementExportService.Format exportFormat;
+        try {
+            exportFormat = MovementExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato no soportado: " + format);
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        if (!from.isBefore(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La fecha 'from' debe ser anterior a 'to'");
+        }
+
+        boolean csv = exportFormat == MovementExportService.Format.CSV;
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        String filename = "inventory-movements." + (csv ? "csv" : "ndjson");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                movementExportService.export(exportFormat, from, end, warehouseId, compressed);
+                compressed.finish();
+            } else {
+                movementExportService.export(exportFormat, from, end, warehouseId, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
     }
 
     /**
@@ -61,9 +172,10 @@ public class InventoryMovementController {
 
     /**
      * POST /api/v1/inventory-movements : Registrar un nuevo movimiento.
+     * Una salida sin lote explícito se toma del primer lote según la política del producto (FEFO/FIFO); si
+     * ese lote no alcanza responde 409 y la salida debe repartirse con {@code /allocate}.
      */
     @PostMapping
-    @Transactional
     public ResponseEntity<InventoryMovement> createMovement(@Valid @RequestBody InventoryMovement movement) {
 
         Long productId = movement.getProduct().getId();
@@ -72,47 +184,129 @@ public class InventoryMovementController {
         movement.setProduct(product);
 
 
-        InventoryItem inventoryItem = null;
+        Long inventoryItemId;
 
         if (movement.getInventoryItem() != null && movement.getInventoryItem().getId() != null) {
-            inventoryItem = inventoryItemRepository.findById(movement.getInventoryItem().getId())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Item de inventario no encontrado"));
+            inventoryItemId = movement.getInventoryItem().getId();
+        } else if (movement.getQuantityChange() < 0) {
+            if (movement.getMovementDate() == null) {
+                movement.setMovementDate(LocalDateTime.now());
+            }
+            AllocationRequestDTO allocation = new AllocationRequestDTO(productId, movement.getWarehouseId(),
+                    -movement.getQuantityChange(), movement.getType(), movement.getReason(), movement.getMovementDate(),
+                    movement.getReferenceId(), movement.getReferenceService());
+            AllocationResultDTO.Line line = lotAllocationService.allocateFromOneLot(allocation).getLines().get(0);
+            movement.setId(line.getMovementId());
+            movement.setInventoryItem(inventoryItemRepository.getReferenceById(line.getInventoryItemId()));
+            movement.setBalanceAfter(line.getBalanceAfter());
+            movement.setWarehouseId(line.getWarehouseId());
+            return new ResponseEntity<>(movement, HttpStatus.CREATED);
         } else {
 
 
-            inventoryItem = inventoryItemRepository.findByProductId(productId)
+            inventoryItemId = inventoryItemRepository.findIdsByProductId(productId)
                     .stream().findFirst()
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "No hay inventario inicializado para este producto"));
         }
 
-        int currentStock = inventoryItem.getQuantity();
-        int change = movement.getQuantityChange();
+        InventoryMovement createdMovement;
+        if (movementPipeline.isEnabled()) {
+            MovementResult result = movementPipeline.submitAndWait(MovementCommand.of(movement, inventoryItemId));
+            movement.setId(result.movementId());
+            movement.setInventoryItem(inventoryItemRepository.getReferenceById(inventoryItemId));
+            movement.setBalanceAfter(result.balanceAfter());
+            movement.setWarehouseId(result.warehouseId());
+            createdMovement = movement;
+        } else {
+            createdMovement = stockPostingService.record(movement, inventoryItemId);
+        }
 
-        int newStock = currentStock + change;
+        return new ResponseEntity<>(createdMovement, HttpStatus.CREATED);
+    }
 
-        if (newStock < 0) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Stock insuficiente. Stock actual: " + currentStock);
-        }
+    /**
+     * POST /api/v1/inventory-movements/allocate : Registrar una salida repartida entre lotes (FEFO/FIFO
+     * según la categoría del producto), con un movimiento por lote consumido.
+     */
+    @PostMapping("/allocate")
+    public ResponseEntity<AllocationResultDTO> allocate(@Valid @RequestBody AllocationRequestDTO request) {
+        return new ResponseEntity<>(lotAllocationService.allocate(request), HttpStatus.CREATED);
+    }
 
-        inventoryItem.setQuantity(newStock);
-        inventoryItemRepository.save(inventoryItem);
+    /**
+     * POST /api/v1/inventory-movements/transfers : Transferir stock de un lote a otro almacén. La salida y la
+     * entrada (dos movimientos TRANSFERENCIA) se registran en la misma transacción.
+     */
+    @PostMapping("/transfers")
+    public ResponseEntity<TransferResultDTO> transfer(@Valid @RequestBody TransferRequestDTO request) {
+        return new ResponseEntity<>(stockTransferService.transfer(request), HttpStatus.CREATED);
+    }
 
-        movement.setInventoryItem(inventoryItem);
-        movement.setBalanceAfter(newStock);
+    /**
+     * POST /api/v1/inventory-movements/transfers/batch : Muchas transferencias (rebalanceo entre almacenes),
+     * con un resultado por línea; cada transferencia se aplica completa o no se aplica.
+     */
+    @PostMapping("/transfers/batch")
+    public ResponseEntity<List<TransferResultDTO>> transferBatch(@Valid @RequestBody TransferBatchRequestDTO request) {
+        return ResponseEntity.ok(stockTransferService.transferBatch(request.getTransfers()));
+    }
 
+    /**
+     * POST /api/v1/inventory-movements/bulk : Registrar un arreglo JSON de movimientos (cierres de caja).
+     * Devuelve un resultado por línea; las líneas rechazadas no impiden registrar las demás. Los bloques se
+     * confirman a medida que se leen, así que un reintento debe enviar {@code Idempotency-Key}.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<MovementBulkResultDTO> createMovementsBulk(InputStream body) throws IOException {
+        return ResponseEntity.ok(movementBulkService.ingest(body));
+    }
 
+    /**
+     * GET /api/v1/inventory-movements/product/{productId} : Trazabilidad por producto, paginada por cursor
+     * con los mismos filtros que el historial general.
+     */
+    @GetMapping("/product/{productId}")
+    public ResponseEntity<CursorPage<InventoryMovement>> getMovementsByProduct(
+            @PathVariable Long productId,
+            @RequestParam(required = false) Long warehouseId,
+            @RequestParam(required = false) MovementType type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long referenceId,
+            @RequestParam(required = false) String referenceService,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(movementHistoryService.findPage(
+                productId, warehouseId, type, from, to, referenceId, referenceService, cursor, limit));
+    }
 
-        InventoryMovement createdMovement = movementRepository.save(movement);
+    /**
+     * GET /api/v1/inventory-movements/partitions : Particiones mensuales de la tabla de movimientos.
+     */
+    @GetMapping("/partitions")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, String>> getPartitions() {
+        return ResponseEntity.ok(movementPartitionService.listPartitions());
+    }
 
-        return new ResponseEntity<>(createdMovement, HttpStatus.CREATED);
+    /**
+     * POST /api/v1/inventory-movements/partitions/migrate : Convertir la tabla de movimientos en una tabla
+     * particionada por mes (una sola vez).
+     */
+    @PostMapping("/partitions/migrate")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> migratePartitions() {
+        long copied = movementPartitionService.migrate();
+        return ResponseEntity.ok(Map.of("copiedRows", copied, "partitions", movementPartitionService.listPartitions()));
     }
 
     /**
-     * GET /api/v1/inventory-movements/product/{productId} : Obtener trazabilidad por producto.
+     * POST /api/v1/inventory-movements/partitions/maintain : Ejecutar ahora el mantenimiento diario
+     * (crear particiones futuras y separar las vencidas).
      */
-    @GetMapping("/product/{productId}")
-    public ResponseEntity<List<InventoryMovement>> getMovementsByProduct(@PathVariable Long productId) {
-        List<InventoryMovement> movements = movementRepository.findByProductIdOrderByMovementDateDesc(productId);
-        return ResponseEntity.ok(movements);
+    @PostMapping("/partitions/maintain")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<List<String>> maintainPartitions() {
+        return ResponseEntity.ok(movementPartitionService.maintain());
     }
 }
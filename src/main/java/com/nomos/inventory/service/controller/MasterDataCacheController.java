@@ -0,0 +1,33 @@
+package com.nomos.inventory.service.controller;
+
+import com.nomos.inventory.service.model.dto.CacheStatsDTO;
+import com.nomos.inventory.service.service.MasterDataCacheService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/masters/cache")
+@RequiredArgsConstructor
+public class MasterDataCacheController {
+
+    private final MasterDataCacheService masterDataCacheService;
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<List<CacheStatsDTO>> getStats() {
+        return ResponseEntity.ok(masterDataCacheService.stats());
+    }
+
+    /**
+     * Vacía la caché de maestros. Útil tras modificar datos directamente en la base de datos.
+     */
+    @DeleteMapping
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Void> clear() {
+        masterDataCacheService.clearAll();
+        return ResponseEntity.noContent().build();
+    }
+}
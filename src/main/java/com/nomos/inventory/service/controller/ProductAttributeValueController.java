@@ -2,7 +2,11 @@ package com.nomos.inventory.service.controller;
 
 import com.nomos.inventory.service.model.ProductAttributeValue;
 import com.nomos.inventory.service.model.ProductAttributeValue.ProductAttributeValueId;
+import com.nomos.inventory.service.model.dto.FacetQueryDTO;
+import com.nomos.inventory.service.model.dto.FacetResultDTO;
 import com.nomos.inventory.service.repository.ProductAttributeValueRepository;
+import com.nomos.inventory.service.service.ProductFacetIndex;
+import com.nomos.inventory.service.service.ProductSearchIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +21,8 @@ import java.util.List;
 public class ProductAttributeValueController {
 
     private final ProductAttributeValueRepository pavRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
 
     @GetMapping("/product/{productId}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER')")
@@ -36,6 +42,16 @@ public class ProductAttributeValueController {
         return ResponseEntity.ok(values);
     }
 
+    /**
+     * Filtra productos por valores de atributos (OR dentro de un atributo, AND entre atributos)
+     * y devuelve los conteos por valor, resueltos sobre el índice de bitmaps en memoria.
+     */
+    @PostMapping("/facets")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER')")
+    public ResponseEntity<FacetResultDTO> queryFacets(@RequestBody FacetQueryDTO query) {
+        return ResponseEntity.ok(productFacetIndex.query(query));
+    }
+
     @PostMapping
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<?> addProductAttributeValue(@Valid @RequestBody ProductAttributeValue attributeValue) {
@@ -48,6 +64,8 @@ public class ProductAttributeValueController {
         }
 
         ProductAttributeValue savedAttributeValue = pavRepository.save(attributeValue);
+        productSearchIndex.reindex(savedAttributeValue.getProductId());
+        productFacetIndex.put(savedAttributeValue.getProductId(), savedAttributeValue.getAttributeId(), savedAttributeValue.getValue());
         return ResponseEntity.status(HttpStatus.CREATED).body(savedAttributeValue);
     }
 
@@ -63,6 +81,8 @@ public class ProductAttributeValueController {
         return pavRepository.findById(id).map(attributeValue -> {
             attributeValue.setValue(attributeValueDetails.getValue());
             ProductAttributeValue updatedAttributeValue = pavRepository.save(attributeValue);
+            productSearchIndex.reindex(productId);
+            productFacetIndex.put(productId, attributeId, updatedAttributeValue.getValue());
             return ResponseEntity.ok(updatedAttributeValue);
         }).orElse(ResponseEntity.notFound().build());
     }
@@ -77,6 +97,8 @@ public class ProductAttributeValueController {
 
         if (pavRepository.existsById(id)) {
             pavRepository.deleteById(id);
+            productSearchIndex.reindex(productId);
+            productFacetIndex.remove(productId, attributeId);
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
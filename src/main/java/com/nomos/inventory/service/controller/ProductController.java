@@ -1,25 +1,36 @@
 package com.nomos.inventory.service.controller;
 
-import com.nomos.inventory.service.repository.ProductSupplierRepository;
-import com.nomos.inventory.service.repository.SupplierRepository;
 import com.nomos.inventory.service.model.Product;
-import com.nomos.inventory.service.model.ProductSupplier; 
-import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.model.dto.CursorPage;
+import com.nomos.inventory.service.model.dto.ImportJobDTO;
+import com.nomos.inventory.service.model.dto.ProductDetailDTO;
 import com.nomos.inventory.service.repository.ProductRepository;
-import com.nomos.inventory.service.repository.ProductImageRepository;
-
-import com.nomos.inventory.service.repository.BrandRepository;
-import com.nomos.inventory.service.repository.CategoryRepository;
-import com.nomos.inventory.service.repository.UnitOfMeasureRepository;
+import com.nomos.inventory.service.service.ProductCatalogService;
+import com.nomos.inventory.service.service.ProductDetailService;
+import com.nomos.inventory.service.service.ProductEnrichmentService;
+import com.nomos.inventory.service.service.ProductExportService;
+import com.nomos.inventory.service.service.ProductFacetIndex;
+import com.nomos.inventory.service.service.ProductImportService;
+import com.nomos.inventory.service.service.ProductSearchIndex;
+import com.nomos.inventory.service.service.ProductStockSummaryService;
+import com.nomos.inventory.service.service.CollectionVersionService;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.Optional;
+import java.util.Map;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.server.ResponseStatusException;
 import jakarta.validation.Valid;
 
 @RestController
@@ -28,27 +39,109 @@ import jakarta.validation.Valid;
 public class ProductController {
 
     private final ProductRepository productRepository;
-    private final InventoryItemRepository inventoryItemRepository;
-
-    private final BrandRepository brandRepository;
-    private final CategoryRepository categoryRepository;
-    private final UnitOfMeasureRepository unitOfMeasureRepository;
 
-    private final ProductSupplierRepository productSupplierRepository;
-    private final SupplierRepository supplierRepository;
-
-    private final ProductImageRepository productImageRepository;
+    private final ProductEnrichmentService productEnrichmentService;
+    private final ProductCatalogService productCatalogService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
+    private final ProductDetailService productDetailService;
+    private final ProductStockSummaryService productStockSummaryService;
+    private final CollectionVersionService collectionVersionService;
 
     @GetMapping
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER')")
-    public ResponseEntity<List<Product>> getAllProducts() {
+    public ResponseEntity<List<Product>> getAllProducts(WebRequest request) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Collection.PRODUCTS);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         List<Product> products = productRepository.findAll();
 
-        List<Product> enrichedProducts = products.stream()
-                .map(this::enrichProductWithNames)
-                .collect(Collectors.toList());
+        return ResponseEntity.ok().eTag(etag).body(productEnrichmentService.enrich(products));
+    }
+
+    /**
+     * Catálogo paginado por cursor. {@code sort} admite "id" (por defecto) o "name";
+     * el cursor devuelto en {@code nextCursor} se reenvía para obtener la página siguiente.
+     * Con {@code includeSubcategories=true} el filtro de categoría abarca todo su subárbol.
+     */
+    @GetMapping("/catalog")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER')")
+    public ResponseEntity<CursorPage<Product>> getCatalogPage(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "false") boolean includeSubcategories,
+            @RequestParam(required = false) Long brandId,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String skuPrefix,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+
+        ProductCatalogService.SortKey sortKey = "name".equalsIgnoreCase(sort)
+                ? ProductCatalogService.SortKey.NAME
+                : ProductCatalogService.SortKey.ID;
+
+        return ResponseEntity.ok(productCatalogService.findPage(
+                categoryId, includeSubcategories, brandId, minPrice, maxPrice, skuPrefix, sortKey, cursor, limit));
+    }
+
+    /**
+     * Búsqueda tipo "typeahead" sobre nombre, SKU, marca y valores de atributos.
+     * Cada término se compara como prefijo; los resultados vienen ordenados por relevancia.
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER')")
+    public ResponseEntity<?> searchProducts(@RequestParam("q") String query,
+                                            @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > 100) {
+            return ResponseEntity.badRequest().body("El límite debe estar entre 1 y 100.");
+        }
+
+        List<Long> rankedIds = productSearchIndex.search(query, limit);
+        if (rankedIds.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < rankedIds.size(); i++) {
+            rank.put(rankedIds.get(i), i);
+        }
+
+        List<Product> products = productRepository.findAllById(rankedIds);
+        products.sort(Comparator.comparingInt(p -> rank.get(p.getId())));
+
+        return ResponseEntity.ok(productEnrichmentService.enrich(products));
+    }
+
+    /**
+     * Exporta el catálogo completo en streaming ({@code format=ndjson} por defecto, o {@code csv})
+     * con los nombres de marca, categoría y unidad. La memoria usada no depende del tamaño del catálogo.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER')")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Long brandId,
+            @RequestParam(required = false) Long categoryId) {
+
+        ProductExportService.Format exportFormat;
+        try {
+            exportFormat = ProductExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato no soportado: " + format);
+        }
+
+        boolean csv = exportFormat == ProductExportService.Format.CSV;
+        String filename = "products." + (csv ? "csv" : "ndjson");
+        StreamingResponseBody body = out -> productExportService.export(exportFormat, brandId, categoryId, out);
 
-        return ResponseEntity.ok(enrichedProducts);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
     }
 
     @PostMapping
@@ -60,8 +153,40 @@ public class ProductController {
         }
 
         Product savedProduct = productRepository.save(product);
+        productSearchIndex.reindex(savedProduct.getId());
+        collectionVersionService.bump(CollectionVersionService.Collection.PRODUCTS);
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(enrichProductWithNames(savedProduct));
+        return ResponseEntity.status(HttpStatus.CREATED).body(productEnrichmentService.enrich(savedProduct));
+    }
+
+    /**
+     * Importación masiva desde CSV (con encabezado) o NDJSON. El archivo se procesa en segundo plano;
+     * la respuesta 202 trae el id del trabajo para consultar progreso y errores por fila.
+     * Columnas: sku, name, brandId, price, minStockThreshold, categoryId, unitOfMeasureId.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<ImportJobDTO> importProducts(@RequestParam("file") MultipartFile file,
+                                                       @RequestParam(required = false) String format) {
+        ProductImportService.Format importFormat;
+        if (format == null) {
+            importFormat = ProductImportService.detectFormat(file);
+        } else {
+            try {
+                importFormat = ProductImportService.Format.valueOf(format.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato no soportado: " + format);
+            }
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(productImportService.startImport(file, importFormat));
+    }
+
+    @GetMapping("/import/{jobId}")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<ImportJobDTO> getImportJob(@PathVariable String jobId) {
+        return productImportService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @PutMapping("/{id}")
@@ -86,8 +211,10 @@ public class ProductController {
             product.setUnitOfMeasureId(productDetails.getUnitOfMeasureId());
 
             Product updatedProduct = productRepository.save(product);
+            productSearchIndex.reindex(updatedProduct.getId());
+            collectionVersionService.bump(CollectionVersionService.Collection.PRODUCTS);
 
-            return ResponseEntity.ok(enrichProductWithNames(updatedProduct));
+            return ResponseEntity.ok(productEnrichmentService.enrich(updatedProduct));
         }).orElse(ResponseEntity.notFound().build());
     }
 
@@ -96,58 +223,33 @@ public class ProductController {
     public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
         if (productRepository.existsById(id)) {
             productRepository.deleteById(id);
+            productSearchIndex.remove(id);
+            productFacetIndex.removeProduct(id);
+            productStockSummaryService.productDeleted(id);
+            collectionVersionService.bump(CollectionVersionService.Collection.PRODUCTS);
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
-    @GetMapping("/{id}/stock")
-    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER')")
-    public ResponseEntity<Integer> getProductTotalStock(@PathVariable Long id) {
-        if (!productRepository.existsById(id)) {
-            return ResponseEntity.notFound().build();
-        }
-        Integer totalStock = inventoryItemRepository.calculateTotalStockByProductId(id);
-        return ResponseEntity.ok(totalStock != null ? totalStock : 0);
-    }
-
     /**
-     * Método auxiliar para rellenar los campos @Transient (String names) de un producto
-     * y la imagen principal.
+     * Detalle completo del producto (imágenes, atributos, proveedores y stock total) en una sola
+     * llamada; las partes se consultan en paralelo.
      */
-    private Product enrichProductWithNames(Product product) {
-
-        brandRepository.findById(product.getBrandId())
-                .ifPresent(brand -> product.setBrandName(brand.getName()));
-
-        categoryRepository.findById(product.getCategoryId())
-                .ifPresent(category -> product.setCategoryName(category.getName()));
-
-        unitOfMeasureRepository.findById(product.getUnitOfMeasureId())
-                .ifPresent(uom -> product.setUnitOfMeasureName(uom.getName()));
-
-
-        List<ProductSupplier> preferredSuppliers = productSupplierRepository.findByProductIdAndIsPreferred(product.getId(), true);
-
-        if (!preferredSuppliers.isEmpty()) {
-
-            ProductSupplier preferredSupplier = preferredSuppliers.get(0);
-
-            Long supplierId = preferredSupplier.getSupplierId(); 
-            supplierRepository.findById(supplierId)
-                    .ifPresent(supplier -> product.setSupplierName(supplier.getName()));
-        }
-
-        productImageRepository.findByProductIdAndIsMain(product.getId(), true)
-                .ifPresentOrElse(
-
-                        mainImage -> product.setImageUrl(mainImage.getImageUrl()),
-
-                        () -> productImageRepository.findTopByProductIdOrderBySortOrderAsc(product.getId())
-                                .ifPresent(firstImage -> product.setImageUrl(firstImage.getImageUrl()))
-                );
+    @GetMapping("/{id}/full")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER')")
+    public ResponseEntity<ProductDetailDTO> getProductDetail(@PathVariable Long id) {
+        return productDetailService.getDetail(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 
-        return product;
+    @GetMapping("/{id}/stock")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER')")
+    public ResponseEntity<Integer> getProductTotalStock(@PathVariable Long id) {
+        return productStockSummaryService.getOnHand(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.nomos.inventory.service.controller;
 
 import com.nomos.inventory.service.model.ProductImage;
 import com.nomos.inventory.service.repository.ProductImageRepository;
+import com.nomos.inventory.service.service.CollectionVersionService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -24,6 +25,7 @@ import java.io.IOException;
 public class ProductImageController {
 
     private final ProductImageRepository imageRepository;
+    private final CollectionVersionService collectionVersionService;
 
 
     private final Path fileStorageLocation = Paths.get("uploads/images/").toAbsolutePath().normalize();
@@ -35,9 +37,11 @@ public class ProductImageController {
 
     public ProductImageController(
             ProductImageRepository imageRepository,
+            CollectionVersionService collectionVersionService,
             @Value("${server.base-url:http://localhost:8080}") String baseUrl) {
 
         this.imageRepository = imageRepository;
+        this.collectionVersionService = collectionVersionService;
         this.baseUrl = baseUrl;
 
         try {
@@ -97,6 +101,7 @@ public class ProductImageController {
         }
 
         ProductImage savedImage = imageRepository.save(image);
+        collectionVersionService.bump(CollectionVersionService.Collection.PRODUCTS);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedImage);
     }
 
@@ -105,6 +110,7 @@ public class ProductImageController {
     public ResponseEntity<Void> deleteProductImage(@PathVariable Long id) {
         if (imageRepository.existsById(id)) {
             imageRepository.deleteById(id);
+            collectionVersionService.bump(CollectionVersionService.Collection.PRODUCTS);
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
@@ -154,6 +160,7 @@ public class ProductImageController {
         }
 
         ProductImage savedImage = imageRepository.save(newImage); 
+        collectionVersionService.bump(CollectionVersionService.Collection.PRODUCTS);
 
         return ResponseEntity.status(HttpStatus.CREATED).body(savedImage);
     }
@@ -172,6 +179,7 @@ public class ProductImageController {
         }
 
         ProductImage savedImage = imageRepository.save(urlData);
+        collectionVersionService.bump(CollectionVersionService.Collection.PRODUCTS);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedImage);
     }
 }
\ No newline at end of file
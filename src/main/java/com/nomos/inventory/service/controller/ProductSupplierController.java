@@ -3,6 +3,7 @@ package com.nomos.inventory.service.controller;
 import com.nomos.inventory.service.model.ProductSupplier;
 import com.nomos.inventory.service.model.ProductSupplier.ProductSupplierId;
 import com.nomos.inventory.service.repository.ProductSupplierRepository;
+import com.nomos.inventory.service.service.CollectionVersionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +20,7 @@ import java.util.Optional;
 public class ProductSupplierController {
 
     private final ProductSupplierRepository psRepository;
+    private final CollectionVersionService collectionVersionService;
 
 
     /**
@@ -63,6 +65,7 @@ public class ProductSupplierController {
         }
 
         ProductSupplier savedRelation = psRepository.save(relation);
+        collectionVersionService.bump(CollectionVersionService.Collection.PRODUCTS);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedRelation);
     }
 
@@ -91,6 +94,7 @@ public class ProductSupplierController {
             relation.setIsActive(relationDetails.getIsActive());
 
             ProductSupplier updatedRelation = psRepository.save(relation);
+            collectionVersionService.bump(CollectionVersionService.Collection.PRODUCTS);
             return ResponseEntity.ok(updatedRelation);
         }).orElse(ResponseEntity.notFound().build());
     }
@@ -105,6 +109,7 @@ public class ProductSupplierController {
 
         if (psRepository.existsById(id)) {
             psRepository.deleteById(id);
+            collectionVersionService.bump(CollectionVersionService.Collection.PRODUCTS);
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
@@ -0,0 +1,74 @@
+package com.nomos.inventory.service.controller;
+
+import com.nomos.inventory.service.model.ReconciliationDrift;
+import com.nomos.inventory.service.model.ReconciliationRun;
+import com.nomos.inventory.service.model.dto.CursorPage;
+import com.nomos.inventory.service.service.StockReconciliationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controlador REST para la conciliación entre el stock de los lotes y el libro de movimientos.
+ * Base URL: /api/v1/reconciliation
+ */
+@RestController
+@RequestMapping("/api/v1/reconciliation")
+@RequiredArgsConstructor
+public class ReconciliationController {
+
+    private final StockReconciliationService stockReconciliationService;
+
+    /**
+     * POST /api/v1/reconciliation/runs : Iniciar una conciliación en segundo plano. Con {@code fix=true}
+     * cada diferencia se registra con un movimiento AJUSTE_CONCILIACION.
+     */
+    @PostMapping("/runs")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<ReconciliationRun> startRun(@RequestParam(defaultValue = "false") boolean fix) {
+        return new ResponseEntity<>(stockReconciliationService.start(fix), HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * GET /api/v1/reconciliation/runs : Últimas ejecuciones.
+     */
+    @GetMapping("/runs")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_AUDITOR')")
+    public ResponseEntity<List<ReconciliationRun>> getRuns() {
+        return ResponseEntity.ok(stockReconciliationService.listRuns());
+    }
+
+    /**
+     * GET /api/v1/reconciliation/runs/{id} : Estado y progreso de una ejecución.
+     */
+    @GetMapping("/runs/{id}")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_AUDITOR')")
+    public ResponseEntity<ReconciliationRun> getRun(@PathVariable Long id) {
+        return ResponseEntity.ok(stockReconciliationService.getRun(id));
+    }
+
+    /**
+     * POST /api/v1/reconciliation/runs/{id}/resume : Reanudar desde su checkpoint una ejecución interrumpida.
+     */
+    @PostMapping("/runs/{id}/resume")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<ReconciliationRun> resumeRun(@PathVariable Long id) {
+        return new ResponseEntity<>(stockReconciliationService.resume(id), HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * GET /api/v1/reconciliation/runs/{id}/drifts : Diferencias por lote, paginadas por cursor.
+     */
+    @GetMapping("/runs/{id}/drifts")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_AUDITOR')")
+    public ResponseEntity<CursorPage<ReconciliationDrift>> getDrifts(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(stockReconciliationService.findDrifts(id, cursor, limit));
+    }
+}
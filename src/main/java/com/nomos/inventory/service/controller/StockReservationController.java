@@ -0,0 +1,66 @@
+package com.nomos.inventory.service.controller;
+
+import com.nomos.inventory.service.model.StockReservation;
+import com.nomos.inventory.service.model.dto.AllocationResultDTO;
+import com.nomos.inventory.service.model.dto.AvailabilityDTO;
+import com.nomos.inventory.service.model.dto.ReservationRequestDTO;
+import com.nomos.inventory.service.service.StockReservationService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controlador REST para las reservas de stock entre el carrito y el pago.
+ * Base URL: /api/v1/stock-reservations
+ */
+@RestController
+@RequestMapping("/api/v1/stock-reservations")
+@RequiredArgsConstructor
+public class StockReservationController {
+
+    private final StockReservationService stockReservationService;
+
+    /**
+     * POST /api/v1/stock-reservations : Apartar stock de un producto en un almacén por un tiempo limitado.
+     */
+    @PostMapping
+    public ResponseEntity<StockReservation> reserve(@Valid @RequestBody ReservationRequestDTO request) {
+        return new ResponseEntity<>(stockReservationService.reserve(request), HttpStatus.CREATED);
+    }
+
+    /**
+     * GET /api/v1/stock-reservations/{id} : Obtener una reserva.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<StockReservation> getReservation(@PathVariable Long id) {
+        return ResponseEntity.ok(stockReservationService.getReservation(id));
+    }
+
+    /**
+     * POST /api/v1/stock-reservations/{id}/confirm : Convertir la reserva en una venta (SALIDA_VENTA).
+     */
+    @PostMapping("/{id}/confirm")
+    public ResponseEntity<AllocationResultDTO> confirm(@PathVariable Long id) {
+        return new ResponseEntity<>(stockReservationService.confirm(id), HttpStatus.CREATED);
+    }
+
+    /**
+     * POST /api/v1/stock-reservations/{id}/release : Liberar la reserva sin vender.
+     */
+    @PostMapping("/{id}/release")
+    public ResponseEntity<Void> release(@PathVariable Long id) {
+        stockReservationService.release(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * GET /api/v1/stock-reservations/availability : Disponible para vender (existencias - reservas activas).
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<AvailabilityDTO> availability(@RequestParam Long productId,
+                                                        @RequestParam(required = false) Long warehouseId) {
+        return ResponseEntity.ok(stockReservationService.availability(productId, warehouseId));
+    }
+}
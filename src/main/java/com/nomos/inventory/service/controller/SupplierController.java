@@ -2,6 +2,7 @@ package com.nomos.inventory.service.controller;
 
 import com.nomos.inventory.service.model.Supplier;
 import com.nomos.inventory.service.repository.SupplierRepository;
+import com.nomos.inventory.service.service.CollectionVersionService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -24,10 +25,12 @@ import java.util.Optional;
 public class SupplierController {
 
     private final SupplierRepository supplierRepository;
+    private final CollectionVersionService collectionVersionService;
 
     @Autowired
-    public SupplierController(SupplierRepository supplierRepository) {
+    public SupplierController(SupplierRepository supplierRepository, CollectionVersionService collectionVersionService) {
         this.supplierRepository = supplierRepository;
+        this.collectionVersionService = collectionVersionService;
     }
 
     /**
@@ -96,6 +99,7 @@ public class SupplierController {
         supplier.setContactName(supplierDetails.getContactName());
 
         Supplier updatedSupplier = supplierRepository.save(supplier);
+        collectionVersionService.bump(CollectionVersionService.Collection.PRODUCTS);
         return ResponseEntity.ok(updatedSupplier);
     }
 
@@ -111,6 +115,7 @@ public class SupplierController {
         }
 
         supplierRepository.deleteById(id);
+        collectionVersionService.bump(CollectionVersionService.Collection.PRODUCTS);
         return ResponseEntity.noContent().build();
     }
 }
@@ -2,6 +2,8 @@ package com.nomos.inventory.service.controller;
 
 import com.nomos.inventory.service.model.UnitOfMeasure;
 import com.nomos.inventory.service.repository.UnitOfMeasureRepository;
+import com.nomos.inventory.service.service.MasterDataCacheService;
+import com.nomos.inventory.service.service.CollectionVersionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +18,8 @@ import jakarta.validation.Valid;
 public class UnitOfMeasureController {
 
     private final UnitOfMeasureRepository uomRepository;
+    private final MasterDataCacheService masterDataCacheService;
+    private final CollectionVersionService collectionVersionService;
 
     @GetMapping
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER')")
@@ -33,6 +37,7 @@ public class UnitOfMeasureController {
         }
 
         UnitOfMeasure savedUom = uomRepository.save(uom);
+        masterDataCacheService.putUnitOfMeasure(savedUom);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedUom);
     }
 
@@ -51,6 +56,8 @@ public class UnitOfMeasureController {
             uom.setName(uomDetails.getName());
             uom.setAbbreviation(uomDetails.getAbbreviation());
             UnitOfMeasure updatedUom = uomRepository.save(uom);
+            masterDataCacheService.putUnitOfMeasure(updatedUom);
+            collectionVersionService.bump(CollectionVersionService.Collection.PRODUCTS);
             return ResponseEntity.ok(updatedUom);
         }).orElse(ResponseEntity.notFound().build());
     }
@@ -62,6 +69,8 @@ public class UnitOfMeasureController {
 
 
             uomRepository.deleteById(id);
+            masterDataCacheService.evictUnitOfMeasure(id);
+            collectionVersionService.bump(CollectionVersionService.Collection.PRODUCTS);
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
@@ -2,11 +2,14 @@ package com.nomos.inventory.service.controller;
 
 import com.nomos.inventory.service.model.Warehouse;
 import com.nomos.inventory.service.repository.WarehouseRepository;
+import com.nomos.inventory.service.service.MasterDataCacheService;
+import com.nomos.inventory.service.service.CollectionVersionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import jakarta.validation.Valid;
 import java.util.List;
 import java.util.Optional;
@@ -17,11 +20,17 @@ import java.util.Optional;
 public class WarehouseController {
 
     private final WarehouseRepository warehouseRepository;
+    private final MasterDataCacheService masterDataCacheService;
+    private final CollectionVersionService collectionVersionService;
 
     @GetMapping
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR', 'ROLE_SUPPLIER', 'ROLE_AUDITOR')")
-    public ResponseEntity<List<Warehouse>> getAllWarehouses() {
-        return ResponseEntity.ok(warehouseRepository.findAll());
+    public ResponseEntity<List<Warehouse>> getAllWarehouses(WebRequest request) {
+        String etag = collectionVersionService.etag(CollectionVersionService.Collection.WAREHOUSES);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(warehouseRepository.findAll());
     }
 
     @GetMapping("/{id}")
@@ -45,11 +54,13 @@ public class WarehouseController {
             Optional<Warehouse> currentMain = warehouseRepository.findByIsMainTrue();
             currentMain.ifPresent(main -> {
                 main.setIsMain(false);
-                warehouseRepository.save(main);
+                masterDataCacheService.putWarehouse(warehouseRepository.save(main));
             });
         }
 
         Warehouse savedWarehouse = warehouseRepository.save(warehouse);
+        masterDataCacheService.putWarehouse(savedWarehouse);
+        collectionVersionService.bump(CollectionVersionService.Collection.WAREHOUSES);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedWarehouse);
     }
 
@@ -69,7 +80,7 @@ public class WarehouseController {
                 currentMain.ifPresent(main -> {
                     if (!main.getId().equals(warehouse.getId())) {
                         main.setIsMain(false);
-                        warehouseRepository.save(main);
+                        masterDataCacheService.putWarehouse(warehouseRepository.save(main));
                     }
                 });
             } else if (!warehouseDetails.getIsMain() && warehouse.getIsMain()) {
@@ -84,6 +95,8 @@ public class WarehouseController {
             warehouse.setIsMain(warehouseDetails.getIsMain());
 
             Warehouse updatedWarehouse = warehouseRepository.save(warehouse);
+            masterDataCacheService.putWarehouse(updatedWarehouse);
+            collectionVersionService.bump(CollectionVersionService.Collection.WAREHOUSES);
             return ResponseEntity.ok(updatedWarehouse);
         }).orElse(ResponseEntity.notFound().build());
     }
@@ -95,6 +108,8 @@ public class WarehouseController {
 
 
             warehouseRepository.deleteById(id);
+            masterDataCacheService.evictWarehouse(id);
+            collectionVersionService.bump(CollectionVersionService.Collection.WAREHOUSES);
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
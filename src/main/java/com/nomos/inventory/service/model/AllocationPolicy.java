@@ -0,0 +1,11 @@
+package com.nomos.inventory.service.model;
+
+/**
+ * Orden en que se consumen los lotes de un producto en una salida sin lote explícito.
+ */
+public enum AllocationPolicy {
+    /** First expired, first out: primero el lote que vence antes; los lotes sin vencimiento, al final. */
+    FEFO,
+    /** First in, first out: primero el lote que ingresó antes. */
+    FIFO
+}
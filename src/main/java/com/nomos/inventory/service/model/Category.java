@@ -32,6 +32,12 @@ public class Category {
     @JoinColumn(name = "parent_id")
     private Category parent;
 
-
-
+    /** Política de asignación de lotes; null hereda la de la categoría padre. */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "allocation_policy")
+    private AllocationPolicy allocationPolicy;
+
+    public Category(Long id, String name, String description, Category parent) {
+        this(id, name, description, parent, null);
+    }
 }
@@ -0,0 +1,62 @@
+package com.nomos.inventory.service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Respuesta guardada para un {@code Idempotency-Key}. La fila se inserta al empezar la ejecución
+ * (sin {@code statusCode}) y la restricción única sobre clave, ruta y usuario es la que decide qué
+ * petición ejecuta el handler cuando llegan duplicados a la vez, incluso en instancias distintas.
+ */
+@Entity
+@Table(name = "idempotency_keys", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_idempotency_keys_scope", columnNames = {"idempotency_key", "path", "principal"})
+}, indexes = {
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private String path;
+
+    @Column(nullable = false)
+    private String principal;
+
+    /** SHA-256 del cuerpo de la petición; la misma clave con otro cuerpo es un error del cliente. */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    /** null mientras la primera ejecución sigue en curso. */
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "response_body", length = 1048576)
+    private byte[] responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
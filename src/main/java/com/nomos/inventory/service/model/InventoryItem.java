@@ -14,6 +14,9 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "inventory_items", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"product_id", "warehouse_id", "lotNumber"})
+}, indexes = {
+        @Index(name = "idx_inventory_items_product_expiration", columnList = "product_id, expirationDate, id"),
+        @Index(name = "idx_inventory_items_product_entry", columnList = "product_id, entryDate, id")
 })
 @Data
 @NoArgsConstructor
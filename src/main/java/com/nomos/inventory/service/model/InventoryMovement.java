@@ -9,6 +9,14 @@ import java.time.LocalDateTime;
 
 
 @Entity
+@Table(name = "inventory_movement", indexes = {
+        @Index(name = "idx_inventory_movement_product_date", columnList = "product_id, movementDate DESC, id DESC"),
+        @Index(name = "idx_inventory_movement_date", columnList = "movementDate DESC, id DESC"),
+        @Index(name = "idx_inventory_movement_warehouse_date", columnList = "warehouse_id, movementDate DESC, id DESC"),
+        @Index(name = "idx_inventory_movement_type_date", columnList = "type, movementDate DESC, id DESC"),
+        @Index(name = "idx_inventory_movement_item_date", columnList = "inventory_item_id, movementDate"),
+        @Index(name = "idx_inventory_movement_reference", columnList = "referenceService, referenceId, movementDate DESC, id DESC")
+})
 @Data
 public class InventoryMovement {
 
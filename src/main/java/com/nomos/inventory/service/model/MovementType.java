@@ -5,5 +5,6 @@ public enum MovementType {
     SALIDA_VENTA,   
     AJUSTE_DEVOLUCION, 
     AJUSTE_PERDIDA,    
-    TRANSFERENCIA   
+    TRANSFERENCIA,
+    AJUSTE_CONCILIACION
 }
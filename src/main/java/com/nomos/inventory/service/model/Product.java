@@ -5,6 +5,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import jakarta.validation.constraints.Min;
@@ -15,7 +16,13 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_name_id", columnList = "name, id"),
+        @Index(name = "idx_products_category_id", columnList = "category, id"),
+        @Index(name = "idx_products_category_name_id", columnList = "category, name, id"),
+        @Index(name = "idx_products_brand_id", columnList = "brand, id"),
+        @Index(name = "idx_products_price", columnList = "price")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,43 @@
+package com.nomos.inventory.service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Proyección del stock por producto, mantenida en la misma transacción que cada cambio en
+ * {@code inventory_items}. Evita recorrer todos los lotes para conocer el total de un producto.
+ */
+@Entity
+@Table(name = "product_stock_summary")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStockSummary {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    /** Suma de las cantidades de todos los lotes del producto. */
+    @Column(name = "on_hand", nullable = false)
+    private Integer onHand;
+
+    /** Cantidad de lotes con stock mayor a cero. */
+    @Column(name = "lot_count", nullable = false)
+    private Integer lotCount;
+
+    /** Vencimiento más próximo entre los lotes con stock. */
+    @Column(name = "earliest_expiration")
+    private LocalDate earliestExpiration;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
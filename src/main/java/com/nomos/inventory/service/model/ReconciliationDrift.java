@@ -0,0 +1,68 @@
+package com.nomos.inventory.service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Diferencia detectada en un lote durante una {@link ReconciliationRun}: {@code drift = quantity - ledgerBalance}.
+ */
+@Entity
+@Table(name = "reconciliation_drifts", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_reconciliation_drifts_run_item", columnNames = {"run_id", "inventory_item_id"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationDrift {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Column(name = "inventory_item_id", nullable = false)
+    private Long inventoryItemId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "warehouse_id", nullable = false)
+    private Long warehouseId;
+
+    /** Cantidad del lote al revisarlo. */
+    @Column(nullable = false)
+    private Integer quantity;
+
+    /** {@code balance_after} del último movimiento del lote. */
+    @Column(name = "ledger_balance", nullable = false)
+    private Integer ledgerBalance;
+
+    @Column(nullable = false)
+    private Integer drift;
+
+    /** Movimientos cuyo {@code balance_after} no es el anterior más {@code quantity_change}. */
+    @Column(name = "chain_breaks", nullable = false)
+    private Integer chainBreaks;
+
+    @Column(name = "last_movement_id", nullable = false)
+    private Long lastMovementId;
+
+    /** Movimiento AJUSTE_CONCILIACION que corrigió la diferencia, si se corrigió. */
+    @Column(name = "adjustment_movement_id")
+    private Long adjustmentMovementId;
+
+    @Column(name = "detected_at", nullable = false)
+    private LocalDateTime detectedAt;
+}
@@ -0,0 +1,70 @@
+package com.nomos.inventory.service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ejecución de la conciliación entre {@code inventory_items.quantity} y el último {@code balance_after}
+ * de sus movimientos. {@code checkpointItemId} es el mayor id de lote tal que todos los lotes hasta él
+ * ya se revisaron; una ejecución interrumpida se reanuda desde ahí.
+ */
+@Entity
+@Table(name = "reconciliation_runs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationRun {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    /** Si es true, cada diferencia se corrige con un movimiento AJUSTE_CONCILIACION. */
+    @Column(name = "fix_drift", nullable = false)
+    private boolean fixDrift;
+
+    /** Mayor id de lote al iniciar; los lotes creados después quedan para la próxima ejecución. */
+    @Column(name = "max_item_id", nullable = false)
+    private Long maxItemId;
+
+    @Column(name = "checkpoint_item_id", nullable = false)
+    private Long checkpointItemId;
+
+    @Column(name = "items_checked", nullable = false)
+    private long itemsChecked;
+
+    @Column(name = "drift_count", nullable = false)
+    private long driftCount;
+
+    @Column(name = "adjusted_count", nullable = false)
+    private long adjustedCount;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "failure_message", length = 1000)
+    private String failureMessage;
+}
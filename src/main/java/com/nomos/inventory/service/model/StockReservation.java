@@ -0,0 +1,62 @@
+package com.nomos.inventory.service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock apartado entre el carrito y el pago. La fuente de verdad en ejecución es el índice en memoria
+ * de {@code StockReservationService}; la tabla permite recuperar las reservas activas tras un reinicio.
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = {
+        @Index(name = "idx_stock_reservations_status_expires", columnList = "status, expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+
+    public enum Status { ACTIVE, CONFIRMED, RELEASED, EXPIRED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "warehouse_id", nullable = false)
+    private Long warehouseId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    /** Identificador externo opcional (carrito, pedido). */
+    private String reference;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /** Momento en que dejó de estar activa (confirmada, liberada o vencida). */
+    @Column(name = "resolved_at")
+    private LocalDateTime resolvedAt;
+}
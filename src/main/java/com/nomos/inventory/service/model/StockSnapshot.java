@@ -0,0 +1,51 @@
+package com.nomos.inventory.service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Cantidad de un lote al inicio del día {@code snapshotDate}: incluye los movimientos anteriores a las
+ * 00:00 de ese día y ninguno posterior. Las escribe {@code StockSnapshotService} una vez por día.
+ */
+@Entity
+@Table(name = "stock_snapshots", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stock_snapshots_date_item", columnNames = {"snapshot_date", "inventory_item_id"})
+}, indexes = {
+        @Index(name = "idx_stock_snapshots_product_warehouse", columnList = "product_id, warehouse_id, snapshot_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "snapshot_date", nullable = false)
+    private LocalDate snapshotDate;
+
+    /** Sin clave foránea: la foto se conserva aunque el lote se borre después. */
+    @Column(name = "inventory_item_id", nullable = false)
+    private Long inventoryItemId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "warehouse_id", nullable = false)
+    private Long warehouseId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+}
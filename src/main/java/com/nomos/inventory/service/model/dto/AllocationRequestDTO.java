@@ -0,0 +1,44 @@
+package com.nomos.inventory.service.model.dto;
+
+import com.nomos.inventory.service.model.MovementType;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PastOrPresent;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Salida de stock sin lote explícito; el motor de asignación elige los lotes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AllocationRequestDTO {
+
+    @NotNull(message = "El producto es obligatorio")
+    private Long productId;
+
+    /** Opcional; si se indica, solo se consumen lotes de este almacén. */
+    private Long warehouseId;
+
+    @NotNull(message = "La cantidad es obligatoria")
+    @Positive(message = "La cantidad a asignar debe ser positiva")
+    private Integer quantity;
+
+    @NotNull(message = "El tipo de movimiento es obligatorio")
+    private MovementType type;
+
+    @NotBlank(message = "La razón del movimiento es obligatoria")
+    private String reason;
+
+    @PastOrPresent(message = "La fecha de movimiento no puede ser futura")
+    private LocalDateTime movementDate;
+
+    private Long referenceId;
+
+    private String referenceService;
+}
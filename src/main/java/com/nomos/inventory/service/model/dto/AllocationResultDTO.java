@@ -0,0 +1,33 @@
+package com.nomos.inventory.service.model.dto;
+
+import com.nomos.inventory.service.model.AllocationPolicy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultado de una asignación: un movimiento registrado por cada lote consumido, en el orden de la política.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AllocationResultDTO {
+
+    private Long productId;
+    private AllocationPolicy policy;
+    private int quantity;
+    private List<Line> lines;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private Long movementId;
+        private Long inventoryItemId;
+        private Long warehouseId;
+        private int quantity;
+        private int balanceAfter;
+    }
+}
@@ -0,0 +1,21 @@
+package com.nomos.inventory.service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Stock disponible para vender: existencias menos reservas activas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityDTO {
+
+    private Long productId;
+    /** null cuando el valor es la suma de todos los almacenes. */
+    private Long warehouseId;
+    private long onHand;
+    private long reserved;
+    private long available;
+}
@@ -0,0 +1,17 @@
+package com.nomos.inventory.service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDTO {
+    private String name;
+    private int size;
+    private int maxEntries;
+    private long hits;
+    private long misses;
+    private long evictions;
+}
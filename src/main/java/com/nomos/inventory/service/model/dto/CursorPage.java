@@ -0,0 +1,20 @@
+package com.nomos.inventory.service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de resultados paginada por keyset. {@code nextCursor} es opaco para el cliente
+ * y debe reenviarse tal cual para obtener la página siguiente.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
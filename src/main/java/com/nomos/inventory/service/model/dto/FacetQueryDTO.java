@@ -0,0 +1,21 @@
+package com.nomos.inventory.service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consulta de facetas: {@code filters} es attributeId -> valores aceptados
+ * (OR dentro de un atributo, AND entre atributos).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetQueryDTO {
+    private Map<Long, List<String>> filters;
+    private List<Long> facetAttributeIds;
+    private Integer limit;
+}
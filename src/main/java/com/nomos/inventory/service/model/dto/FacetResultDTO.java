@@ -0,0 +1,17 @@
+package com.nomos.inventory.service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetResultDTO {
+    private int total;
+    private List<Long> productIds;
+    private Map<Long, Map<String, Integer>> facets;
+}
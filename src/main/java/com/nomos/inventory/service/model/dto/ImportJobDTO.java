@@ -0,0 +1,33 @@
+package com.nomos.inventory.service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Estado de una importación masiva de productos, consultable mientras se procesa.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobDTO {
+
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED }
+
+    private String jobId;
+    private Status status;
+    private String format;
+    private long processedRows;
+    private long insertedRows;
+    private long failedRows;
+    /** Errores por fila; se guardan como máximo {@code maxErrors} para acotar la memoria. */
+    private List<ImportRowErrorDTO> errors;
+    private boolean errorsTruncated;
+    private String failureMessage;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Double rowsPerSecond;
+}
@@ -0,0 +1,16 @@
+package com.nomos.inventory.service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportRowErrorDTO {
+
+    /** Número de fila de datos en el archivo (1 = primera fila después del encabezado). */
+    private long row;
+    private String sku;
+    private String message;
+}
@@ -0,0 +1,25 @@
+package com.nomos.inventory.service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultado de una carga masiva de movimientos: un resultado por línea, en el orden recibido.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovementBulkResultDTO {
+
+    private int accepted;
+    private int rejected;
+    private List<MovementLineResultDTO> lines;
+    /**
+     * Motivo por el que se dejó de leer el cuerpo (JSON mal formado o más de {@code max-lines} líneas)
+     * cuando ya se habían confirmado bloques anteriores; null si se leyó completo.
+     */
+    private String error;
+}
@@ -0,0 +1,20 @@
+package com.nomos.inventory.service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovementLineResultDTO {
+
+    /** Posición del movimiento en el arreglo enviado (0 = primero). */
+    private int line;
+    /** Código HTTP equivalente al que habría devuelto el POST individual (201, 400, 409). */
+    private int status;
+    private Long movementId;
+    private Long inventoryItemId;
+    private Integer balanceAfter;
+    private String error;
+}
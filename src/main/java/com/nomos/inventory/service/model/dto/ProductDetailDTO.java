@@ -0,0 +1,27 @@
+package com.nomos.inventory.service.model.dto;
+
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.ProductAttributeValue;
+import com.nomos.inventory.service.model.ProductImage;
+import com.nomos.inventory.service.model.ProductSupplier;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Vista de detalle de producto en una sola respuesta: producto enriquecido, imágenes,
+ * valores de atributos, proveedores y stock total.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductDetailDTO {
+
+    private Product product;
+    private List<ProductImage> images;
+    private List<ProductAttributeValue> attributeValues;
+    private List<ProductSupplier> suppliers;
+    private Integer totalStock;
+}
@@ -0,0 +1,30 @@
+package com.nomos.inventory.service.model.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationRequestDTO {
+
+    @NotNull(message = "El producto es obligatorio")
+    private Long productId;
+
+    @NotNull(message = "El almacén es obligatorio")
+    private Long warehouseId;
+
+    @NotNull(message = "La cantidad es obligatoria")
+    @Positive(message = "La cantidad a reservar debe ser positiva")
+    private Integer quantity;
+
+    /** Vigencia en segundos; si se omite se usa la vigencia por defecto del servicio. */
+    @Positive(message = "La vigencia debe ser positiva")
+    private Long ttlSeconds;
+
+    /** Identificador externo opcional (carrito, pedido). */
+    private String reference;
+}
@@ -0,0 +1,17 @@
+package com.nomos.inventory.service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Existencias de un producto en un almacén en un instante pasado.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAsOfDTO {
+    private Long productId;
+    private Long warehouseId;
+    private long quantity;
+}
@@ -0,0 +1,22 @@
+package com.nomos.inventory.service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Existencias reconstruidas a {@code asOf}. {@code snapshotDate} es la foto diaria desde la que se
+ * reprodujeron los movimientos, o {@code null} si no había ninguna anterior.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAsOfReportDTO {
+    private LocalDateTime asOf;
+    private LocalDate snapshotDate;
+    private List<StockAsOfDTO> lines;
+}
@@ -0,0 +1,20 @@
+package com.nomos.inventory.service.model.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBatchRequestDTO {
+
+    @NotEmpty(message = "Debe indicar al menos un producto")
+    private List<Long> productIds;
+
+    /** Si es true, además del total se devuelve el desglose por almacén. */
+    private boolean byWarehouse;
+}
@@ -0,0 +1,23 @@
+package com.nomos.inventory.service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBatchResponseDTO {
+
+    /** productId -> stock total. */
+    private Map<Long, Integer> totals;
+
+    /** productId -> (warehouseId -> stock); null si no se pidió el desglose. */
+    private Map<Long, Map<Long, Integer>> byWarehouse;
+
+    /** Ids solicitados que no corresponden a ningún producto. */
+    private List<Long> missingProductIds;
+}
@@ -0,0 +1,21 @@
+package com.nomos.inventory.service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Matriz producto × almacén en formato columnar: {@code quantities[w][p]} es el stock del producto
+ * {@code productIds[p]} en el almacén {@code warehouseIds[w]}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMatrixDTO {
+
+    /** Hash del contenido: cambia cada vez que la matriz cambia y sirve como ETag. */
+    private long version;
+    private long[] productIds;
+    private long[] warehouseIds;
+    private int[][] quantities;
+}
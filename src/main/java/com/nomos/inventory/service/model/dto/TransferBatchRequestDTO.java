@@ -0,0 +1,18 @@
+package com.nomos.inventory.service.model.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferBatchRequestDTO {
+
+    @NotEmpty(message = "Debe indicar al menos una transferencia")
+    private List<@Valid TransferRequestDTO> transfers;
+}
@@ -0,0 +1,32 @@
+package com.nomos.inventory.service.model.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Traslado de stock de un lote a otro almacén. El lote destino es el del mismo producto y número de
+ * lote en el almacén destino; si no existe se crea con el mismo costo, vencimiento y fecha de ingreso.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferRequestDTO {
+
+    @NotNull(message = "El lote de origen es obligatorio")
+    private Long sourceInventoryItemId;
+
+    @NotNull(message = "El almacén destino es obligatorio")
+    private Long toWarehouseId;
+
+    @NotNull(message = "La cantidad es obligatoria")
+    @Positive(message = "La cantidad a transferir debe ser positiva")
+    private Integer quantity;
+
+    /** Opcional; por defecto "Transferencia entre almacenes". */
+    private String reason;
+
+    private Long referenceId;
+}
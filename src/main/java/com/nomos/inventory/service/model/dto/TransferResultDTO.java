@@ -0,0 +1,28 @@
+package com.nomos.inventory.service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de una transferencia: los dos movimientos {@code TRANSFERENCIA} (salida del origen y
+ * entrada al destino) o el error que la rechazó, en cuyo caso no se aplicó ninguno de los dos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferResultDTO {
+
+    /** Posición en el lote de transferencias (0 = primera). */
+    private int line;
+    /** Código HTTP equivalente (201, 400, 409). */
+    private int status;
+    private Long sourceInventoryItemId;
+    private Long destinationInventoryItemId;
+    private Integer quantity;
+    private Long outMovementId;
+    private Long inMovementId;
+    private Integer sourceBalanceAfter;
+    private Integer destinationBalanceAfter;
+    private String error;
+}
@@ -2,6 +2,8 @@ package com.nomos.inventory.service.repository;
 
 import com.nomos.inventory.service.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import java.util.List;
 import java.util.Optional;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
@@ -9,4 +11,8 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
 
 
     Optional<Category> findByName(String name); 
+
+    /** Pares [id, parentId] de todas las categorías, sin inicializar los proxies de padre. */
+    @Query("SELECT c.id, p.id FROM Category c LEFT JOIN c.parent p")
+    List<Object[]> findAllIdsWithParentId();
 }
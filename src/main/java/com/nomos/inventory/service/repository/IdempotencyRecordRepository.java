@@ -0,0 +1,32 @@
+package com.nomos.inventory.service.repository;
+
+import com.nomos.inventory.service.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByIdempotencyKeyAndPathAndPrincipal(String idempotencyKey, String path, String principal);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.statusCode = :statusCode, r.contentType = :contentType, " +
+            "r.responseBody = :responseBody WHERE r.id = :id")
+    int complete(@Param("id") Long id,
+                 @Param("statusCode") int statusCode,
+                 @Param("contentType") String contentType,
+                 @Param("responseBody") byte[] responseBody);
+
+    /** Borra las respuestas guardadas antes de {@code completedBefore} y las reservas de clave abandonadas. */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :completedBefore " +
+            "OR (r.statusCode IS NULL AND r.createdAt < :pendingBefore)")
+    int purge(@Param("completedBefore") LocalDateTime completedBefore, @Param("pendingBefore") LocalDateTime pendingBefore);
+}
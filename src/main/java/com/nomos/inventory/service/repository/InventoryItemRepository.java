@@ -1,10 +1,14 @@
 package com.nomos.inventory.service.repository;
 
 import com.nomos.inventory.service.model.InventoryItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +22,75 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
     
     List<InventoryItem> findByProductId(Long productId);
 
+    /**
+     * Suma {@code delta} a la cantidad del lote solo si el resultado no queda negativo. La comparación
+     * y la escritura ocurren en la misma sentencia sobre la fila bloqueada, así dos ventas concurrentes
+     * no pueden pasar ambas el control de stock ni pisarse el resultado.
+     *
+     * @return 1 si se aplicó, 0 si el lote no existe o el stock no alcanza.
+     */
+    @Modifying
+    @Query("UPDATE InventoryItem i SET i.quantity = i.quantity + :delta WHERE i.id = :id AND i.quantity + :delta >= 0")
+    int applyQuantityDelta(@Param("id") Long id, @Param("delta") int delta);
+
+    /** [cantidad, productId, warehouseId] del lote, leído de la fila y no del contexto de persistencia. */
+    @Query("SELECT i.quantity, i.product.id, i.warehouse.id FROM InventoryItem i WHERE i.id = :id")
+    List<Object[]> findStockRowById(@Param("id") Long id);
+
+    @Query("SELECT i.id FROM InventoryItem i WHERE i.product.id = :productId ORDER BY i.id")
+    List<Long> findIdsByProductId(@Param("productId") Long productId);
+
+    /**
+     * [id, cantidad, warehouseId] de los lotes con stock del producto en orden FEFO. Recorre
+     * {@code idx_inventory_items_product_expiration}; se pide por páginas hasta cubrir la cantidad.
+     * Con {@code notExpiredOn} se omiten los lotes vencidos antes de esa fecha; con null se incluyen.
+     */
+    @Query("SELECT i.id, i.quantity, i.warehouse.id FROM InventoryItem i " +
+            "WHERE i.product.id = :productId AND i.quantity > 0 AND (:warehouseId IS NULL OR i.warehouse.id = :warehouseId) " +
+            "AND (:notExpiredOn IS NULL OR i.expirationDate IS NULL OR i.expirationDate >= :notExpiredOn) " +
+            "ORDER BY i.expirationDate ASC NULLS LAST, i.id")
+    List<Object[]> findAllocatableLotsFefo(@Param("productId") Long productId, @Param("warehouseId") Long warehouseId,
+                                           @Param("notExpiredOn") LocalDate notExpiredOn, Pageable page);
+
+    /** Igual que {@link #findAllocatableLotsFefo} pero en orden de ingreso (FIFO). */
+    @Query("SELECT i.id, i.quantity, i.warehouse.id FROM InventoryItem i " +
+            "WHERE i.product.id = :productId AND i.quantity > 0 AND (:warehouseId IS NULL OR i.warehouse.id = :warehouseId) " +
+            "AND (:notExpiredOn IS NULL OR i.expirationDate IS NULL OR i.expirationDate >= :notExpiredOn) " +
+            "ORDER BY i.entryDate, i.id")
+    List<Object[]> findAllocatableLotsFifo(@Param("productId") Long productId, @Param("warehouseId") Long warehouseId,
+                                           @Param("notExpiredOn") LocalDate notExpiredOn, Pageable page);
+
+    @Query("SELECT COALESCE(SUM(i.quantity), 0) FROM InventoryItem i WHERE i.product.id = :productId AND i.warehouse.id = :warehouseId")
+    long sumQuantityByProductIdAndWarehouseId(@Param("productId") Long productId, @Param("warehouseId") Long warehouseId);
+
+    /**
+     * Bloquea ({@code FOR UPDATE}, en orden de id) los lotes del producto en el almacén. Reservar y
+     * vender los toman en el mismo orden, así el control contra lo reservado ve un total estable.
+     */
+    @Query(value = "SELECT id FROM inventory_items WHERE product_id = :productId AND warehouse_id = :warehouseId " +
+            "ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockLots(@Param("productId") Long productId, @Param("warehouseId") Long warehouseId);
+
+    /** Igual que {@link #lockLots}, para el producto y el almacén del lote indicado. */
+    @Query(value = "SELECT i.id FROM inventory_items i " +
+            "WHERE i.product_id = (SELECT product_id FROM inventory_items WHERE id = :id) " +
+            "AND i.warehouse_id = (SELECT warehouse_id FROM inventory_items WHERE id = :id) " +
+            "ORDER BY i.id FOR UPDATE", nativeQuery = true)
+    List<Long> lockLotsOfSameStock(@Param("id") Long id);
+
+    /** [productId, id del primer lote] para cada producto de {@code productIds} que tenga inventario. */
+    @Query("SELECT i.product.id, MIN(i.id) FROM InventoryItem i WHERE i.product.id IN :productIds GROUP BY i.product.id")
+    List<Object[]> findFirstIdByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    /** [productId, warehouseId, cantidad] agrupado, sin cargar las entidades de producto ni almacén. */
+    @Query("SELECT i.product.id, i.warehouse.id, SUM(i.quantity) FROM InventoryItem i " +
+            "WHERE i.product.id IN :productIds GROUP BY i.product.id, i.warehouse.id")
+    List<Object[]> sumQuantityByProductAndWarehouse(@Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT i.product.id, i.warehouse.id, SUM(i.quantity) FROM InventoryItem i " +
+            "GROUP BY i.product.id, i.warehouse.id")
+    List<Object[]> sumQuantityByProductAndWarehouse();
+
     
     Optional<InventoryItem> findByProductIdAndWarehouseIdAndLotNumber(Long productId, Long warehouseId, String lotNumber);
 }
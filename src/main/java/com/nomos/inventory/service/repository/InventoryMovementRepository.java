@@ -2,13 +2,14 @@ package com.nomos.inventory.service.repository;
 
 import com.nomos.inventory.service.model.InventoryMovement;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 
 @Repository
-public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long> {
+public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long>, JpaSpecificationExecutor<InventoryMovement> {
 
     
     List<InventoryMovement> findByProductIdOrderByMovementDateDesc(Long productId);
@@ -0,0 +1,55 @@
+package com.nomos.inventory.service.repository;
+
+import com.nomos.inventory.service.model.InventoryMovement;
+import com.nomos.inventory.service.model.MovementType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filtros reutilizables para el historial de {@link InventoryMovement}.
+ * Cada método devuelve {@code null} cuando el filtro no aplica, de modo que
+ * pueden combinarse con {@link Specification#allOf}.
+ */
+public final class InventoryMovementSpecifications {
+
+    private InventoryMovementSpecifications() {
+    }
+
+    public static Specification<InventoryMovement> hasProduct(Long productId) {
+        return productId == null ? null : (root, query, cb) -> cb.equal(root.get("product").get("id"), productId);
+    }
+
+    public static Specification<InventoryMovement> hasWarehouse(Long warehouseId) {
+        return warehouseId == null ? null : (root, query, cb) -> cb.equal(root.get("warehouseId"), warehouseId);
+    }
+
+    public static Specification<InventoryMovement> hasType(MovementType type) {
+        return type == null ? null : (root, query, cb) -> cb.equal(root.get("type"), type);
+    }
+
+    public static Specification<InventoryMovement> hasReferenceService(String referenceService) {
+        return referenceService == null || referenceService.isBlank()
+                ? null : (root, query, cb) -> cb.equal(root.get("referenceService"), referenceService);
+    }
+
+    public static Specification<InventoryMovement> hasReferenceId(Long referenceId) {
+        return referenceId == null ? null : (root, query, cb) -> cb.equal(root.get("referenceId"), referenceId);
+    }
+
+    /** Rango cerrado de fechas; siempre acotado para que el planificador descarte particiones. */
+    public static Specification<InventoryMovement> movementDateBetween(LocalDateTime from, LocalDateTime to) {
+        return (root, query, cb) -> cb.between(root.get("movementDate"), from, to);
+    }
+
+    /** Keyset por (movementDate desc, id desc): movimientos que van después de la última fila devuelta. */
+    public static Specification<InventoryMovement> before(LocalDateTime lastDate, Long lastId) {
+        if (lastDate == null || lastId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("movementDate"), lastDate),
+                cb.and(cb.equal(root.get("movementDate"), lastDate), cb.lessThan(root.get("id"), lastId))
+        );
+    }
+}
@@ -3,6 +3,7 @@ package com.nomos.inventory.service.repository;
 import com.nomos.inventory.service.model.ProductAttributeValue;
 import com.nomos.inventory.service.model.ProductAttributeValue.ProductAttributeValueId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
 import java.util.List;
 
 
@@ -13,4 +14,6 @@ public interface ProductAttributeValueRepository extends JpaRepository<ProductAt
 
     
     List<ProductAttributeValue> findByProductIdAndAttributeId(Long productId, Long attributeId);
+
+    List<ProductAttributeValue> findByProductIdIn(Collection<Long> productIds);
 }
@@ -2,6 +2,7 @@ package com.nomos.inventory.service.repository;
 
 import com.nomos.inventory.service.model.ProductImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +15,6 @@ public interface ProductImageRepository extends JpaRepository<ProductImage, Long
     long countByProductId(Long productId);
 
     Optional<ProductImage> findTopByProductIdOrderBySortOrderAsc(Long productId);
+
+    List<ProductImage> findByProductIdInOrderBySortOrderAsc(Collection<Long> productIds);
 }
\ No newline at end of file
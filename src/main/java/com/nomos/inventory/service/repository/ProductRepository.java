@@ -3,13 +3,17 @@ package com.nomos.inventory.service.repository;
 import com.nomos.inventory.service.model.Product;
 import com.nomos.inventory.service.model.dto.StockAlertDTO;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
 
 
     Optional<Product> findBySku(String sku); 
@@ -17,19 +21,34 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     boolean existsBySku(String sku);
 
     boolean existsBySkuAndIdNot(String sku, Long id);
+
+    List<Product> findByBrandId(Long brandId);
+
+    List<Product> findBySkuIn(Collection<String> skus);
+
+    /** [productId, stock total] para los productos existentes entre {@code ids}. */
+    @Query("SELECT p.id, COALESCE(s.onHand, 0) FROM Product p " +
+            "LEFT JOIN ProductStockSummary s ON s.productId = p.id WHERE p.id IN :ids")
+    List<Object[]> findOnHandByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.sku FROM Product p WHERE p.sku IN :skus")
+    Set<String> findExistingSkus(@Param("skus") Collection<String> skus);
+
     @Query("SELECT new com.nomos.inventory.service.model.dto.StockAlertDTO(" +
             "p.id, " +
             "p.name, " +
             "p.sku, " +
             "(SELECT MAX(pi.imageUrl) FROM ProductImage pi WHERE pi.product.id = p.id AND pi.isMain = true), " +
-            "CAST(COALESCE(SUM(i.quantity), 0) AS int), " +
+            "COALESCE(s.onHand, 0), " +
             "p.minStockThreshold, " +
-            "CAST((p.minStockThreshold - COALESCE(SUM(i.quantity), 0)) AS int), " +
+            "CAST((p.minStockThreshold - COALESCE(s.onHand, 0)) AS int), " +
             "'LOW') " +
             "FROM Product p " +
-            "LEFT JOIN InventoryItem i ON i.product.id = p.id " +
+            "LEFT JOIN ProductStockSummary s ON s.productId = p.id " +
             "WHERE p.minStockThreshold IS NOT NULL " +
-            "GROUP BY p.id, p.name, p.sku, p.minStockThreshold " +
-            "HAVING COALESCE(SUM(i.quantity), 0) <= p.minStockThreshold")
+            "AND COALESCE(s.onHand, 0) <= p.minStockThreshold")
     List<StockAlertDTO> findProductsWithLowStock();
 }
@@ -0,0 +1,61 @@
+package com.nomos.inventory.service.repository;
+
+import com.nomos.inventory.service.model.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+
+/**
+ * Filtros reutilizables para consultas dinámicas sobre {@link Product}.
+ * Cada método devuelve {@code null} cuando el filtro no aplica, de modo que
+ * pueden combinarse con {@link Specification#allOf}.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> hasCategory(Long categoryId) {
+        return categoryId == null ? null : (root, query, cb) -> cb.equal(root.get("categoryId"), categoryId);
+    }
+
+    public static Specification<Product> inCategories(Collection<Long> categoryIds) {
+        return categoryIds == null ? null : (root, query, cb) -> root.get("categoryId").in(categoryIds);
+    }
+
+    public static Specification<Product> hasBrand(Long brandId) {
+        return brandId == null ? null : (root, query, cb) -> cb.equal(root.get("brandId"), brandId);
+    }
+
+    public static Specification<Product> priceAtLeast(Double minPrice) {
+        return minPrice == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    public static Specification<Product> priceAtMost(Double maxPrice) {
+        return maxPrice == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+
+    public static Specification<Product> skuStartsWith(String prefix) {
+        if (prefix == null || prefix.isBlank()) {
+            return null;
+        }
+        String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(root.get("sku"), pattern, '\\');
+    }
+
+    /** Keyset por id: productos con id estrictamente mayor al último devuelto. */
+    public static Specification<Product> idAfter(Long lastId) {
+        return lastId == null ? null : (root, query, cb) -> cb.greaterThan(root.get("id"), lastId);
+    }
+
+    /** Keyset por (name, id): productos que van después de la última fila devuelta. */
+    public static Specification<Product> nameAndIdAfter(String lastName, Long lastId) {
+        if (lastName == null || lastId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("name"), lastName),
+                cb.and(cb.equal(root.get("name"), lastName), cb.greaterThan(root.get("id"), lastId))
+        );
+    }
+}
@@ -0,0 +1,48 @@
+package com.nomos.inventory.service.repository;
+
+import com.nomos.inventory.service.model.ProductStockSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ProductStockSummaryRepository extends JpaRepository<ProductStockSummary, Long> {
+
+    /**
+     * Aplica un delta atómico sobre la fila del producto, creándola si no existe. Dos transacciones
+     * concurrentes sobre el mismo producto se serializan en el lock de la fila y ninguna pierde su delta.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO product_stock_summary (product_id, on_hand, lot_count, earliest_expiration, updated_at) " +
+            "VALUES (:productId, :quantityDelta, :lotDelta, NULL, now()) " +
+            "ON CONFLICT (product_id) DO UPDATE SET " +
+            "on_hand = product_stock_summary.on_hand + EXCLUDED.on_hand, " +
+            "lot_count = product_stock_summary.lot_count + EXCLUDED.lot_count, " +
+            "updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int applyDelta(@Param("productId") Long productId,
+                   @Param("quantityDelta") int quantityDelta,
+                   @Param("lotDelta") int lotDelta);
+
+    /** Recalcula el vencimiento más próximo del producto a partir de sus lotes con stock. */
+    @Modifying
+    @Query(value = "UPDATE product_stock_summary SET earliest_expiration = " +
+            "(SELECT MIN(i.expiration_date) FROM inventory_items i WHERE i.product_id = :productId AND i.quantity > 0) " +
+            "WHERE product_id = :productId",
+            nativeQuery = true)
+    int refreshEarliestExpiration(@Param("productId") Long productId);
+
+    @Modifying
+    @Query(value = "DELETE FROM product_stock_summary", nativeQuery = true)
+    int deleteAllRows();
+
+    /** Recalcula la proyección completa desde {@code inventory_items}, con una fila por producto. */
+    @Modifying
+    @Query(value = "INSERT INTO product_stock_summary (product_id, on_hand, lot_count, earliest_expiration, updated_at) " +
+            "SELECT p.id, COALESCE(SUM(i.quantity), 0), COUNT(i.id) FILTER (WHERE i.quantity > 0), " +
+            "MIN(i.expiration_date) FILTER (WHERE i.quantity > 0), now() " +
+            "FROM products p LEFT JOIN inventory_items i ON i.product_id = p.id " +
+            "GROUP BY p.id",
+            nativeQuery = true)
+    int insertFromInventoryItems();
+}
@@ -3,6 +3,7 @@ package com.nomos.inventory.service.repository;
 import com.nomos.inventory.service.model.ProductSupplier;
 import com.nomos.inventory.service.model.ProductSupplier.ProductSupplierId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +16,6 @@ public interface ProductSupplierRepository extends JpaRepository<ProductSupplier
     
 
     List<ProductSupplier> findByProductIdAndIsPreferred(Long productId, Boolean isPreferred);
+
+    List<ProductSupplier> findByProductIdInAndIsPreferred(Collection<Long> productIds, Boolean isPreferred);
 }
\ No newline at end of file
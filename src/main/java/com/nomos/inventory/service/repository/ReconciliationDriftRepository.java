@@ -0,0 +1,13 @@
+package com.nomos.inventory.service.repository;
+
+import com.nomos.inventory.service.model.ReconciliationDrift;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ReconciliationDriftRepository extends JpaRepository<ReconciliationDrift, Long> {
+
+    /** Keyset por id dentro de una ejecución. */
+    List<ReconciliationDrift> findByRunIdAndIdGreaterThanOrderById(Long runId, Long afterId, Pageable pageable);
+}
@@ -0,0 +1,11 @@
+package com.nomos.inventory.service.repository;
+
+import com.nomos.inventory.service.model.ReconciliationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, Long> {
+
+    List<ReconciliationRun> findTop20ByOrderByIdDesc();
+}
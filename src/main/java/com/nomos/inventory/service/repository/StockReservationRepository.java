@@ -0,0 +1,26 @@
+package com.nomos.inventory.service.repository;
+
+import com.nomos.inventory.service.model.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByStatus(StockReservation.Status status);
+
+    /** Cierra las reservas indicadas que sigan activas; una sola sentencia para toda la tanda. */
+    @Modifying
+    @Transactional
+    @Query("UPDATE StockReservation r SET r.status = :status, r.resolvedAt = :resolvedAt " +
+            "WHERE r.id IN :ids AND r.status = com.nomos.inventory.service.model.StockReservation.Status.ACTIVE")
+    int resolveActive(@Param("ids") Collection<Long> ids,
+                      @Param("status") StockReservation.Status status,
+                      @Param("resolvedAt") LocalDateTime resolvedAt);
+}
@@ -0,0 +1,22 @@
+package com.nomos.inventory.service.repository;
+
+import com.nomos.inventory.service.model.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    /** Fecha de la foto más reciente tomada en o antes de {@code date}. */
+    @Query("SELECT max(s.snapshotDate) FROM StockSnapshot s WHERE s.snapshotDate <= :date")
+    Optional<LocalDate> findLatestSnapshotDateOnOrBefore(@Param("date") LocalDate date);
+
+    boolean existsBySnapshotDate(LocalDate snapshotDate);
+
+    @Query("SELECT DISTINCT s.snapshotDate FROM StockSnapshot s ORDER BY s.snapshotDate DESC")
+    List<LocalDate> findSnapshotDates();
+}
@@ -0,0 +1,162 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.repository.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Jerarquía de categorías materializada en memoria. Para cada categoría guarda el conjunto
+ * precalculado de sus descendientes (incluida ella misma), de modo que "todos los productos
+ * bajo Electrónica" se resuelve con un único {@code IN} indexado sobre {@code products.category}.
+ * Se construye al arrancar y se actualiza incrementalmente desde {@code CategoryController}.
+ */
+@Service
+public class CategoryTreeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryTreeService.class);
+
+    private final CategoryRepository categoryRepository;
+
+    private final Map<Long, Long> parentById = new HashMap<>();
+    private final Map<Long, Set<Long>> childrenById = new HashMap<>();
+    private final Map<Long, Set<Long>> subtreeById = new HashMap<>();
+
+    public CategoryTreeService(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        parentById.clear();
+        childrenById.clear();
+        subtreeById.clear();
+
+        for (Object[] row : categoryRepository.findAllIdsWithParentId()) {
+            Long id = (Long) row[0];
+            parentById.put(id, (Long) row[1]);
+            childrenById.computeIfAbsent(id, k -> new HashSet<>());
+        }
+        parentById.forEach((id, parentId) -> {
+            if (parentId != null) {
+                childrenById.computeIfAbsent(parentId, k -> new HashSet<>()).add(id);
+            }
+        });
+        for (Long id : parentById.keySet()) {
+            subtreeById.computeIfAbsent(id, k -> new HashSet<>()).add(id);
+            for (Long ancestor : ancestorsOf(id)) {
+                subtreeById.computeIfAbsent(ancestor, k -> new HashSet<>()).add(id);
+            }
+        }
+
+        logger.info("Árbol de categorías materializado: {} categorías", parentById.size());
+    }
+
+    /** Ids de la categoría y de todos sus descendientes; vacío si la categoría no existe. */
+    public synchronized Set<Long> subtreeIds(Long categoryId) {
+        Set<Long> subtree = subtreeById.get(categoryId);
+        return subtree == null ? Set.of() : Set.copyOf(subtree);
+    }
+
+    /** Cadena de ancestros desde el padre directo hasta la raíz. */
+    public synchronized List<Long> ancestorIds(Long categoryId) {
+        return ancestorsOf(categoryId);
+    }
+
+    public synchronized boolean hasChildren(Long categoryId) {
+        Set<Long> children = childrenById.get(categoryId);
+        return children != null && !children.isEmpty();
+    }
+
+    /** true si asignar {@code newParentId} como padre de {@code categoryId} crearía un ciclo. */
+    public synchronized boolean wouldCreateCycle(Long categoryId, Long newParentId) {
+        if (newParentId == null) {
+            return false;
+        }
+        Set<Long> subtree = subtreeById.get(categoryId);
+        return newParentId.equals(categoryId) || (subtree != null && subtree.contains(newParentId));
+    }
+
+    public synchronized void onCreated(Long categoryId, Long parentId) {
+        parentById.put(categoryId, parentId);
+        childrenById.computeIfAbsent(categoryId, k -> new HashSet<>());
+        subtreeById.put(categoryId, new HashSet<>(Set.of(categoryId)));
+        if (parentId != null) {
+            childrenById.computeIfAbsent(parentId, k -> new HashSet<>()).add(categoryId);
+            for (Long ancestor : selfAndAncestors(parentId)) {
+                subtreeById.computeIfAbsent(ancestor, k -> new HashSet<>()).add(categoryId);
+            }
+        }
+    }
+
+    /**
+     * Mueve una categoría (con todo su subárbol) bajo un nuevo padre: se quita el subárbol
+     * de los ancestros anteriores y se agrega a los nuevos.
+     */
+    public synchronized void onMoved(Long categoryId, Long newParentId) {
+        if (!parentById.containsKey(categoryId)) {
+            onCreated(categoryId, newParentId);
+            return;
+        }
+        Long oldParentId = parentById.get(categoryId);
+        if (oldParentId == null ? newParentId == null : oldParentId.equals(newParentId)) {
+            return;
+        }
+
+        Set<Long> subtree = subtreeById.get(categoryId);
+        if (oldParentId != null) {
+            childrenById.getOrDefault(oldParentId, new HashSet<>()).remove(categoryId);
+            for (Long ancestor : selfAndAncestors(oldParentId)) {
+                subtreeById.getOrDefault(ancestor, new HashSet<>()).removeAll(subtree);
+            }
+        }
+
+        parentById.put(categoryId, newParentId);
+        if (newParentId != null) {
+            childrenById.computeIfAbsent(newParentId, k -> new HashSet<>()).add(categoryId);
+            for (Long ancestor : selfAndAncestors(newParentId)) {
+                subtreeById.computeIfAbsent(ancestor, k -> new HashSet<>()).addAll(subtree);
+            }
+        }
+    }
+
+    /** Quita una categoría hoja del árbol. */
+    public synchronized void onDeleted(Long categoryId) {
+        Long parentId = parentById.remove(categoryId);
+        if (parentId != null) {
+            childrenById.getOrDefault(parentId, new HashSet<>()).remove(categoryId);
+            for (Long ancestor : selfAndAncestors(parentId)) {
+                subtreeById.getOrDefault(ancestor, new HashSet<>()).remove(categoryId);
+            }
+        }
+        childrenById.remove(categoryId);
+        subtreeById.remove(categoryId);
+    }
+
+    private List<Long> ancestorsOf(Long categoryId) {
+        List<Long> ancestors = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        Long current = parentById.get(categoryId);
+        while (current != null && visited.add(current)) {
+            ancestors.add(current);
+            current = parentById.get(current);
+        }
+        return ancestors;
+    }
+
+    private List<Long> selfAndAncestors(Long categoryId) {
+        List<Long> chain = new ArrayList<>();
+        chain.add(categoryId);
+        chain.addAll(ancestorsOf(categoryId));
+        return chain;
+    }
+}
@@ -0,0 +1,49 @@
+package com.nomos.inventory.service.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión monótona por colección para los GET condicionales ({@code ETag} / {@code If-None-Match}).
+ * <p>
+ * Cada escritura que pasa por el controlador de la colección (o por uno cuyos datos aparecen en ella,
+ * como el nombre de la marca en el listado de productos) incrementa la versión. Las versiones parten
+ * de la hora de arranque, así un reinicio nunca vuelve a emitir un ETag ya visto por los clientes.
+ */
+@Service
+public class CollectionVersionService {
+
+    public enum Collection { PRODUCTS, BRANDS, CATEGORIES, WAREHOUSES }
+
+    private final Map<Collection, AtomicLong> versions = new EnumMap<>(Collection.class);
+
+    public CollectionVersionService() {
+        long seed = System.currentTimeMillis();
+        for (Collection collection : Collection.values()) {
+            versions.put(collection, new AtomicLong(seed));
+        }
+    }
+
+    public long version(Collection collection) {
+        return versions.get(collection).get();
+    }
+
+    /** Marca la colección como modificada; los ETag emitidos hasta ahora dejan de coincidir. */
+    public void bump(Collection... collections) {
+        for (Collection collection : collections) {
+            versions.get(collection).incrementAndGet();
+        }
+    }
+
+    /**
+     * ETag fuerte de la versión actual. Se lee antes de consultar la base de datos: si hay una
+     * escritura en medio, el cliente recibe datos más nuevos que su ETag y vuelve a descargarlos
+     * en la próxima consulta, nunca al revés.
+     */
+    public String etag(Collection collection) {
+        return "\"" + collection.name().toLowerCase() + "-" + version(collection) + "\"";
+    }
+}
@@ -0,0 +1,77 @@
+package com.nomos.inventory.service.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lectura y escritura mínima de CSV (RFC 4180): campos entre comillas dobles, comillas escapadas
+ * duplicándolas y saltos de línea dentro de campos entrecomillados. Lee un registro por vez,
+ * por lo que la memoria usada no depende del tamaño del archivo.
+ */
+public final class CsvSupport {
+
+    private CsvSupport() {
+    }
+
+    /**
+     * Lee el siguiente registro del reader.
+     *
+     * @return los campos del registro, o {@code null} al llegar al final del archivo.
+     */
+    public static List<String> readRecord(Reader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+
+        if (!any) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /** Escapa un valor para escribirlo como campo CSV. */
+    public static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
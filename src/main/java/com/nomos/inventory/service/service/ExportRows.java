@@ -0,0 +1,102 @@
+package com.nomos.inventory.service.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Escritura de filas de exportación en CSV o NDJSON a medida que el cursor las entrega, compartida por
+ * {@link ProductExportService} y {@link MovementExportService}. Los errores de escritura salen como
+ * {@link UncheckedIOException} desde el {@link RowCallbackHandler}; el exportador los desenvuelve.
+ */
+final class ExportRows {
+
+    /** Lee los valores de la fila actual en el orden de las columnas exportadas. */
+    @FunctionalInterface
+    interface RowReader {
+        Object[] read(ResultSet rs) throws SQLException;
+    }
+
+    private ExportRows() {
+    }
+
+    static void writeCsvHeader(Writer writer, String[] columns) throws IOException {
+        writer.write(String.join(",", columns));
+        writer.write('\n');
+    }
+
+    static RowCallbackHandler csv(Writer writer, RowReader reader) {
+        return rs -> {
+            try {
+                Object[] values = reader.read(rs);
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(CsvSupport.escape(values[i]));
+                }
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /** Un objeto JSON por línea, con {@code columns} como nombres de campo. */
+    static RowCallbackHandler ndjson(Writer writer, ObjectMapper objectMapper, String[] columns, RowReader reader)
+            throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // flush() solo vacía el buffer del generador en el BufferedWriter, sin forzar escrituras al socket por fila.
+        generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        // Una fila por línea: sin el espacio que Jackson escribe por defecto entre valores raíz.
+        generator.setRootValueSeparator(null);
+        return rs -> {
+            try {
+                Object[] values = reader.read(rs);
+                generator.writeStartObject();
+                for (int i = 0; i < values.length; i++) {
+                    generator.writeFieldName(columns[i]);
+                    Object value = values[i];
+                    if (value == null) {
+                        generator.writeNull();
+                    } else if (value instanceof Long number) {
+                        generator.writeNumber(number);
+                    } else if (value instanceof Integer number) {
+                        generator.writeNumber(number);
+                    } else if (value instanceof Double number) {
+                        generator.writeNumber(number);
+                    } else {
+                        generator.writeString(value.toString());
+                    }
+                }
+                generator.writeEndObject();
+                generator.flush();
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    static Long nullableLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    static Integer nullableInt(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    static Double nullableDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+}
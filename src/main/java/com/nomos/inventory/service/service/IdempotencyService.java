@@ -0,0 +1,292 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.IdempotencyRecord;
+import com.nomos.inventory.service.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Registro de ejecuciones con {@code Idempotency-Key}.
+ * <p>
+ * Las respuestas terminadas se buscan primero en un LRU acotado por cantidad ({@code cache-size}) y por
+ * bytes de cuerpo ({@code cache-max-bytes}), y luego en la tabla {@code idempotency_keys}. La primera petición de una clave inserta una fila pendiente; la restricción
+ * única hace que, entre duplicados simultáneos, solo uno ejecute el handler. Los duplicados de la misma
+ * instancia esperan el future de esa ejecución; los de otra instancia consultan la fila hasta que se
+ * completa.
+ * <p>
+ * Solo se libera la clave (se borra la fila y un reintento vuelve a ejecutar el handler) cuando la
+ * respuesta garantiza que no se confirmó nada: errores 4xx y el 503 de cola llena. Cualquier otra
+ * respuesta, incluido el 504 del pipeline cuyo movimiento puede confirmarse después, queda guardada y se
+ * repite tal cual. Si el cuerpo supera {@code max-body-bytes} se guarda solo el estado, como marca de
+ * ejecución terminada, y los reintentos reciben ese estado sin cuerpo.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final long POLL_INTERVAL_MS = 50;
+
+    public record Scope(String key, String path, String principal) {
+    }
+
+    /** {@code bodyOmitted} indica que la respuesta original superaba el límite y solo se guardó su estado. */
+    public record StoredResponse(String requestHash, int status, String contentType, byte[] body, boolean bodyOmitted,
+                                 LocalDateTime createdAt) {
+    }
+
+    /** Ejecución en curso reservada por esta petición. */
+    public record Execution(Scope scope, Long recordId, String requestHash, CompletableFuture<StoredResponse> done) {
+    }
+
+    /** Resultado de {@link #begin}: la respuesta a repetir o la ejecución que le toca a esta petición. */
+    public record Outcome(StoredResponse replay, Execution execution) {
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final Duration retention;
+    private final Duration pendingLease;
+    private final long waitTimeoutMs;
+    private final int maxBodyBytes;
+    private final int cacheSize;
+    private final long cacheMaxBytes;
+
+    private final Map<Scope, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    /** LRU en orden de acceso; {@code completedBytes} suma los cuerpos guardados. Protegidos por su lock. */
+    private final LinkedHashMap<Scope, StoredResponse> completed = new LinkedHashMap<>(16, 0.75f, true);
+    private long completedBytes;
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              @Value("${inventory.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${inventory.idempotency.retention-hours:24}") long retentionHours,
+                              @Value("${inventory.idempotency.pending-lease-seconds:300}") long pendingLeaseSeconds,
+                              @Value("${inventory.idempotency.wait-timeout-ms:10000}") long waitTimeoutMs,
+                              @Value("${inventory.idempotency.max-body-bytes:1048576}") int maxBodyBytes,
+                              @Value("${inventory.idempotency.cache-max-bytes:67108864}") long cacheMaxBytes) {
+        this.repository = repository;
+        this.retention = Duration.ofHours(retentionHours);
+        this.pendingLease = Duration.ofSeconds(pendingLeaseSeconds);
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.maxBodyBytes = maxBodyBytes;
+        this.cacheSize = cacheSize;
+        this.cacheMaxBytes = cacheMaxBytes;
+    }
+
+    /**
+     * Devuelve la respuesta guardada para la clave o reserva la ejecución para esta petición. Si otra
+     * petición con la misma clave está en curso, espera a que termine.
+     *
+     * @throws ResponseStatusException 422 si la clave ya se usó con otro cuerpo, 409 si la ejecución en
+     *                                 curso no terminó dentro de {@code wait-timeout-ms}.
+     */
+    public Outcome begin(Scope scope, String requestHash) {
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+        while (true) {
+            StoredResponse cached = cached(scope);
+            if (cached != null) {
+                return replay(cached, requestHash);
+            }
+
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(scope, mine);
+            if (running != null) {
+                StoredResponse result = await(running, deadline);
+                if (result != null) {
+                    return replay(result, requestHash);
+                }
+                // La ejecución anterior falló: se vuelve a intentar reservar la clave.
+                continue;
+            }
+
+            try {
+                IdempotencyRecord pending = repository.saveAndFlush(new IdempotencyRecord(null, scope.key(), scope.path(),
+                        scope.principal(), requestHash, null, null, null, LocalDateTime.now()));
+                return new Outcome(null, new Execution(scope, pending.getId(), requestHash, mine));
+            } catch (DataIntegrityViolationException e) {
+                Optional<IdempotencyRecord> existing = repository.findByIdempotencyKeyAndPathAndPrincipal(
+                        scope.key(), scope.path(), scope.principal());
+                StoredResponse stored = existing.filter(r -> r.getStatusCode() != null).map(IdempotencyService::toStored).orElse(null);
+                if (stored != null) {
+                    remember(scope, stored);
+                }
+                inFlight.remove(scope, mine);
+                mine.complete(stored);
+                if (stored != null) {
+                    return replay(stored, requestHash);
+                }
+                if (existing.isPresent() && !existing.get().getRequestHash().equals(requestHash)) {
+                    throw mismatch();
+                }
+                if (existing.isPresent() && existing.get().getCreatedAt().isBefore(LocalDateTime.now().minus(pendingLease))) {
+                    // Reserva de una instancia que se cayó a mitad de la ejecución.
+                    repository.deleteById(existing.get().getId());
+                    continue;
+                }
+                // En curso en otra instancia.
+                sleepUntilNextPoll(deadline);
+            }
+        }
+    }
+
+    /**
+     * Guarda la respuesta de la ejecución. Las que garantizan que el handler no confirmó nada liberan la
+     * clave como {@link #abandon}; las que superan {@code max-body-bytes} se guardan sin cuerpo.
+     */
+    public void complete(Execution execution, int status, String contentType, byte[] body) {
+        if (isReleasable(status)) {
+            abandon(execution);
+            return;
+        }
+        boolean omitted = body.length > maxBodyBytes;
+        if (omitted) {
+            logger.warn("La respuesta de la clave de idempotencia {} ocupa {} bytes; se guarda solo el estado {}",
+                    execution.scope().key(), body.length, status);
+        }
+        StoredResponse stored = new StoredResponse(execution.requestHash(), status, omitted ? null : contentType,
+                omitted ? new byte[0] : body, omitted, LocalDateTime.now());
+        try {
+            repository.complete(execution.recordId(), status, stored.contentType(), omitted ? null : body);
+        } catch (RuntimeException e) {
+            logger.error("No se pudo guardar la respuesta de la clave de idempotencia {}", execution.scope().key(), e);
+        }
+        remember(execution.scope(), stored);
+        inFlight.remove(execution.scope(), execution.done());
+        execution.done().complete(stored);
+    }
+
+    /**
+     * Libera la clave sin guardar respuesta; los duplicados en espera vuelven a ejecutar el handler. Solo
+     * debe usarse cuando se sabe que el handler no confirmó nada.
+     */
+    public void abandon(Execution execution) {
+        try {
+            repository.deleteById(execution.recordId());
+        } catch (RuntimeException e) {
+            logger.error("No se pudo liberar la clave de idempotencia {}", execution.scope().key(), e);
+        }
+        inFlight.remove(execution.scope(), execution.done());
+        execution.done().complete(null);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.idempotency.purge-interval-ms:3600000}")
+    public void purge() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = repository.purge(now.minus(retention), now.minus(pendingLease));
+        if (deleted > 0) {
+            logger.info("Claves de idempotencia purgadas: {}", deleted);
+        }
+    }
+
+    private StoredResponse cached(Scope scope) {
+        synchronized (completed) {
+            StoredResponse stored = completed.get(scope);
+            if (stored != null && stored.createdAt().isBefore(LocalDateTime.now().minus(retention))) {
+                forget(scope);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    /** Un cuerpo que por sí solo supera {@code cache-max-bytes} no entra al LRU; se repite desde la tabla. */
+    private void remember(Scope scope, StoredResponse stored) {
+        synchronized (completed) {
+            forget(scope);
+            if (stored.body().length > cacheMaxBytes) {
+                return;
+            }
+            completed.put(scope, stored);
+            completedBytes += stored.body().length;
+            Iterator<StoredResponse> eldest = completed.values().iterator();
+            while (completed.size() > cacheSize || completedBytes > cacheMaxBytes) {
+                completedBytes -= eldest.next().body().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    /** Llamar con el lock de {@code completed} tomado. */
+    private void forget(Scope scope) {
+        StoredResponse removed = completed.remove(scope);
+        if (removed != null) {
+            completedBytes -= removed.body().length;
+        }
+    }
+
+    long cachedBodyBytes() {
+        synchronized (completed) {
+            return completedBytes;
+        }
+    }
+
+    private static Outcome replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw mismatch();
+        }
+        return new Outcome(stored, null);
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running, long deadline) {
+        try {
+            return running.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw stillRunning();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw stillRunning();
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private void sleepUntilNextPoll(long deadline) {
+        if (System.currentTimeMillis() + POLL_INTERVAL_MS > deadline) {
+            throw stillRunning();
+        }
+        try {
+            Thread.sleep(POLL_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw stillRunning();
+        }
+    }
+
+    /** Errores del cliente y cola llena: la petición se rechazó antes de llegar a confirmar nada. */
+    private static boolean isReleasable(int status) {
+        return (status >= 400 && status < 500) || status == HttpStatus.SERVICE_UNAVAILABLE.value();
+    }
+
+    private static StoredResponse toStored(IdempotencyRecord record) {
+        boolean omitted = record.getResponseBody() == null;
+        return new StoredResponse(record.getRequestHash(), record.getStatusCode(), record.getContentType(),
+                omitted ? new byte[0] : record.getResponseBody(), omitted, record.getCreatedAt());
+    }
+
+    private static ResponseStatusException mismatch() {
+        return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                "La Idempotency-Key ya se usó con un cuerpo de petición distinto");
+    }
+
+    private static ResponseStatusException stillRunning() {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "Hay una petición con la misma Idempotency-Key en curso; intente nuevamente");
+    }
+}
@@ -0,0 +1,48 @@
+package com.nomos.inventory.service.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Codifica y decodifica los cursores opacos usados en la paginación por keyset.
+ * El cursor es la última clave devuelta (por ejemplo "name|id") en Base64 URL-safe.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = "\u001F";
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(Object... parts) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(parts[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param expectedParts número de componentes que debe tener el cursor.
+     * @throws ResponseStatusException 400 si el cursor no es válido.
+     */
+    public static List<String> decode(String cursor, int expectedParts) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            List<String> parts = List.of(raw.split(SEPARATOR, -1));
+            if (parts.size() != expectedParts) {
+                throw new IllegalArgumentException("Número de componentes inesperado");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de paginación inválido");
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.AllocationPolicy;
+import com.nomos.inventory.service.model.Category;
+import com.nomos.inventory.service.model.MovementType;
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.dto.AllocationRequestDTO;
+import com.nomos.inventory.service.model.dto.AllocationResultDTO;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reparte una salida de stock entre los lotes de un producto según la política de su categoría
+ * (FEFO o FIFO, heredada de la categoría padre si no está definida).
+ * <p>
+ * Los lotes se leen en el orden de la política por páginas, recorriendo el índice
+ * {@code (product_id, expirationDate | entryDate, id)}, y se deja de leer en cuanto se cubre la
+ * cantidad; un producto con cientos de lotes casi nunca pasa de la primera página. El plan se aplica
+ * con {@link MovementBatchApplier} (un movimiento por lote, bloqueos en orden de id) dentro de una
+ * transacción: si otro proceso vació un lote entre la lectura y el bloqueo, se revierte todo y se
+ * vuelve a planificar.
+ * <p>
+ * El plan no toma de un almacén más que sus existencias menos lo reservado ({@link ReservedStockIndex});
+ * el control definitivo lo hace {@link MovementBatchApplier} con los lotes bloqueados.
+ * <p>
+ * Las ventas y transferencias no consumen lotes vencidos (fecha de vencimiento anterior a hoy); solo un
+ * {@code AJUSTE_PERDIDA} los toma, y en FEFO los vencidos quedan primeros, que es lo que se quiere al dar
+ * de baja mercadería vencida.
+ */
+@Service
+public class LotAllocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LotAllocationService.class);
+
+    private static final int PAGE_SIZE = 50;
+    private static final int MAX_ATTEMPTS = 3;
+
+    /** Tipos que descuentan stock; {@code AJUSTE_CONCILIACION} solo lo genera la conciliación. */
+    static final Set<MovementType> OUTBOUND_TYPES =
+            EnumSet.of(MovementType.SALIDA_VENTA, MovementType.AJUSTE_PERDIDA, MovementType.TRANSFERENCIA);
+
+    /** Salidas que pueden tomar lotes vencidos: las bajas por pérdida. */
+    static final Set<MovementType> EXPIRED_LOTS_ALLOWED = EnumSet.of(MovementType.AJUSTE_PERDIDA);
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final ProductRepository productRepository;
+    private final MasterDataCacheService masterDataCacheService;
+    private final CategoryTreeService categoryTreeService;
+    private final MovementBatchApplier movementBatchApplier;
+    private final ReservedStockIndex reservedStockIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final AllocationPolicy defaultPolicy;
+
+    public LotAllocationService(InventoryItemRepository inventoryItemRepository,
+                                ProductRepository productRepository,
+                                MasterDataCacheService masterDataCacheService,
+                                CategoryTreeService categoryTreeService,
+                                MovementBatchApplier movementBatchApplier,
+                                ReservedStockIndex reservedStockIndex,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${inventory.allocation.default-policy:FEFO}") AllocationPolicy defaultPolicy) {
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.productRepository = productRepository;
+        this.masterDataCacheService = masterDataCacheService;
+        this.categoryTreeService = categoryTreeService;
+        this.movementBatchApplier = movementBatchApplier;
+        this.reservedStockIndex = reservedStockIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultPolicy = defaultPolicy;
+    }
+
+    /** Política efectiva de la categoría: la propia o la del ancestro más cercano que la defina. */
+    public AllocationPolicy policyFor(Long categoryId) {
+        if (categoryId == null) {
+            return defaultPolicy;
+        }
+        List<Long> chain = new ArrayList<>();
+        chain.add(categoryId);
+        chain.addAll(categoryTreeService.ancestorIds(categoryId));
+        for (Long id : chain) {
+            AllocationPolicy policy = masterDataCacheService.getCategory(id)
+                    .map(Category::getAllocationPolicy)
+                    .orElse(null);
+            if (policy != null) {
+                return policy;
+            }
+        }
+        return defaultPolicy;
+    }
+
+    /**
+     * @throws ResponseStatusException 400 si el tipo no es una salida o el producto no existe,
+     *                                 409 si el stock disponible no alcanza.
+     */
+    public AllocationResultDTO allocate(AllocationRequestDTO request) {
+        return allocate(request, () -> { });
+    }
+
+    /**
+     * Igual que {@link #allocate(AllocationRequestDTO)}, ejecutando {@code inTransaction} después de
+     * registrar los movimientos y dentro de la misma transacción: si falla, la salida se revierte.
+     */
+    public AllocationResultDTO allocate(AllocationRequestDTO request, Runnable inTransaction) {
+        return allocate(request, inTransaction, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Igual que {@link #allocate(AllocationRequestDTO)}, pero la salida debe salir entera del primer lote
+     * según la política; si no alcanza responde 409 en lugar de repartirla (para eso está {@code /allocate}).
+     */
+    public AllocationResultDTO allocateFromOneLot(AllocationRequestDTO request) {
+        return allocate(request, () -> { }, 1);
+    }
+
+    private AllocationResultDTO allocate(AllocationRequestDTO request, Runnable inTransaction, int maxLots) {
+        if (!OUTBOUND_TYPES.contains(request.getType())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El tipo de movimiento " + request.getType() + " no es una salida de stock");
+        }
+        Product product = productRepository.findById(request.getProductId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Producto no existe"));
+        AllocationPolicy policy = policyFor(product.getCategoryId());
+
+        for (int attempt = 1; ; attempt++) {
+            List<PlannedLot> plan = plan(request, policy, maxLots);
+            try {
+                List<AllocationResultDTO.Line> lines = transactionTemplate.execute(status -> {
+                    List<AllocationResultDTO.Line> applied = apply(request, plan);
+                    inTransaction.run();
+                    return applied;
+                });
+                return new AllocationResultDTO(product.getId(), policy, request.getQuantity(), lines);
+            } catch (LotChangedException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "El stock del producto cambió durante la asignación; intente nuevamente");
+                }
+                logger.debug("Lote {} modificado durante la asignación del producto {}; reintento {}",
+                        e.inventoryItemId, product.getId(), attempt);
+            }
+        }
+    }
+
+    private List<PlannedLot> plan(AllocationRequestDTO request, AllocationPolicy policy, int maxLots) {
+        List<PlannedLot> plan = new ArrayList<>();
+        int remaining = request.getQuantity();
+        int available = 0;
+        Map<Long, Long> unreserved = unreservedByWarehouse(request.getProductId());
+        LocalDate notExpiredOn = EXPIRED_LOTS_ALLOWED.contains(request.getType()) ? null : LocalDate.now();
+        for (int page = 0; remaining > 0 && plan.size() < maxLots; page++) {
+            PageRequest pageRequest = PageRequest.of(page, PAGE_SIZE);
+            List<Object[]> lots = policy == AllocationPolicy.FIFO
+                    ? inventoryItemRepository.findAllocatableLotsFifo(request.getProductId(), request.getWarehouseId(), notExpiredOn, pageRequest)
+                    : inventoryItemRepository.findAllocatableLotsFefo(request.getProductId(), request.getWarehouseId(), notExpiredOn, pageRequest);
+            for (Object[] lot : lots) {
+                int quantity = ((Number) lot[1]).intValue();
+                if (unreserved != null) {
+                    long free = unreserved.getOrDefault((Long) lot[2], 0L);
+                    quantity = (int) Math.min(quantity, free);
+                    unreserved.put((Long) lot[2], free - quantity);
+                    if (quantity == 0) {
+                        continue;
+                    }
+                }
+                int take = Math.min(quantity, remaining);
+                plan.add(new PlannedLot((Long) lot[0], (Long) lot[2], take));
+                available += quantity;
+                remaining -= take;
+                if (remaining == 0 || plan.size() == maxLots) {
+                    break;
+                }
+            }
+            if (lots.size() < PAGE_SIZE) {
+                break;
+            }
+        }
+        if (remaining > 0 && plan.size() == maxLots) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "La salida no cabe en el primer lote según " + policy + " (disponible: " + available
+                            + ", solicitado: " + request.getQuantity() + "); use /allocate para repartirla entre lotes");
+        }
+        if (remaining > 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Stock insuficiente. Disponible: " + available + ", solicitado: " + request.getQuantity());
+        }
+        return plan;
+    }
+
+    /** Existencias menos lo reservado por almacén; null si el producto no tiene reservas activas. */
+    private Map<Long, Long> unreservedByWarehouse(Long productId) {
+        if (reservedStockIndex.reservedForProduct(productId) == 0) {
+            return null;
+        }
+        Map<Long, Long> unreserved = new HashMap<>();
+        for (Object[] row : inventoryItemRepository.sumQuantityByProductAndWarehouse(List.of(productId))) {
+            Long warehouseId = (Long) row[1];
+            long onHand = ((Number) row[2]).longValue();
+            unreserved.put(warehouseId, Math.max(0, onHand - reservedStockIndex.reserved(productId, warehouseId)));
+        }
+        return unreserved;
+    }
+
+    private List<AllocationResultDTO.Line> apply(AllocationRequestDTO request, List<PlannedLot> plan) {
+        LocalDateTime movementDate = request.getMovementDate() != null ? request.getMovementDate() : LocalDateTime.now();
+        // Se aplican en orden de id, como cualquier otra tanda; la respuesta conserva el orden de la política.
+        List<PlannedLot> byId = plan.stream().sorted(Comparator.comparing(PlannedLot::inventoryItemId)).toList();
+        List<MovementCommand> commands = byId.stream()
+                .map(lot -> new MovementCommand(lot.inventoryItemId, request.getProductId(), -lot.quantity,
+                        request.getType(), request.getReason(), movementDate,
+                        request.getReferenceId(), request.getReferenceService(), lot.warehouseId))
+                .toList();
+
+        List<MovementResult> results = movementBatchApplier.apply(commands);
+        List<AllocationResultDTO.Line> lines = new ArrayList<>(plan.size());
+        for (PlannedLot lot : plan) {
+            MovementResult result = results.get(byId.indexOf(lot));
+            if (!result.isSuccess()) {
+                throw new LotChangedException(lot.inventoryItemId);
+            }
+            lines.add(new AllocationResultDTO.Line(result.movementId(), lot.inventoryItemId, result.warehouseId(),
+                    lot.quantity, result.balanceAfter()));
+        }
+        return lines;
+    }
+
+    private record PlannedLot(Long inventoryItemId, Long warehouseId, int quantity) {
+    }
+
+    /** Revierte la transacción de la asignación para volver a planificar. */
+    private static class LotChangedException extends RuntimeException {
+        private final Long inventoryItemId;
+
+        LotChangedException(Long inventoryItemId) {
+            super(null, null, false, false);
+            this.inventoryItemId = inventoryItemId;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.Brand;
+import com.nomos.inventory.service.model.Category;
+import com.nomos.inventory.service.model.UnitOfMeasure;
+import com.nomos.inventory.service.model.Warehouse;
+import com.nomos.inventory.service.model.dto.CacheStatsDTO;
+import com.nomos.inventory.service.repository.BrandRepository;
+import com.nomos.inventory.service.repository.CategoryRepository;
+import com.nomos.inventory.service.repository.UnitOfMeasureRepository;
+import com.nomos.inventory.service.repository.WarehouseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Caché en memoria de los datos maestros (marcas, categorías, unidades de medida y almacenes).
+ * Los controladores de cada maestro la actualizan al crear/editar y la invalidan al eliminar,
+ * así las lecturas en caliente (enriquecimiento de productos, alta de lotes) no tocan la base de datos.
+ */
+@Service
+public class MasterDataCacheService {
+
+    private final BrandRepository brandRepository;
+    private final CategoryRepository categoryRepository;
+    private final UnitOfMeasureRepository unitOfMeasureRepository;
+    private final WarehouseRepository warehouseRepository;
+
+    private final ReferenceDataCache<Brand> brands;
+    private final ReferenceDataCache<Category> categories;
+    private final ReferenceDataCache<UnitOfMeasure> units;
+    private final ReferenceDataCache<Warehouse> warehouses;
+
+    public MasterDataCacheService(
+            BrandRepository brandRepository,
+            CategoryRepository categoryRepository,
+            UnitOfMeasureRepository unitOfMeasureRepository,
+            WarehouseRepository warehouseRepository,
+            @Value("${inventory.master-cache.max-entries:10000}") int maxEntries) {
+        this.brandRepository = brandRepository;
+        this.categoryRepository = categoryRepository;
+        this.unitOfMeasureRepository = unitOfMeasureRepository;
+        this.warehouseRepository = warehouseRepository;
+
+        this.brands = new ReferenceDataCache<>("brands", maxEntries, Brand::getId);
+        this.categories = new ReferenceDataCache<>("categories", maxEntries, Category::getId);
+        this.units = new ReferenceDataCache<>("unitsOfMeasure", maxEntries, UnitOfMeasure::getId);
+        this.warehouses = new ReferenceDataCache<>("warehouses", maxEntries, Warehouse::getId);
+    }
+
+    public Optional<Brand> getBrand(Long id) {
+        return brands.get(id, brandRepository::findById);
+    }
+
+    public Map<Long, Brand> getBrands(Collection<Long> ids) {
+        return brands.getAll(ids, brandRepository::findAllById);
+    }
+
+    public void putBrand(Brand brand) {
+        brands.put(brand);
+    }
+
+    public void evictBrand(Long id) {
+        brands.evict(id);
+    }
+
+    public Optional<Category> getCategory(Long id) {
+        return categories.get(id, categoryRepository::findById);
+    }
+
+    public Map<Long, Category> getCategories(Collection<Long> ids) {
+        return categories.getAll(ids, categoryRepository::findAllById);
+    }
+
+    public void putCategory(Category category) {
+        categories.put(category);
+    }
+
+    public void evictCategory(Long id) {
+        categories.evict(id);
+    }
+
+    public Optional<UnitOfMeasure> getUnitOfMeasure(Long id) {
+        return units.get(id, unitOfMeasureRepository::findById);
+    }
+
+    public Map<Long, UnitOfMeasure> getUnitsOfMeasure(Collection<Long> ids) {
+        return units.getAll(ids, unitOfMeasureRepository::findAllById);
+    }
+
+    public void putUnitOfMeasure(UnitOfMeasure unit) {
+        units.put(unit);
+    }
+
+    public void evictUnitOfMeasure(Long id) {
+        units.evict(id);
+    }
+
+    public Optional<Warehouse> getWarehouse(Long id) {
+        return warehouses.get(id, warehouseRepository::findById);
+    }
+
+    public Map<Long, Warehouse> getWarehouses(Collection<Long> ids) {
+        return warehouses.getAll(ids, warehouseRepository::findAllById);
+    }
+
+    public void putWarehouse(Warehouse warehouse) {
+        warehouses.put(warehouse);
+    }
+
+    public void evictWarehouse(Long id) {
+        warehouses.evict(id);
+    }
+
+    public void clearAll() {
+        brands.clear();
+        categories.clear();
+        units.clear();
+        warehouses.clear();
+    }
+
+    public List<CacheStatsDTO> stats() {
+        return List.of(brands.stats(), categories.stats(), units.stats(), warehouses.stats());
+    }
+}
@@ -0,0 +1,267 @@
+package com.nomos.inventory.service.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Aplica una tanda de movimientos en una sola transacción:
+ * <ol>
+ *     <li>bloquea los lotes involucrados con {@code SELECT ... FOR UPDATE} en orden de id (dos tandas
+ *     nunca se bloquean en orden inverso, así que no hay deadlocks entre ellas); para las salidas bloquea
+ *     además los demás lotes del producto en el mismo almacén, que hacen falta para conocer su total;</li>
+ *     <li>aplica los cambios en memoria en el orden recibido, rechazando los que dejarían stock negativo o
+ *     dejarían el total del producto en el almacén por debajo de lo reservado ({@link ReservedStockIndex});</li>
+ *     <li>escribe un {@code UPDATE} por lote y todos los movimientos con un único batch JDBC.</li>
+ * </ol>
+ * Lo usan el pipeline particionado, la carga masiva, la asignación de lotes y las transferencias.
+ */
+@Service
+public class MovementBatchApplier {
+
+    private static final String SIBLINGS_SQL =
+            "SELECT s.id FROM inventory_items i JOIN inventory_items s " +
+            "ON s.product_id = i.product_id AND s.warehouse_id = i.warehouse_id WHERE i.id IN (:ids)";
+
+    private static final String LOCK_SQL =
+            "SELECT id, quantity, product_id, warehouse_id FROM inventory_items WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+
+    private static final String UPDATE_SQL = "UPDATE inventory_items SET quantity = ? WHERE id = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO inventory_movement (inventory_item_id, product_id, quantity_change, balance_after, warehouse_id, " +
+            "type, reason, movement_date, reference_id, reference_service) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ProductStockSummaryService productStockSummaryService;
+    private final ReservedStockIndex reservedStockIndex;
+
+    public MovementBatchApplier(NamedParameterJdbcTemplate jdbcTemplate,
+                                ProductStockSummaryService productStockSummaryService,
+                                ReservedStockIndex reservedStockIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productStockSummaryService = productStockSummaryService;
+        this.reservedStockIndex = reservedStockIndex;
+    }
+
+    /**
+     * @return un resultado por comando, en el mismo orden.
+     */
+    @Transactional
+    public List<MovementResult> apply(List<MovementCommand> commands) {
+        return applyGroups(commands.stream().map(List::of).toList());
+    }
+
+    /**
+     * Igual que {@link #apply}, pero cada grupo se aplica completo o no se aplica: si un movimiento del
+     * grupo se rechaza, todos los del grupo se rechazan con el mismo error (por ejemplo, los dos tramos
+     * de una transferencia).
+     *
+     * @return un resultado por comando, en el orden de los grupos aplanados.
+     */
+    @Transactional
+    public List<MovementResult> applyGroups(List<List<MovementCommand>> groups) {
+        List<MovementCommand> commands = groups.stream().flatMap(List::stream).toList();
+        if (commands.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, LockedItem> items = lockItems(commands);
+
+        MovementResult[] results = new MovementResult[commands.size()];
+        List<Integer> accepted = new ArrayList<>(commands.size());
+        int offset = 0;
+        for (List<MovementCommand> group : groups) {
+            int[] previousQuantities = new int[group.size()];
+            ResponseStatusException error = null;
+            int applied = 0;
+            for (; applied < group.size(); applied++) {
+                MovementCommand command = group.get(applied);
+                LockedItem item = items.get(command.inventoryItemId());
+                error = validate(command, item);
+                if (error != null) {
+                    break;
+                }
+                previousQuantities[applied] = item.quantity;
+                item.quantity += command.quantityChange();
+                item.stock.quantity += command.quantityChange();
+                Long warehouseId = command.warehouseId() != null ? command.warehouseId() : item.warehouseId;
+                results[offset + applied] = new MovementResult(null, item.id, command.productId(), warehouseId, item.quantity, null);
+            }
+
+            if (error == null) {
+                for (int k = 0; k < group.size(); k++) {
+                    accepted.add(offset + k);
+                }
+            } else {
+                // Se deshace en orden inverso por si el grupo toca dos veces el mismo lote.
+                for (int k = applied - 1; k >= 0; k--) {
+                    LockedItem item = items.get(group.get(k).inventoryItemId());
+                    item.stock.quantity -= item.quantity - previousQuantities[k];
+                    item.quantity = previousQuantities[k];
+                }
+                for (int k = 0; k < group.size(); k++) {
+                    results[offset + k] = MovementResult.rejected(group.get(k), error);
+                }
+            }
+            offset += group.size();
+        }
+
+        if (accepted.isEmpty()) {
+            return List.of(results);
+        }
+
+        List<LockedItem> changed = items.values().stream().filter(item -> item.quantity != item.originalQuantity).toList();
+        if (!changed.isEmpty()) {
+            jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_SQL, changed, changed.size(), (ps, item) -> {
+                ps.setInt(1, item.quantity);
+                ps.setLong(2, item.id);
+            });
+        }
+
+        List<Long> movementIds = insertMovements(commands, results, accepted);
+        for (int k = 0; k < accepted.size(); k++) {
+            int i = accepted.get(k);
+            MovementResult result = results[i];
+            results[i] = new MovementResult(movementIds.get(k), result.inventoryItemId(), result.productId(),
+                    result.warehouseId(), result.balanceAfter(), null);
+        }
+
+        for (LockedItem item : changed) {
+            productStockSummaryService.quantityChanged(item.productId, item.originalQuantity, item.quantity);
+        }
+
+        return List.of(results);
+    }
+
+    private ResponseStatusException validate(MovementCommand command, LockedItem item) {
+        if (item == null) {
+            return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Item de inventario no encontrado");
+        }
+        if (item.productId != command.productId()) {
+            return new ResponseStatusException(HttpStatus.BAD_REQUEST, "El item de inventario no corresponde al producto");
+        }
+        if (item.quantity + command.quantityChange() < 0) {
+            return new ResponseStatusException(HttpStatus.CONFLICT, "Stock insuficiente. Stock actual: " + item.quantity);
+        }
+        if (command.quantityChange() < 0) {
+            long reserved = reservedStockIndex.reserved(item.productId, item.warehouseId);
+            if (reserved > 0 && item.stock.quantity + command.quantityChange() < reserved) {
+                return new ResponseStatusException(HttpStatus.CONFLICT, "Stock insuficiente: " + reserved +
+                        " unidades reservadas. Disponible: " + Math.max(0, item.stock.quantity - reserved));
+            }
+        }
+        return null;
+    }
+
+    private Map<Long, LockedItem> lockItems(List<MovementCommand> commands) {
+        TreeSet<Long> ids = new TreeSet<>();
+        TreeSet<Long> outboundIds = new TreeSet<>();
+        for (MovementCommand command : commands) {
+            ids.add(command.inventoryItemId());
+            if (command.quantityChange() < 0) {
+                outboundIds.add(command.inventoryItemId());
+            }
+        }
+        if (!outboundIds.isEmpty()) {
+            ids.addAll(jdbcTemplate.queryForList(SIBLINGS_SQL, new MapSqlParameterSource("ids", outboundIds), Long.class));
+        }
+        Map<Long, LockedItem> items = new HashMap<>();
+        Map<StockKey, StockTotal> totals = new HashMap<>();
+        jdbcTemplate.query(LOCK_SQL, new MapSqlParameterSource("ids", ids), rs -> {
+            long productId = rs.getLong(3);
+            long warehouseId = rs.getLong(4);
+            StockTotal stock = totals.computeIfAbsent(new StockKey(productId, warehouseId), key -> new StockTotal());
+            LockedItem item = new LockedItem(rs.getLong(1), rs.getInt(2), productId, warehouseId, stock);
+            stock.quantity += item.quantity;
+            items.put(item.id, item);
+        });
+        return items;
+    }
+
+    private List<Long> insertMovements(List<MovementCommand> commands, MovementResult[] results, List<Integer> accepted) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.getJdbcTemplate().batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int k) throws SQLException {
+                        int i = accepted.get(k);
+                        MovementCommand command = commands.get(i);
+                        MovementResult result = results[i];
+                        ps.setLong(1, result.inventoryItemId());
+                        ps.setLong(2, command.productId());
+                        ps.setInt(3, command.quantityChange());
+                        ps.setInt(4, result.balanceAfter());
+                        setNullableLong(ps, 5, result.warehouseId());
+                        ps.setString(6, command.type().name());
+                        ps.setString(7, command.reason());
+                        ps.setTimestamp(8, Timestamp.valueOf(command.movementDate()));
+                        setNullableLong(ps, 9, command.referenceId());
+                        ps.setString(10, command.referenceService());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return accepted.size();
+                    }
+                },
+                keyHolder);
+
+        List<Long> ids = new ArrayList<>(accepted.size());
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+            ids.add(((Number) keys.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    private static void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, value);
+        }
+    }
+
+    private static final class LockedItem {
+        private final long id;
+        private final int originalQuantity;
+        private final long productId;
+        private final long warehouseId;
+        /** Total de los lotes bloqueados del mismo producto y almacén. */
+        private final StockTotal stock;
+        private int quantity;
+
+        private LockedItem(long id, int quantity, long productId, long warehouseId, StockTotal stock) {
+            this.id = id;
+            this.originalQuantity = quantity;
+            this.quantity = quantity;
+            this.productId = productId;
+            this.warehouseId = warehouseId;
+            this.stock = stock;
+        }
+    }
+
+    private static final class StockTotal {
+        private long quantity;
+    }
+
+    private record StockKey(long productId, long warehouseId) {
+    }
+}
@@ -0,0 +1,247 @@
+package com.nomos.inventory.service.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nomos.inventory.service.model.InventoryMovement;
+import com.nomos.inventory.service.model.dto.MovementBulkResultDTO;
+import com.nomos.inventory.service.model.dto.MovementLineResultDTO;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Carga masiva de movimientos (cierres de caja de los POS).
+ * <p>
+ * El arreglo JSON se lee elemento a elemento con el parser de streaming y cada bloque de
+ * {@code chunk-size} líneas se aplica en cuanto se completa, así en memoria hay a lo sumo un bloque de
+ * movimientos. Productos y lotes por defecto se resuelven con una consulta por bloque, y el bloque se
+ * aplica con {@link MovementBatchApplier}: bloqueo de lotes en orden de id, un batch JDBC de UPDATE y
+ * otro de INSERT, una transacción por bloque. Si la transacción del bloque falla, sus líneas se aplican
+ * de a una para que el error quede solo en la que lo provoca.
+ * <p>
+ * Como cada bloque confirma por separado, un cuerpo que resulta mal formado o demasiado largo después de
+ * confirmar algún bloque no se rechaza entero: se aplican las líneas leídas hasta ese punto y el motivo
+ * vuelve en {@link MovementBulkResultDTO#getError()}.
+ */
+@Service
+public class MovementBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovementBulkService.class);
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ProductRepository productRepository;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final MovementBatchApplier movementBatchApplier;
+    private final int chunkSize;
+    private final int maxLines;
+
+    public MovementBulkService(ObjectMapper objectMapper,
+                               Validator validator,
+                               ProductRepository productRepository,
+                               InventoryItemRepository inventoryItemRepository,
+                               MovementBatchApplier movementBatchApplier,
+                               @Value("${inventory.movements.bulk.chunk-size:1000}") int chunkSize,
+                               @Value("${inventory.movements.bulk.max-lines:50000}") int maxLines) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.productRepository = productRepository;
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.movementBatchApplier = movementBatchApplier;
+        this.chunkSize = chunkSize;
+        this.maxLines = maxLines;
+    }
+
+    /**
+     * Registra los movimientos del arreglo JSON. Una línea inválida o rechazada no afecta a las demás.
+     *
+     * @throws ResponseStatusException 400 si el cuerpo no es un arreglo JSON bien formado o supera
+     *                                 {@code max-lines} y todavía no se había confirmado ningún bloque.
+     */
+    public MovementBulkResultDTO ingest(InputStream body) throws IOException {
+        long start = System.nanoTime();
+        List<MovementLineResultDTO> results = new ArrayList<>();
+        List<Line> pending = new ArrayList<>(chunkSize);
+        boolean applied = false;
+        String error = null;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Se esperaba un arreglo JSON de movimientos");
+            }
+            int index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (index >= maxLines) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Se pueden enviar como máximo " + maxLines + " movimientos por llamada");
+                }
+                JsonNode node = parser.readValueAsTree();
+                MovementLineResultDTO invalid = new MovementLineResultDTO(index, HttpStatus.BAD_REQUEST.value(), null, null, null, null);
+                InventoryMovement movement = parseLine(node, invalid);
+                if (movement == null) {
+                    results.add(invalid);
+                } else {
+                    pending.add(new Line(index, movement));
+                }
+                index++;
+                if (pending.size() == chunkSize) {
+                    results.addAll(applyOrSplit(pending));
+                    pending.clear();
+                    applied = true;
+                }
+            }
+        } catch (JsonProcessingException | ResponseStatusException e) {
+            ResponseStatusException failure = e instanceof ResponseStatusException status ? status
+                    : new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "JSON mal formado: " + ((JsonProcessingException) e).getOriginalMessage());
+            if (!applied) {
+                throw failure;
+            }
+            // Los bloques anteriores ya se confirmaron: se completa lo leído y se informa dónde se detuvo.
+            error = failure.getReason() + ". No se procesaron las líneas siguientes";
+        }
+
+        if (!pending.isEmpty()) {
+            results.addAll(applyOrSplit(pending));
+        }
+        results.sort((a, b) -> Integer.compare(a.getLine(), b.getLine()));
+
+        int accepted = (int) results.stream().filter(r -> r.getStatus() == HttpStatus.CREATED.value()).count();
+        logger.info("Carga masiva de movimientos: {} aceptados, {} rechazados en {} ms",
+                accepted, results.size() - accepted, (System.nanoTime() - start) / 1_000_000);
+        return new MovementBulkResultDTO(accepted, results.size() - accepted, results, error);
+    }
+
+    /**
+     * Aplica el bloque en una transacción; si la transacción falla, aplica cada línea en la suya y la que
+     * vuelve a fallar se informa con su propio error.
+     */
+    private List<MovementLineResultDTO> applyOrSplit(List<Line> lines) {
+        try {
+            return applyChunk(lines);
+        } catch (RuntimeException e) {
+            if (lines.size() == 1) {
+                Line line = lines.get(0);
+                logger.error("Falló el movimiento de la línea {} de la carga masiva", line.index, e);
+                return List.of(e instanceof ResponseStatusException status
+                        ? rejected(line, HttpStatus.valueOf(status.getStatusCode().value()), status.getReason())
+                        : rejected(line, HttpStatus.INTERNAL_SERVER_ERROR, "No se pudo registrar el movimiento"));
+            }
+            logger.warn("Falló el bloque de {} movimientos de la carga masiva; se aplican de a uno", lines.size(), e);
+            List<MovementLineResultDTO> results = new ArrayList<>(lines.size());
+            for (Line line : lines) {
+                results.addAll(applyOrSplit(List.of(line)));
+            }
+            return results;
+        }
+    }
+
+    /** @return el movimiento, o null dejando el motivo en {@code invalid}. */
+    private InventoryMovement parseLine(JsonNode node, MovementLineResultDTO invalid) {
+        InventoryMovement movement;
+        try {
+            movement = objectMapper.treeToValue(node, InventoryMovement.class);
+        } catch (JsonProcessingException e) {
+            invalid.setError("Movimiento mal formado: " + e.getOriginalMessage());
+            return null;
+        }
+        Set<ConstraintViolation<InventoryMovement>> violations = validator.validate(movement);
+        if (!violations.isEmpty()) {
+            invalid.setError(violations.stream().map(ConstraintViolation::getMessage).sorted()
+                    .collect(Collectors.joining("; ")));
+            return null;
+        }
+        if (movement.getProduct().getId() == null) {
+            invalid.setError("El producto es obligatorio");
+            return null;
+        }
+        return movement;
+    }
+
+    private List<MovementLineResultDTO> applyChunk(List<Line> lines) {
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> needDefaultItem = new LinkedHashSet<>();
+        for (Line line : lines) {
+            Long productId = line.movement.getProduct().getId();
+            productIds.add(productId);
+            if (line.explicitItemId() == null) {
+                needDefaultItem.add(productId);
+            }
+        }
+
+        Set<Long> existingProducts = productRepository.findExistingIds(productIds);
+        Map<Long, Long> defaultItems = new HashMap<>();
+        needDefaultItem.retainAll(existingProducts);
+        if (!needDefaultItem.isEmpty()) {
+            for (Object[] row : inventoryItemRepository.findFirstIdByProductIdIn(needDefaultItem)) {
+                defaultItems.put((Long) row[0], (Long) row[1]);
+            }
+        }
+
+        List<MovementLineResultDTO> results = new ArrayList<>(lines.size());
+        List<Line> resolved = new ArrayList<>(lines.size());
+        List<MovementCommand> commands = new ArrayList<>(lines.size());
+        for (Line line : lines) {
+            Long productId = line.movement.getProduct().getId();
+            if (!existingProducts.contains(productId)) {
+                results.add(rejected(line, HttpStatus.BAD_REQUEST, "Producto no existe"));
+                continue;
+            }
+            Long itemId = line.explicitItemId() != null ? line.explicitItemId() : defaultItems.get(productId);
+            if (itemId == null) {
+                results.add(rejected(line, HttpStatus.BAD_REQUEST, "No hay inventario inicializado para este producto"));
+                continue;
+            }
+            resolved.add(line);
+            commands.add(MovementCommand.of(line.movement, itemId));
+        }
+
+        if (commands.isEmpty()) {
+            return results;
+        }
+        List<MovementResult> applied = movementBatchApplier.apply(commands);
+        for (int i = 0; i < applied.size(); i++) {
+            MovementResult result = applied.get(i);
+            Line line = resolved.get(i);
+            if (result.isSuccess()) {
+                results.add(new MovementLineResultDTO(line.index, HttpStatus.CREATED.value(), result.movementId(),
+                        result.inventoryItemId(), result.balanceAfter(), null));
+            } else {
+                results.add(new MovementLineResultDTO(line.index, result.error().getStatusCode().value(), null,
+                        result.inventoryItemId(), null, result.error().getReason()));
+            }
+        }
+        return results;
+    }
+
+    private static MovementLineResultDTO rejected(Line line, HttpStatus status, String message) {
+        return new MovementLineResultDTO(line.index, status.value(), null, line.explicitItemId(), null, message);
+    }
+
+    private record Line(int index, InventoryMovement movement) {
+        Long explicitItemId() {
+            return movement.getInventoryItem() != null ? movement.getInventoryItem().getId() : null;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.InventoryMovement;
+import com.nomos.inventory.service.model.MovementType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Movimiento de inventario ya resuelto a un lote concreto, listo para aplicarse en lote.
+ *
+ * @param warehouseId opcional; si es null se toma el almacén del lote.
+ */
+public record MovementCommand(Long inventoryItemId,
+                              Long productId,
+                              int quantityChange,
+                              MovementType type,
+                              String reason,
+                              LocalDateTime movementDate,
+                              Long referenceId,
+                              String referenceService,
+                              Long warehouseId) {
+
+    public static MovementCommand of(InventoryMovement movement, Long inventoryItemId) {
+        return new MovementCommand(inventoryItemId, movement.getProduct().getId(), movement.getQuantityChange(),
+                movement.getType(), movement.getReason(), movement.getMovementDate(),
+                movement.getReferenceId(), movement.getReferenceService(), movement.getWarehouseId());
+    }
+}
@@ -0,0 +1,123 @@
+package com.nomos.inventory.service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exportación del libro de movimientos en NDJSON o CSV para auditorías, sin cargarlo en memoria.
+ * <p>
+ * Igual que {@link ProductExportService}: cursor de solo avance con {@code fetchSize} fijo dentro de una
+ * transacción de solo lectura, y cada fila se escribe en la salida apenas se lee. SKU, nombre de producto,
+ * lote y almacén vienen del mismo SELECT mediante JOIN, sin entidades ni proxies lazy.
+ */
+@Service
+public class MovementExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    static final String[] COLUMNS = {
+            "id", "movementDate", "type", "quantityChange", "balanceAfter", "productId", "sku", "productName",
+            "warehouseId", "warehouseName", "inventoryItemId", "lotNumber", "reason", "referenceId", "referenceService"
+    };
+
+    private static final String BASE_SQL =
+            "SELECT m.id, m.movement_date, m.type, m.quantity_change, m.balance_after, m.product_id, p.sku, p.name, " +
+            "COALESCE(m.warehouse_id, i.warehouse_id), w.name, m.inventory_item_id, i.lot_number, m.reason, " +
+            "m.reference_id, m.reference_service " +
+            "FROM inventory_movement m " +
+            "JOIN products p ON p.id = m.product_id " +
+            "LEFT JOIN inventory_items i ON i.id = m.inventory_item_id " +
+            "LEFT JOIN warehouses w ON w.id = COALESCE(m.warehouse_id, i.warehouse_id) " +
+            "WHERE m.movement_date >= ? AND m.movement_date < ?";
+
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    public MovementExportService(DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper,
+                                 @Value("${inventory.export.fetch-size:1000}") int fetchSize) {
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escribe en {@code out} los movimientos con fecha en {@code [from, to)}, opcionalmente de un solo
+     * almacén, en orden cronológico.
+     */
+    public void export(Format format, LocalDateTime from, LocalDateTime to, Long warehouseId, OutputStream out)
+            throws IOException {
+        StringBuilder sql = new StringBuilder(BASE_SQL);
+        List<Object> args = new ArrayList<>();
+        args.add(Timestamp.valueOf(from));
+        args.add(Timestamp.valueOf(to));
+        if (warehouseId != null) {
+            // Los movimientos anteriores a la columna warehouse_id se filtran por el almacén de su lote.
+            sql.append(" AND (m.warehouse_id = ? OR (m.warehouse_id IS NULL AND i.warehouse_id = ?))");
+            args.add(warehouseId);
+            args.add(warehouseId);
+        }
+        sql.append(" ORDER BY m.movement_date, m.id");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RowCallbackHandler handler;
+        if (format == Format.CSV) {
+            ExportRows.writeCsvHeader(writer, COLUMNS);
+            handler = ExportRows.csv(writer, MovementExportService::rowValues);
+        } else {
+            handler = ExportRows.ndjson(writer, objectMapper, COLUMNS, MovementExportService::rowValues);
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status ->
+                    cursorJdbcTemplate.query(sql.toString(), handler, args.toArray()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static Object[] rowValues(ResultSet rs) throws SQLException {
+        Timestamp movementDate = rs.getTimestamp(2);
+        return new Object[] {
+                rs.getLong(1),
+                movementDate != null ? movementDate.toLocalDateTime() : null,
+                rs.getString(3),
+                ExportRows.nullableInt(rs, 4),
+                ExportRows.nullableInt(rs, 5),
+                rs.getLong(6),
+                rs.getString(7),
+                rs.getString(8),
+                ExportRows.nullableLong(rs, 9),
+                rs.getString(10),
+                ExportRows.nullableLong(rs, 11),
+                rs.getString(12),
+                rs.getString(13),
+                ExportRows.nullableLong(rs, 14),
+                rs.getString(15)
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.InventoryMovement;
+import com.nomos.inventory.service.model.MovementType;
+import com.nomos.inventory.service.model.dto.CursorPage;
+import com.nomos.inventory.service.repository.InventoryMovementRepository;
+import com.nomos.inventory.service.repository.InventoryMovementSpecifications;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Historial de movimientos paginado por keyset sobre {@code (movementDate desc, id desc)}.
+ * Cada página lee como máximo {@code limit + 1} filas desde el índice compuesto que corresponde al
+ * filtro (producto, almacén, tipo o referencia), por lo que la latencia no depende de la profundidad
+ * de la página. El rango de fechas siempre queda acotado para aprovechar el particionado mensual.
+ */
+@Service
+public class MovementHistoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("movementDate"), Sort.Order.desc("id"));
+
+    private final InventoryMovementRepository movementRepository;
+    private final int defaultDays;
+    private final int maxDays;
+
+    public MovementHistoryService(InventoryMovementRepository movementRepository,
+                                  @Value("${inventory.movements.history.default-days:30}") int defaultDays,
+                                  @Value("${inventory.movements.history.max-days:366}") int maxDays) {
+        this.movementRepository = movementRepository;
+        this.defaultDays = defaultDays;
+        this.maxDays = maxDays;
+    }
+
+    /**
+     * @param cursor {@code nextCursor} de la página anterior, o {@code null} para la primera.
+     * @throws ResponseStatusException 400 si el cursor, el rango de fechas o el tamaño de página no son válidos.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<InventoryMovement> findPage(Long productId, Long warehouseId, MovementType type,
+                                                  LocalDateTime from, LocalDateTime to,
+                                                  Long referenceId, String referenceService,
+                                                  String cursor, Integer limit) {
+
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El tamaño de página debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        LocalDateTime[] window = historyWindow(from, to);
+
+        List<Specification<InventoryMovement>> filters = new ArrayList<>();
+        filters.add(InventoryMovementSpecifications.movementDateBetween(window[0], window[1]));
+        filters.add(InventoryMovementSpecifications.hasProduct(productId));
+        filters.add(InventoryMovementSpecifications.hasWarehouse(warehouseId));
+        filters.add(InventoryMovementSpecifications.hasType(type));
+        filters.add(InventoryMovementSpecifications.hasReferenceService(referenceService));
+        filters.add(InventoryMovementSpecifications.hasReferenceId(referenceId));
+        if (cursor != null) {
+            List<String> key = KeysetCursor.decode(cursor, 2);
+            filters.add(InventoryMovementSpecifications.before(parseDate(key.get(0)), parseId(key.get(1))));
+        }
+
+        List<InventoryMovement> rows = movementRepository.findBy(
+                Specification.allOf(filters.stream().filter(Objects::nonNull).toList()),
+                query -> query.sortBy(NEWEST_FIRST).limit(pageSize + 1).all());
+
+        boolean hasMore = rows.size() > pageSize;
+        List<InventoryMovement> items = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            InventoryMovement last = items.get(items.size() - 1);
+            nextCursor = KeysetCursor.encode(last.getMovementDate(), last.getId());
+        }
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
+    /**
+     * Rango {desde, hasta} del historial. Sin fechas se toman los últimos {@code default-days} días;
+     * un rango más largo que {@code max-days} se rechaza para no recorrer todas las particiones.
+     */
+    private LocalDateTime[] historyWindow(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(defaultDays);
+        if (start.isAfter(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La fecha 'from' debe ser anterior a 'to'");
+        }
+        if (start.isBefore(end.minusDays(maxDays))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El rango de fechas no puede superar los " + maxDays + " días");
+        }
+        return new LocalDateTime[] {start, end};
+    }
+
+    private static LocalDateTime parseDate(String raw) {
+        try {
+            return LocalDateTime.parse(raw);
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de paginación inválido");
+        }
+    }
+
+    private static Long parseId(String raw) {
+        try {
+            return Long.valueOf(raw);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de paginación inválido");
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.nomos.inventory.service.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Particionado mensual de {@code inventory_movement} por {@code movement_date} (PostgreSQL).
+ * <p>
+ * {@link #migrate()} convierte una sola vez la tabla existente en una tabla particionada por rango:
+ * renombra la original a {@code inventory_movement_legacy}, crea la nueva con las mismas columnas,
+ * restricciones CHECK y claves foráneas (a {@code products} e {@code inventory_items}), una partición por mes con datos más las de los próximos meses y una partición por defecto, y copia
+ * las filas. La tabla legacy queda para verificación y se borra a mano.
+ * <p>
+ * {@link #maintain()} corre a diario: crea por adelantado las particiones de los próximos
+ * {@code months-ahead} meses y, si {@code retain-months} es mayor que cero, separa
+ * ({@code DETACH}) las más antiguas. Una partición separada queda como tabla independiente
+ * (archivo) y deja de aparecer en las consultas del historial.
+ * <p>
+ * Las consultas del historial siempre acotan {@code movement_date}, así el planificador descarta
+ * las particiones fuera del rango y el costo de "últimos 30 días" no crece con los años.
+ */
+@Service
+public class MovementPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovementPartitionService.class);
+
+    static final String TABLE = "inventory_movement";
+    static final String LEGACY_TABLE = "inventory_movement_legacy";
+    static final String DEFAULT_PARTITION = "inventory_movement_default";
+    // No reutiliza inventory_movement_id_seq: ese nombre es el de la secuencia identity de la tabla original.
+    private static final String SEQUENCE = "inventory_movement_ledger_seq";
+    private static final String[] INDEXES = {
+            "inventory_movement_pkey", "idx_inventory_movement_product_date", "idx_inventory_movement_date",
+            "idx_inventory_movement_warehouse_date", "idx_inventory_movement_type_date", "idx_inventory_movement_reference",
+            "idx_inventory_movement_item_date"
+    };
+    private static final String FOREIGN_KEYS_SQL =
+            "SELECT conname, pg_get_constraintdef(oid) AS definition FROM pg_constraint " +
+            "WHERE conrelid = to_regclass(?) AND contype = 'f' ORDER BY conname";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retainMonths;
+
+    public MovementPartitionService(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${inventory.movements.partitions.months-ahead:3}") int monthsAhead,
+                                    @Value("${inventory.movements.partitions.retain-months:0}") int retainMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.retainMonths = retainMonths;
+    }
+
+    public boolean isPartitioned() {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT c.relkind::text FROM pg_class c WHERE c.relname = ? AND pg_table_is_visible(c.oid)", String.class, TABLE);
+        return !kinds.isEmpty() && "p".equals(kinds.get(0));
+    }
+
+    /** Partición → límites, según el catálogo. */
+    public Map<String, String> listPartitions() {
+        Map<String, String> partitions = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+                        "WHERE p.relname = ? ORDER BY c.relname",
+                rs -> {
+                    partitions.put(rs.getString(1), rs.getString(2));
+                }, TABLE);
+        return partitions;
+    }
+
+    /**
+     * Convierte {@code inventory_movement} en tabla particionada por mes. Todo ocurre en una
+     * transacción: si algo falla, la tabla original queda como estaba.
+     *
+     * @return cantidad de filas copiadas.
+     * @throws ResponseStatusException 409 si la tabla ya está particionada o quedó una tabla legacy previa.
+     */
+    public long migrate() {
+        if (isPartitioned()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "La tabla de movimientos ya está particionada");
+        }
+        Long copied = transactionTemplate.execute(status -> {
+            Integer legacy = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM pg_class WHERE relname = ?", Integer.class, LEGACY_TABLE);
+            if (legacy != null && legacy > 0) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Ya existe " + LEGACY_TABLE + " de una migración anterior; verifíquela y bórrela antes de continuar");
+            }
+            // Evita escrituras durante la copia; los movimientos nuevos esperan a que termine la migración.
+            jdbcTemplate.execute("LOCK TABLE " + TABLE + " IN ACCESS EXCLUSIVE MODE");
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + LEGACY_TABLE);
+            // Los nombres de índice son únicos por esquema: los de la tabla original se liberan para la nueva.
+            for (String index : INDEXES) {
+                jdbcTemplate.execute("ALTER INDEX IF EXISTS " + index + " RENAME TO " + index.replace(TABLE, LEGACY_TABLE));
+            }
+            // Copia defaults y CHECK (el de type incluido); los índices se recrean abajo y la identity se
+            // reemplaza por la secuencia. LIKE nunca copia las claves foráneas: se agregan después de la copia.
+            jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + LEGACY_TABLE +
+                    " INCLUDING ALL EXCLUDING INDEXES EXCLUDING IDENTITY) PARTITION BY RANGE (movement_date)");
+            List<Map<String, Object>> foreignKeys = jdbcTemplate.queryForList(FOREIGN_KEYS_SQL, LEGACY_TABLE);
+            // La clave de partición tiene que formar parte de la clave primaria; la unicidad del id la da la secuencia.
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD PRIMARY KEY (id, movement_date)");
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE);
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ALTER COLUMN id SET DEFAULT nextval('" + SEQUENCE + "')");
+            jdbcTemplate.execute("ALTER SEQUENCE " + SEQUENCE + " OWNED BY " + TABLE + ".id");
+            jdbcTemplate.queryForObject("SELECT setval('" + SEQUENCE + "', COALESCE((SELECT max(id) FROM " + LEGACY_TABLE + "), 0) + 1, false)",
+                    Long.class);
+
+            LocalDate oldest = jdbcTemplate.queryForObject(
+                    "SELECT CAST(min(movement_date) AS date) FROM " + LEGACY_TABLE, LocalDate.class);
+            YearMonth from = oldest != null ? YearMonth.from(oldest) : YearMonth.now();
+            for (YearMonth month = from; !month.isAfter(YearMonth.now().plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+                createPartition(month);
+            }
+            jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+
+            jdbcTemplate.execute("CREATE INDEX idx_inventory_movement_product_date ON " + TABLE +
+                    " (product_id, movement_date DESC, id DESC)");
+            jdbcTemplate.execute("CREATE INDEX idx_inventory_movement_date ON " + TABLE + " (movement_date DESC, id DESC)");
+            jdbcTemplate.execute("CREATE INDEX idx_inventory_movement_warehouse_date ON " + TABLE +
+                    " (warehouse_id, movement_date DESC, id DESC)");
+            jdbcTemplate.execute("CREATE INDEX idx_inventory_movement_type_date ON " + TABLE +
+                    " (type, movement_date DESC, id DESC)");
+            jdbcTemplate.execute("CREATE INDEX idx_inventory_movement_reference ON " + TABLE +
+                    " (reference_service, reference_id, movement_date DESC, id DESC)");
+            jdbcTemplate.execute("CREATE INDEX idx_inventory_movement_item_date ON " + TABLE +
+                    " (inventory_item_id, movement_date)");
+
+            long rows = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM " + LEGACY_TABLE);
+            // Validar la clave una vez sobre la tabla llena es más barato que comprobarla fila por fila al copiar.
+            for (Map<String, Object> foreignKey : foreignKeys) {
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + foreignKey.get("conname") + " " +
+                        foreignKey.get("definition"));
+            }
+            return rows;
+        });
+        logger.info("inventory_movement particionada por mes: {} filas copiadas; la tabla original quedó como {}",
+                copied, LEGACY_TABLE);
+        return copied == null ? 0 : copied;
+    }
+
+    /**
+     * Crea las particiones de los próximos meses y separa las que exceden la retención.
+     *
+     * @return nombres de las particiones creadas o separadas.
+     */
+    @Scheduled(cron = "${inventory.movements.partitions.cron:0 15 3 * * *}")
+    public List<String> maintain() {
+        if (!isPartitioned()) {
+            return List.of();
+        }
+        List<String> changed = new ArrayList<>();
+        Map<String, String> existing = listPartitions();
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!existing.containsKey(partitionName(month))) {
+                transactionTemplate.executeWithoutResult(status -> createPartition(month));
+                changed.add(partitionName(month));
+            }
+        }
+
+        if (retainMonths > 0) {
+            YearMonth oldestKept = current.minusMonths(retainMonths - 1L);
+            for (String partition : existing.keySet()) {
+                YearMonth month = monthOf(partition);
+                if (month != null && month.isBefore(oldestKept)) {
+                    jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+                    changed.add(partition);
+                    logger.info("Partición {} separada de {}; queda como tabla de archivo", partition, TABLE);
+                }
+            }
+        }
+        if (!changed.isEmpty()) {
+            logger.info("Mantenimiento de particiones de movimientos: {}", changed);
+        }
+        return changed;
+    }
+
+    private void createPartition(YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF " + TABLE +
+                " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    static String partitionName(YearMonth month) {
+        return TABLE + "_p" + month.format(PARTITION_SUFFIX);
+    }
+
+    static YearMonth monthOf(String partitionName) {
+        String prefix = TABLE + "_p";
+        if (!partitionName.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partitionName.substring(prefix.length()), PARTITION_SUFFIX);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.nomos.inventory.service.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Modo opcional de procesamiento de movimientos ({@code inventory.movements.pipeline.enabled=true}).
+ * <p>
+ * Cada movimiento se enruta por id de lote a una de N particiones; cada partición tiene un único hilo
+ * escritor que toma lo acumulado en su cola (hasta {@code max-batch}) y lo aplica con
+ * {@link MovementBatchApplier} en una sola transacción (group commit). Todas las ventas de un SKU
+ * caliente pasan por el mismo hilo, así que en lugar de N transacciones esperando el lock de la fila
+ * hay una transacción por tanda, y el pool de conexiones queda acotado a N.
+ */
+@Service
+public class MovementPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovementPipeline.class);
+
+    private final MovementBatchApplier movementBatchApplier;
+    private final boolean enabled;
+    private final int partitionCount;
+    private final int maxBatch;
+    private final int queueCapacity;
+    private final long timeoutMs;
+
+    private final List<BlockingQueue<Pending>> queues = new ArrayList<>();
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running;
+
+    public MovementPipeline(MovementBatchApplier movementBatchApplier,
+                            @Value("${inventory.movements.pipeline.enabled:false}") boolean enabled,
+                            @Value("${inventory.movements.pipeline.partitions:8}") int partitionCount,
+                            @Value("${inventory.movements.pipeline.max-batch:256}") int maxBatch,
+                            @Value("${inventory.movements.pipeline.queue-capacity:10000}") int queueCapacity,
+                            @Value("${inventory.movements.pipeline.timeout-ms:5000}") long timeoutMs) {
+        this.movementBatchApplier = movementBatchApplier;
+        this.enabled = enabled;
+        this.partitionCount = partitionCount;
+        this.maxBatch = maxBatch;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int partition = 0; partition < partitionCount; partition++) {
+            BlockingQueue<Pending> queue = new LinkedBlockingQueue<>(queueCapacity);
+            queues.add(queue);
+            Thread writer = new Thread(() -> drain(queue), "movement-partition-" + partition);
+            writer.setDaemon(true);
+            writers.add(writer);
+            writer.start();
+        }
+        logger.info("Pipeline de movimientos activo: {} particiones, tandas de hasta {}", partitionCount, maxBatch);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        writers.forEach(Thread::interrupt);
+        ResponseStatusException shutdown = new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "El servicio se está deteniendo");
+        for (BlockingQueue<Pending> queue : queues) {
+            List<Pending> leftovers = new ArrayList<>();
+            queue.drainTo(leftovers);
+            leftovers.forEach(pending -> pending.future.completeExceptionally(shutdown));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Encola el movimiento en la partición de su lote. El future se completa con el resultado,
+     * o excepcionalmente con la {@link ResponseStatusException} que lo rechazó.
+     */
+    public CompletableFuture<MovementResult> submit(MovementCommand command) {
+        if (!running) {
+            throw new IllegalStateException("El pipeline de movimientos no está activo");
+        }
+        Pending pending = new Pending(command, new CompletableFuture<>());
+        int partition = Math.floorMod(Long.hashCode(command.inventoryItemId()), partitionCount);
+        if (!queues.get(partition).offer(pending)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "La cola de movimientos está llena; intente nuevamente");
+        }
+        return pending.future;
+    }
+
+    /**
+     * Encola el movimiento y espera su resultado.
+     *
+     * @throws ResponseStatusException el error del movimiento (400/409), 503 si la cola está llena
+     *                                 o 504 si no se confirmó dentro del tiempo configurado.
+     */
+    public MovementResult submitAndWait(MovementCommand command) {
+        CompletableFuture<MovementResult> future = submit(command);
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // El movimiento sigue en la cola y puede confirmarse después; el cliente debe consultar antes de reintentar.
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                    "El movimiento no se confirmó a tiempo; verifique su estado antes de reintentar");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Espera del movimiento interrumpida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ResponseStatusException status) {
+                throw status;
+            }
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "No se pudo registrar el movimiento", e.getCause());
+        }
+    }
+
+    private void drain(BlockingQueue<Pending> queue) {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+            process(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Aplica la tanda en una transacción. Si la tanda completa falla (un error que no es de un movimiento
+     * concreto, p. ej. una restricción de la base), se reintenta cada movimiento en su propia transacción
+     * para que el error quede solo en el que lo provoca.
+     */
+    private void process(List<Pending> batch) {
+        List<MovementResult> results;
+        try {
+            results = movementBatchApplier.apply(batch.stream().map(Pending::command).toList());
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                logger.warn("Falló la tanda de {} movimientos; se aplican de a uno", batch.size(), e);
+                batch.forEach(pending -> process(List.of(pending)));
+                return;
+            }
+            logger.error("Falló el movimiento del lote {}", batch.get(0).command().inventoryItemId(), e);
+            ResponseStatusException failure = e instanceof ResponseStatusException status ? status
+                    : new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "No se pudo registrar el movimiento", e);
+            batch.get(0).future.completeExceptionally(failure);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            MovementResult result = results.get(i);
+            if (result.isSuccess()) {
+                batch.get(i).future.complete(result);
+            } else {
+                batch.get(i).future.completeExceptionally(result.error());
+            }
+        }
+    }
+
+    private record Pending(MovementCommand command, CompletableFuture<MovementResult> future) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.nomos.inventory.service.service;
+
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Resultado de aplicar un {@link MovementCommand}: el movimiento registrado o el error que lo rechazó.
+ * Un error no afecta al resto de los movimientos del mismo lote.
+ */
+public record MovementResult(Long movementId,
+                             Long inventoryItemId,
+                             Long productId,
+                             Long warehouseId,
+                             Integer balanceAfter,
+                             ResponseStatusException error) {
+
+    public static MovementResult rejected(MovementCommand command, ResponseStatusException error) {
+        return new MovementResult(null, command.inventoryItemId(), command.productId(), command.warehouseId(), null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,100 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.MovementType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Mantiene la restricción CHECK de {@code inventory_movement.type} al día con {@link MovementType} (PostgreSQL).
+ * <p>
+ * Hibernate genera esa restricción con los valores del enum al crear la tabla, pero {@code ddl-auto=update}
+ * no la modifica cuando se agrega un valor: los movimientos con el tipo nuevo fallarían al insertarse.
+ * Al arrancar se reemplaza la restricción si le falta algún valor. En otras bases de datos (o sin catálogo
+ * de PostgreSQL) no hace nada.
+ */
+@Service
+public class MovementTypeConstraintService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovementTypeConstraintService.class);
+
+    static final String CONSTRAINT = "inventory_movement_type_check";
+
+    private static final String CHECK_CONSTRAINTS_SQL =
+            "SELECT conname, pg_get_constraintdef(oid) FROM pg_constraint " +
+            "WHERE conrelid = to_regclass('" + MovementPartitionService.TABLE + "') AND contype = 'c' " +
+            "AND pg_get_constraintdef(oid) LIKE '%(type)%'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MovementTypeConstraintService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void synchronize() {
+        try {
+            Map<String, List<MovementType>> outdated = outdatedConstraints();
+            if (outdated.isEmpty()) {
+                return;
+            }
+            String allowed = Arrays.stream(MovementType.values())
+                    .map(type -> "'" + type.name() + "'")
+                    .collect(Collectors.joining(", "));
+            StringBuilder ddl = new StringBuilder("ALTER TABLE " + MovementPartitionService.TABLE);
+            for (String name : outdated.keySet()) {
+                ddl.append(" DROP CONSTRAINT ").append(name).append(',');
+            }
+            ddl.append(" ADD CONSTRAINT " + CONSTRAINT + " CHECK (type IN (").append(allowed).append("))");
+            jdbcTemplate.execute(ddl.toString());
+            logger.info("Restricción de tipos de {} actualizada; faltaban {}", MovementPartitionService.TABLE, outdated.values());
+        } catch (DataAccessException e) {
+            logger.warn("No se pudo verificar la restricción de tipos de {}: {}", MovementPartitionService.TABLE, e.getMessage());
+        }
+    }
+
+    /**
+     * Tipos de movimiento que la base de datos rechazaría por una restricción CHECK desactualizada.
+     * Vacío si no hay restricción o no se puede consultar el catálogo.
+     */
+    public List<MovementType> missingTypes() {
+        try {
+            return outdatedConstraints().values().stream().flatMap(List::stream).distinct().toList();
+        } catch (DataAccessException e) {
+            return List.of();
+        }
+    }
+
+    private Map<String, List<MovementType>> outdatedConstraints() {
+        Map<String, List<MovementType>> outdated = new LinkedHashMap<>();
+        jdbcTemplate.query(CHECK_CONSTRAINTS_SQL, rs -> {
+            List<MovementType> missing = missingFrom(rs.getString(2));
+            if (!missing.isEmpty()) {
+                outdated.put(rs.getString(1), missing);
+            }
+        });
+        return outdated;
+    }
+
+    /** Valores del enum que no aparecen en la definición de la restricción ({@code pg_get_constraintdef}). */
+    static List<MovementType> missingFrom(String definition) {
+        List<MovementType> missing = new ArrayList<>();
+        for (MovementType type : MovementType.values()) {
+            if (!definition.contains("'" + type.name() + "'")) {
+                missing.add(type);
+            }
+        }
+        return missing;
+    }
+}
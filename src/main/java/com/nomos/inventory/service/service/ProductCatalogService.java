@@ -0,0 +1,114 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.dto.CursorPage;
+import com.nomos.inventory.service.repository.ProductRepository;
+import com.nomos.inventory.service.repository.ProductSpecifications;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Catálogo de productos paginado por keyset (id o name+id) con filtros del lado del servidor.
+ * Cada página lee como máximo {@code limit + 1} filas apoyándose en los índices compuestos
+ * de {@code products}, por lo que la latencia no depende de la profundidad de la página.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductCatalogService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    public enum SortKey { ID, NAME }
+
+    private final ProductRepository productRepository;
+    private final ProductEnrichmentService productEnrichmentService;
+    private final CategoryTreeService categoryTreeService;
+
+    @Transactional(readOnly = true)
+    public CursorPage<Product> findPage(Long categoryId, boolean includeSubcategories, Long brandId,
+                                        Double minPrice, Double maxPrice, String skuPrefix,
+                                        SortKey sortKey, String cursor, Integer limit) {
+
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El tamaño de página debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El precio mínimo no puede ser mayor al máximo");
+        }
+
+        List<Specification<Product>> filters = new ArrayList<>();
+        if (categoryId != null && includeSubcategories) {
+            Set<Long> subtree = categoryTreeService.subtreeIds(categoryId);
+            if (subtree.isEmpty()) {
+                return new CursorPage<>(List.of(), null, false);
+            }
+            filters.add(ProductSpecifications.inCategories(subtree));
+        } else {
+            filters.add(ProductSpecifications.hasCategory(categoryId));
+        }
+        filters.add(ProductSpecifications.hasBrand(brandId));
+        filters.add(ProductSpecifications.priceAtLeast(minPrice));
+        filters.add(ProductSpecifications.priceAtMost(maxPrice));
+        filters.add(ProductSpecifications.skuStartsWith(skuPrefix));
+
+        Sort sort;
+        if (sortKey == SortKey.NAME) {
+            sort = Sort.by("name", "id");
+            if (cursor != null) {
+                List<String> key = KeysetCursor.decode(cursor, 3);
+                requireSortKey(key, SortKey.NAME);
+                filters.add(ProductSpecifications.nameAndIdAfter(key.get(1), parseId(key.get(2))));
+            }
+        } else {
+            sort = Sort.by("id");
+            if (cursor != null) {
+                List<String> key = KeysetCursor.decode(cursor, 2);
+                requireSortKey(key, SortKey.ID);
+                filters.add(ProductSpecifications.idAfter(parseId(key.get(1))));
+            }
+        }
+
+        List<Product> rows = productRepository.findBy(
+                Specification.allOf(filters.stream().filter(f -> f != null).toList()),
+                query -> query.sortBy(sort).limit(pageSize + 1).all());
+
+        boolean hasMore = rows.size() > pageSize;
+        List<Product> items = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            Product last = items.get(items.size() - 1);
+            nextCursor = sortKey == SortKey.NAME
+                    ? KeysetCursor.encode(SortKey.NAME, last.getName(), last.getId())
+                    : KeysetCursor.encode(SortKey.ID, last.getId());
+        }
+
+        return new CursorPage<>(productEnrichmentService.enrich(items), nextCursor, hasMore);
+    }
+
+    private static void requireSortKey(List<String> key, SortKey expected) {
+        if (!expected.name().equals(key.get(0))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El cursor no corresponde al orden solicitado");
+        }
+    }
+
+    private static Long parseId(String raw) {
+        try {
+            return Long.valueOf(raw);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de paginación inválido");
+        }
+    }
+}
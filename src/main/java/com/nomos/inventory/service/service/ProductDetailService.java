@@ -0,0 +1,116 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.ProductAttributeValue;
+import com.nomos.inventory.service.model.ProductImage;
+import com.nomos.inventory.service.model.ProductSupplier;
+import com.nomos.inventory.service.model.dto.ProductDetailDTO;
+import com.nomos.inventory.service.repository.ProductAttributeValueRepository;
+import com.nomos.inventory.service.repository.ProductImageRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import com.nomos.inventory.service.repository.ProductSupplierRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Arma el detalle de un producto consultando sus cinco partes en paralelo sobre un pool acotado,
+ * de modo que la latencia se acerca a la de la parte más lenta y no a la suma de todas.
+ * <p>
+ * Si una parte falla o se agota el tiempo, las demás se cancelan: las que seguían en cola no llegan a
+ * ejecutarse y las que estaban corriendo se interrumpen, para no ocupar el pool con un detalle que ya
+ * nadie espera.
+ */
+@Service
+public class ProductDetailService {
+
+    private final ProductRepository productRepository;
+    private final ProductEnrichmentService productEnrichmentService;
+    private final ProductImageRepository productImageRepository;
+    private final ProductAttributeValueRepository pavRepository;
+    private final ProductSupplierRepository productSupplierRepository;
+    private final ProductStockSummaryService productStockSummaryService;
+    private final TaskExecutor productDetailExecutor;
+    private final long timeoutMillis;
+
+    public ProductDetailService(ProductRepository productRepository,
+                                ProductEnrichmentService productEnrichmentService,
+                                ProductImageRepository productImageRepository,
+                                ProductAttributeValueRepository pavRepository,
+                                ProductSupplierRepository productSupplierRepository,
+                                ProductStockSummaryService productStockSummaryService,
+                                @Qualifier("productDetailExecutor") TaskExecutor productDetailExecutor,
+                                @Value("${inventory.product-detail.timeout-ms:5000}") long timeoutMillis) {
+        this.productRepository = productRepository;
+        this.productEnrichmentService = productEnrichmentService;
+        this.productImageRepository = productImageRepository;
+        this.pavRepository = pavRepository;
+        this.productSupplierRepository = productSupplierRepository;
+        this.productStockSummaryService = productStockSummaryService;
+        this.productDetailExecutor = productDetailExecutor;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * @return el detalle completo, o vacío si el producto no existe.
+     * @throws ResponseStatusException 504 si alguna parte no responde dentro del tiempo configurado.
+     */
+    public Optional<ProductDetailDTO> getDetail(Long productId) {
+        List<Future<?>> tasks = new ArrayList<>(5);
+        CompletableFuture<Optional<Product>> product = supply(tasks, () ->
+                productRepository.findById(productId).map(productEnrichmentService::enrich));
+        CompletableFuture<List<ProductImage>> images = supply(tasks, () ->
+                productImageRepository.findByProductIdOrderBySortOrderAsc(productId));
+        CompletableFuture<List<ProductAttributeValue>> attributes = supply(tasks, () ->
+                pavRepository.findByProductId(productId));
+        CompletableFuture<List<ProductSupplier>> suppliers = supply(tasks, () ->
+                productSupplierRepository.findByProductId(productId));
+        CompletableFuture<Integer> totalStock = supply(tasks, () ->
+                productStockSummaryService.findOnHand(productId).orElse(0));
+
+        try {
+            CompletableFuture.allOf(product, images, attributes, suppliers, totalStock)
+                    .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                    .join();
+        } catch (CompletionException e) {
+            // cancel() de un CompletableFuture no detiene la tarea que lo completa; se cancela la tarea.
+            tasks.forEach(task -> task.cancel(true));
+            if (e.getCause() instanceof TimeoutException) {
+                throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                        "El detalle del producto " + productId + " no se pudo obtener a tiempo");
+            }
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+
+        return product.join().map(found -> new ProductDetailDTO(
+                found, images.join(), attributes.join(), suppliers.join(), totalStock.join()));
+    }
+
+    private <T> CompletableFuture<T> supply(List<Future<?>> tasks, Supplier<T> part) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                result.complete(part.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }, null);
+        tasks.add(task);
+        productDetailExecutor.execute(task);
+        return result;
+    }
+}
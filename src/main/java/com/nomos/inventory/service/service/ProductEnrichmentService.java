@@ -0,0 +1,139 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.Brand;
+import com.nomos.inventory.service.model.Category;
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.ProductImage;
+import com.nomos.inventory.service.model.ProductSupplier;
+import com.nomos.inventory.service.model.Supplier;
+import com.nomos.inventory.service.model.UnitOfMeasure;
+import com.nomos.inventory.service.repository.ProductImageRepository;
+import com.nomos.inventory.service.repository.ProductSupplierRepository;
+import com.nomos.inventory.service.repository.SupplierRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class ProductEnrichmentService {
+
+    private final MasterDataCacheService masterDataCacheService;
+    private final ProductSupplierRepository productSupplierRepository;
+    private final SupplierRepository supplierRepository;
+    private final ProductImageRepository productImageRepository;
+
+    /**
+     * Rellena los campos @Transient (nombres de marca, categoría, unidad, proveedor preferido
+     * e imagen principal) de un producto.
+     */
+    public Product enrich(Product product) {
+        enrich(List.of(product));
+        return product;
+    }
+
+    /**
+     * Rellena los campos @Transient de una página completa de productos.
+     * Ejecuta un número fijo de consultas (una por tabla relacionada) sin importar
+     * cuántos productos se reciban, y cruza los resultados en memoria. Marcas, categorías
+     * y unidades se leen de la caché de maestros y solo consultan la base de datos si faltan.
+     */
+    public List<Product> enrich(List<Product> products) {
+        if (products.isEmpty()) {
+            return products;
+        }
+
+        Set<Long> productIds = collectIds(products, Product::getId);
+
+        Map<Long, Brand> brands = masterDataCacheService.getBrands(collectIds(products, Product::getBrandId));
+        Map<Long, Category> categories = masterDataCacheService.getCategories(collectIds(products, Product::getCategoryId));
+        Map<Long, UnitOfMeasure> units = masterDataCacheService.getUnitsOfMeasure(collectIds(products, Product::getUnitOfMeasureId));
+
+        Map<Long, String> supplierNamesByProduct = preferredSupplierNames(productIds);
+        Map<Long, String> imageUrlsByProduct = mainImageUrls(productIds);
+
+        for (Product product : products) {
+            Brand brand = brands.get(product.getBrandId());
+            Category category = categories.get(product.getCategoryId());
+            UnitOfMeasure unit = units.get(product.getUnitOfMeasureId());
+
+            product.setBrandName(brand != null ? brand.getName() : null);
+            product.setCategoryName(category != null ? category.getName() : null);
+            product.setUnitOfMeasureName(unit != null ? unit.getName() : null);
+            product.setSupplierName(supplierNamesByProduct.get(product.getId()));
+            product.setImageUrl(imageUrlsByProduct.get(product.getId()));
+        }
+
+        return products;
+    }
+
+    /**
+     * Devuelve productId -> nombre del proveedor preferido. Si un producto tiene varios
+     * preferidos se toma el primero, igual que el enriquecimiento individual.
+     */
+    private Map<Long, String> preferredSupplierNames(Set<Long> productIds) {
+        Map<Long, Long> supplierIdByProduct = new HashMap<>();
+        for (ProductSupplier relation : productSupplierRepository.findByProductIdInAndIsPreferred(productIds, true)) {
+            supplierIdByProduct.putIfAbsent(relation.getProductId(), relation.getSupplierId());
+        }
+
+        if (supplierIdByProduct.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, String> supplierNames = namesById(
+                supplierRepository.findAllById(new HashSet<>(supplierIdByProduct.values())), Supplier::getId, Supplier::getName);
+
+        Map<Long, String> result = new HashMap<>();
+        supplierIdByProduct.forEach((productId, supplierId) -> {
+            String name = supplierNames.get(supplierId);
+            if (name != null) {
+                result.put(productId, name);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Devuelve productId -> URL de la imagen principal o, si no hay, la de menor sortOrder.
+     * Las imágenes llegan ordenadas por sortOrder, así que la primera vista por producto es la de respaldo.
+     */
+    private Map<Long, String> mainImageUrls(Set<Long> productIds) {
+        Map<Long, String> mainImages = new HashMap<>();
+        Map<Long, String> firstImages = new HashMap<>();
+
+        for (ProductImage image : productImageRepository.findByProductIdInOrderBySortOrderAsc(productIds)) {
+            firstImages.putIfAbsent(image.getProductId(), image.getImageUrl());
+            if (Boolean.TRUE.equals(image.getIsMain())) {
+                mainImages.putIfAbsent(image.getProductId(), image.getImageUrl());
+            }
+        }
+
+        firstImages.putAll(mainImages);
+        return firstImages;
+    }
+
+    private static Set<Long> collectIds(Collection<Product> products, Function<Product, Long> extractor) {
+        return products.stream()
+                .map(extractor)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    private static <T> Map<Long, String> namesById(Collection<T> entities, Function<T, Long> idFn, Function<T, String> nameFn) {
+        Map<Long, String> names = new HashMap<>();
+        for (T entity : entities) {
+            names.put(idFn.apply(entity), nameFn.apply(entity));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,116 @@
+package com.nomos.inventory.service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exportación del catálogo completo en NDJSON o CSV sin cargarlo en memoria.
+ * <p>
+ * Lee con un cursor de solo avance ({@code fetchSize} fijo dentro de una transacción de solo lectura,
+ * que es lo que hace que el driver de PostgreSQL no traiga todo el resultado de una vez) y escribe
+ * cada fila directamente en la salida. Los nombres de marca, categoría y unidad vienen del mismo
+ * SELECT mediante JOIN, no de consultas por fila.
+ */
+@Service
+public class ProductExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    static final String[] COLUMNS = {
+            "id", "sku", "name", "brandId", "brandName", "price", "minStockThreshold",
+            "categoryId", "categoryName", "unitOfMeasureId", "unitOfMeasureName"
+    };
+
+    private static final String BASE_SQL =
+            "SELECT p.id, p.sku, p.name, p.brand, b.name AS brand_name, p.price, p.min_stock_threshold, " +
+            "p.category, c.name AS category_name, p.unit_of_measure, u.name AS unit_name " +
+            "FROM products p " +
+            "LEFT JOIN brands b ON b.id = p.brand " +
+            "LEFT JOIN categories c ON c.id = p.category " +
+            "LEFT JOIN unit_of_measures u ON u.id = p.unit_of_measure";
+
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    public ProductExportService(DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                @Value("${inventory.export.fetch-size:1000}") int fetchSize) {
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escribe los productos (opcionalmente filtrados por marca y/o categoría) en {@code out},
+     * ordenados por id.
+     */
+    public void export(Format format, Long brandId, Long categoryId, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(BASE_SQL);
+        List<Object> args = new ArrayList<>();
+        String connector = " WHERE ";
+        if (brandId != null) {
+            sql.append(connector).append("p.brand = ?");
+            args.add(brandId);
+            connector = " AND ";
+        }
+        if (categoryId != null) {
+            sql.append(connector).append("p.category = ?");
+            args.add(categoryId);
+        }
+        sql.append(" ORDER BY p.id");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RowCallbackHandler handler;
+        if (format == Format.CSV) {
+            ExportRows.writeCsvHeader(writer, COLUMNS);
+            handler = ExportRows.csv(writer, ProductExportService::rowValues);
+        } else {
+            handler = ExportRows.ndjson(writer, objectMapper, COLUMNS, ProductExportService::rowValues);
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status ->
+                    cursorJdbcTemplate.query(sql.toString(), handler, args.toArray()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static Object[] rowValues(ResultSet rs) throws SQLException {
+        return new Object[] {
+                rs.getLong(1),
+                rs.getString(2),
+                rs.getString(3),
+                ExportRows.nullableLong(rs, 4),
+                rs.getString(5),
+                ExportRows.nullableDouble(rs, 6),
+                ExportRows.nullableInt(rs, 7),
+                ExportRows.nullableLong(rs, 8),
+                rs.getString(9),
+                ExportRows.nullableLong(rs, 10),
+                rs.getString(11)
+        };
+    }
+}
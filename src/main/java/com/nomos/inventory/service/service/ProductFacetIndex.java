@@ -0,0 +1,323 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.ProductAttributeValue;
+import com.nomos.inventory.service.model.dto.FacetQueryDTO;
+import com.nomos.inventory.service.model.dto.FacetResultDTO;
+import com.nomos.inventory.service.repository.ProductAttributeValueRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de bitmaps (attributeId, valor) -> conjunto de productos sobre la tabla EAV
+ * {@code product_attribute_values}. Permite filtrar por varios atributos y contar productos
+ * por valor con operaciones AND/OR y cardinalidad en memoria, sin un JOIN por atributo.
+ * Se construye al arrancar y se mantiene desde {@code ProductAttributeValueController}.
+ */
+@Service
+public class ProductFacetIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetIndex.class);
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private final ProductAttributeValueRepository pavRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /*
+     * Los bits son ordinales densos, no ids: con ids altos o dispersos un BitSet indexado por id
+     * reservaría hasta id/8 bytes por valor de atributo. Como en ProductSearchIndex, el producto conserva
+     * su ordinal mientras tenga algún atributo indexado, los ordinales liberados se reutilizan y
+     * rebuild() vuelve a numerar por id. Cada bitmap ocupa así a lo sumo (productos con atributos)/8 bytes.
+     */
+    private final Map<Long, Integer> ordinalByProductId = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private long[] productIdByOrdinal = new long[1024];
+    private int nextOrdinal = 0;
+
+    /** attributeId -> valor -> bitmap de ordinales de producto. */
+    private final Map<Long, Map<String, BitSet>> bitmaps = new HashMap<>();
+    /** Productos con al menos un atributo indexado. */
+    private final BitSet universe = new BitSet();
+
+    public ProductFacetIndex(ProductAttributeValueRepository pavRepository) {
+        this.pavRepository = pavRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<ProductAttributeValue> values = new ArrayList<>(pavRepository.findAll());
+        values.sort(Comparator.comparing(ProductAttributeValue::getProductId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        lock.writeLock().lock();
+        try {
+            bitmaps.clear();
+            universe.clear();
+            ordinalByProductId.clear();
+            freeOrdinals.clear();
+            productIdByOrdinal = new long[1024];
+            nextOrdinal = 0;
+            for (ProductAttributeValue value : values) {
+                set(value.getProductId(), value.getAttributeId(), value.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        logger.info("Índice de facetas construido: {} valores de atributo", values.size());
+    }
+
+    /** Registra (o reemplaza) el valor de un atributo para un producto. */
+    public void put(Long productId, Long attributeId, String value) {
+        lock.writeLock().lock();
+        try {
+            clear(productId, attributeId);
+            set(productId, attributeId, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId, Long attributeId) {
+        lock.writeLock().lock();
+        try {
+            clear(productId, attributeId);
+            refreshUniverse(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeProduct(Long productId) {
+        lock.writeLock().lock();
+        try {
+            for (Long attributeId : new ArrayList<>(bitmaps.keySet())) {
+                clear(productId, attributeId);
+            }
+            releaseOrdinal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Aplica los filtros y calcula los conteos por valor. Los conteos de un atributo filtrado
+     * ignoran su propio filtro (facetas disyuntivas), para que el cliente vea cuántos productos
+     * obtendría al cambiar o sumar otro valor de ese mismo atributo.
+     */
+    public FacetResultDTO query(FacetQueryDTO request) {
+        Map<Long, List<String>> filters = request.getFilters() != null ? request.getFilters() : Map.of();
+        int limit = request.getLimit() != null ? Math.min(Math.max(request.getLimit(), 0), MAX_LIMIT) : DEFAULT_LIMIT;
+
+        lock.readLock().lock();
+        try {
+            Map<Long, BitSet> perAttribute = new LinkedHashMap<>();
+            filters.forEach((attributeId, values) -> perAttribute.put(attributeId, union(attributeId, values)));
+
+            BitSet matched = intersectAll(perAttribute, null);
+
+            Collection<Long> facetAttributes = request.getFacetAttributeIds() != null && !request.getFacetAttributeIds().isEmpty()
+                    ? request.getFacetAttributeIds()
+                    : bitmaps.keySet();
+
+            Map<Long, Map<String, Integer>> facets = new TreeMap<>();
+            BitSet scratch = new BitSet(universe.length());
+            for (Long attributeId : facetAttributes) {
+                BitSet base = perAttribute.containsKey(attributeId) ? intersectAll(perAttribute, attributeId) : matched;
+                // Sin otros filtros la base es el universo, que contiene a todos los bitmaps.
+                boolean unfiltered = perAttribute.isEmpty()
+                        || (perAttribute.size() == 1 && perAttribute.containsKey(attributeId));
+                Map<String, Integer> counts = new TreeMap<>();
+                for (Map.Entry<String, BitSet> entry : bitmaps.getOrDefault(attributeId, Map.of()).entrySet()) {
+                    int cardinality = unfiltered ? entry.getValue().cardinality() : intersectionSize(entry.getValue(), base, scratch);
+                    if (cardinality > 0) {
+                        counts.put(entry.getKey(), cardinality);
+                    }
+                }
+                facets.put(attributeId, counts);
+            }
+
+            return new FacetResultDTO(matched.cardinality(), smallestProductIds(matched, limit), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Memoria aproximada de los bitmaps, en bytes. */
+    long bitmapBytes() {
+        lock.readLock().lock();
+        try {
+            long bits = universe.size();
+            for (Map<String, BitSet> byValue : bitmaps.values()) {
+                for (BitSet bitmap : byValue.values()) {
+                    bits += bitmap.size();
+                }
+            }
+            return bits / 8;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Los {@code limit} ids menores entre los ordinales marcados, en orden ascendente: el orden de los
+     * ordinales no es el de los ids, así que se recorre todo el resultado con un heap de tamaño {@code limit}.
+     */
+    private List<Long> smallestProductIds(BitSet ordinals, int limit) {
+        if (limit == 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Long> largestFirst = new PriorityQueue<>(Math.min(limit, Math.max(ordinals.cardinality(), 1)),
+                Comparator.reverseOrder());
+        for (int i = ordinals.nextSetBit(0); i >= 0; i = ordinals.nextSetBit(i + 1)) {
+            long productId = productIdByOrdinal[i];
+            if (largestFirst.size() < limit) {
+                largestFirst.add(productId);
+            } else if (productId < largestFirst.peek()) {
+                largestFirst.poll();
+                largestFirst.add(productId);
+            }
+        }
+        List<Long> productIds = new ArrayList<>(largestFirst);
+        productIds.sort(null);
+        return productIds;
+    }
+
+    private BitSet union(Long attributeId, List<String> values) {
+        BitSet result = new BitSet();
+        Map<String, BitSet> byValue = bitmaps.getOrDefault(attributeId, Map.of());
+        if (values != null) {
+            for (String value : values) {
+                BitSet bitmap = byValue.get(normalize(value));
+                if (bitmap != null) {
+                    result.or(bitmap);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * |a ∩ b| usando {@code scratch} como área de trabajo, sin reservar un bitmap por valor; si no se
+     * solapan, {@link BitSet#intersects} lo resuelve sin copiar.
+     */
+    private static int intersectionSize(BitSet a, BitSet b, BitSet scratch) {
+        if (!a.intersects(b)) {
+            return 0;
+        }
+        scratch.clear();
+        scratch.or(a);
+        scratch.and(b);
+        return scratch.cardinality();
+    }
+
+    /** AND de todos los filtros excepto {@code excludedAttributeId}, partiendo del universo. */
+    private BitSet intersectAll(Map<Long, BitSet> perAttribute, Long excludedAttributeId) {
+        BitSet result = (BitSet) universe.clone();
+        perAttribute.forEach((attributeId, bitmap) -> {
+            if (!attributeId.equals(excludedAttributeId)) {
+                result.and(bitmap);
+            }
+        });
+        return result;
+    }
+
+    private void set(Long productId, Long attributeId, String value) {
+        String normalized = normalize(value);
+        if (normalized == null || normalized.isEmpty()) {
+            return;
+        }
+        int bit = ordinalFor(productId);
+        bitmaps.computeIfAbsent(attributeId, k -> new HashMap<>())
+                .computeIfAbsent(normalized, k -> new BitSet())
+                .set(bit);
+        universe.set(bit);
+    }
+
+    private void clear(Long productId, Long attributeId) {
+        Map<String, BitSet> byValue = bitmaps.get(attributeId);
+        Integer bit = ordinalByProductId.get(productId);
+        if (byValue == null || bit == null) {
+            return;
+        }
+        byValue.values().removeIf(bitmap -> {
+            bitmap.clear(bit);
+            return bitmap.isEmpty();
+        });
+        if (byValue.isEmpty()) {
+            bitmaps.remove(attributeId);
+        }
+    }
+
+    private void refreshUniverse(Long productId) {
+        Integer bit = ordinalByProductId.get(productId);
+        if (bit == null) {
+            return;
+        }
+        for (Map<String, BitSet> byValue : bitmaps.values()) {
+            for (BitSet bitmap : byValue.values()) {
+                if (bitmap.get(bit)) {
+                    return;
+                }
+            }
+        }
+        releaseOrdinal(productId);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    /** Ordinal del producto; si no tiene, uno libre o uno nuevo. */
+    private int ordinalFor(Long productId) {
+        if (productId == null) {
+            throw new IllegalArgumentException("Id de producto nulo");
+        }
+        Integer existing = ordinalByProductId.get(productId);
+        if (existing != null) {
+            return existing;
+        }
+        Integer free = freeOrdinals.poll();
+        int ordinal;
+        if (free != null) {
+            ordinal = free;
+        } else {
+            ordinal = nextOrdinal++;
+            if (ordinal == productIdByOrdinal.length) {
+                productIdByOrdinal = Arrays.copyOf(productIdByOrdinal, productIdByOrdinal.length * 2);
+            }
+        }
+        productIdByOrdinal[ordinal] = productId;
+        ordinalByProductId.put(productId, ordinal);
+        return ordinal;
+    }
+
+    /** Saca del universo a un producto que ya no está en ningún bitmap y deja su ordinal libre. */
+    private void releaseOrdinal(Long productId) {
+        Integer ordinal = ordinalByProductId.remove(productId);
+        if (ordinal != null) {
+            universe.clear(ordinal);
+            freeOrdinals.push(ordinal);
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package com.nomos.inventory.service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nomos.inventory.service.model.dto.ImportJobDTO;
+import com.nomos.inventory.service.model.dto.ImportRowErrorDTO;
+import com.nomos.inventory.service.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de productos desde CSV o NDJSON.
+ * <p>
+ * El archivo se copia a disco y se procesa en segundo plano leyendo una fila por vez. Cada bloque
+ * de {@code chunkSize} filas se valida con una consulta de SKUs existentes y las cachés de datos
+ * maestros, y se inserta con {@code INSERT ... VALUES (...), (...) ON CONFLICT DO NOTHING RETURNING sku}
+ * en su propia transacción: un bloque con problemas no revierte los anteriores, y los SKUs devueltos son
+ * exactamente los insertados (los conteos de un batch JDBC no lo dicen con {@code reWriteBatchedInserts}). El progreso y los errores por fila se consultan con
+ * {@link #getJob(String)}.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    public enum Format { CSV, NDJSON }
+
+    static final List<String> COLUMNS = List.of(
+            "sku", "name", "brandId", "price", "minStockThreshold", "categoryId", "unitOfMeasureId");
+
+    private static final String INSERT_SQL =
+            "INSERT INTO products (sku, name, brand, price, min_stock_threshold, category, unit_of_measure) VALUES ";
+
+    private static final String INSERT_VALUES = "(?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_CONFLICT_SQL = " ON CONFLICT (sku) DO NOTHING RETURNING sku";
+
+    /** Filas por sentencia: 7 parámetros por fila, lejos del límite de 32767 del protocolo de PostgreSQL. */
+    private static final int MAX_ROWS_PER_INSERT = 1000;
+
+    private static final int MAX_RETAINED_JOBS = 100;
+
+    private final ProductRepository productRepository;
+    private final MasterDataCacheService masterDataCacheService;
+    private final ProductSearchIndex productSearchIndex;
+    private final CollectionVersionService collectionVersionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor importExecutor;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public ProductImportService(ProductRepository productRepository,
+                                MasterDataCacheService masterDataCacheService,
+                                ProductSearchIndex productSearchIndex,
+                                CollectionVersionService collectionVersionService,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                @Qualifier("importExecutor") TaskExecutor importExecutor,
+                                @Value("${inventory.import.chunk-size:1000}") int chunkSize,
+                                @Value("${inventory.import.max-errors:1000}") int maxErrors) {
+        this.productRepository = productRepository;
+        this.masterDataCacheService = masterDataCacheService;
+        this.productSearchIndex = productSearchIndex;
+        this.collectionVersionService = collectionVersionService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.importExecutor = importExecutor;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Copia el archivo a un temporal y encola su procesamiento.
+     *
+     * @return el estado inicial del trabajo (PENDING) con su id para consultar el progreso.
+     */
+    public ImportJobDTO startImport(MultipartFile file, Format format) {
+        if (file.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El archivo de importación está vacío");
+        }
+
+        Path spool;
+        try {
+            spool = Files.createTempFile("product-import-", "." + format.name().toLowerCase(Locale.ROOT));
+            file.transferTo(spool);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "No se pudo recibir el archivo de importación", e);
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), format);
+        pruneFinishedJobs();
+        jobs.put(job.id, job);
+
+        try {
+            importExecutor.execute(() -> run(job, spool));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.id);
+            deleteQuietly(spool);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Hay demasiadas importaciones en curso; intente más tarde");
+        }
+        return job.snapshot();
+    }
+
+    public Optional<ImportJobDTO> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(ImportJob::snapshot);
+    }
+
+    /** Deduce el formato a partir del nombre del archivo o su content type; CSV por defecto. */
+    public static Format detectFormat(MultipartFile file) {
+        String name = Optional.ofNullable(file.getOriginalFilename()).orElse("").toLowerCase(Locale.ROOT);
+        String contentType = Optional.ofNullable(file.getContentType()).orElse("").toLowerCase(Locale.ROOT);
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || contentType.contains("ndjson")) {
+            return Format.NDJSON;
+        }
+        return Format.CSV;
+    }
+
+    private void run(ImportJob job, Path spool) {
+        job.start();
+        try (BufferedReader reader = Files.newBufferedReader(spool, StandardCharsets.UTF_8)) {
+            Iterator<RawRow> rows = job.format == Format.CSV ? new CsvRows(reader) : new NdjsonRows(reader);
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+
+            while (rows.hasNext()) {
+                RawRow raw = rows.next();
+                job.rowsProcessed(1);
+                try {
+                    chunk.add(parse(raw));
+                } catch (IllegalArgumentException e) {
+                    job.rowFailed(raw.rowNumber, raw.values.get("sku"), e.getMessage());
+                }
+                if (chunk.size() == chunkSize) {
+                    flush(job, chunk);
+                    chunk.clear();
+                }
+            }
+            flush(job, chunk);
+            job.finish(null);
+        } catch (Exception e) {
+            logger.error("Importación {} interrumpida", job.id, e);
+            job.finish(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            deleteQuietly(spool);
+        }
+
+        ImportJobDTO result = job.snapshot();
+        logger.info("Importación {} finalizada: {} filas, {} insertadas, {} con error ({} filas/s)",
+                job.id, result.getProcessedRows(), result.getInsertedRows(), result.getFailedRows(), result.getRowsPerSecond());
+    }
+
+    /**
+     * Valida e inserta un bloque: una consulta de SKUs existentes, una lectura (normalmente en caché)
+     * por cada tipo de dato maestro y un {@code INSERT} multifila por cada mil filas.
+     */
+    private void flush(ImportJob job, List<ImportRow> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        Map<String, ImportRow> bySku = new LinkedHashMap<>();
+        for (ImportRow row : chunk) {
+            if (bySku.putIfAbsent(row.sku, row) != null) {
+                job.rowFailed(row.rowNumber, row.sku, "SKU duplicado dentro del archivo");
+            }
+        }
+
+        Set<String> existing = productRepository.findExistingSkus(bySku.keySet());
+        Set<Long> brandIds = masterDataCacheService.getBrands(
+                bySku.values().stream().map(ImportRow::brandId).collect(Collectors.toSet())).keySet();
+        Set<Long> categoryIds = masterDataCacheService.getCategories(
+                bySku.values().stream().map(ImportRow::categoryId).collect(Collectors.toSet())).keySet();
+        Set<Long> unitIds = masterDataCacheService.getUnitsOfMeasure(
+                bySku.values().stream().map(ImportRow::unitOfMeasureId).collect(Collectors.toSet())).keySet();
+
+        List<ImportRow> valid = new ArrayList<>(bySku.size());
+        for (ImportRow row : bySku.values()) {
+            if (existing.contains(row.sku)) {
+                job.rowFailed(row.rowNumber, row.sku, "El SKU ya existe");
+            } else if (!brandIds.contains(row.brandId)) {
+                job.rowFailed(row.rowNumber, row.sku, "Marca no encontrada con ID: " + row.brandId);
+            } else if (!categoryIds.contains(row.categoryId)) {
+                job.rowFailed(row.rowNumber, row.sku, "Categoría no encontrada con ID: " + row.categoryId);
+            } else if (!unitIds.contains(row.unitOfMeasureId)) {
+                job.rowFailed(row.rowNumber, row.sku, "Unidad de medida no encontrada con ID: " + row.unitOfMeasureId);
+            } else {
+                valid.add(row);
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            Set<String> returned = transactionTemplate.execute(status -> {
+                Set<String> skus = new HashSet<>();
+                for (int from = 0; from < valid.size(); from += MAX_ROWS_PER_INSERT) {
+                    skus.addAll(insert(valid.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, valid.size()))));
+                }
+                return skus;
+            });
+
+            List<String> inserted = new ArrayList<>(valid.size());
+            for (ImportRow row : valid) {
+                // Sin SKU devuelto = la fila chocó con ON CONFLICT (insertada por otro proceso entre la validación y el INSERT).
+                if (returned == null || !returned.contains(row.sku)) {
+                    job.rowFailed(row.rowNumber, row.sku, "El SKU ya existe");
+                } else {
+                    inserted.add(row.sku);
+                }
+            }
+            job.rowsInserted(inserted.size());
+
+            if (!inserted.isEmpty()) {
+                productSearchIndex.indexNew(productRepository.findBySkuIn(inserted));
+                collectionVersionService.bump(CollectionVersionService.Collection.PRODUCTS);
+            }
+        }
+    }
+
+    /** @return los SKUs efectivamente insertados. */
+    private List<String> insert(List<ImportRow> rows) {
+        StringBuilder sql = new StringBuilder(INSERT_SQL);
+        Object[] args = new Object[rows.size() * 7];
+        int arg = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            ImportRow row = rows.get(i);
+            sql.append(i == 0 ? "" : ", ").append(INSERT_VALUES);
+            args[arg++] = row.sku;
+            args[arg++] = row.name;
+            args[arg++] = row.brandId;
+            args[arg++] = row.price;
+            args[arg++] = row.minStockThreshold;
+            args[arg++] = row.categoryId;
+            args[arg++] = row.unitOfMeasureId;
+        }
+        sql.append(INSERT_CONFLICT_SQL);
+        return jdbcTemplate.queryForList(sql.toString(), String.class, args);
+    }
+
+    private static ImportRow parse(RawRow raw) {
+        Map<String, String> values = raw.values;
+        String sku = required(values, "sku");
+        String name = required(values, "name");
+        Double price = parseNumber(values, "price", Double::valueOf);
+        Integer minStock = parseNumber(values, "minStockThreshold", Integer::valueOf);
+        if (price < 0) {
+            throw new IllegalArgumentException("El precio no puede ser negativo");
+        }
+        if (minStock < 0) {
+            throw new IllegalArgumentException("El umbral de stock mínimo no puede ser negativo");
+        }
+        return new ImportRow(raw.rowNumber, sku, name,
+                parseNumber(values, "brandId", Long::valueOf),
+                price,
+                minStock,
+                parseNumber(values, "categoryId", Long::valueOf),
+                parseNumber(values, "unitOfMeasureId", Long::valueOf));
+    }
+
+    private static String required(Map<String, String> values, String column) {
+        String value = values.get(column);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("El campo '" + column + "' es obligatorio");
+        }
+        return value.trim();
+    }
+
+    private static <N> N parseNumber(Map<String, String> values, String column, java.util.function.Function<String, N> parser) {
+        String value = required(values, column);
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor numérico inválido en '" + column + "': " + value);
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        if (jobs.size() < MAX_RETAINED_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(ImportJob::isFinished)
+                .sorted((a, b) -> a.createdAt.compareTo(b.createdAt))
+                .limit(jobs.size() - MAX_RETAINED_JOBS + 1L)
+                .map(job -> job.id)
+                .toList()
+                .forEach(jobs::remove);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("No se pudo borrar el archivo temporal {}", path, e);
+        }
+    }
+
+    private record ImportRow(long rowNumber, String sku, String name, Long brandId, Double price,
+                             Integer minStockThreshold, Long categoryId, Long unitOfMeasureId) {
+    }
+
+    /** Fila leída del archivo antes de validar: columna -> valor en texto. */
+    private record RawRow(long rowNumber, Map<String, String> values) {
+    }
+
+    /** Recorre un CSV con encabezado; las columnas se ubican por nombre. */
+    private static final class CsvRows implements Iterator<RawRow> {
+
+        private final BufferedReader reader;
+        private final Map<String, Integer> positions = new HashMap<>();
+        private List<String> next;
+        private long rowNumber;
+
+        CsvRows(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            List<String> header = CsvSupport.readRecord(reader);
+            if (header == null) {
+                throw new IllegalArgumentException("El archivo CSV no tiene encabezado");
+            }
+            for (int i = 0; i < header.size(); i++) {
+                positions.put(header.get(i).trim().replace("\uFEFF", ""), i);
+            }
+            Set<String> missing = new HashSet<>(COLUMNS);
+            missing.removeAll(positions.keySet());
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("Faltan columnas en el encabezado: " + missing);
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public RawRow next() {
+            List<String> record = next;
+            rowNumber++;
+            Map<String, String> values = new HashMap<>();
+            for (String column : COLUMNS) {
+                int position = positions.get(column);
+                values.put(column, position < record.size() ? record.get(position) : null);
+            }
+            advance();
+            return new RawRow(rowNumber, values);
+        }
+
+        private void advance() {
+            try {
+                do {
+                    next = CsvSupport.readRecord(reader);
+                } while (next != null && next.size() == 1 && next.get(0).isBlank());
+            } catch (IOException e) {
+                throw new IllegalStateException("Error leyendo el archivo CSV", e);
+            }
+        }
+    }
+
+    /** Recorre un NDJSON: un objeto JSON por línea. Las líneas inválidas se reportan como error de fila. */
+    private final class NdjsonRows implements Iterator<RawRow> {
+
+        private final BufferedReader reader;
+        private String next;
+        private long rowNumber;
+
+        NdjsonRows(BufferedReader reader) {
+            this.reader = reader;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public RawRow next() {
+            String line = next;
+            rowNumber++;
+            advance();
+
+            Map<String, String> values = new HashMap<>();
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                for (String column : COLUMNS) {
+                    JsonNode value = node.get(column);
+                    values.put(column, value == null || value.isNull() ? null : value.asText());
+                }
+            } catch (IOException e) {
+                // Sin valores: parse() la rechaza como fila inválida y se sigue con la siguiente.
+                values.clear();
+            }
+            return new RawRow(rowNumber, values);
+        }
+
+        private void advance() {
+            try {
+                do {
+                    next = reader.readLine();
+                } while (next != null && next.isBlank());
+            } catch (IOException e) {
+                throw new IllegalStateException("Error leyendo el archivo NDJSON", e);
+            }
+        }
+    }
+
+    /** Estado mutable de un trabajo; lo escribe el hilo de importación y lo leen las consultas de progreso. */
+    private final class ImportJob {
+
+        private final String id;
+        private final Format format;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+
+        private ImportJobDTO.Status status = ImportJobDTO.Status.PENDING;
+        private long processed;
+        private long inserted;
+        private long failed;
+        private final List<ImportRowErrorDTO> errors = new ArrayList<>();
+        private boolean errorsTruncated;
+        private String failureMessage;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+
+        ImportJob(String id, Format format) {
+            this.id = id;
+            this.format = format;
+        }
+
+        synchronized void start() {
+            status = ImportJobDTO.Status.RUNNING;
+            startedAt = LocalDateTime.now();
+        }
+
+        synchronized void finish(String failure) {
+            status = failure == null ? ImportJobDTO.Status.COMPLETED : ImportJobDTO.Status.FAILED;
+            failureMessage = failure;
+            finishedAt = LocalDateTime.now();
+        }
+
+        synchronized boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        synchronized void rowFailed(long row, String sku, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportRowErrorDTO(row, sku, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        synchronized void rowsInserted(int count) {
+            inserted += count;
+        }
+
+        synchronized void rowsProcessed(int count) {
+            processed += count;
+        }
+
+        synchronized ImportJobDTO snapshot() {
+            Double rate = null;
+            if (startedAt != null) {
+                long millis = Duration.between(startedAt, finishedAt != null ? finishedAt : LocalDateTime.now()).toMillis();
+                rate = millis > 0 ? Math.round(processed * 1000.0 / millis * 10) / 10.0 : null;
+            }
+            return new ImportJobDTO(id, status, format.name(), processed, inserted, failed,
+                    List.copyOf(errors), errorsTruncated, failureMessage, startedAt, finishedAt, rate);
+        }
+    }
+}
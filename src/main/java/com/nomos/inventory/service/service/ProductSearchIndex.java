@@ -0,0 +1,558 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.Brand;
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.ProductAttributeValue;
+import com.nomos.inventory.service.repository.ProductAttributeValueRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Índice invertido en memoria sobre nombre, SKU, marca y valores de atributos de los productos.
+ * Guarda cada token completo y sus prefijos (edge n-grams) para resolver búsquedas tipo
+ * "typeahead" sin consultar la base de datos. Se construye al arrancar y se mantiene al día
+ * desde los controladores de productos, atributos y marcas.
+ */
+@Service
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    static final int MIN_PREFIX = 2;
+    static final int MAX_PREFIX = 12;
+
+    private static final int WEIGHT_NAME = 8;
+    private static final int WEIGHT_SKU = 6;
+    private static final int WEIGHT_BRAND = 4;
+    private static final int WEIGHT_ATTRIBUTE = 2;
+
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{Alnum}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final ProductRepository productRepository;
+    private final ProductAttributeValueRepository pavRepository;
+    private final MasterDataCacheService masterDataCacheService;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /*
+     * Los productos se identifican internamente por un ordinal denso y creciente, así las
+     * listas de postings son arreglos primitivos ordenados que se intersectan por mezcla.
+     * Un producto reindexado conserva su ordinal y los ordinales de productos quitados se
+     * reutilizan, así el arreglo no crece con las ediciones; rebuild() vuelve a numerar por id.
+     */
+    private final Map<Long, Integer> ordinalByProductId = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private long[] productIdByOrdinal = new long[1024];
+    private int nextOrdinal = 0;
+
+    /** productId -> token -> peso (el mayor de los campos donde aparece). */
+    private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+    /** token completo -> postings. */
+    private final Map<String, Postings> exactPostings = new HashMap<>();
+    /** prefijo (MIN_PREFIX..MAX_PREFIX) -> postings con el mayor peso entre los tokens con ese prefijo. */
+    private final Map<String, Postings> prefixPostings = new HashMap<>();
+
+    public ProductSearchIndex(ProductRepository productRepository,
+                              ProductAttributeValueRepository pavRepository,
+                              MasterDataCacheService masterDataCacheService) {
+        this.productRepository = productRepository;
+        this.pavRepository = pavRepository;
+        this.masterDataCacheService = masterDataCacheService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+
+        List<Product> products = productRepository.findAll();
+        Map<Long, List<String>> attributesByProduct = pavRepository.findAll().stream()
+                .collect(Collectors.groupingBy(ProductAttributeValue::getProductId,
+                        Collectors.mapping(ProductAttributeValue::getValue, Collectors.toList())));
+        Map<Long, Brand> brands = masterDataCacheService.getBrands(
+                products.stream().map(Product::getBrandId).collect(Collectors.toSet()));
+
+        products.sort(Comparator.comparing(Product::getId));
+
+        lock.writeLock().lock();
+        try {
+            ordinalByProductId.clear();
+            freeOrdinals.clear();
+            productIdByOrdinal = new long[Math.max(1024, products.size())];
+            nextOrdinal = 0;
+            documents.clear();
+            exactPostings.clear();
+            prefixPostings.clear();
+
+            for (Product product : products) {
+                Brand brand = brands.get(product.getBrandId());
+                addDocument(product.getId(), buildDocument(product, brand != null ? brand.getName() : null,
+                        attributesByProduct.getOrDefault(product.getId(), List.of())));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        logger.info("Índice de búsqueda de productos construido: {} productos en {} ms",
+                products.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Vuelve a indexar un producto leyendo su estado actual; si ya no existe, lo quita del índice.
+     */
+    public void reindex(Long productId) {
+        productRepository.findById(productId).ifPresentOrElse(product -> {
+            String brandName = masterDataCacheService.getBrand(product.getBrandId()).map(Brand::getName).orElse(null);
+            List<String> attributes = pavRepository.findByProductId(productId).stream()
+                    .map(ProductAttributeValue::getValue)
+                    .toList();
+            Map<String, Integer> document = buildDocument(product, brandName, attributes);
+
+            lock.writeLock().lock();
+            try {
+                removePostings(productId);
+                addDocument(productId, document);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }, () -> remove(productId));
+    }
+
+    /**
+     * Indexa en bloque productos recién creados, que todavía no tienen valores de atributos
+     * (por ejemplo, los insertados por la importación masiva). Toma el lock una sola vez.
+     */
+    public void indexNew(Collection<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        Map<Long, Brand> brands = masterDataCacheService.getBrands(
+                products.stream().map(Product::getBrandId).collect(Collectors.toSet()));
+        List<Product> sorted = products.stream().sorted(Comparator.comparing(Product::getId)).toList();
+
+        lock.writeLock().lock();
+        try {
+            for (Product product : sorted) {
+                Brand brand = brands.get(product.getBrandId());
+                removePostings(product.getId());
+                addDocument(product.getId(), buildDocument(product, brand != null ? brand.getName() : null, List.of()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vuelve a indexar los productos de una marca (por ejemplo, tras renombrarla). Lee los productos y
+     * sus atributos con una consulta cada uno y toma el lock una sola vez.
+     */
+    public void reindexBrand(Long brandId) {
+        List<Product> products = productRepository.findByBrandId(brandId);
+        if (products.isEmpty()) {
+            return;
+        }
+        String brandName = masterDataCacheService.getBrand(brandId).map(Brand::getName).orElse(null);
+        Map<Long, List<String>> attributesByProduct = pavRepository.findByProductIdIn(
+                        products.stream().map(Product::getId).toList()).stream()
+                .collect(Collectors.groupingBy(ProductAttributeValue::getProductId,
+                        Collectors.mapping(ProductAttributeValue::getValue, Collectors.toList())));
+
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                removePostings(product.getId());
+                addDocument(product.getId(), buildDocument(product, brandName,
+                        attributesByProduct.getOrDefault(product.getId(), List.of())));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca productos cuyo texto contenga todos los términos de la consulta (como token o prefijo).
+     * El puntaje suma el peso del campo de cada coincidencia y duplica las coincidencias exactas.
+     *
+     * @return ids de producto ordenados por relevancia (y por id ante empate).
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> terms = tokenize(query).stream().filter(t -> t.length() >= MIN_PREFIX).distinct().toList();
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<String> bySelectivity = terms.stream()
+                    .sorted(Comparator.comparingInt(this::candidateCount))
+                    .toList();
+
+            Matches matches = null;
+            for (String term : bySelectivity) {
+                Matches termMatches = matchTerm(term);
+                matches = matches == null ? termMatches : matches.intersect(termMatches);
+                if (matches.size == 0) {
+                    return List.of();
+                }
+            }
+            return topK(matches, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Ordinales asignados desde el último rebuild(), incluidos los libres para reutilizar. */
+    int allocatedOrdinals() {
+        lock.readLock().lock();
+        try {
+            return nextOrdinal;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int candidateCount(String term) {
+        Postings postings = prefixPostings.get(term.length() > MAX_PREFIX ? term.substring(0, MAX_PREFIX) : term);
+        return postings == null ? 0 : postings.size;
+    }
+
+    /**
+     * Devuelve los productos que contienen el término como token o prefijo, con su puntaje.
+     * Los términos más largos que MAX_PREFIX se verifican contra los tokens del documento.
+     */
+    private Matches matchTerm(String term) {
+        boolean verify = term.length() > MAX_PREFIX;
+        Postings prefix = prefixPostings.get(verify ? term.substring(0, MAX_PREFIX) : term);
+        if (prefix == null) {
+            return new Matches(new int[0], new int[0], 0);
+        }
+        Postings exact = exactPostings.get(term);
+
+        int[] ordinals = new int[prefix.size];
+        int[] scores = new int[prefix.size];
+        int size = 0;
+        int e = 0;
+        for (int i = 0; i < prefix.size; i++) {
+            int ordinal = prefix.ordinals[i];
+            int score;
+            if (exact != null) {
+                while (e < exact.size && exact.ordinals[e] < ordinal) {
+                    e++;
+                }
+            }
+            if (exact != null && e < exact.size && exact.ordinals[e] == ordinal) {
+                score = exact.weights[e] * 2;
+            } else if (verify) {
+                score = verifiedPrefixWeight(term, productIdByOrdinal[ordinal]);
+            } else {
+                score = prefix.weights[i];
+            }
+            if (score > 0) {
+                ordinals[size] = ordinal;
+                scores[size] = score;
+                size++;
+            }
+        }
+        return new Matches(ordinals, scores, size);
+    }
+
+    private int verifiedPrefixWeight(String term, long productId) {
+        int best = 0;
+        for (Map.Entry<String, Integer> token : documents.getOrDefault(productId, Map.of()).entrySet()) {
+            if (token.getKey().startsWith(term)) {
+                best = Math.max(best, token.getValue());
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Selecciona los {@code limit} mejores con un min-heap sobre índices, sin crear objetos por candidato.
+     */
+    private List<Long> topK(Matches matches, int limit) {
+        int k = Math.min(limit, matches.size);
+        int[] heap = new int[k];
+        int heapSize = 0;
+
+        for (int i = 0; i < matches.size; i++) {
+            if (heapSize < k) {
+                heap[heapSize] = i;
+                siftUp(heap, heapSize++, matches);
+            } else if (ranksBefore(i, heap[0], matches)) {
+                heap[0] = i;
+                siftDown(heap, heapSize, matches);
+            }
+        }
+
+        Integer[] ranked = new Integer[heapSize];
+        for (int i = 0; i < heapSize; i++) {
+            ranked[i] = heap[i];
+        }
+        Arrays.sort(ranked, (a, b) -> ranksBefore(a, b, matches) ? -1 : (ranksBefore(b, a, matches) ? 1 : 0));
+
+        List<Long> productIds = new ArrayList<>(heapSize);
+        for (Integer index : ranked) {
+            productIds.add(productIdByOrdinal[matches.ordinals[index]]);
+        }
+        return productIds;
+    }
+
+    /** true si el candidato {@code a} es más relevante que {@code b} (mayor puntaje, luego menor id). */
+    private boolean ranksBefore(int a, int b, Matches matches) {
+        if (matches.scores[a] != matches.scores[b]) {
+            return matches.scores[a] > matches.scores[b];
+        }
+        return productIdByOrdinal[matches.ordinals[a]] < productIdByOrdinal[matches.ordinals[b]];
+    }
+
+    private void siftUp(int[] heap, int index, Matches matches) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!ranksBefore(heap[parent], heap[index], matches)) {
+                break;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size, Matches matches) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            int right = left + 1;
+            int worst = index;
+            if (left < size && ranksBefore(heap[worst], heap[left], matches)) {
+                worst = left;
+            }
+            if (right < size && ranksBefore(heap[worst], heap[right], matches)) {
+                worst = right;
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(heap, index, worst);
+            index = worst;
+        }
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+
+    private static Map<String, Integer> buildDocument(Product product, String brandName, Collection<String> attributeValues) {
+        Map<String, Integer> document = new HashMap<>();
+        addField(document, product.getName(), WEIGHT_NAME);
+        addField(document, product.getSku(), WEIGHT_SKU);
+        if (product.getSku() != null) {
+            // El SKU también se indexa sin separadores para que "lp12" encuentre "LP-12345".
+            String compactSku = String.join("", tokenize(product.getSku()));
+            if (!compactSku.isEmpty()) {
+                document.merge(compactSku, WEIGHT_SKU, Math::max);
+            }
+        }
+        addField(document, brandName, WEIGHT_BRAND);
+        for (String value : attributeValues) {
+            addField(document, value, WEIGHT_ATTRIBUTE);
+        }
+        return document;
+    }
+
+    private static void addField(Map<String, Integer> document, String text, int weight) {
+        for (String token : tokenize(text)) {
+            document.merge(token, weight, Math::max);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_ALPHANUMERIC.split(normalized.toLowerCase())) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /** Indexa el documento con el ordinal que ya tenga el producto, uno libre o uno nuevo. */
+    private void addDocument(Long productId, Map<String, Integer> document) {
+        Integer existing = ordinalByProductId.get(productId);
+        int ordinal = existing != null ? existing : allocateOrdinal(productId);
+        documents.put(productId, document);
+
+        document.forEach((token, weight) -> {
+            exactPostings.computeIfAbsent(token, k -> new Postings()).upsert(ordinal, weight);
+            for (int length = MIN_PREFIX; length <= Math.min(MAX_PREFIX, token.length()); length++) {
+                prefixPostings.computeIfAbsent(token.substring(0, length), k -> new Postings()).upsert(ordinal, weight);
+            }
+        });
+    }
+
+    private int allocateOrdinal(Long productId) {
+        Integer free = freeOrdinals.poll();
+        int ordinal;
+        if (free != null) {
+            ordinal = free;
+        } else {
+            ordinal = nextOrdinal++;
+            if (ordinal == productIdByOrdinal.length) {
+                productIdByOrdinal = Arrays.copyOf(productIdByOrdinal, productIdByOrdinal.length * 2);
+            }
+        }
+        productIdByOrdinal[ordinal] = productId;
+        ordinalByProductId.put(productId, ordinal);
+        return ordinal;
+    }
+
+    /** Quita el producto del índice y deja su ordinal libre. */
+    private void removeDocument(Long productId) {
+        removePostings(productId);
+        Integer ordinal = ordinalByProductId.remove(productId);
+        if (ordinal != null) {
+            freeOrdinals.push(ordinal);
+        }
+    }
+
+    /** Quita los postings del documento actual conservando el ordinal del producto. */
+    private void removePostings(Long productId) {
+        Map<String, Integer> document = documents.remove(productId);
+        Integer ordinal = ordinalByProductId.get(productId);
+        if (document == null || ordinal == null) {
+            return;
+        }
+        for (String token : document.keySet()) {
+            removePosting(exactPostings, token, ordinal);
+            for (int length = MIN_PREFIX; length <= Math.min(MAX_PREFIX, token.length()); length++) {
+                removePosting(prefixPostings, token.substring(0, length), ordinal);
+            }
+        }
+    }
+
+    private static void removePosting(Map<String, Postings> index, String key, int ordinal) {
+        Postings postings = index.get(key);
+        if (postings != null && postings.remove(ordinal) && postings.size == 0) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * Lista de postings ordenada por ordinal. Como los ordinales nuevos suelen ser mayores, la
+     * inserción habitual es un append; un ordinal conservado o reutilizado se inserta en su lugar
+     * con búsqueda binaria, y el borrado desplaza el arreglo.
+     */
+    private static final class Postings {
+        private int[] ordinals = new int[4];
+        private byte[] weights = new byte[4];
+        private int size;
+
+        void upsert(int ordinal, int weight) {
+            int index = size > 0 && ordinals[size - 1] < ordinal ? -(size + 1) : Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (index >= 0) {
+                weights[index] = (byte) Math.max(weights[index], weight);
+                return;
+            }
+            int insertAt = -(index + 1);
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(ordinals, insertAt, ordinals, insertAt + 1, size - insertAt);
+            System.arraycopy(weights, insertAt, weights, insertAt + 1, size - insertAt);
+            ordinals[insertAt] = ordinal;
+            weights[insertAt] = (byte) weight;
+            size++;
+        }
+
+        boolean remove(int ordinal) {
+            int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ordinals, index + 1, ordinals, index, size - index - 1);
+            System.arraycopy(weights, index + 1, weights, index, size - index - 1);
+            size--;
+            return true;
+        }
+    }
+
+    /** Candidatos de una búsqueda: ordinales ordenados con su puntaje acumulado. */
+    private static final class Matches {
+        private final int[] ordinals;
+        private final int[] scores;
+        private final int size;
+
+        Matches(int[] ordinals, int[] scores, int size) {
+            this.ordinals = ordinals;
+            this.scores = scores;
+            this.size = size;
+        }
+
+        Matches intersect(Matches other) {
+            int capacity = Math.min(size, other.size);
+            int[] resultOrdinals = new int[capacity];
+            int[] resultScores = new int[capacity];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                int a = ordinals[i];
+                int b = other.ordinals[j];
+                if (a == b) {
+                    resultOrdinals[count] = a;
+                    resultScores[count] = scores[i] + other.scores[j];
+                    count++;
+                    i++;
+                    j++;
+                } else if (a < b) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return new Matches(resultOrdinals, resultScores, count);
+        }
+    }
+}
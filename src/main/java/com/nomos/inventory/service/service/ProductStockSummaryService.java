@@ -0,0 +1,156 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.InventoryItem;
+import com.nomos.inventory.service.model.ProductStockSummary;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import com.nomos.inventory.service.repository.ProductStockSummaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Mantiene {@code product_stock_summary}. Cada alta, edición o baja de un lote y cada movimiento
+ * llama a este servicio dentro de su propia transacción, de modo que la proyección confirma o se
+ * revierte junto con el cambio que la originó.
+ */
+@Service
+public class ProductStockSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductStockSummaryService.class);
+
+    private final ProductStockSummaryRepository summaryRepository;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public ProductStockSummaryService(ProductStockSummaryRepository summaryRepository,
+                                      InventoryItemRepository inventoryItemRepository,
+                                      ProductRepository productRepository,
+                                      ApplicationEventPublisher eventPublisher,
+                                      PlatformTransactionManager transactionManager) {
+        this.summaryRepository = summaryRepository;
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void itemCreated(InventoryItem item) {
+        applyChange(item.getProduct().getId(), 0, item.getQuantity(), item.getExpirationDate() != null);
+    }
+
+    /**
+     * @param previousProductId producto del lote antes de la edición
+     * @param previousQuantity  cantidad del lote antes de la edición
+     * @param previousExpiration vencimiento del lote antes de la edición
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void itemUpdated(Long previousProductId, int previousQuantity, LocalDate previousExpiration, InventoryItem item) {
+        Long productId = item.getProduct().getId();
+        if (!productId.equals(previousProductId)) {
+            applyChange(previousProductId, previousQuantity, 0, previousExpiration != null);
+            applyChange(productId, 0, item.getQuantity(), item.getExpirationDate() != null);
+            return;
+        }
+        boolean expirationAffected = !Objects.equals(previousExpiration, item.getExpirationDate())
+                || (item.getExpirationDate() != null && (previousQuantity > 0) != (item.getQuantity() > 0));
+        applyChange(productId, previousQuantity, item.getQuantity(), expirationAffected);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void itemDeleted(InventoryItem item) {
+        applyChange(item.getProduct().getId(), item.getQuantity(), 0, item.getExpirationDate() != null);
+    }
+
+    /** Cambio de cantidad de un lote existente (movimientos de inventario). */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void quantityChanged(InventoryItem item, int previousQuantity) {
+        boolean crossedZero = (previousQuantity > 0) != (item.getQuantity() > 0);
+        applyChange(item.getProduct().getId(), previousQuantity, item.getQuantity(),
+                crossedZero && item.getExpirationDate() != null);
+    }
+
+    /** Variante para quien solo conoce ids y cantidades (escrituras SQL directas sobre los lotes). */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void quantityChanged(Long productId, int previousQuantity, int newQuantity) {
+        applyChange(productId, previousQuantity, newQuantity, (previousQuantity > 0) != (newQuantity > 0));
+    }
+
+    @Transactional
+    public void productDeleted(Long productId) {
+        if (summaryRepository.existsById(productId)) {
+            summaryRepository.deleteById(productId);
+        }
+    }
+
+    /** Stock total del producto leído por clave primaria; vacío si el producto no tiene fila. */
+    @Transactional(readOnly = true)
+    public Optional<Integer> findOnHand(Long productId) {
+        return summaryRepository.findById(productId).map(ProductStockSummary::getOnHand);
+    }
+
+    /**
+     * Stock total del producto; vacío solo si el producto no existe. Un producto sin fila en la
+     * proyección (nunca tuvo lotes) tiene stock 0.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Integer> getOnHand(Long productId) {
+        Optional<Integer> onHand = findOnHand(productId);
+        if (onHand.isPresent()) {
+            return onHand;
+        }
+        return productRepository.existsById(productId) ? Optional.of(0) : Optional.empty();
+    }
+
+    /** Recalcula la proyección completa desde {@code inventory_items}. */
+    @Transactional
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        summaryRepository.deleteAllRows();
+        int rows = summaryRepository.insertFromInventoryItems();
+        logger.info("Resumen de stock por producto reconstruido: {} productos en {} ms",
+                rows, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    /**
+     * Si la tabla está vacía pero hay lotes (primer despliegue o carga inicial), la construye. La
+     * llamada a {@link #rebuild()} desde el mismo bean no pasa por el proxy, así que la transacción se
+     * abre explícitamente: las consultas {@code @Modifying} la necesitan.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (summaryRepository.count() == 0 && inventoryItemRepository.count() > 0) {
+            transactionTemplate.executeWithoutResult(status -> rebuild());
+        }
+    }
+
+    private void applyChange(Long productId, int previousQuantity, int newQuantity, boolean expirationAffected) {
+        int quantityDelta = newQuantity - previousQuantity;
+        int lotDelta = (newQuantity > 0 ? 1 : 0) - (previousQuantity > 0 ? 1 : 0);
+        if (quantityDelta == 0 && lotDelta == 0 && !expirationAffected) {
+            return;
+        }
+        summaryRepository.applyDelta(productId, quantityDelta, lotDelta);
+        if (expirationAffected || lotDelta != 0) {
+            // La subconsulta lee inventory_items por SQL: el lote modificado tiene que estar escrito.
+            inventoryItemRepository.flush();
+            summaryRepository.refreshEarliestExpiration(productId);
+        }
+        eventPublisher.publishEvent(new StockChangedEvent(productId));
+    }
+}
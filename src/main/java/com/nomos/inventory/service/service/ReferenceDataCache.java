@@ -0,0 +1,190 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.dto.CacheStatsDTO;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caché LRU acotada, de lectura directa (read-through), para entidades de referencia
+ * que casi nunca cambian. Las lecturas faltantes se resuelven con el cargador indicado
+ * y se guardan; las escrituras de los controladores deben llamar a {@link #put} o {@link #evict}.
+ * <p>
+ * Una carga que empezó antes de un {@code put}/{@code evict}/{@code clear} del mismo id no guarda su
+ * resultado: podría ser la versión anterior a la escritura. Para eso cada escritura anota su número de
+ * secuencia por id mientras haya cargas en curso, y la carga lo compara, bajo el mismo lock, con el
+ * número que vio al empezar.
+ */
+public class ReferenceDataCache<T> {
+
+    private final String name;
+    private final int maxEntries;
+    private final Function<T, Long> idExtractor;
+    private final LinkedHashMap<Long, T> entries;
+
+    // Protegidos por el lock de entries.
+    private final Map<Long, Long> writeSeqById = new HashMap<>();
+    private long writeSeq;
+    private long clearSeq;
+    private int loadsInFlight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ReferenceDataCache(String name, int maxEntries, Function<T, Long> idExtractor) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.idExtractor = idExtractor;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, T> eldest) {
+                if (size() > ReferenceDataCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Optional<T> get(Long id, Function<Long, Optional<T>> loader) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        T cached;
+        long seq;
+        synchronized (entries) {
+            cached = entries.get(id);
+            seq = writeSeq;
+            if (cached == null) {
+                loadsInFlight++;
+            }
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(cached);
+        }
+
+        misses.incrementAndGet();
+        Optional<T> loaded = Optional.empty();
+        try {
+            loaded = loader.apply(id);
+            return loaded;
+        } finally {
+            synchronized (entries) {
+                loaded.ifPresent(entity -> putIfUnchangedSince(seq, id, entity));
+                loadFinished();
+            }
+        }
+    }
+
+    /**
+     * Devuelve id -> entidad para todos los ids encontrados. Los faltantes en caché
+     * se cargan juntos con una sola llamada a {@code bulkLoader}.
+     */
+    public Map<Long, T> getAll(Collection<Long> ids, Function<Set<Long>, Iterable<T>> bulkLoader) {
+        Map<Long, T> result = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        long seq;
+
+        synchronized (entries) {
+            seq = writeSeq;
+            for (Long id : ids) {
+                if (id == null) {
+                    continue;
+                }
+                T cached = entries.get(id);
+                if (cached != null) {
+                    result.put(id, cached);
+                } else {
+                    missing.add(id);
+                }
+            }
+            if (!missing.isEmpty()) {
+                loadsInFlight++;
+            }
+        }
+        hits.addAndGet(result.size());
+
+        if (!missing.isEmpty()) {
+            misses.addAndGet(missing.size());
+            Map<Long, T> loaded = new HashMap<>();
+            try {
+                for (T entity : bulkLoader.apply(missing)) {
+                    loaded.put(idExtractor.apply(entity), entity);
+                }
+            } finally {
+                synchronized (entries) {
+                    loaded.forEach((id, entity) -> putIfUnchangedSince(seq, id, entity));
+                    loadFinished();
+                }
+            }
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    public void put(T entity) {
+        Long id = idExtractor.apply(entity);
+        if (id == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(id, entity);
+            written(id);
+        }
+    }
+
+    public void evict(Long id) {
+        synchronized (entries) {
+            entries.remove(id);
+            written(id);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            clearSeq = ++writeSeq;
+            writeSeqById.clear();
+        }
+    }
+
+    /** Llamar con el lock tomado. */
+    private void written(Long id) {
+        writeSeq++;
+        if (loadsInFlight > 0) {
+            writeSeqById.put(id, writeSeq);
+        }
+    }
+
+    /** Llamar con el lock tomado: guarda lo cargado solo si el id no se escribió desde {@code seq}. */
+    private void putIfUnchangedSince(long seq, Long id, T entity) {
+        if (id != null && clearSeq <= seq && writeSeqById.getOrDefault(id, 0L) <= seq) {
+            entries.put(id, entity);
+        }
+    }
+
+    /** Llamar con el lock tomado. Sin cargas en curso nadie compara contra las secuencias anotadas. */
+    private void loadFinished() {
+        if (--loadsInFlight == 0) {
+            writeSeqById.clear();
+        }
+    }
+
+    public CacheStatsDTO stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStatsDTO(name, size, maxEntries, hits.get(), misses.get(), evictions.get());
+    }
+}
@@ -0,0 +1,81 @@
+package com.nomos.inventory.service.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rueda de temporizadores con hash para los vencimientos de reservas.
+ * <p>
+ * El tiempo se divide en ticks de {@code tickMillis}; cada reserva cae en la ranura
+ * {@code tickDeVencimiento % ranuras}. Avanzar la rueda solo revisa las ranuras de los ticks
+ * transcurridos, así que el costo depende de cuántas reservas vencen y no de cuántas hay activas.
+ * Una reserva que vence más de una vuelta adelante queda en su ranura hasta la vuelta que corresponda.
+ */
+final class ReservationTimerWheel {
+
+    private final long tickMillis;
+    private final int mask;
+    private final List<Map<Long, Long>> slots;
+    private final Map<Long, Long> deadlineById = new HashMap<>();
+    private long lastTick;
+
+    ReservationTimerWheel(long tickMillis, int slotCount, long nowMillis) {
+        if (Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("La cantidad de ranuras debe ser potencia de 2");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = slotCount - 1;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new HashMap<>());
+        }
+        this.lastTick = nowMillis / tickMillis;
+    }
+
+    /** Agenda (o reagenda) el vencimiento de {@code id}. */
+    synchronized void schedule(Long id, long expiresAtMillis) {
+        cancel(id);
+        // Nunca en un tick ya procesado: lo que ya venció sale en el próximo avance.
+        long deadline = Math.max(Math.floorDiv(expiresAtMillis + tickMillis - 1, tickMillis), lastTick + 1);
+        slots.get((int) (deadline & mask)).put(id, deadline);
+        deadlineById.put(id, deadline);
+    }
+
+    /** @return true si {@code id} estaba agendado. */
+    synchronized boolean cancel(Long id) {
+        Long deadline = deadlineById.remove(id);
+        if (deadline == null) {
+            return false;
+        }
+        slots.get((int) (deadline & mask)).remove(id);
+        return true;
+    }
+
+    /** Avanza hasta {@code nowMillis} y devuelve los ids vencidos, quitándolos de la rueda. */
+    synchronized List<Long> advance(long nowMillis) {
+        long now = nowMillis / tickMillis;
+        List<Long> expired = new ArrayList<>();
+        // Si el avance se atrasó más de una vuelta, basta con revisar cada ranura una vez.
+        long ticks = Math.min(now - lastTick, slots.size());
+        for (long tick = now - ticks + 1; tick <= now; tick++) {
+            Iterator<Map.Entry<Long, Long>> it = slots.get((int) (tick & mask)).entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Long> entry = it.next();
+                if (entry.getValue() <= now) {
+                    expired.add(entry.getKey());
+                    deadlineById.remove(entry.getKey());
+                    it.remove();
+                }
+            }
+        }
+        lastTick = Math.max(lastTick, now);
+        return expired;
+    }
+
+    synchronized int size() {
+        return deadlineById.size();
+    }
+}
@@ -0,0 +1,41 @@
+package com.nomos.inventory.service.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Total reservado por producto y por producto/almacén, según las reservas activas de
+ * {@link StockReservationService}. Es un bean aparte para que las salidas de stock
+ * ({@link MovementBatchApplier}, {@link StockPostingService}, {@link LotAllocationService}) puedan
+ * descontar lo reservado sin depender del servicio de reservas, que a su vez las usa para confirmar.
+ */
+@Component
+public class ReservedStockIndex {
+
+    private final Map<StockKey, Long> reservedByStock = new ConcurrentHashMap<>();
+    private final Map<Long, Long> reservedByProduct = new ConcurrentHashMap<>();
+
+    public long reserved(Long productId, Long warehouseId) {
+        return reservedByStock.getOrDefault(new StockKey(productId, warehouseId), 0L);
+    }
+
+    public long reservedForProduct(Long productId) {
+        return reservedByProduct.getOrDefault(productId, 0L);
+    }
+
+    void add(Long productId, Long warehouseId, long quantity) {
+        reservedByStock.merge(new StockKey(productId, warehouseId), quantity, Long::sum);
+        reservedByProduct.merge(productId, quantity, Long::sum);
+    }
+
+    void remove(Long productId, Long warehouseId, long quantity) {
+        reservedByStock.computeIfPresent(new StockKey(productId, warehouseId),
+                (k, total) -> total == quantity ? null : total - quantity);
+        reservedByProduct.computeIfPresent(productId, (k, total) -> total == quantity ? null : total - quantity);
+    }
+
+    private record StockKey(Long productId, Long warehouseId) {
+    }
+}
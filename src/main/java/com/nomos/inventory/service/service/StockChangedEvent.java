@@ -0,0 +1,9 @@
+package com.nomos.inventory.service.service;
+
+/**
+ * Se publica dentro de la transacción que modificó el stock de un producto. Los oyentes que
+ * mantienen vistas derivadas deben usar {@code @TransactionalEventListener} para actuar solo si
+ * la transacción confirma.
+ */
+public record StockChangedEvent(Long productId) {
+}
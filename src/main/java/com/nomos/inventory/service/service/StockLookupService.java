@@ -0,0 +1,74 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.dto.StockBatchResponseDTO;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Consulta de stock para muchos productos a la vez (carritos de POS, servicio de pedidos):
+ * una consulta para los totales y, si se pide, otra agrupada por almacén.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockLookupService {
+
+    public static final int MAX_BATCH_SIZE = 5000;
+
+    private final ProductRepository productRepository;
+    private final InventoryItemRepository inventoryItemRepository;
+
+    @Transactional(readOnly = true)
+    public StockBatchResponseDTO lookup(Collection<Long> productIds, boolean byWarehouse) {
+        Set<Long> requested = new LinkedHashSet<>(productIds);
+        requested.remove(null);
+        if (requested.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Debe indicar al menos un producto");
+        }
+        if (requested.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Se pueden consultar como máximo " + MAX_BATCH_SIZE + " productos por llamada");
+        }
+
+        Map<Long, Integer> totals = new LinkedHashMap<>();
+        for (Object[] row : productRepository.findOnHandByIdIn(requested)) {
+            totals.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+
+        List<Long> missing = new ArrayList<>();
+        Map<Long, Integer> ordered = new LinkedHashMap<>();
+        for (Long id : requested) {
+            Integer total = totals.get(id);
+            if (total == null) {
+                missing.add(id);
+            } else {
+                ordered.put(id, total);
+            }
+        }
+
+        Map<Long, Map<Long, Integer>> perWarehouse = null;
+        if (byWarehouse && !ordered.isEmpty()) {
+            perWarehouse = new LinkedHashMap<>();
+            for (Long id : ordered.keySet()) {
+                perWarehouse.put(id, new LinkedHashMap<>());
+            }
+            for (Object[] row : inventoryItemRepository.sumQuantityByProductAndWarehouse(ordered.keySet())) {
+                perWarehouse.get((Long) row[0]).put((Long) row[1], ((Number) row[2]).intValue());
+            }
+        }
+
+        return new StockBatchResponseDTO(ordered, perWarehouse, missing);
+    }
+}
@@ -0,0 +1,143 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.dto.StockMatrixDTO;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Matriz de stock producto × almacén en memoria.
+ * <p>
+ * La primera lectura la arma con una única consulta agregada. Después, cada {@link StockChangedEvent}
+ * confirmado marca su producto como pendiente y la siguiente lectura vuelve a consultar solo los
+ * productos pendientes (otra consulta agregada, filtrada por id). Entre cambios se devuelve la misma
+ * instancia ya armada.
+ * <p>
+ * La versión (el ETag) es un hash del contenido y no un contador: no se repite tras un reinicio con
+ * datos distintos y coincide entre réplicas que tienen la misma matriz.
+ */
+@Service
+public class StockMatrixService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockMatrixService.class);
+
+    private final InventoryItemRepository inventoryItemRepository;
+
+    private final Set<Long> dirtyProducts = ConcurrentHashMap.newKeySet();
+
+    /** productId -> (warehouseId -> cantidad); solo productos con al menos un lote. */
+    private final TreeMap<Long, Map<Long, Integer>> stock = new TreeMap<>();
+    private boolean loaded;
+    private StockMatrixDTO snapshot;
+
+    public StockMatrixService(InventoryItemRepository inventoryItemRepository) {
+        this.inventoryItemRepository = inventoryItemRepository;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onStockChanged(StockChangedEvent event) {
+        dirtyProducts.add(event.productId());
+    }
+
+    public synchronized StockMatrixDTO getMatrix() {
+        if (!loaded) {
+            long start = System.currentTimeMillis();
+            dirtyProducts.clear();
+            stock.clear();
+            apply(inventoryItemRepository.sumQuantityByProductAndWarehouse());
+            loaded = true;
+            rebuildSnapshot();
+            logger.info("Matriz de stock cargada: {} productos en {} ms", stock.size(), System.currentTimeMillis() - start);
+        } else if (!dirtyProducts.isEmpty()) {
+            List<Long> refresh = new ArrayList<>(dirtyProducts);
+            dirtyProducts.removeAll(refresh);
+            refresh.forEach(stock::remove);
+            apply(inventoryItemRepository.sumQuantityByProductAndWarehouse(refresh));
+            rebuildSnapshot();
+        }
+        return snapshot;
+    }
+
+    /** Descarta la matriz; la próxima lectura la vuelve a cargar completa. */
+    public synchronized void invalidateAll() {
+        loaded = false;
+        snapshot = null;
+    }
+
+    private void apply(List<Object[]> rows) {
+        for (Object[] row : rows) {
+            stock.computeIfAbsent((Long) row[0], k -> new HashMap<>())
+                    .put((Long) row[1], ((Number) row[2]).intValue());
+        }
+    }
+
+    private void rebuildSnapshot() {
+        Set<Long> warehouses = new TreeSet<>();
+        stock.values().forEach(byWarehouse -> warehouses.addAll(byWarehouse.keySet()));
+
+        long[] productIds = new long[stock.size()];
+        long[] warehouseIds = warehouses.stream().mapToLong(Long::longValue).toArray();
+        int[][] quantities = new int[warehouseIds.length][productIds.length];
+
+        int p = 0;
+        for (Map.Entry<Long, Map<Long, Integer>> entry : stock.entrySet()) {
+            productIds[p] = entry.getKey();
+            for (int w = 0; w < warehouseIds.length; w++) {
+                quantities[w][p] = entry.getValue().getOrDefault(warehouseIds[w], 0);
+            }
+            p++;
+        }
+
+        snapshot = new StockMatrixDTO(contentHash(productIds, warehouseIds, quantities), productIds, warehouseIds, quantities);
+    }
+
+    /** Primeros 64 bits del SHA-256 de la matriz. */
+    static long contentHash(long[] productIds, long[] warehouseIds, int[][] quantities) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new DigestOutputStream(OutputStream.nullOutputStream(), digest)))) {
+            out.writeInt(productIds.length);
+            for (long id : productIds) {
+                out.writeLong(id);
+            }
+            out.writeInt(warehouseIds.length);
+            for (long id : warehouseIds) {
+                out.writeLong(id);
+            }
+            for (int[] row : quantities) {
+                for (int quantity : row) {
+                    out.writeInt(quantity);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+}
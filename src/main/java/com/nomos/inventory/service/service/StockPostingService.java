@@ -0,0 +1,89 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.InventoryMovement;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.InventoryMovementRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * Aplica cambios de stock sobre un lote de forma atómica.
+ * <p>
+ * En lugar de leer la cantidad, sumarla en Java y guardar (lo que permite que dos transacciones
+ * concurrentes pasen el control de stock y una pise a la otra), se ejecuta un {@code UPDATE}
+ * condicional en la base de datos. El saldo resultante se lee después de la fila ya actualizada
+ * y bloqueada por la propia transacción, de modo que {@code balanceAfter} es el valor que se confirma.
+ * <p>
+ * Una salida bloquea antes todos los lotes del producto en el almacén (en orden de id, como las
+ * reservas y las tandas) y se rechaza si deja el total por debajo de lo reservado.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockPostingService {
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final ProductStockSummaryService productStockSummaryService;
+    private final InventoryMovementRepository inventoryMovementRepository;
+    private final ReservedStockIndex reservedStockIndex;
+
+    public record PostingResult(Long inventoryItemId, Long productId, Long warehouseId, int balanceAfter) {
+    }
+
+    /**
+     * @throws ResponseStatusException 400 si el lote no existe, 409 si el stock no alcanza o está reservado.
+     */
+    @Transactional
+    public PostingResult post(Long inventoryItemId, int delta) {
+        if (delta < 0) {
+            inventoryItemRepository.lockLotsOfSameStock(inventoryItemId);
+        }
+        int updated = inventoryItemRepository.applyQuantityDelta(inventoryItemId, delta);
+        List<Object[]> rows = inventoryItemRepository.findStockRowById(inventoryItemId);
+
+        if (rows.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Item de inventario no encontrado");
+        }
+        Object[] row = rows.get(0);
+        int quantity = ((Number) row[0]).intValue();
+
+        if (updated == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Stock insuficiente. Stock actual: " + quantity);
+        }
+
+        Long productId = (Long) row[1];
+        Long warehouseId = (Long) row[2];
+        if (delta < 0) {
+            long reserved = reservedStockIndex.reserved(productId, warehouseId);
+            if (reserved > 0) {
+                long onHand = inventoryItemRepository.sumQuantityByProductIdAndWarehouseId(productId, warehouseId);
+                if (onHand < reserved) {
+                    // La excepción revierte el UPDATE ya aplicado.
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Stock insuficiente: " + reserved +
+                            " unidades reservadas. Disponible: " + Math.max(0, onHand - delta - reserved));
+                }
+            }
+        }
+        productStockSummaryService.quantityChanged(productId, quantity - delta, quantity);
+        return new PostingResult(inventoryItemId, productId, warehouseId, quantity);
+    }
+
+    /**
+     * Aplica el cambio de stock del movimiento sobre el lote y lo registra, en la misma transacción.
+     */
+    @Transactional
+    public InventoryMovement record(InventoryMovement movement, Long inventoryItemId) {
+        PostingResult posting = post(inventoryItemId, movement.getQuantityChange());
+
+        movement.setInventoryItem(inventoryItemRepository.getReferenceById(inventoryItemId));
+        movement.setBalanceAfter(posting.balanceAfter());
+        if (movement.getWarehouseId() == null) {
+            movement.setWarehouseId(posting.warehouseId());
+        }
+        return inventoryMovementRepository.save(movement);
+    }
+}
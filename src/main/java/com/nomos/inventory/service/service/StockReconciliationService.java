@@ -0,0 +1,554 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.MovementType;
+import com.nomos.inventory.service.model.ReconciliationDrift;
+import com.nomos.inventory.service.model.ReconciliationRun;
+import com.nomos.inventory.service.model.dto.CursorPage;
+import com.nomos.inventory.service.repository.ReconciliationDriftRepository;
+import com.nomos.inventory.service.repository.ReconciliationRunRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Conciliación de {@code inventory_items.quantity} contra la cadena de {@code balance_after} de sus movimientos.
+ * <p>
+ * Los lotes se recorren por id en bloques de {@code chunk-size} que se revisan en paralelo
+ * ({@code parallelism} hilos del {@code reconciliationExecutor}). Por cada bloque, en una transacción de
+ * lectura {@code REPEATABLE READ} (lotes y movimientos de la misma foto), se reproduce la cadena de cada
+ * lote en orden de id: el saldo esperado es el último {@code balance_after} más los cambios posteriores
+ * que no lo tengan. Si la cantidad del lote difiere, se guarda una fila en {@code reconciliation_drifts}.
+ * <p>
+ * Con {@code fixDrift}, la diferencia se registra con un movimiento {@code AJUSTE_CONCILIACION} cuyo
+ * {@code balance_after} es la cantidad actual del lote: la cantidad se toma como verdadera (suele venir de
+ * un conteo físico cargado con {@code PUT /api/inventory/items/{id}}) y el ajuste solo completa el libro.
+ * Antes de escribirlo se bloquea el lote y se verifica que no cambió desde la revisión.
+ * <p>
+ * El avance se guarda en {@code reconciliation_runs.checkpoint_item_id} a medida que se completa el prefijo
+ * contiguo de bloques. Una ejecución interrumpida se reanuda desde ahí con {@link #resume}; los bloques que
+ * se repiten no duplican diferencias (clave única por ejecución y lote) ni ajustes (el lote ya concilia).
+ */
+@Service
+public class StockReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReconciliationService.class);
+
+    static final String REFERENCE_SERVICE = "reconciliation";
+
+    private static final String ADJUSTMENT_REASON = "Ajuste por conciliación de stock";
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String MAX_ITEM_SQL = "SELECT COALESCE(MAX(id), 0) FROM inventory_items";
+
+    private static final String CHUNK_IDS_SQL =
+            "SELECT id FROM inventory_items WHERE id > :after AND id <= :max ORDER BY id LIMIT :limit";
+
+    private static final String ITEMS_SQL =
+            "SELECT id, product_id, warehouse_id, quantity FROM inventory_items WHERE id > :after AND id <= :last";
+
+    private static final String LEDGER_SQL =
+            "SELECT inventory_item_id, id, quantity_change, balance_after FROM inventory_movement " +
+            "WHERE inventory_item_id > :after AND inventory_item_id <= :last ORDER BY inventory_item_id, id";
+
+    private static final String INSERT_DRIFT_SQL =
+            "INSERT INTO reconciliation_drifts (run_id, inventory_item_id, product_id, warehouse_id, quantity, " +
+            "ledger_balance, drift, chain_breaks, last_movement_id, detected_at) " +
+            "VALUES (:runId, :itemId, :productId, :warehouseId, :quantity, :ledgerBalance, :drift, :chainBreaks, " +
+            ":lastMovementId, :detectedAt) ON CONFLICT DO NOTHING";
+
+    private static final String LOCK_SQL =
+            "SELECT id, quantity FROM inventory_items WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+
+    private static final String LAST_MOVEMENT_SQL =
+            "SELECT inventory_item_id, MAX(id) FROM inventory_movement WHERE inventory_item_id IN (:ids) " +
+            "GROUP BY inventory_item_id";
+
+    private static final String INSERT_ADJUSTMENT_SQL =
+            "INSERT INTO inventory_movement (inventory_item_id, product_id, quantity_change, balance_after, warehouse_id, " +
+            "type, reason, movement_date, reference_id, reference_service) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String MARK_ADJUSTED_SQL =
+            "UPDATE reconciliation_drifts SET adjustment_movement_id = :movementId " +
+            "WHERE run_id = :runId AND inventory_item_id = :itemId";
+
+    /*
+     * Los contadores se recalculan desde reconciliation_drifts en lugar de sumar conteos del batch: con
+     * reWriteBatchedInserts el driver devuelve SUCCESS_NO_INFO (-2) por fila, y un bloque repetido al
+     * reanudar no debe volver a contar las diferencias que ON CONFLICT ignoró.
+     */
+    private static final String COUNTERS_SQL =
+            "UPDATE reconciliation_runs SET " +
+            "drift_count = (SELECT COUNT(*) FROM reconciliation_drifts d WHERE d.run_id = :runId), " +
+            "adjusted_count = (SELECT COUNT(*) FROM reconciliation_drifts d " +
+            "WHERE d.run_id = :runId AND d.adjustment_movement_id IS NOT NULL), " +
+            "updated_at = :now WHERE id = :runId";
+
+    private static final String CHECKPOINT_SQL =
+            "UPDATE reconciliation_runs SET checkpoint_item_id = :checkpoint, items_checked = items_checked + :items, " +
+            "updated_at = :now WHERE id = :runId";
+
+    private static final String FINISH_SQL =
+            "UPDATE reconciliation_runs SET status = :status, failure_message = :message, finished_at = :now, " +
+            "updated_at = :now WHERE id = :runId";
+
+    private final ReconciliationRunRepository runRepository;
+    private final ReconciliationDriftRepository driftRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotRead;
+    private final TaskExecutor reconciliationExecutor;
+    private final MovementTypeConstraintService movementTypeConstraintService;
+    private final int parallelism;
+    private final int chunkSize;
+    private final boolean scheduledFix;
+
+    /** Ejecución en curso en esta instancia; solo se permite una a la vez. */
+    private Long activeRunId;
+
+    public StockReconciliationService(ReconciliationRunRepository runRepository,
+                                      ReconciliationDriftRepository driftRepository,
+                                      NamedParameterJdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      @Qualifier("reconciliationExecutor") TaskExecutor reconciliationExecutor,
+                                      MovementTypeConstraintService movementTypeConstraintService,
+                                      @Value("${inventory.reconciliation.parallelism:4}") int parallelism,
+                                      @Value("${inventory.reconciliation.chunk-size:1000}") int chunkSize,
+                                      @Value("${inventory.reconciliation.scheduled-fix:false}") boolean scheduledFix) {
+        this.runRepository = runRepository;
+        this.driftRepository = driftRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotRead = new TransactionTemplate(transactionManager);
+        this.snapshotRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotRead.setReadOnly(true);
+        this.reconciliationExecutor = reconciliationExecutor;
+        this.movementTypeConstraintService = movementTypeConstraintService;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.scheduledFix = scheduledFix;
+    }
+
+    /**
+     * Inicia una conciliación de todos los lotes existentes y devuelve sin esperar a que termine.
+     *
+     * @throws ResponseStatusException 409 si ya hay una conciliación en curso o si, con {@code fixDrift}, la
+     *                                 base de datos todavía no admite movimientos AJUSTE_CONCILIACION.
+     */
+    public synchronized ReconciliationRun start(boolean fixDrift) {
+        requireIdle();
+        if (fixDrift) {
+            requireAdjustmentType();
+        }
+        Long maxItemId = jdbcTemplate.queryForObject(MAX_ITEM_SQL, new MapSqlParameterSource(), Long.class);
+        LocalDateTime now = LocalDateTime.now();
+        ReconciliationRun run = runRepository.save(new ReconciliationRun(null, ReconciliationRun.Status.RUNNING,
+                fixDrift, maxItemId, 0L, 0, 0, 0, now, now, null, null));
+        launch(run);
+        return run;
+    }
+
+    /**
+     * Reanuda desde su checkpoint una ejecución que falló o quedó a medias por un reinicio.
+     *
+     * @throws ResponseStatusException 404 si no existe, 409 si ya terminó o hay otra en curso.
+     */
+    public synchronized ReconciliationRun resume(Long runId) {
+        requireIdle();
+        ReconciliationRun run = getRun(runId);
+        if (run.getStatus() == ReconciliationRun.Status.COMPLETED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "La conciliación " + runId + " ya terminó");
+        }
+        if (run.isFixDrift()) {
+            requireAdjustmentType();
+        }
+        run.setStatus(ReconciliationRun.Status.RUNNING);
+        run.setFailureMessage(null);
+        run.setFinishedAt(null);
+        run.setUpdatedAt(LocalDateTime.now());
+        run = runRepository.save(run);
+        launch(run);
+        return run;
+    }
+
+    @Scheduled(cron = "${inventory.reconciliation.cron:-}")
+    public void scheduledRun() {
+        try {
+            start(scheduledFix);
+        } catch (ResponseStatusException e) {
+            logger.warn("Conciliación programada omitida: {}", e.getReason());
+        }
+    }
+
+    public ReconciliationRun getRun(Long runId) {
+        return runRepository.findById(runId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Conciliación con ID " + runId + " no encontrada"));
+    }
+
+    public List<ReconciliationRun> listRuns() {
+        return runRepository.findTop20ByOrderByIdDesc();
+    }
+
+    /**
+     * Diferencias de una ejecución en orden de detección, paginadas por cursor.
+     */
+    public CursorPage<ReconciliationDrift> findDrifts(Long runId, String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El tamaño de página debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        getRun(runId);
+        long afterId = 0;
+        if (cursor != null) {
+            try {
+                afterId = Long.parseLong(KeysetCursor.decode(cursor, 1).get(0));
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de paginación inválido");
+            }
+        }
+        List<ReconciliationDrift> rows = driftRepository.findByRunIdAndIdGreaterThanOrderById(
+                runId, afterId, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<ReconciliationDrift> items = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+        String nextCursor = hasMore ? KeysetCursor.encode(items.get(items.size() - 1).getId()) : null;
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
+    private void requireIdle() {
+        if (activeRunId != null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "La conciliación " + activeRunId + " está en curso");
+        }
+    }
+
+    /** Falla antes de empezar en lugar de que cada bloque con correcciones termine en error. */
+    private void requireAdjustmentType() {
+        if (movementTypeConstraintService.missingTypes().contains(MovementType.AJUSTE_CONCILIACION)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "La restricción CHECK de inventory_movement.type no admite AJUSTE_CONCILIACION; " +
+                    "reinicie el servicio para actualizarla o agréguela manualmente");
+        }
+    }
+
+    private void launch(ReconciliationRun run) {
+        activeRunId = run.getId();
+        try {
+            reconciliationExecutor.execute(() -> {
+                try {
+                    execute(run);
+                } finally {
+                    synchronized (this) {
+                        activeRunId = null;
+                    }
+                }
+            });
+        } catch (TaskRejectedException e) {
+            activeRunId = null;
+            finish(run.getId(), ReconciliationRun.Status.FAILED, "No se pudo iniciar la conciliación");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "No se pudo iniciar la conciliación");
+        }
+    }
+
+    /** Coordinador: reparte bloques sin tener más de {@code parallelism} en curso y espera a que terminen. */
+    private void execute(ReconciliationRun run) {
+        long runId = run.getId();
+        Checkpoint checkpoint = new Checkpoint(runId, run.getCheckpointItemId());
+        Semaphore permits = new Semaphore(parallelism);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long started = System.currentTimeMillis();
+        logger.info("Conciliación {} iniciada desde el lote {} (hasta {}, corrección {})",
+                runId, run.getCheckpointItemId(), run.getMaxItemId(), run.isFixDrift());
+        try {
+            long after = run.getCheckpointItemId();
+            while (failure.get() == null) {
+                List<Long> ids = jdbcTemplate.queryForList(CHUNK_IDS_SQL, new MapSqlParameterSource()
+                        .addValue("after", after)
+                        .addValue("max", run.getMaxItemId())
+                        .addValue("limit", chunkSize), Long.class);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                long from = after;
+                long to = ids.get(ids.size() - 1);
+                permits.acquire();
+                try {
+                    reconciliationExecutor.execute(() -> {
+                        try {
+                            checkpoint.completed(reconcileChunk(run, from, to));
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (TaskRejectedException e) {
+                    permits.release();
+                    throw e;
+                }
+                after = to;
+            }
+            permits.acquire(parallelism);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        }
+
+        Throwable error = failure.get();
+        if (error == null) {
+            finish(runId, ReconciliationRun.Status.COMPLETED, null);
+            logger.info("Conciliación {} terminada en {} ms", runId, System.currentTimeMillis() - started);
+        } else {
+            String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+            finish(runId, ReconciliationRun.Status.FAILED, message.length() > 1000 ? message.substring(0, 1000) : message);
+            logger.error("Conciliación {} interrumpida; se puede reanudar desde el checkpoint", runId, error);
+        }
+    }
+
+    /** Revisa los lotes con id en {@code (after, last]}. */
+    private ChunkOutcome reconcileChunk(ReconciliationRun run, long after, long last) {
+        MapSqlParameterSource range = new MapSqlParameterSource().addValue("after", after).addValue("last", last);
+        List<Drift> drifts = new ArrayList<>();
+        Integer checked = snapshotRead.execute(status -> {
+            Map<Long, ItemState> items = new HashMap<>();
+            jdbcTemplate.query(ITEMS_SQL, range, rs -> {
+                ItemState item = new ItemState(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getInt(4));
+                items.put(item.id, item);
+            });
+            jdbcTemplate.query(LEDGER_SQL, range, rs -> {
+                ItemState item = items.get(rs.getLong(1));
+                if (item != null) {
+                    int balance = rs.getInt(4);
+                    Integer balanceAfter = rs.wasNull() ? null : balance;
+                    item.replay(rs.getLong(2), rs.getInt(3), balanceAfter);
+                }
+            });
+            for (ItemState item : items.values()) {
+                if (item.expected != null && item.expected != item.quantity) {
+                    drifts.add(new Drift(item.id, item.productId, item.warehouseId, item.quantity, item.expected,
+                            item.chainBreaks, item.lastMovementId));
+                }
+            }
+            return items.size();
+        });
+
+        if (!drifts.isEmpty()) {
+            recordDrifts(run.getId(), drifts);
+            if (run.isFixDrift()) {
+                adjust(run.getId(), drifts);
+            }
+            updateCounters(run.getId());
+        }
+        return new ChunkOutcome(after, last, checked == null ? 0 : checked);
+    }
+
+    private void updateCounters(long runId) {
+        jdbcTemplate.update(COUNTERS_SQL, new MapSqlParameterSource()
+                .addValue("now", LocalDateTime.now())
+                .addValue("runId", runId));
+    }
+
+    private void recordDrifts(long runId, List<Drift> drifts) {
+        LocalDateTime now = LocalDateTime.now();
+        SqlParameterSource[] batch = drifts.stream().map(d -> new MapSqlParameterSource()
+                .addValue("runId", runId)
+                .addValue("itemId", d.itemId)
+                .addValue("productId", d.productId)
+                .addValue("warehouseId", d.warehouseId)
+                .addValue("quantity", d.quantity)
+                .addValue("ledgerBalance", d.ledgerBalance)
+                .addValue("drift", d.quantity - d.ledgerBalance)
+                .addValue("chainBreaks", d.chainBreaks)
+                .addValue("lastMovementId", d.lastMovementId)
+                .addValue("detectedAt", now)).toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(INSERT_DRIFT_SQL, batch);
+    }
+
+    /**
+     * Registra un AJUSTE_CONCILIACION por cada lote que sigue igual que al revisarlo (misma cantidad y
+     * mismo último movimiento); los que cambiaron mientras tanto quedan para la próxima ejecución.
+     */
+    private void adjust(long runId, List<Drift> drifts) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> ids = drifts.stream().map(Drift::itemId).sorted().toList();
+            Map<Long, Integer> locked = new HashMap<>();
+            jdbcTemplate.query(LOCK_SQL, new MapSqlParameterSource("ids", ids),
+                    rs -> {
+                        locked.put(rs.getLong(1), rs.getInt(2));
+                    });
+            Map<Long, Long> lastMovements = new HashMap<>();
+            jdbcTemplate.query(LAST_MOVEMENT_SQL, new MapSqlParameterSource("ids", ids),
+                    rs -> {
+                        lastMovements.put(rs.getLong(1), rs.getLong(2));
+                    });
+
+            List<Drift> unchanged = drifts.stream()
+                    .filter(d -> Integer.valueOf(d.quantity).equals(locked.get(d.itemId))
+                            && Long.valueOf(d.lastMovementId).equals(lastMovements.get(d.itemId)))
+                    .toList();
+            if (unchanged.isEmpty()) {
+                return;
+            }
+
+            List<Long> movementIds = insertAdjustments(runId, unchanged);
+            SqlParameterSource[] marks = new SqlParameterSource[unchanged.size()];
+            for (int k = 0; k < unchanged.size(); k++) {
+                marks[k] = new MapSqlParameterSource()
+                        .addValue("movementId", movementIds.get(k))
+                        .addValue("runId", runId)
+                        .addValue("itemId", unchanged.get(k).itemId);
+            }
+            jdbcTemplate.batchUpdate(MARK_ADJUSTED_SQL, marks);
+        });
+    }
+
+    private List<Long> insertAdjustments(long runId, List<Drift> drifts) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.getJdbcTemplate().batchUpdate(
+                connection -> connection.prepareStatement(INSERT_ADJUSTMENT_SQL, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int k) throws SQLException {
+                        Drift drift = drifts.get(k);
+                        ps.setLong(1, drift.itemId);
+                        ps.setLong(2, drift.productId);
+                        ps.setInt(3, drift.quantity - drift.ledgerBalance);
+                        ps.setInt(4, drift.quantity);
+                        ps.setLong(5, drift.warehouseId);
+                        ps.setString(6, MovementType.AJUSTE_CONCILIACION.name());
+                        ps.setString(7, ADJUSTMENT_REASON);
+                        ps.setTimestamp(8, now);
+                        ps.setLong(9, runId);
+                        ps.setString(10, REFERENCE_SERVICE);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return drifts.size();
+                    }
+                },
+                keyHolder);
+
+        List<Long> ids = new ArrayList<>(drifts.size());
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+            ids.add(((Number) keys.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    private void finish(long runId, ReconciliationRun.Status status, String message) {
+        // Los bloques actualizan los contadores en paralelo; al terminar quedan con el valor final.
+        updateCounters(runId);
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(FINISH_SQL, new MapSqlParameterSource()
+                .addValue("status", status.name())
+                .addValue("message", message)
+                .addValue("now", now)
+                .addValue("runId", runId));
+    }
+
+    /**
+     * Avanza el checkpoint solo sobre el prefijo contiguo de bloques terminados: los bloques terminan en
+     * cualquier orden, pero tras una caída no se puede saltar uno que quedó a medias.
+     */
+    private final class Checkpoint {
+        private final long runId;
+        private final TreeMap<Long, ChunkOutcome> done = new TreeMap<>();
+        private long position;
+
+        private Checkpoint(long runId, long position) {
+            this.runId = runId;
+            this.position = position;
+        }
+
+        synchronized void completed(ChunkOutcome outcome) {
+            done.put(outcome.after, outcome);
+            long previous = position;
+            long items = 0;
+            ChunkOutcome next;
+            while ((next = done.remove(position)) != null) {
+                position = next.last;
+                items += next.items;
+            }
+            if (position != previous) {
+                jdbcTemplate.update(CHECKPOINT_SQL, new MapSqlParameterSource()
+                        .addValue("checkpoint", position)
+                        .addValue("items", items)
+                        .addValue("now", LocalDateTime.now())
+                        .addValue("runId", runId));
+            }
+        }
+    }
+
+    /** Estado de un lote mientras se reproduce su cadena de movimientos. */
+    private static final class ItemState {
+        private final long id;
+        private final long productId;
+        private final long warehouseId;
+        private final int quantity;
+        private Integer expected;
+        private long lastMovementId;
+        private int chainBreaks;
+
+        private ItemState(long id, long productId, long warehouseId, int quantity) {
+            this.id = id;
+            this.productId = productId;
+            this.warehouseId = warehouseId;
+            this.quantity = quantity;
+        }
+
+        /** Los movimientos sin {@code balance_after} (anteriores a esa columna) se suman al saldo conocido. */
+        void replay(long movementId, int quantityChange, Integer balanceAfter) {
+            if (balanceAfter != null) {
+                if (expected != null && balanceAfter != expected + quantityChange) {
+                    chainBreaks++;
+                }
+                expected = balanceAfter;
+            } else if (expected != null) {
+                expected += quantityChange;
+            }
+            lastMovementId = movementId;
+        }
+    }
+
+    private record Drift(long itemId, long productId, long warehouseId, int quantity, int ledgerBalance,
+                         int chainBreaks, long lastMovementId) {
+    }
+
+    private record ChunkOutcome(long after, long last, int items) {
+    }
+}
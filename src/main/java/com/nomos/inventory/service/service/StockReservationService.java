@@ -0,0 +1,332 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.MovementType;
+import com.nomos.inventory.service.model.StockReservation;
+import com.nomos.inventory.service.model.dto.AllocationRequestDTO;
+import com.nomos.inventory.service.model.dto.AllocationResultDTO;
+import com.nomos.inventory.service.model.dto.AvailabilityDTO;
+import com.nomos.inventory.service.model.dto.ReservationRequestDTO;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import com.nomos.inventory.service.repository.StockReservationRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reservas de stock con vencimiento (carrito → pago).
+ * <p>
+ * Las reservas activas viven en memoria y su total por producto y por producto/almacén en
+ * {@link ReservedStockIndex}, así el disponible para vender se calcula sin consultar la tabla de reservas.
+ * La tabla solo se escribe al crear y al cerrar una reserva, y se lee al arrancar para recuperar las
+ * activas. Los vencimientos los detecta una {@link ReservationTimerWheel}: en cada tick se cierran todas
+ * las reservas vencidas con un único {@code UPDATE}, sin recorrer la tabla.
+ * <p>
+ * Reservar, confirmar y liberar se serializan por producto/almacén (con un conjunto fijo de locks
+ * repartidos por hash, que no crece con la cantidad de productos). Además, reservar bloquea en la base
+ * los lotes del producto en el almacén mientras compara "existencias - reservado >= cantidad" y registra
+ * la reserva: las salidas de stock bloquean esos mismos lotes y descuentan lo reservado, así que una
+ * venta no puede consumir stock que se está reservando ni una reserva apartar stock que se está vendiendo.
+ * <p>
+ * Confirmar registra la venta y marca la reserva {@code CONFIRMED} en la misma transacción: una caída
+ * entre ambos pasos no deja una reserva activa con la venta ya registrada.
+ * <p>
+ * El índice es local a la instancia: con varias réplicas cada una ve solo sus reservas y el control de
+ * disponible no es global. Debe ejecutarse una sola instancia o enrutar las reservas de un mismo producto
+ * siempre a la misma. Al arrancar, cada instancia recupera todas las reservas activas de la tabla.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+
+    static final String REFERENCE_SERVICE = "reservations";
+
+    private static final int EXPIRE_CHUNK = 1000;
+    private static final int LOCK_STRIPES = 256;
+
+    private final StockReservationRepository reservationRepository;
+    private final InventoryItemRepository inventoryItemRepository;
+    private final ProductRepository productRepository;
+    private final ProductStockSummaryService productStockSummaryService;
+    private final MasterDataCacheService masterDataCacheService;
+    private final LotAllocationService lotAllocationService;
+    private final ReservedStockIndex reservedStockIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final long defaultTtlSeconds;
+    private final long maxTtlSeconds;
+    private final long tickMillis;
+
+    private final Map<Long, StockReservation> active = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final ReservationTimerWheel wheel;
+    private final ScheduledExecutorService ticker;
+
+    public StockReservationService(StockReservationRepository reservationRepository,
+                                   InventoryItemRepository inventoryItemRepository,
+                                   ProductRepository productRepository,
+                                   ProductStockSummaryService productStockSummaryService,
+                                   MasterDataCacheService masterDataCacheService,
+                                   LotAllocationService lotAllocationService,
+                                   ReservedStockIndex reservedStockIndex,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${inventory.reservations.default-ttl-seconds:900}") long defaultTtlSeconds,
+                                   @Value("${inventory.reservations.max-ttl-seconds:86400}") long maxTtlSeconds,
+                                   @Value("${inventory.reservations.tick-millis:1000}") long tickMillis,
+                                   @Value("${inventory.reservations.wheel-slots:512}") int wheelSlots) {
+        this.reservationRepository = reservationRepository;
+        this.inventoryItemRepository = inventoryItemRepository;
+        this.productRepository = productRepository;
+        this.productStockSummaryService = productStockSummaryService;
+        this.masterDataCacheService = masterDataCacheService;
+        this.lotAllocationService = lotAllocationService;
+        this.reservedStockIndex = reservedStockIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+        this.tickMillis = tickMillis;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.wheel = new ReservationTimerWheel(tickMillis, wheelSlots, System.currentTimeMillis());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Carga las reservas activas de la tabla, cierra las que vencieron mientras el servicio estaba
+     * detenido y arranca la rueda de vencimientos.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> expired = new ArrayList<>();
+        for (StockReservation reservation : reservationRepository.findByStatus(StockReservation.Status.ACTIVE)) {
+            if (reservation.getExpiresAt().isAfter(now)) {
+                track(reservation);
+            } else {
+                expired.add(reservation.getId());
+            }
+        }
+        resolve(expired, StockReservation.Status.EXPIRED);
+        logger.info("Reservas recuperadas: {} activas, {} vencidas durante la detención", active.size(), expired.size());
+
+        ticker.scheduleAtFixedRate(this::expireDue, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * @throws ResponseStatusException 400 si el producto o el almacén no existen o la vigencia supera el máximo,
+     *                                 409 si el disponible no alcanza.
+     */
+    public StockReservation reserve(ReservationRequestDTO request) {
+        if (!productRepository.existsById(request.getProductId())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Producto no existe");
+        }
+        if (masterDataCacheService.getWarehouse(request.getWarehouseId()).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Almacén no existe");
+        }
+        long ttlSeconds = request.getTtlSeconds() != null ? request.getTtlSeconds() : defaultTtlSeconds;
+        if (ttlSeconds > maxTtlSeconds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "La vigencia máxima de una reserva es de " + maxTtlSeconds + " segundos");
+        }
+
+        StockKey key = new StockKey(request.getProductId(), request.getWarehouseId());
+        synchronized (lockFor(key)) {
+            StockReservation[] tracked = {null};
+            try {
+                return transactionTemplate.execute(status -> {
+                    inventoryItemRepository.lockLots(key.productId, key.warehouseId);
+                    long onHand = inventoryItemRepository.sumQuantityByProductIdAndWarehouseId(key.productId, key.warehouseId);
+                    long available = onHand - reservedStockIndex.reserved(key.productId, key.warehouseId);
+                    if (available < request.getQuantity()) {
+                        throw new ResponseStatusException(HttpStatus.CONFLICT,
+                                "Stock insuficiente para reservar. Disponible: " + available);
+                    }
+
+                    LocalDateTime now = LocalDateTime.now();
+                    StockReservation reservation = reservationRepository.save(new StockReservation(null,
+                            key.productId, key.warehouseId, request.getQuantity(), StockReservation.Status.ACTIVE,
+                            request.getReference(), now, now.plusSeconds(ttlSeconds), null));
+                    // Se indexa antes de confirmar, con los lotes aún bloqueados: una salida que espera esos
+                    // bloqueos ya ve la reserva al obtenerlos.
+                    track(reservation);
+                    tracked[0] = reservation;
+                    return reservation;
+                });
+            } catch (RuntimeException e) {
+                if (tracked[0] != null) {
+                    untrack(tracked[0].getId());
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Convierte la reserva en una salida {@code SALIDA_VENTA} del almacén reservado, repartida entre
+     * lotes según la política del producto. La reserva pasa a {@code CONFIRMED} en la misma transacción
+     * que la venta.
+     *
+     * @throws ResponseStatusException 404 si no existe, 409 si ya no está activa.
+     */
+    public AllocationResultDTO confirm(Long reservationId) {
+        StockReservation reservation = activeOrThrow(reservationId);
+        StockKey key = new StockKey(reservation.getProductId(), reservation.getWarehouseId());
+        synchronized (lockFor(key)) {
+            if (!untrack(reservationId)) {
+                throw notActive(reservationId);
+            }
+            boolean[] resolvedElsewhere = {false};
+            try {
+                return lotAllocationService.allocate(new AllocationRequestDTO(
+                        reservation.getProductId(), reservation.getWarehouseId(), reservation.getQuantity(),
+                        MovementType.SALIDA_VENTA, "Confirmación de reserva " + reservationId, LocalDateTime.now(),
+                        reservationId, REFERENCE_SERVICE), () -> {
+                    if (reservationRepository.resolveActive(List.of(reservationId),
+                            StockReservation.Status.CONFIRMED, LocalDateTime.now()) == 0) {
+                        resolvedElsewhere[0] = true;
+                        throw notActive(reservationId);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // La venta se revirtió: la reserva sigue activa salvo que la fila ya estuviera cerrada.
+                if (!resolvedElsewhere[0]) {
+                    track(reservation);
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @throws ResponseStatusException 404 si no existe, 409 si ya no está activa.
+     */
+    public void release(Long reservationId) {
+        activeOrThrow(reservationId);
+        if (!untrack(reservationId)) {
+            throw notActive(reservationId);
+        }
+        resolve(List.of(reservationId), StockReservation.Status.RELEASED);
+    }
+
+    public StockReservation getReservation(Long reservationId) {
+        StockReservation reservation = active.get(reservationId);
+        if (reservation != null) {
+            return reservation;
+        }
+        return reservationRepository.findById(reservationId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Reserva con ID " + reservationId + " no encontrada"));
+    }
+
+    /**
+     * Existencias menos reservas activas, del producto en un almacén o en todos si {@code warehouseId} es null.
+     */
+    public AvailabilityDTO availability(Long productId, Long warehouseId) {
+        long onHand;
+        long reserved;
+        if (warehouseId != null) {
+            onHand = inventoryItemRepository.sumQuantityByProductIdAndWarehouseId(productId, warehouseId);
+            reserved = reservedStockIndex.reserved(productId, warehouseId);
+        } else {
+            onHand = productStockSummaryService.getOnHand(productId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Producto no encontrado"));
+            reserved = reservedStockIndex.reservedForProduct(productId);
+        }
+        return new AvailabilityDTO(productId, warehouseId, onHand, reserved, Math.max(0, onHand - reserved));
+    }
+
+    /** Un tick de la rueda: quita del índice lo vencido y lo cierra en la tabla en tandas. */
+    void expireDue() {
+        try {
+            List<Long> expired = new ArrayList<>();
+            for (Long id : wheel.advance(System.currentTimeMillis())) {
+                if (untrack(id)) {
+                    expired.add(id);
+                }
+            }
+            if (!expired.isEmpty()) {
+                resolve(expired, StockReservation.Status.EXPIRED);
+                logger.debug("{} reservas vencidas", expired.size());
+            }
+        } catch (RuntimeException e) {
+            // Una excepción no capturada cancelaría el scheduleAtFixedRate; las filas quedan ACTIVE y se cierran al reiniciar.
+            logger.error("Falló el cierre de reservas vencidas", e);
+        }
+    }
+
+    private void track(StockReservation reservation) {
+        active.put(reservation.getId(), reservation);
+        reservedStockIndex.add(reservation.getProductId(), reservation.getWarehouseId(), reservation.getQuantity());
+        wheel.schedule(reservation.getId(),
+                reservation.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    /** Quita la reserva del índice; solo un llamador puede obtener true por reserva. */
+    private boolean untrack(Long reservationId) {
+        StockReservation reservation = active.remove(reservationId);
+        if (reservation == null) {
+            return false;
+        }
+        wheel.cancel(reservationId);
+        reservedStockIndex.remove(reservation.getProductId(), reservation.getWarehouseId(), reservation.getQuantity());
+        return true;
+    }
+
+    private void resolve(List<Long> ids, StockReservation.Status status) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < ids.size(); from += EXPIRE_CHUNK) {
+            reservationRepository.resolveActive(ids.subList(from, Math.min(from + EXPIRE_CHUNK, ids.size())), status, now);
+        }
+    }
+
+    private StockReservation activeOrThrow(Long reservationId) {
+        StockReservation reservation = active.get(reservationId);
+        if (reservation == null) {
+            if (!reservationRepository.existsById(reservationId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Reserva con ID " + reservationId + " no encontrada");
+            }
+            throw notActive(reservationId);
+        }
+        return reservation;
+    }
+
+    private static ResponseStatusException notActive(Long reservationId) {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "La reserva " + reservationId + " ya fue confirmada, liberada o venció");
+    }
+
+    private Object lockFor(StockKey key) {
+        return locks[Math.floorMod(key.hashCode(), LOCK_STRIPES)];
+    }
+
+    private record StockKey(Long productId, Long warehouseId) {
+    }
+}
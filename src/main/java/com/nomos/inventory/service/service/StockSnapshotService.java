@@ -0,0 +1,185 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.dto.StockAsOfDTO;
+import com.nomos.inventory.service.model.dto.StockAsOfReportDTO;
+import com.nomos.inventory.service.repository.StockSnapshotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Fotos diarias de existencias por lote y reconstrucción de stock a una fecha pasada.
+ * <p>
+ * La foto del día D guarda, por lote, la cantidad al inicio de D: la cantidad actual menos los
+ * movimientos registrados desde las 00:00 de D. Se calcula así (y no sumando la historia) porque
+ * las altas y ediciones de lotes cambian la cantidad sin dejar movimiento.
+ * <p>
+ * {@code stockAsOf} parte de la foto más reciente anterior al instante pedido y reproduce solo los
+ * movimientos entre esa foto y el instante, usando el índice {@code (inventory_item_id, movementDate)}.
+ * Los lotes dados de alta después de la foto se reconstruyen hacia atrás desde su cantidad actual.
+ * Si no hay ninguna foto anterior, todo se reconstruye hacia atrás.
+ * <p>
+ * Un movimiento con fecha anterior a una foto ya tomada no se refleja en ella; {@link #takeSnapshot}
+ * puede volver a tomar ese día.
+ */
+@Service
+public class StockSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockSnapshotService.class);
+
+    private static final String DELETE_SQL = "DELETE FROM stock_snapshots WHERE snapshot_date = :snapshotDate";
+
+    private static final String SNAPSHOT_SQL =
+            "INSERT INTO stock_snapshots (snapshot_date, inventory_item_id, product_id, warehouse_id, quantity) " +
+            "SELECT :snapshotDate, i.id, i.product_id, i.warehouse_id, i.quantity - COALESCE(" +
+            "(SELECT SUM(m.quantity_change) FROM inventory_movement m " +
+            "WHERE m.inventory_item_id = i.id AND m.movement_date >= :cutoff), 0) " +
+            "FROM inventory_items i WHERE i.entry_date < :cutoff";
+
+    private static final String PURGE_SQL =
+            "DELETE FROM stock_snapshots WHERE snapshot_date < :before AND EXTRACT(DAY FROM snapshot_date) <> 1";
+
+    /**
+     * Tres aportes por (producto, almacén): la foto, los movimientos de sus lotes entre la foto y el
+     * instante, y los lotes que no están en la foto reconstruidos hacia atrás desde su cantidad actual.
+     */
+    private static final String AS_OF_SQL =
+            "SELECT product_id, warehouse_id, SUM(q) FROM (" +
+            "SELECT s.product_id, s.warehouse_id, s.quantity AS q FROM stock_snapshots s " +
+            "WHERE s.snapshot_date = :snapshotDate /*S*/ " +
+            "UNION ALL " +
+            "SELECT s.product_id, s.warehouse_id, m.quantity_change AS q FROM stock_snapshots s " +
+            "JOIN inventory_movement m ON m.inventory_item_id = s.inventory_item_id " +
+            "WHERE s.snapshot_date = :snapshotDate AND m.movement_date >= :cutoff AND m.movement_date <= :asOf /*S*/ " +
+            "UNION ALL " +
+            "SELECT i.product_id, i.warehouse_id, i.quantity - COALESCE(" +
+            "(SELECT SUM(m.quantity_change) FROM inventory_movement m " +
+            "WHERE m.inventory_item_id = i.id AND m.movement_date > :asOf), 0) AS q " +
+            "FROM inventory_items i WHERE i.entry_date <= :asOf /*I*/ AND NOT EXISTS (" +
+            "SELECT 1 FROM stock_snapshots s WHERE s.snapshot_date = :snapshotDate AND s.inventory_item_id = i.id)" +
+            ") x GROUP BY product_id, warehouse_id ORDER BY product_id, warehouse_id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final StockSnapshotRepository snapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int retainDays;
+
+    public StockSnapshotService(NamedParameterJdbcTemplate jdbcTemplate,
+                                StockSnapshotRepository snapshotRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${inventory.snapshots.retain-days:0}") int retainDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotRepository = snapshotRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retainDays = retainDays;
+    }
+
+    /**
+     * Foto diaria del inicio de hoy. Si {@code retain-days} es mayor que cero, borra las fotos más
+     * antiguas salvo las del primer día de cada mes, que quedan para los cierres.
+     */
+    @Scheduled(cron = "${inventory.snapshots.cron:0 5 0 * * *}")
+    public void takeDailySnapshot() {
+        LocalDate today = LocalDate.now();
+        if (!snapshotRepository.existsBySnapshotDate(today)) {
+            takeSnapshot(today);
+        }
+        if (retainDays > 0) {
+            int purged = jdbcTemplate.update(PURGE_SQL,
+                    new MapSqlParameterSource("before", today.minusDays(retainDays)));
+            if (purged > 0) {
+                logger.info("Fotos de stock purgadas: {} filas anteriores a {}", purged, today.minusDays(retainDays));
+            }
+        }
+    }
+
+    /**
+     * Toma (o vuelve a tomar) la foto del inicio de {@code date}.
+     *
+     * @return cantidad de lotes guardados.
+     * @throws ResponseStatusException 400 si la fecha es futura.
+     */
+    public int takeSnapshot(LocalDate date) {
+        if (date.isAfter(LocalDate.now())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No se puede tomar una foto de una fecha futura");
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("snapshotDate", date)
+                .addValue("cutoff", date.atStartOfDay());
+        Integer rows = transactionTemplate.execute(status -> {
+            jdbcTemplate.update(DELETE_SQL, params);
+            return jdbcTemplate.update(SNAPSHOT_SQL, params);
+        });
+        logger.info("Foto de stock del {}: {} lotes", date, rows);
+        return rows == null ? 0 : rows;
+    }
+
+    public List<LocalDate> listSnapshotDates() {
+        return snapshotRepository.findSnapshotDates();
+    }
+
+    /**
+     * Existencias de un producto en un almacén en {@code asOf}, incluidos los movimientos de ese instante.
+     *
+     * @throws ResponseStatusException 400 si {@code asOf} es futuro.
+     */
+    public StockAsOfReportDTO stockAsOf(Long productId, Long warehouseId, LocalDateTime asOf) {
+        StockAsOfReportDTO report = reconstruct(productId, warehouseId, asOf);
+        if (report.getLines().isEmpty()) {
+            report.setLines(List.of(new StockAsOfDTO(productId, warehouseId, 0)));
+        }
+        return report;
+    }
+
+    /**
+     * Existencias de todos los productos (opcionalmente de un solo almacén) en {@code asOf}, para cierres
+     * de mes. Una sola consulta agrupada por (producto, almacén).
+     *
+     * @throws ResponseStatusException 400 si {@code asOf} es futuro.
+     */
+    public StockAsOfReportDTO stockAsOfAll(Long warehouseId, LocalDateTime asOf) {
+        return reconstruct(null, warehouseId, asOf);
+    }
+
+    private StockAsOfReportDTO reconstruct(Long productId, Long warehouseId, LocalDateTime asOf) {
+        if (asOf.isAfter(LocalDateTime.now())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La fecha de consulta no puede ser futura");
+        }
+        LocalDate snapshotDate = snapshotRepository.findLatestSnapshotDateOnOrBefore(asOf.toLocalDate()).orElse(null);
+
+        StringBuilder snapshotFilter = new StringBuilder();
+        StringBuilder itemFilter = new StringBuilder();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("snapshotDate", snapshotDate, Types.DATE)
+                .addValue("cutoff", snapshotDate != null ? snapshotDate.atStartOfDay() : asOf)
+                .addValue("asOf", asOf);
+        if (productId != null) {
+            snapshotFilter.append(" AND s.product_id = :productId");
+            itemFilter.append(" AND i.product_id = :productId");
+            params.addValue("productId", productId);
+        }
+        if (warehouseId != null) {
+            snapshotFilter.append(" AND s.warehouse_id = :warehouseId");
+            itemFilter.append(" AND i.warehouse_id = :warehouseId");
+            params.addValue("warehouseId", warehouseId);
+        }
+        String sql = AS_OF_SQL.replace("/*S*/", snapshotFilter).replace("/*I*/", itemFilter);
+
+        List<StockAsOfDTO> lines = jdbcTemplate.query(sql, params,
+                (rs, rowNum) -> new StockAsOfDTO(rs.getLong(1), rs.getLong(2), rs.getLong(3)));
+        return new StockAsOfReportDTO(asOf, snapshotDate, lines);
+    }
+}
@@ -0,0 +1,250 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.MovementType;
+import com.nomos.inventory.service.model.dto.TransferRequestDTO;
+import com.nomos.inventory.service.model.dto.TransferResultDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Transferencias de stock entre almacenes en una sola transacción: salida del lote de origen y entrada
+ * al lote equivalente del almacén destino (creado si no existe).
+ * <p>
+ * Los dos tramos se aplican como un grupo de {@link MovementBatchApplier}: ambos lotes se bloquean junto
+ * con el resto de la tanda en orden de id, los dos movimientos {@code TRANSFERENCIA} se insertan en el
+ * mismo batch y, si la salida no tiene stock, tampoco se registra la entrada.
+ */
+@Service
+public class StockTransferService {
+
+    static final String REFERENCE_SERVICE = "transfers";
+
+    private static final String DEFAULT_REASON = "Transferencia entre almacenes";
+
+    private static final String SOURCE_SQL =
+            "SELECT id, product_id, warehouse_id, lot_number, unit_cost, expiration_date, entry_date " +
+            "FROM inventory_items WHERE id IN (:ids)";
+
+    private static final String DESTINATION_SQL =
+            "SELECT id, product_id, warehouse_id, lot_number FROM inventory_items " +
+            "WHERE product_id IN (:productIds) AND warehouse_id IN (:warehouseIds) AND lot_number IN (:lotNumbers)";
+
+    private static final String CREATE_DESTINATION_SQL =
+            "INSERT INTO inventory_items (product_id, warehouse_id, quantity, unit_cost, lot_number, expiration_date, entry_date) " +
+            "VALUES (:productId, :warehouseId, 0, :unitCost, :lotNumber, :expirationDate, :entryDate) " +
+            "ON CONFLICT DO NOTHING";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final MovementBatchApplier movementBatchApplier;
+    private final MasterDataCacheService masterDataCacheService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxTransfers;
+
+    public StockTransferService(NamedParameterJdbcTemplate jdbcTemplate,
+                                MovementBatchApplier movementBatchApplier,
+                                MasterDataCacheService masterDataCacheService,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${inventory.transfers.chunk-size:500}") int chunkSize,
+                                @Value("${inventory.transfers.max-batch:20000}") int maxTransfers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.movementBatchApplier = movementBatchApplier;
+        this.masterDataCacheService = masterDataCacheService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxTransfers = maxTransfers;
+    }
+
+    /**
+     * @throws ResponseStatusException 400 si el lote de origen o el almacén destino no existen, o si el
+     *                                 destino es el mismo almacén; 409 si el stock del origen no alcanza.
+     */
+    public TransferResultDTO transfer(TransferRequestDTO request) {
+        TransferResultDTO result = transactionTemplate.execute(status -> applyChunk(List.of(request), 0)).get(0);
+        if (result.getStatus() != HttpStatus.CREATED.value()) {
+            throw new ResponseStatusException(HttpStatusCode.valueOf(result.getStatus()), result.getError());
+        }
+        return result;
+    }
+
+    /**
+     * Aplica muchas transferencias (rebalanceo nocturno) en transacciones de {@code chunk-size}. Cada
+     * transferencia es atómica; una rechazada no afecta a las demás.
+     */
+    public List<TransferResultDTO> transferBatch(List<TransferRequestDTO> requests) {
+        if (requests.size() > maxTransfers) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Se pueden enviar como máximo " + maxTransfers + " transferencias por llamada");
+        }
+        List<TransferResultDTO> results = new ArrayList<>(requests.size());
+        for (int from = 0; from < requests.size(); from += chunkSize) {
+            List<TransferRequestDTO> chunk = requests.subList(from, Math.min(from + chunkSize, requests.size()));
+            int offset = from;
+            results.addAll(transactionTemplate.execute(status -> applyChunk(chunk, offset)));
+        }
+        return results;
+    }
+
+    private List<TransferResultDTO> applyChunk(List<TransferRequestDTO> requests, int lineOffset) {
+        Map<Long, SourceLot> sources = loadSources(requests);
+
+        TransferResultDTO[] results = new TransferResultDTO[requests.size()];
+        List<Integer> valid = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequestDTO request = requests.get(i);
+            SourceLot source = sources.get(request.getSourceInventoryItemId());
+            String error = null;
+            if (source == null) {
+                error = "Item de inventario de origen no encontrado";
+            } else if (masterDataCacheService.getWarehouse(request.getToWarehouseId()).isEmpty()) {
+                error = "Almacén destino no existe";
+            } else if (source.warehouseId == request.getToWarehouseId()) {
+                error = "El almacén destino es el mismo que el de origen";
+            }
+            if (error != null) {
+                results[i] = rejected(lineOffset + i, request, HttpStatus.BAD_REQUEST.value(), error);
+            } else {
+                valid.add(i);
+            }
+        }
+        if (valid.isEmpty()) {
+            return List.of(results);
+        }
+
+        Map<DestinationKey, Long> destinations = resolveDestinations(requests, valid, sources);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<List<MovementCommand>> groups = new ArrayList<>(valid.size());
+        for (int i : valid) {
+            TransferRequestDTO request = requests.get(i);
+            SourceLot source = sources.get(request.getSourceInventoryItemId());
+            Long destinationId = destinations.get(new DestinationKey(source.productId, request.getToWarehouseId(), source.lotNumber));
+            String reason = request.getReason() != null && !request.getReason().isBlank() ? request.getReason() : DEFAULT_REASON;
+            groups.add(List.of(
+                    new MovementCommand(source.id, source.productId, -request.getQuantity(), MovementType.TRANSFERENCIA,
+                            reason, now, request.getReferenceId(), REFERENCE_SERVICE, source.warehouseId),
+                    new MovementCommand(destinationId, source.productId, request.getQuantity(), MovementType.TRANSFERENCIA,
+                            reason, now, request.getReferenceId(), REFERENCE_SERVICE, request.getToWarehouseId())));
+        }
+
+        List<MovementResult> applied = movementBatchApplier.applyGroups(groups);
+        for (int k = 0; k < valid.size(); k++) {
+            int i = valid.get(k);
+            MovementResult out = applied.get(2 * k);
+            MovementResult in = applied.get(2 * k + 1);
+            TransferRequestDTO request = requests.get(i);
+            if (out.isSuccess()) {
+                results[i] = new TransferResultDTO(lineOffset + i, HttpStatus.CREATED.value(), out.inventoryItemId(),
+                        in.inventoryItemId(), request.getQuantity(), out.movementId(), in.movementId(),
+                        out.balanceAfter(), in.balanceAfter(), null);
+            } else {
+                TransferResultDTO rejected = rejected(lineOffset + i, request, out.error().getStatusCode().value(),
+                        out.error().getReason());
+                rejected.setDestinationInventoryItemId(in.inventoryItemId());
+                results[i] = rejected;
+            }
+        }
+        return List.of(results);
+    }
+
+    private Map<Long, SourceLot> loadSources(List<TransferRequestDTO> requests) {
+        Set<Long> ids = new HashSet<>();
+        for (TransferRequestDTO request : requests) {
+            ids.add(request.getSourceInventoryItemId());
+        }
+        Map<Long, SourceLot> sources = new HashMap<>();
+        jdbcTemplate.query(SOURCE_SQL, new MapSqlParameterSource("ids", ids), rs -> {
+            SourceLot lot = new SourceLot(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getString(4),
+                    rs.getDouble(5), rs.getDate(6), rs.getTimestamp(7));
+            sources.put(lot.id, lot);
+        });
+        return sources;
+    }
+
+    /**
+     * Ids de los lotes destino; crea con cantidad 0 los que faltan. Un alta concurrente del mismo lote
+     * choca con la restricción única y se resuelve con {@code ON CONFLICT DO NOTHING}.
+     */
+    private Map<DestinationKey, Long> resolveDestinations(List<TransferRequestDTO> requests, List<Integer> valid,
+                                                          Map<Long, SourceLot> sources) {
+        Map<DestinationKey, SourceLot> wanted = new LinkedHashMap<>();
+        for (int i : valid) {
+            SourceLot source = sources.get(requests.get(i).getSourceInventoryItemId());
+            wanted.putIfAbsent(new DestinationKey(source.productId, requests.get(i).getToWarehouseId(), source.lotNumber), source);
+        }
+
+        Map<DestinationKey, Long> found = findDestinations(wanted.keySet());
+        List<SqlParameterSource> missing = new ArrayList<>();
+        wanted.forEach((key, source) -> {
+            if (!found.containsKey(key)) {
+                missing.add(new MapSqlParameterSource()
+                        .addValue("productId", key.productId)
+                        .addValue("warehouseId", key.warehouseId)
+                        .addValue("unitCost", source.unitCost)
+                        .addValue("lotNumber", key.lotNumber)
+                        .addValue("expirationDate", source.expirationDate)
+                        .addValue("entryDate", source.entryDate));
+            }
+        });
+        if (missing.isEmpty()) {
+            return found;
+        }
+        jdbcTemplate.batchUpdate(CREATE_DESTINATION_SQL, missing.toArray(SqlParameterSource[]::new));
+        return findDestinations(wanted.keySet());
+    }
+
+    private Map<DestinationKey, Long> findDestinations(Set<DestinationKey> keys) {
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> warehouseIds = new HashSet<>();
+        Set<String> lotNumbers = new HashSet<>();
+        for (DestinationKey key : keys) {
+            productIds.add(key.productId);
+            warehouseIds.add(key.warehouseId);
+            lotNumbers.add(key.lotNumber);
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("productIds", productIds)
+                .addValue("warehouseIds", warehouseIds)
+                .addValue("lotNumbers", lotNumbers);
+        Map<DestinationKey, Long> found = new HashMap<>();
+        jdbcTemplate.query(DESTINATION_SQL, params, rs -> {
+            DestinationKey key = new DestinationKey(rs.getLong(2), rs.getLong(3), rs.getString(4));
+            // El filtro por IN es un producto cartesiano: se descartan las combinaciones no pedidas.
+            if (keys.contains(key)) {
+                found.put(key, rs.getLong(1));
+            }
+        });
+        return found;
+    }
+
+    private static TransferResultDTO rejected(int line, TransferRequestDTO request, int status, String error) {
+        return new TransferResultDTO(line, status, request.getSourceInventoryItemId(), null, request.getQuantity(),
+                null, null, null, null, error);
+    }
+
+    private record SourceLot(long id, long productId, long warehouseId, String lotNumber, double unitCost,
+                             Date expirationDate, Timestamp entryDate) {
+    }
+
+    private record DestinationKey(long productId, long warehouseId, String lotNumber) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.nomos.inventory.service.config;
+
+import com.nomos.inventory.service.service.IdempotencyService;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Lectura del cuerpo en memoria o en archivo temporal antes de ejecutar el handler. */
+class IdempotencyFilterTest {
+
+    private static final String BULK = "/api/v1/inventory-movements/bulk";
+
+    private IdempotencyService idempotencyService;
+    private IdempotencyFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = mock(IdempotencyService.class);
+        filter = new IdempotencyFilter(idempotencyService, List.of("/api/v1/inventory-movements"), List.of(),
+                List.of(BULK), 16, 1024);
+        when(idempotencyService.begin(any(), any())).thenAnswer(invocation -> new IdempotencyService.Outcome(null,
+                new IdempotencyService.Execution(invocation.getArgument(0), 1L, invocation.getArgument(1),
+                        new CompletableFuture<>())));
+    }
+
+    @Test
+    void bulkBodyLargerThanTheMemoryLimitIsSpooledAndReadByTheHandler() throws Exception {
+        byte[] body = new byte[600];
+        Arrays.fill(body, (byte) 'x');
+        AtomicReference<byte[]> read = new AtomicReference<>();
+
+        MockHttpServletResponse response = run(request(BULK, body), read);
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(read.get()).isEqualTo(body);
+        verify(idempotencyService).begin(any(), eq(sha256(body)));
+        verify(idempotencyService).complete(any(), eq(HttpServletResponse.SC_OK), any(), any());
+    }
+
+    @Test
+    void bodiesAboveTheirLimitAreRejected() throws Exception {
+        assertThat(run(request("/api/v1/inventory-movements", new byte[17]), new AtomicReference<>()).getStatus())
+                .isEqualTo(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+        assertThat(run(request(BULK, new byte[1025]), new AtomicReference<>()).getStatus())
+                .isEqualTo(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+        verify(idempotencyService, never()).begin(any(), any());
+        verify(idempotencyService, never()).complete(any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void nonBlockingReadersGetTheWholeBodyThroughTheReadListener() throws Exception {
+        byte[] body = "[{\"quantityChange\":1}]".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        AtomicBoolean allDataRead = new AtomicBoolean();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(BULK, body), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                ServletInputStream in = req.getInputStream();
+                in.setReadListener(new ReadListener() {
+                    @Override
+                    public void onDataAvailable() throws IOException {
+                        byte[] buffer = new byte[4];
+                        while (in.isReady() && !in.isFinished()) {
+                            int n = in.read(buffer);
+                            read.write(buffer, 0, n);
+                        }
+                    }
+
+                    @Override
+                    public void onAllDataRead() {
+                        allDataRead.set(true);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        throw new AssertionError(t);
+                    }
+                });
+                res.setStatus(HttpServletResponse.SC_OK);
+            }
+        }));
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(read.toByteArray()).isEqualTo(body);
+        assertThat(allDataRead).isTrue();
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request, AtomicReference<byte[]> read) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                read.set(req.getInputStream().readAllBytes());
+                res.setStatus(HttpServletResponse.SC_OK);
+            }
+        }));
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path, byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.addHeader(IdempotencyFilter.HEADER, "k-1");
+        request.setContent(body);
+        return request;
+    }
+
+    private static String sha256(byte[] body) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+    }
+}
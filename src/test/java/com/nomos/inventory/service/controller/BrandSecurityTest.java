@@ -0,0 +1,76 @@
+package com.nomos.inventory.service.controller;
+
+import com.nomos.inventory.service.config.SecurityConfig;
+import com.nomos.inventory.service.repository.BrandRepository;
+import com.nomos.inventory.service.service.CollectionVersionService;
+import com.nomos.inventory.service.service.IdempotencyService;
+import com.nomos.inventory.service.service.MasterDataCacheService;
+import com.nomos.inventory.service.service.ProductSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Los maestros ({@code /api/masters/**}) no tienen regla por URL propia: la lectura y la escritura
+ * por rol las deciden los {@code @PreAuthorize} del controlador.
+ */
+@WebMvcTest(BrandController.class)
+@Import(SecurityConfig.class)
+class BrandSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private JwtDecoder jwtDecoder;
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+    @MockitoBean
+    private BrandRepository brandRepository;
+    @MockitoBean
+    private MasterDataCacheService masterDataCacheService;
+    @MockitoBean
+    private ProductSearchIndex productSearchIndex;
+    @MockitoBean
+    private CollectionVersionService collectionVersionService;
+
+    @Test
+    void inventoryRolesReadBrandsAndOthersDoNot() throws Exception {
+        when(collectionVersionService.etag(any())).thenReturn("\"brands-1\"");
+        mockMvc.perform(get("/api/masters/brands")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_VENDOR"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/masters/brands")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_COMPRAS"))))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void onlyAdminsDeleteBrands() throws Exception {
+        mockMvc.perform(delete("/api/masters/brands/1")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_SUPPLIER"))))
+                .andExpect(status().isForbidden());
+        verify(brandRepository, never()).deleteById(anyLong());
+
+        when(brandRepository.existsById(1L)).thenReturn(true);
+        mockMvc.perform(delete("/api/masters/brands/1")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"))))
+                .andExpect(status().isNoContent());
+        verify(brandRepository).deleteById(1L);
+    }
+}
@@ -0,0 +1,106 @@
+package com.nomos.inventory.service.controller;
+
+import com.nomos.inventory.service.config.SecurityConfig;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import com.nomos.inventory.service.service.IdempotencyService;
+import com.nomos.inventory.service.service.MasterDataCacheService;
+import com.nomos.inventory.service.service.ProductStockSummaryService;
+import com.nomos.inventory.service.service.StockLookupService;
+import com.nomos.inventory.service.service.StockMatrixService;
+import com.nomos.inventory.service.service.StockSnapshotService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Las consultas que el controlador abre a los auditores deben pasar también las reglas por URL de
+ * {@link SecurityConfig}, y las escrituras quedan limitadas por los {@code @PreAuthorize}.
+ */
+@WebMvcTest(InventoryItemController.class)
+@Import(SecurityConfig.class)
+class InventoryItemSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private JwtDecoder jwtDecoder;
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+    @MockitoBean
+    private InventoryItemRepository itemRepository;
+    @MockitoBean
+    private ProductRepository productRepository;
+    @MockitoBean
+    private MasterDataCacheService masterDataCacheService;
+    @MockitoBean
+    private ProductStockSummaryService productStockSummaryService;
+    @MockitoBean
+    private StockLookupService stockLookupService;
+    @MockitoBean
+    private StockMatrixService stockMatrixService;
+    @MockitoBean
+    private StockSnapshotService stockSnapshotService;
+
+    @Test
+    void auditorsCanQueryHistoricalStock() throws Exception {
+        mockMvc.perform(get("/api/inventory/items/stock-as-of/all").param("at", "2026-01-31T23:59:59")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_AUDITOR"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/inventory/items/snapshots")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_AUDITOR"))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void auditorsCanListTheLotsOfAProduct() throws Exception {
+        when(productRepository.existsById(1L)).thenReturn(true);
+        mockMvc.perform(get("/api/inventory/items/product/1")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_AUDITOR"))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void vendorsCannotChangeLots() throws Exception {
+        mockMvc.perform(delete("/api/inventory/items/1")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_VENDOR"))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/inventory/items/stock-summary/rebuild")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_SUPPLIER"))))
+                .andExpect(status().isForbidden());
+        verify(itemRepository, never()).delete(any());
+        verify(productStockSummaryService, never()).rebuild();
+    }
+
+    @Test
+    void closingReportsStayClosedToOtherRoles() throws Exception {
+        mockMvc.perform(get("/api/inventory/items/stock-as-of/all").param("at", "2026-01-31T23:59:59")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_VENDOR"))))
+                .andExpect(status().isForbidden());
+        verify(stockSnapshotService, never()).stockAsOfAll(any(), any());
+    }
+
+    @Test
+    void onlyAdminsTakeSnapshots() throws Exception {
+        mockMvc.perform(post("/api/inventory/items/snapshots")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_AUDITOR"))))
+                .andExpect(status().isForbidden());
+        verify(stockSnapshotService, never()).takeSnapshot(any());
+    }
+}
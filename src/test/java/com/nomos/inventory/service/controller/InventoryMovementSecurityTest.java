@@ -0,0 +1,97 @@
+package com.nomos.inventory.service.controller;
+
+import com.nomos.inventory.service.config.SecurityConfig;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.InventoryMovementRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import com.nomos.inventory.service.service.IdempotencyService;
+import com.nomos.inventory.service.service.LotAllocationService;
+import com.nomos.inventory.service.service.MovementBulkService;
+import com.nomos.inventory.service.service.MovementExportService;
+import com.nomos.inventory.service.service.MovementHistoryService;
+import com.nomos.inventory.service.service.MovementPartitionService;
+import com.nomos.inventory.service.service.MovementPipeline;
+import com.nomos.inventory.service.service.StockPostingService;
+import com.nomos.inventory.service.service.StockTransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reglas de acceso de los endpoints sensibles de movimientos, con la {@link SecurityConfig} real.
+ */
+@WebMvcTest(InventoryMovementController.class)
+@Import(SecurityConfig.class)
+class InventoryMovementSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private JwtDecoder jwtDecoder;
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+    @MockitoBean
+    private InventoryMovementRepository movementRepository;
+    @MockitoBean
+    private ProductRepository productRepository;
+    @MockitoBean
+    private InventoryItemRepository inventoryItemRepository;
+    @MockitoBean
+    private StockPostingService stockPostingService;
+    @MockitoBean
+    private MovementPipeline movementPipeline;
+    @MockitoBean
+    private MovementBulkService movementBulkService;
+    @MockitoBean
+    private LotAllocationService lotAllocationService;
+    @MockitoBean
+    private StockTransferService stockTransferService;
+    @MockitoBean
+    private MovementPartitionService movementPartitionService;
+    @MockitoBean
+    private MovementHistoryService movementHistoryService;
+    @MockitoBean
+    private MovementExportService movementExportService;
+
+    @Test
+    void exportIsForbiddenForOtherRoles() throws Exception {
+        mockMvc.perform(get("/api/v1/inventory-movements/export").param("from", "2026-01-01T00:00:00")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_VENDOR"))))
+                .andExpect(status().isForbidden());
+        verify(movementExportService, never()).export(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void exportIsAllowedForAuditors() throws Exception {
+        mockMvc.perform(get("/api/v1/inventory-movements/export").param("from", "2026-01-01T00:00:00")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_AUDITOR"))))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void partitionMaintenanceIsForbiddenForNonAdmins() throws Exception {
+        mockMvc.perform(post("/api/v1/inventory-movements/partitions/migrate")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_AUDITOR"))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/v1/inventory-movements/partitions/maintain")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_VENDOR"))))
+                .andExpect(status().isForbidden());
+        verify(movementPartitionService, never()).migrate();
+        verify(movementPartitionService, never()).maintain();
+    }
+}
@@ -0,0 +1,63 @@
+package com.nomos.inventory.service.controller;
+
+import com.nomos.inventory.service.config.SecurityConfig;
+import com.nomos.inventory.service.integration.AuthClient;
+import com.nomos.inventory.service.repository.PurchaseOrderRepository;
+import com.nomos.inventory.service.repository.SupplierRepository;
+import com.nomos.inventory.service.service.IdempotencyService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@code /api/v1/purchase-orders} solo exige autenticación por URL; quién borra órdenes lo decide el
+ * {@code @PreAuthorize} del controlador.
+ */
+@WebMvcTest(PurchaseOrderController.class)
+@Import(SecurityConfig.class)
+class PurchaseOrderSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private JwtDecoder jwtDecoder;
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+    @MockitoBean
+    private PurchaseOrderRepository purchaseOrderRepository;
+    @MockitoBean
+    private SupplierRepository supplierRepository;
+    @MockitoBean
+    private AuthClient authClient;
+
+    @Test
+    void onlyAdminsDeleteOrders() throws Exception {
+        mockMvc.perform(delete("/api/v1/purchase-orders/1")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_COMPRAS"))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/v1/purchase-orders/1")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_SUPPLIER"))))
+                .andExpect(status().isForbidden());
+        verify(purchaseOrderRepository, never()).deleteById(anyLong());
+
+        when(purchaseOrderRepository.existsById(1L)).thenReturn(true);
+        mockMvc.perform(delete("/api/v1/purchase-orders/1")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"))))
+                .andExpect(status().isNoContent());
+        verify(purchaseOrderRepository).deleteById(1L);
+    }
+}
@@ -0,0 +1,63 @@
+package com.nomos.inventory.service.controller;
+
+import com.nomos.inventory.service.config.SecurityConfig;
+import com.nomos.inventory.service.service.IdempotencyService;
+import com.nomos.inventory.service.service.StockReconciliationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Solo los administradores inician o reanudan conciliaciones (con {@code fix=true} escriben en el libro);
+ * los auditores pueden consultarlas.
+ */
+@WebMvcTest(ReconciliationController.class)
+@Import(SecurityConfig.class)
+class ReconciliationSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private JwtDecoder jwtDecoder;
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+    @MockitoBean
+    private StockReconciliationService stockReconciliationService;
+
+    @Test
+    void startAndResumeAreForbiddenForNonAdmins() throws Exception {
+        mockMvc.perform(post("/api/v1/reconciliation/runs").param("fix", "true")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_AUDITOR"))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/v1/reconciliation/runs/1/resume")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_VENDOR"))))
+                .andExpect(status().isForbidden());
+        verify(stockReconciliationService, never()).start(anyBoolean());
+        verify(stockReconciliationService, never()).resume(anyLong());
+    }
+
+    @Test
+    void auditorsCanReadRuns() throws Exception {
+        mockMvc.perform(get("/api/v1/reconciliation/runs")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_AUDITOR"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/reconciliation/runs")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_VENDOR"))))
+                .andExpect(status().isForbidden());
+    }
+}
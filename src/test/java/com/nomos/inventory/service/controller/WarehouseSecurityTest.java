@@ -0,0 +1,76 @@
+package com.nomos.inventory.service.controller;
+
+import com.nomos.inventory.service.config.SecurityConfig;
+import com.nomos.inventory.service.repository.WarehouseRepository;
+import com.nomos.inventory.service.service.CollectionVersionService;
+import com.nomos.inventory.service.service.IdempotencyService;
+import com.nomos.inventory.service.service.MasterDataCacheService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Los almacenes se consultan con cualquier rol de inventario (auditores incluidos) y solo los
+ * administradores los modifican: las reglas por URL y los {@code @PreAuthorize} tienen que coincidir.
+ */
+@WebMvcTest(WarehouseController.class)
+@Import(SecurityConfig.class)
+class WarehouseSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private JwtDecoder jwtDecoder;
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+    @MockitoBean
+    private WarehouseRepository warehouseRepository;
+    @MockitoBean
+    private MasterDataCacheService masterDataCacheService;
+    @MockitoBean
+    private CollectionVersionService collectionVersionService;
+
+    @Test
+    void auditorsCanReadWarehouses() throws Exception {
+        when(collectionVersionService.etag(any())).thenReturn("\"warehouses-1\"");
+        mockMvc.perform(get("/api/inventory/warehouses")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_AUDITOR"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/inventory/warehouses/1")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_AUDITOR"))))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void onlyAdminsDeleteWarehouses() throws Exception {
+        mockMvc.perform(delete("/api/inventory/warehouses/1")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_VENDOR"))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/inventory/warehouses/1")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_AUDITOR"))))
+                .andExpect(status().isForbidden());
+        verify(warehouseRepository, never()).deleteById(anyLong());
+
+        when(warehouseRepository.existsById(1L)).thenReturn(true);
+        mockMvc.perform(delete("/api/inventory/warehouses/1")
+                        .with(jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"))))
+                .andExpect(status().isNoContent());
+        verify(warehouseRepository).deleteById(1L);
+    }
+}
@@ -0,0 +1,111 @@
+package com.nomos.inventory.service.repository;
+
+import com.nomos.inventory.service.model.InventoryItem;
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.Warehouse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Orden de las consultas de lotes asignables que usa {@code LotAllocationService}. */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:allocatable-lots;DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class InventoryItemRepositoryAllocationTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 8, 0);
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final LocalDate D0 = TODAY.plusMonths(6);
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    private Product product;
+    private Warehouse main;
+    private InventoryItem noExpiry;
+    private InventoryItem expiresLate;
+    private InventoryItem expiresSoon;
+    private InventoryItem empty;
+    private InventoryItem otherWarehouse;
+    private InventoryItem expired;
+    private InventoryItem expiresToday;
+
+    @BeforeEach
+    void setUp() {
+        product = productRepository.save(new Product(null, "LOT-1", "Producto", 1L, 10.0, 0, 1L, 1L,
+                null, null, null, null, null));
+        main = warehouseRepository.save(new Warehouse(null, "Central", "Av. Principal 1", true));
+        Warehouse north = warehouseRepository.save(new Warehouse(null, "Norte", "Calle 2", true));
+
+        noExpiry = lot(main, "L1", 5, null, T0);
+        expiresLate = lot(main, "L2", 5, D0.plusMonths(2), T0.plusDays(1));
+        expiresSoon = lot(main, "L3", 5, D0, T0.plusDays(2));
+        empty = lot(main, "L4", 0, D0.minusMonths(1), T0.minusDays(1));
+        otherWarehouse = lot(north, "L5", 5, D0.minusDays(1), T0.plusDays(3));
+    }
+
+    private void addExpiringLots() {
+        expired = lot(main, "L6", 5, TODAY.minusDays(1), T0.minusDays(2));
+        expiresToday = lot(main, "L7", 5, TODAY, T0.plusDays(4));
+    }
+
+    @Test
+    void fefoOrdersByExpirationWithUndatedLotsLast() {
+        assertThat(ids(inventoryItemRepository.findAllocatableLotsFefo(product.getId(), null, TODAY, PageRequest.of(0, 10))))
+                .containsExactly(otherWarehouse.getId(), expiresSoon.getId(), expiresLate.getId(), noExpiry.getId());
+    }
+
+    @Test
+    void fifoOrdersByEntryDate() {
+        assertThat(ids(inventoryItemRepository.findAllocatableLotsFifo(product.getId(), null, TODAY, PageRequest.of(0, 10))))
+                .containsExactly(noExpiry.getId(), expiresLate.getId(), expiresSoon.getId(), otherWarehouse.getId());
+    }
+
+    @Test
+    void warehouseFilterAndPagingKeepTheOrder() {
+        assertThat(ids(inventoryItemRepository.findAllocatableLotsFefo(product.getId(), main.getId(), TODAY, PageRequest.of(0, 2))))
+                .containsExactly(expiresSoon.getId(), expiresLate.getId());
+        assertThat(ids(inventoryItemRepository.findAllocatableLotsFefo(product.getId(), main.getId(), TODAY, PageRequest.of(1, 2))))
+                .containsExactly(noExpiry.getId());
+        assertThat(ids(inventoryItemRepository.findAllocatableLotsFifo(product.getId(), main.getId(), TODAY, PageRequest.of(0, 10))))
+                .doesNotContain(empty.getId(), otherWarehouse.getId());
+    }
+
+    @Test
+    void expiredLotsAreSkippedUnlessNoDateIsGiven() {
+        addExpiringLots();
+
+        assertThat(ids(inventoryItemRepository.findAllocatableLotsFefo(product.getId(), main.getId(), TODAY, PageRequest.of(0, 10))))
+                .containsExactly(expiresToday.getId(), expiresSoon.getId(), expiresLate.getId(), noExpiry.getId());
+        assertThat(ids(inventoryItemRepository.findAllocatableLotsFifo(product.getId(), main.getId(), TODAY, PageRequest.of(0, 10))))
+                .containsExactly(noExpiry.getId(), expiresLate.getId(), expiresSoon.getId(), expiresToday.getId());
+        assertThat(ids(inventoryItemRepository.findAllocatableLotsFefo(product.getId(), main.getId(), null, PageRequest.of(0, 10))))
+                .containsExactly(expired.getId(), expiresToday.getId(), expiresSoon.getId(), expiresLate.getId(), noExpiry.getId());
+    }
+
+    private InventoryItem lot(Warehouse warehouse, String lotNumber, int quantity, LocalDate expiration, LocalDateTime entry) {
+        return inventoryItemRepository.save(new InventoryItem(null, product, warehouse, quantity, 1.0, lotNumber,
+                expiration, null, entry));
+    }
+
+    private static List<Long> ids(List<Object[]> lots) {
+        return lots.stream().map(lot -> (Long) lot[0]).toList();
+    }
+}
@@ -0,0 +1,55 @@
+package com.nomos.inventory.service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.StringWriter;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExportRowsTest {
+
+    private static final String[] COLUMNS = {"id", "name", "price", "stock"};
+
+    private static final List<Object[]> ROWS = List.of(
+            new Object[] {1L, "Café, molido", 10.5, 3},
+            new Object[] {2L, "Té \"verde\"", null, null});
+
+    @Test
+    void ndjsonWritesOneObjectPerLineWithoutRootSeparator() throws Exception {
+        StringWriter out = new StringWriter();
+        Iterator<Object[]> rows = ROWS.iterator();
+        RowCallbackHandler handler = ExportRows.ndjson(out, new ObjectMapper(), COLUMNS, rs -> rows.next());
+
+        processAll(handler);
+
+        assertThat(out.toString()).isEqualTo(
+                "{\"id\":1,\"name\":\"Café, molido\",\"price\":10.5,\"stock\":3}\n" +
+                "{\"id\":2,\"name\":\"Té \\\"verde\\\"\",\"price\":null,\"stock\":null}\n");
+    }
+
+    @Test
+    void csvEscapesFieldsAndLeavesNullsEmpty() throws Exception {
+        StringWriter out = new StringWriter();
+        Iterator<Object[]> rows = ROWS.iterator();
+        ExportRows.writeCsvHeader(out, COLUMNS);
+        RowCallbackHandler handler = ExportRows.csv(out, rs -> rows.next());
+
+        processAll(handler);
+
+        assertThat(out.toString()).isEqualTo(
+                "id,name,price,stock\n" +
+                "1,\"Café, molido\",10.5,3\n" +
+                "2,\"Té \"\"verde\"\"\",,\n");
+    }
+
+    private static void processAll(RowCallbackHandler handler) throws SQLException {
+        for (int i = 0; i < ROWS.size(); i++) {
+            handler.processRow(null);
+        }
+    }
+}
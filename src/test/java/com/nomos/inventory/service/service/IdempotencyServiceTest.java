@@ -0,0 +1,109 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.IdempotencyRecord;
+import com.nomos.inventory.service.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private static final IdempotencyService.Scope SCOPE =
+            new IdempotencyService.Scope("k1", "/api/v1/inventory-movements", "user");
+
+    private IdempotencyRecordRepository repository;
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyRecordRepository.class);
+        when(repository.saveAndFlush(any())).thenAnswer(invocation -> {
+            IdempotencyRecord record = invocation.getArgument(0);
+            record.setId(7L);
+            return record;
+        });
+        service = new IdempotencyService(repository, 100, 24, 300, 1000, 16, 40);
+    }
+
+    @Test
+    void clientErrorsReleaseTheKey() {
+        IdempotencyService.Execution execution = service.begin(SCOPE, "h").execution();
+
+        service.complete(execution, 409, "application/json", new byte[0]);
+
+        verify(repository).deleteById(7L);
+        verify(repository, never()).complete(any(), anyInt(), any(), any());
+        assertThat(service.begin(SCOPE, "h").execution()).isNotNull();
+    }
+
+    @Test
+    void gatewayTimeoutIsKeptBecauseTheMovementMayStillCommit() {
+        IdempotencyService.Execution execution = service.begin(SCOPE, "h").execution();
+
+        service.complete(execution, 504, "application/json", "{}".getBytes());
+
+        verify(repository, never()).deleteById(any());
+        verify(repository).complete(eq(7L), eq(504), eq("application/json"), any());
+        IdempotencyService.Outcome retry = service.begin(SCOPE, "h");
+        assertThat(retry.execution()).isNull();
+        assertThat(retry.replay().status()).isEqualTo(504);
+    }
+
+    @Test
+    void cachedResponsesAreBoundedByTotalBodyBytes() {
+        for (String key : List.of("a", "b", "c")) {
+            IdempotencyService.Scope scope = new IdempotencyService.Scope(key, SCOPE.path(), SCOPE.principal());
+            service.complete(service.begin(scope, "h").execution(), 201, "application/json", new byte[16]);
+        }
+
+        // Tres cuerpos de 16 bytes no caben en 40: el más antiguo sale del LRU y se consulta en la tabla.
+        assertThat(service.cachedBodyBytes()).isEqualTo(32);
+        assertThat(service.begin(new IdempotencyService.Scope("c", SCOPE.path(), SCOPE.principal()), "h").replay())
+                .isNotNull();
+        verify(repository, times(3)).saveAndFlush(any());
+        service.begin(new IdempotencyService.Scope("a", SCOPE.path(), SCOPE.principal()), "h");
+        verify(repository, times(4)).saveAndFlush(any());
+    }
+
+    @Test
+    void oversizedResponsesAreStoredAsACompletedMarker() {
+        IdempotencyService.Execution execution = service.begin(SCOPE, "h").execution();
+
+        service.complete(execution, 201, "application/json", new byte[17]);
+
+        verify(repository, never()).deleteById(any());
+        verify(repository).complete(eq(7L), eq(201), isNull(), isNull());
+        IdempotencyService.StoredResponse replay = service.begin(SCOPE, "h").replay();
+        assertThat(replay.status()).isEqualTo(201);
+        assertThat(replay.bodyOmitted()).isTrue();
+        assertThat(replay.body()).isEmpty();
+    }
+
+    @Test
+    void markerFromAnotherInstanceIsReplayedWithoutBody() {
+        doThrow(new DataIntegrityViolationException("dup")).when(repository).saveAndFlush(any());
+        when(repository.findByIdempotencyKeyAndPathAndPrincipal("k1", SCOPE.path(), "user")).thenReturn(Optional.of(
+                new IdempotencyRecord(7L, "k1", SCOPE.path(), "user", "h", 201, null, null, LocalDateTime.now())));
+
+        IdempotencyService.StoredResponse replay = service.begin(SCOPE, "h").replay();
+
+        assertThat(replay.status()).isEqualTo(201);
+        assertThat(replay.bodyOmitted()).isTrue();
+    }
+}
@@ -0,0 +1,42 @@
+package com.nomos.inventory.service.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripKeepsEveryPart() {
+        LocalDateTime at = LocalDateTime.of(2026, 3, 1, 10, 15, 30, 123_000_000);
+
+        String cursor = KeysetCursor.encode("NAME", "Pintura látex | blanca, 4L", 42L, at);
+
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+        assertThat(KeysetCursor.decode(cursor, 4))
+                .containsExactly("NAME", "Pintura látex | blanca, 4L", "42", at.toString());
+    }
+
+    @Test
+    void emptyPartsSurviveTheRoundTrip() {
+        assertThat(KeysetCursor.decode(KeysetCursor.encode("NAME", "", 7), 3)).containsExactly("NAME", "", "7");
+    }
+
+    @Test
+    void wrongPartCountOrEncodingIsABadRequest() {
+        String cursor = KeysetCursor.encode("ID", 5);
+
+        for (Runnable call : new Runnable[] {
+                () -> KeysetCursor.decode(cursor, 3),
+                () -> KeysetCursor.decode(cursor, 1),
+                () -> KeysetCursor.decode("no es base64!", 2)}) {
+            assertThatThrownBy(call::run).isInstanceOfSatisfying(ResponseStatusException.class,
+                    e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.AllocationPolicy;
+import com.nomos.inventory.service.model.Category;
+import com.nomos.inventory.service.model.MovementType;
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.dto.AllocationRequestDTO;
+import com.nomos.inventory.service.model.dto.AllocationResultDTO;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Política por categoría, plan de lotes y reintento, con repositorios y aplicador simulados. */
+class LotAllocationServiceTest {
+
+    private static final Long PRODUCT_ID = 1L;
+    private static final Long ROOT = 10L;
+    private static final Long CHILD = 11L;
+    private static final Long GRANDCHILD = 12L;
+    private static final LocalDateTime MOVEMENT_DATE = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private InventoryItemRepository inventoryItemRepository;
+    private ProductRepository productRepository;
+    private MasterDataCacheService masterDataCacheService;
+    private CategoryTreeService categoryTreeService;
+    private MovementBatchApplier movementBatchApplier;
+    private ReservedStockIndex reservedStockIndex;
+    private LotAllocationService service;
+
+    @BeforeEach
+    void setUp() {
+        inventoryItemRepository = mock(InventoryItemRepository.class);
+        productRepository = mock(ProductRepository.class);
+        masterDataCacheService = mock(MasterDataCacheService.class);
+        categoryTreeService = mock(CategoryTreeService.class);
+        movementBatchApplier = mock(MovementBatchApplier.class);
+        reservedStockIndex = new ReservedStockIndex();
+        service = new LotAllocationService(inventoryItemRepository, productRepository, masterDataCacheService,
+                categoryTreeService, movementBatchApplier, reservedStockIndex, mock(PlatformTransactionManager.class),
+                AllocationPolicy.FEFO);
+
+        // ROOT (FIFO) <- CHILD (sin política) <- GRANDCHILD (sin política)
+        category(ROOT, AllocationPolicy.FIFO);
+        category(CHILD, null);
+        category(GRANDCHILD, null);
+        when(categoryTreeService.ancestorIds(GRANDCHILD)).thenReturn(List.of(CHILD, ROOT));
+        when(categoryTreeService.ancestorIds(CHILD)).thenReturn(List.of(ROOT));
+        when(categoryTreeService.ancestorIds(ROOT)).thenReturn(List.of());
+    }
+
+    @Test
+    void policyIsInheritedFromTheNearestAncestorThatDefinesIt() {
+        assertThat(service.policyFor(GRANDCHILD)).isEqualTo(AllocationPolicy.FIFO);
+
+        category(CHILD, AllocationPolicy.FEFO);
+        assertThat(service.policyFor(GRANDCHILD)).isEqualTo(AllocationPolicy.FEFO);
+    }
+
+    @Test
+    void policyFallsBackToTheDefault() {
+        assertThat(service.policyFor(null)).isEqualTo(AllocationPolicy.FEFO);
+
+        category(ROOT, null);
+        assertThat(service.policyFor(GRANDCHILD)).isEqualTo(AllocationPolicy.FEFO);
+    }
+
+    @Test
+    void fifoCategoryConsumesLotsInTheOrderOfTheFifoQuery() {
+        product(GRANDCHILD);
+        when(inventoryItemRepository.findAllocatableLotsFifo(eq(PRODUCT_ID), eq(null), eq(LocalDate.now()), any()))
+                .thenReturn(lots(lot(30L, 4), lot(20L, 5), lot(10L, 100)));
+        appliesEverything();
+
+        AllocationResultDTO result = service.allocate(request(MovementType.SALIDA_VENTA, 12));
+
+        assertThat(result.getPolicy()).isEqualTo(AllocationPolicy.FIFO);
+        assertThat(result.getLines()).extracting(AllocationResultDTO.Line::getInventoryItemId)
+                .containsExactly(30L, 20L, 10L);
+        assertThat(result.getLines()).extracting(AllocationResultDTO.Line::getQuantity)
+                .containsExactly(4, 5, 3);
+        verify(inventoryItemRepository, never()).findAllocatableLotsFefo(any(), any(), any(), any());
+        // El aplicador recibe los lotes en orden de id, sin importar el orden de la política.
+        verify(movementBatchApplier).apply(eq(List.of(
+                command(10L, -3), command(20L, -5), command(30L, -4))));
+    }
+
+    @Test
+    void fefoCategoryStopsReadingOnceTheQuantityIsCovered() {
+        product(null);
+        when(inventoryItemRepository.findAllocatableLotsFefo(eq(PRODUCT_ID), eq(null), eq(LocalDate.now()), any()))
+                .thenReturn(lots(lot(7L, 10), lot(3L, 10)));
+        appliesEverything();
+
+        AllocationResultDTO result = service.allocate(request(MovementType.SALIDA_VENTA, 6));
+
+        assertThat(result.getPolicy()).isEqualTo(AllocationPolicy.FEFO);
+        assertThat(result.getLines()).extracting(AllocationResultDTO.Line::getInventoryItemId).containsExactly(7L);
+        verify(inventoryItemRepository, times(1)).findAllocatableLotsFefo(any(), any(), any(), any());
+    }
+
+    @Test
+    void reservedStockOfAWarehouseIsLeftForItsReservations() {
+        product(null);
+        reservedStockIndex.add(PRODUCT_ID, 1L, 8);
+        when(inventoryItemRepository.sumQuantityByProductAndWarehouse(List.of(PRODUCT_ID)))
+                .thenReturn(lots(new Object[]{PRODUCT_ID, 1L, 10L}, new Object[]{PRODUCT_ID, 2L, 5L}));
+        when(inventoryItemRepository.findAllocatableLotsFefo(eq(PRODUCT_ID), eq(null), eq(LocalDate.now()), any()))
+                .thenReturn(lots(lot(7L, 6, 1L), lot(8L, 4, 1L), lot(3L, 5, 2L)));
+        appliesEverything();
+
+        AllocationResultDTO result = service.allocate(request(MovementType.SALIDA_VENTA, 6));
+
+        // Del almacén 1 solo quedan 2 unidades sin reservar; el resto sale del almacén 2.
+        assertThat(result.getLines()).extracting(AllocationResultDTO.Line::getInventoryItemId)
+                .containsExactly(7L, 3L);
+        assertThat(result.getLines()).extracting(AllocationResultDTO.Line::getQuantity)
+                .containsExactly(2, 4);
+    }
+
+    @Test
+    void insufficientStockIsAConflict() {
+        product(null);
+        when(inventoryItemRepository.findAllocatableLotsFefo(eq(PRODUCT_ID), eq(null), eq(LocalDate.now()), any()))
+                .thenReturn(lots(lot(7L, 2), lot(3L, 1)));
+
+        assertThatThrownBy(() -> service.allocate(request(MovementType.SALIDA_VENTA, 6)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        verify(movementBatchApplier, never()).apply(anyList());
+    }
+
+    @Test
+    void onlyLossAdjustmentsMayTakeExpiredLots() {
+        product(null);
+        when(inventoryItemRepository.findAllocatableLotsFefo(eq(PRODUCT_ID), eq(null), eq(null), any()))
+                .thenReturn(lots(lot(9L, 10)));
+        appliesEverything();
+
+        AllocationResultDTO result = service.allocate(request(MovementType.AJUSTE_PERDIDA, 4));
+
+        assertThat(result.getLines()).extracting(AllocationResultDTO.Line::getInventoryItemId).containsExactly(9L);
+        verify(inventoryItemRepository, never()).findAllocatableLotsFefo(any(), any(), eq(LocalDate.now()), any());
+    }
+
+    @Test
+    void oneLotAllocationDoesNotSplitTheOutput() {
+        product(null);
+        when(inventoryItemRepository.findAllocatableLotsFefo(eq(PRODUCT_ID), eq(null), eq(LocalDate.now()), any()))
+                .thenReturn(lots(lot(7L, 3), lot(3L, 10)));
+        appliesEverything();
+
+        assertThatThrownBy(() -> service.allocateFromOneLot(request(MovementType.SALIDA_VENTA, 6)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        verify(movementBatchApplier, never()).apply(anyList());
+
+        AllocationResultDTO result = service.allocateFromOneLot(request(MovementType.SALIDA_VENTA, 3));
+        assertThat(result.getLines()).extracting(AllocationResultDTO.Line::getInventoryItemId).containsExactly(7L);
+    }
+
+    @Test
+    void lotEmptiedAfterPlanningTriggersAReplan() {
+        product(null);
+        when(inventoryItemRepository.findAllocatableLotsFefo(eq(PRODUCT_ID), eq(null), eq(LocalDate.now()), any()))
+                .thenReturn(lots(lot(7L, 10)))
+                .thenReturn(lots(lot(8L, 10)));
+        when(movementBatchApplier.apply(anyList()))
+                .thenReturn(List.of(MovementResult.rejected(command(7L, -4),
+                        new ResponseStatusException(HttpStatus.CONFLICT, "Stock insuficiente"))))
+                .thenReturn(List.of(new MovementResult(500L, 8L, PRODUCT_ID, 1L, 6, null)));
+
+        AllocationResultDTO result = service.allocate(request(MovementType.SALIDA_VENTA, 4));
+
+        assertThat(result.getLines()).extracting(AllocationResultDTO.Line::getInventoryItemId).containsExactly(8L);
+        verify(movementBatchApplier, times(2)).apply(anyList());
+    }
+
+    @Test
+    void givesUpAfterRepeatedConcurrentChanges() {
+        product(null);
+        when(inventoryItemRepository.findAllocatableLotsFefo(eq(PRODUCT_ID), eq(null), eq(LocalDate.now()), any()))
+                .thenReturn(lots(lot(7L, 10)));
+        when(movementBatchApplier.apply(anyList())).thenReturn(List.of(MovementResult.rejected(command(7L, -4),
+                new ResponseStatusException(HttpStatus.CONFLICT, "Stock insuficiente"))));
+
+        assertThatThrownBy(() -> service.allocate(request(MovementType.SALIDA_VENTA, 4)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        verify(movementBatchApplier, times(3)).apply(anyList());
+    }
+
+    @Test
+    void nonOutboundTypesAreRejected() {
+        for (MovementType type : List.of(MovementType.ENTRADA, MovementType.AJUSTE_DEVOLUCION,
+                MovementType.AJUSTE_CONCILIACION)) {
+            assertThatThrownBy(() -> service.allocate(request(type, 4)))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        }
+        verify(productRepository, never()).findById(any());
+    }
+
+    private void category(Long id, AllocationPolicy policy) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName("c" + id);
+        category.setAllocationPolicy(policy);
+        when(masterDataCacheService.getCategory(id)).thenReturn(Optional.of(category));
+    }
+
+    private void product(Long categoryId) {
+        when(productRepository.findById(PRODUCT_ID)).thenReturn(Optional.of(new Product(PRODUCT_ID, "S1", "x", 1L,
+                10.0, 0, categoryId, 1L, null, null, null, null, null)));
+    }
+
+    private void appliesEverything() {
+        when(movementBatchApplier.apply(anyList())).thenAnswer(invocation -> {
+            List<MovementCommand> commands = invocation.getArgument(0);
+            return commands.stream().map(command -> new MovementResult(command.inventoryItemId() * 100,
+                    command.inventoryItemId(), PRODUCT_ID, 1L, 0, null)).toList();
+        });
+    }
+
+    private static List<Object[]> lots(Object[]... rows) {
+        return List.of(rows);
+    }
+
+    private static Object[] lot(Long id, int quantity) {
+        return lot(id, quantity, 1L);
+    }
+
+    private static Object[] lot(Long id, int quantity, Long warehouseId) {
+        return new Object[]{id, quantity, warehouseId};
+    }
+
+    private static AllocationRequestDTO request(MovementType type, int quantity) {
+        return new AllocationRequestDTO(PRODUCT_ID, null, quantity, type, "Venta", MOVEMENT_DATE, null, null);
+    }
+
+    private static MovementCommand command(Long inventoryItemId, int change) {
+        return new MovementCommand(inventoryItemId, PRODUCT_ID, change, MovementType.SALIDA_VENTA, "Venta",
+                MOVEMENT_DATE, null, null, 1L);
+    }
+}
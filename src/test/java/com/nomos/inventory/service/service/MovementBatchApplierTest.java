@@ -0,0 +1,176 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.InventoryItem;
+import com.nomos.inventory.service.model.MovementType;
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.Warehouse;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.InventoryMovementRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import com.nomos.inventory.service.repository.WarehouseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link MovementBatchApplier#applyGroups} contra H2 con transacciones reales: grupos todo o nada,
+ * deshacer en memoria, grupos que tocan dos veces el mismo lote y stock reservado.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:movement-batch;DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({MovementBatchApplier.class, ReservedStockIndex.class})
+class MovementBatchApplierTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Autowired
+    private MovementBatchApplier movementBatchApplier;
+
+    @Autowired
+    private InventoryMovementRepository movementRepository;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ReservedStockIndex reservedStockIndex;
+
+    @MockitoBean
+    private ProductStockSummaryService productStockSummaryService;
+
+    private Product product;
+    private Warehouse warehouse;
+
+    @BeforeEach
+    void setUp() {
+        movementRepository.deleteAll();
+        inventoryItemRepository.deleteAll();
+        productRepository.deleteAll();
+        warehouseRepository.deleteAll();
+
+        product = productRepository.save(new Product(null, "BATCH-1", "Producto", 1L, 10.0, 0, 1L, 1L,
+                null, null, null, null, null));
+        warehouse = warehouseRepository.save(new Warehouse(null, "Central", "Av. Principal 1", true));
+    }
+
+    @Test
+    void rejectedMovementRejectsTheWholeGroupAndUndoesItsEarlierChanges() {
+        Long a = newItem(10);
+        Long b = newItem(2);
+
+        List<MovementResult> results = movementBatchApplier.applyGroups(List.of(
+                // +5 en A se aplica en memoria y se deshace cuando B no alcanza.
+                List.of(command(a, 5), command(b, -3)),
+                // Si el deshacer fallara, este grupo vería 15 en A en lugar de 10.
+                List.of(command(a, -10))));
+
+        assertThat(results.get(0).error().getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(results.get(1).error()).isSameAs(results.get(0).error());
+        assertThat(results.get(1).inventoryItemId()).isEqualTo(b);
+        assertThat(results.get(2).isSuccess()).isTrue();
+        assertThat(results.get(2).balanceAfter()).isZero();
+
+        assertThat(quantity(a)).isZero();
+        assertThat(quantity(b)).isEqualTo(2);
+        assertThat(movementRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void groupTouchingTheSameLotTwiceSeesItsOwnChanges() {
+        Long a = newItem(4);
+
+        List<MovementResult> results = movementBatchApplier.applyGroups(List.of(
+                List.of(command(a, -4), command(a, 6), command(a, -1))));
+
+        assertThat(results).allMatch(MovementResult::isSuccess);
+        assertThat(results).extracting(MovementResult::balanceAfter).containsExactly(0, 6, 5);
+        assertThat(results).extracting(MovementResult::movementId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(quantity(a)).isEqualTo(5);
+        assertThat(movementRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void undoOfARepeatedLotRestoresTheOriginalQuantity() {
+        Long a = newItem(4);
+
+        List<MovementResult> results = movementBatchApplier.applyGroups(List.of(
+                List.of(command(a, 3), command(a, -2), command(a, -6)),
+                List.of(command(a, -4))));
+
+        assertThat(results.subList(0, 3)).noneMatch(MovementResult::isSuccess);
+        assertThat(results.get(3).balanceAfter()).isZero();
+        assertThat(quantity(a)).isZero();
+        assertThat(movementRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownLotOrProductMismatchIsABadRequest() {
+        Long a = newItem(4);
+
+        List<MovementResult> results = movementBatchApplier.applyGroups(List.of(
+                List.of(command(-1L, -1)),
+                List.of(new MovementCommand(a, product.getId() + 1, -1, MovementType.SALIDA_VENTA, "Venta",
+                        NOW, null, null, null))));
+
+        assertThat(results).extracting(result -> result.error().getStatusCode())
+                .containsExactly(HttpStatus.BAD_REQUEST, HttpStatus.BAD_REQUEST);
+        assertThat(movementRepository.count()).isZero();
+    }
+
+    @Test
+    void outboundMovementsCannotConsumeStockReservedInTheWarehouse() {
+        Long a = newItem(6);
+        Long b = newItem(4);
+        reservedStockIndex.add(product.getId(), warehouse.getId(), 7);
+        try {
+            List<MovementResult> results = movementBatchApplier.apply(List.of(
+                    command(a, -3), command(b, -1), command(b, 2), command(b, -2)));
+
+            assertThat(results.get(0).isSuccess()).isTrue();
+            // El total del almacén quedaría en 6 con 7 reservadas, aunque el lote B tiene stock.
+            assertThat(results.get(1).error().getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+            assertThat(results.get(2).isSuccess()).isTrue();
+            assertThat(results.get(3).isSuccess()).isTrue();
+            assertThat(quantity(a)).isEqualTo(3);
+            assertThat(quantity(b)).isEqualTo(4);
+        } finally {
+            reservedStockIndex.remove(product.getId(), warehouse.getId(), 7);
+        }
+    }
+
+    private MovementCommand command(Long inventoryItemId, int change) {
+        return new MovementCommand(inventoryItemId, product.getId(), change,
+                change > 0 ? MovementType.ENTRADA : MovementType.SALIDA_VENTA, "Prueba", NOW, null, null, null);
+    }
+
+    private Long newItem(int quantity) {
+        return inventoryItemRepository.save(new InventoryItem(null, product, warehouse, quantity, 1.0,
+                "LOTE-" + System.nanoTime(), null, null, NOW)).getId();
+    }
+
+    private int quantity(Long itemId) {
+        return inventoryItemRepository.findById(itemId).orElseThrow().getQuantity();
+    }
+}
@@ -0,0 +1,144 @@
+package com.nomos.inventory.service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nomos.inventory.service.model.dto.MovementBulkResultDTO;
+import com.nomos.inventory.service.model.dto.MovementLineResultDTO;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Lectura en streaming, bloques aplicados a medida que se leen y degradación a líneas sueltas. */
+class MovementBulkServiceTest {
+
+    private static final long PRODUCT_ID = 1L;
+    private static final int CHUNK_SIZE = 100;
+
+    private ProductRepository productRepository;
+    private MovementBatchApplier movementBatchApplier;
+    private MovementBulkService service;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        movementBatchApplier = mock(MovementBatchApplier.class);
+        service = new MovementBulkService(new ObjectMapper().findAndRegisterModules(),
+                Validation.buildDefaultValidatorFactory().getValidator(), productRepository,
+                mock(InventoryItemRepository.class), movementBatchApplier, CHUNK_SIZE, 50_000);
+        when(productRepository.findExistingIds(any())).thenReturn(Set.of(PRODUCT_ID));
+    }
+
+    @Test
+    void chunksAreAppliedWhileTheBodyIsStillBeingRead() throws Exception {
+        byte[] body = body(lines(0, 2_000));
+        CountingInputStream in = new CountingInputStream(body);
+        List<Integer> consumedAtApply = new ArrayList<>();
+        when(movementBatchApplier.apply(anyList())).thenAnswer(invocation -> {
+            consumedAtApply.add(in.consumed());
+            return appliedAll(invocation.getArgument(0));
+        });
+
+        MovementBulkResultDTO result = service.ingest(in);
+
+        assertThat(result.getAccepted()).isEqualTo(2_000);
+        assertThat(result.getError()).isNull();
+        verify(movementBatchApplier, times(20)).apply(anyList());
+        assertThat(consumedAtApply.get(0)).isLessThan(body.length / 2);
+    }
+
+    @Test
+    void failedChunkIsRetriedLineByLine() throws Exception {
+        when(movementBatchApplier.apply(anyList())).thenAnswer(invocation -> {
+            List<MovementCommand> commands = invocation.getArgument(0);
+            if (commands.stream().anyMatch(command -> command.inventoryItemId() == 7L)) {
+                throw new DataIntegrityViolationException("restricción violada");
+            }
+            return appliedAll(commands);
+        });
+
+        MovementBulkResultDTO result = service.ingest(new ByteArrayInputStream(body(lines(0, 10))));
+
+        assertThat(result.getAccepted()).isEqualTo(9);
+        assertThat(result.getLines()).extracting(MovementLineResultDTO::getLine)
+                .containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        MovementLineResultDTO failed = result.getLines().get(7);
+        assertThat(failed.getStatus()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR.value());
+        assertThat(failed.getMovementId()).isNull();
+        verify(movementBatchApplier, times(11)).apply(anyList());
+    }
+
+    @Test
+    void malformedBodyAfterACommittedChunkKeepsTheLinesReadSoFar() throws Exception {
+        when(movementBatchApplier.apply(anyList())).thenAnswer(invocation -> appliedAll(invocation.getArgument(0)));
+        String body = "[" + lines(0, CHUNK_SIZE + 5) + ", {\"product\": ";
+
+        MovementBulkResultDTO result = service.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getAccepted()).isEqualTo(CHUNK_SIZE + 5);
+        assertThat(result.getError()).startsWith("JSON mal formado");
+    }
+
+    @Test
+    void malformedBodyBeforeAnyChunkIsABadRequest() {
+        String body = "[" + lines(0, 3) + ", {\"product\": ";
+
+        assertThatThrownBy(() -> service.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        verify(movementBatchApplier, never()).apply(anyList());
+    }
+
+    private static List<MovementResult> appliedAll(List<MovementCommand> commands) {
+        return commands.stream().map(command -> new MovementResult(command.inventoryItemId() + 1000,
+                command.inventoryItemId(), command.productId(), 1L, 10, null)).toList();
+    }
+
+    /** Líneas {@code from .. from+count-1}, la línea i sobre el lote i. */
+    private static String lines(int from, int count) {
+        StringBuilder json = new StringBuilder();
+        for (int i = from; i < from + count; i++) {
+            if (i > from) {
+                json.append(",\n");
+            }
+            json.append("{\"product\": {\"id\": ").append(PRODUCT_ID).append("}, \"inventoryItem\": {\"id\": ").append(i)
+                    .append("}, \"quantityChange\": -1, \"type\": \"SALIDA_VENTA\", \"reason\": \"Cierre de caja\", ")
+                    .append("\"movementDate\": \"2026-01-01T10:00:00\"}");
+        }
+        return json.toString();
+    }
+
+    private static byte[] body(String lines) {
+        return ("[" + lines + "]").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class CountingInputStream extends ByteArrayInputStream {
+
+        private CountingInputStream(byte[] body) {
+            super(body);
+        }
+
+        synchronized int consumed() {
+            return pos;
+        }
+    }
+}
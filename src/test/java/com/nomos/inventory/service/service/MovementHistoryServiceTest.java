@@ -0,0 +1,200 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.InventoryMovement;
+import com.nomos.inventory.service.model.MovementType;
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.dto.CursorPage;
+import com.nomos.inventory.service.repository.InventoryMovementRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Paginación por keyset del historial de movimientos contra H2: empates de {@code movementDate}
+ * resueltos por id, cursores inválidos y límites de la ventana de fechas.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:movement-history;DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "inventory.movements.history.default-days=30",
+        "inventory.movements.history.max-days=60"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(MovementHistoryService.class)
+class MovementHistoryServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @Autowired
+    private MovementHistoryService movementHistoryService;
+
+    @Autowired
+    private InventoryMovementRepository movementRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        movementRepository.deleteAll();
+        productRepository.deleteAll();
+        product = productRepository.save(new Product(null, "HIST-1", "Producto", 1L, 10.0, 0, 1L, 1L,
+                null, null, null, null, null));
+    }
+
+    @Test
+    void pagesWalkEveryMovementOnceEvenWhenDatesTie() {
+        List<InventoryMovement> saved = new ArrayList<>();
+        // Siete movimientos en el mismo instante, con dos más nuevos y dos más viejos alrededor.
+        saved.add(movement(NOW.minusHours(1), MovementType.ENTRADA));
+        saved.add(movement(NOW.minusHours(1), MovementType.ENTRADA));
+        for (int i = 0; i < 7; i++) {
+            saved.add(movement(NOW.minusHours(2), MovementType.SALIDA_VENTA));
+        }
+        saved.add(movement(NOW.minusHours(3), MovementType.ENTRADA));
+        saved.add(movement(NOW.minusHours(3), MovementType.SALIDA_VENTA));
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<InventoryMovement> page = movementHistoryService.findPage(product.getId(), null, null,
+                    null, null, null, null, cursor, 3);
+            page.getItems().forEach(movement -> walked.add(movement.getId()));
+            assertThat(page.isHasMore()).isEqualTo(page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        List<Long> expected = saved.stream()
+                .sorted(Comparator.comparing(InventoryMovement::getMovementDate).thenComparing(InventoryMovement::getId).reversed())
+                .map(InventoryMovement::getId)
+                .toList();
+        assertThat(walked).containsExactlyElementsOf(expected);
+        assertThat(pages).isEqualTo(4);
+    }
+
+    @Test
+    void cursorFiltersStrictlyAfterTheLastRowOfATie() {
+        InventoryMovement first = movement(NOW.minusHours(2), MovementType.ENTRADA);
+        InventoryMovement second = movement(NOW.minusHours(2), MovementType.ENTRADA);
+        InventoryMovement third = movement(NOW.minusHours(2), MovementType.ENTRADA);
+
+        String cursor = KeysetCursor.encode(second.getMovementDate(), second.getId());
+        CursorPage<InventoryMovement> page = movementHistoryService.findPage(product.getId(), null, null,
+                null, null, null, null, cursor, 10);
+
+        assertThat(page.getItems()).extracting(InventoryMovement::getId).containsExactly(first.getId());
+        assertThat(page.isHasMore()).isFalse();
+        assertThat(third.getId()).isGreaterThan(second.getId());
+    }
+
+    @Test
+    void filtersAreCombinedWithTheCursor() {
+        movement(NOW.minusHours(1), MovementType.ENTRADA);
+        InventoryMovement sale = movement(NOW.minusHours(1), MovementType.SALIDA_VENTA);
+        movement(NOW.minusHours(2), MovementType.ENTRADA);
+
+        CursorPage<InventoryMovement> page = movementHistoryService.findPage(product.getId(), null,
+                MovementType.SALIDA_VENTA, null, null, null, null, null, 10);
+
+        assertThat(page.getItems()).extracting(InventoryMovement::getId).containsExactly(sale.getId());
+    }
+
+    @Test
+    void malformedCursorsAreBadRequests() {
+        List<String> cursors = List.of(
+                "%%%",
+                encodeRaw("2026-01-01T00:00"),
+                encodeRaw("ayer\u001F5"),
+                encodeRaw("2026-01-01T00:00\u001Fcinco"),
+                encodeRaw("2026-01-01T00:00\u001F5\u001F6"));
+        for (String cursor : cursors) {
+            assertBadRequest(() -> movementHistoryService.findPage(product.getId(), null, null,
+                    null, null, null, null, cursor, 10));
+        }
+    }
+
+    @Test
+    void defaultWindowCoversTheLastDefaultDays() {
+        InventoryMovement recent = movement(NOW.minusDays(29), MovementType.ENTRADA);
+        movement(NOW.minusDays(31), MovementType.ENTRADA);
+
+        CursorPage<InventoryMovement> page = movementHistoryService.findPage(product.getId(), null, null,
+                null, null, null, null, null, 10);
+
+        assertThat(page.getItems()).extracting(InventoryMovement::getId).containsExactly(recent.getId());
+    }
+
+    @Test
+    void explicitBoundsAreInclusive() {
+        InventoryMovement atFrom = movement(NOW.minusDays(10), MovementType.ENTRADA);
+        InventoryMovement atTo = movement(NOW.minusDays(5), MovementType.ENTRADA);
+        movement(NOW.minusDays(4), MovementType.ENTRADA);
+
+        CursorPage<InventoryMovement> page = movementHistoryService.findPage(product.getId(), null, null,
+                NOW.minusDays(10), NOW.minusDays(5), null, null, null, 10);
+
+        assertThat(page.getItems()).extracting(InventoryMovement::getId).containsExactly(atTo.getId(), atFrom.getId());
+    }
+
+    @Test
+    void invalidWindowsAndPageSizesAreBadRequests() {
+        assertBadRequest(() -> movementHistoryService.findPage(null, null, null,
+                NOW, NOW.minusDays(1), null, null, null, 10));
+        assertBadRequest(() -> movementHistoryService.findPage(null, null, null,
+                NOW.minusDays(61), NOW, null, null, null, 10));
+        // Solo "from" alejado de hoy también cuenta contra max-days.
+        assertBadRequest(() -> movementHistoryService.findPage(null, null, null,
+                NOW.minusDays(90), null, null, null, null, 10));
+        assertBadRequest(() -> movementHistoryService.findPage(null, null, null,
+                null, null, null, null, null, 0));
+        assertBadRequest(() -> movementHistoryService.findPage(null, null, null,
+                null, null, null, null, null, MovementHistoryService.MAX_PAGE_SIZE + 1));
+
+        assertThat(movementHistoryService.findPage(null, null, null, NOW.minusDays(60), NOW,
+                null, null, null, MovementHistoryService.MAX_PAGE_SIZE).getItems()).isEmpty();
+    }
+
+    private InventoryMovement movement(LocalDateTime at, MovementType type) {
+        InventoryMovement movement = new InventoryMovement();
+        movement.setProduct(product);
+        movement.setQuantityChange(type == MovementType.ENTRADA ? 1 : -1);
+        movement.setType(type);
+        movement.setReason("Prueba");
+        movement.setMovementDate(at);
+        return movementRepository.save(movement);
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertBadRequest(ThrowingCallable call) {
+        assertThatThrownBy(call).isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+}
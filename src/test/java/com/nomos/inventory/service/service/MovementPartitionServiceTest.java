@@ -0,0 +1,113 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.InventoryItem;
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.Warehouse;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import com.nomos.inventory.service.repository.WarehouseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Migración a tabla particionada contra un PostgreSQL real (el particionado y el catálogo no existen en H2).
+ * Sin Docker el test se omite.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(MovementPartitionService.class)
+@Testcontainers(disabledWithoutDocker = true)
+class MovementPartitionServiceTest {
+
+    private static final LocalDateTime MOVED_AT = LocalDateTime.now().minusMonths(2);
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private MovementPartitionService movementPartitionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    private Product product;
+    private InventoryItem lot;
+
+    @BeforeEach
+    void setUp() {
+        product = productRepository.save(new Product(null, "PART-1", "Producto", 1L, 10.0, 0, 1L, 1L,
+                null, null, null, null, null));
+        Warehouse main = warehouseRepository.save(new Warehouse(null, "Central", "Av. Principal 1", true));
+        lot = inventoryItemRepository.save(new InventoryItem(null, product, main, 10, 1.0, "L1",
+                LocalDate.now().plusMonths(6), null, MOVED_AT));
+        insertMovement(product.getId(), lot.getId(), "ENTRADA");
+    }
+
+    @Test
+    void migrationKeepsRowsForeignKeysAndTheTypeCheck() {
+        long copied = movementPartitionService.migrate();
+
+        assertThat(copied).isEqualTo(1);
+        assertThat(movementPartitionService.isPartitioned()).isTrue();
+        assertThat(movementPartitionService.listPartitions())
+                .containsKey(MovementPartitionService.partitionName(YearMonth.from(MOVED_AT)));
+        assertThat(referencedTables()).containsExactlyInAnyOrder("inventory_items", "products");
+
+        insertMovement(product.getId(), lot.getId(), "SALIDA_VENTA");
+        assertThatThrownBy(() -> insertMovement(-1L, lot.getId(), "SALIDA_VENTA"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> insertMovement(product.getId(), -1L, "SALIDA_VENTA"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> insertMovement(product.getId(), lot.getId(), "NO_EXISTE"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private List<String> referencedTables() {
+        return jdbcTemplate.queryForList("SELECT confrelid::regclass::text FROM pg_constraint " +
+                "WHERE conrelid = to_regclass(?) AND contype = 'f'", String.class, MovementPartitionService.TABLE);
+    }
+
+    private void insertMovement(Long productId, Long inventoryItemId, String type) {
+        jdbcTemplate.update("INSERT INTO " + MovementPartitionService.TABLE + " (product_id, inventory_item_id, " +
+                        "quantity_change, type, reason, movement_date) VALUES (?, ?, 1, ?, 'test', ?)",
+                productId, inventoryItemId, type, MOVED_AT);
+    }
+}
@@ -0,0 +1,88 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.MovementType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MovementPipelineTest {
+
+    private static final long POISON_ITEM = 99L;
+
+    private MovementBatchApplier applier;
+    private MovementPipeline pipeline;
+    private final CountDownLatch writerBusy = new CountDownLatch(1);
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        applier = mock(MovementBatchApplier.class);
+        // Una partición: todos los movimientos pasan por el mismo hilo escritor.
+        pipeline = new MovementPipeline(applier, true, 1, 16, 100, 5_000);
+        when(applier.apply(anyList())).thenAnswer(invocation -> {
+            List<MovementCommand> commands = invocation.getArgument(0);
+            if (commands.get(0).inventoryItemId() == 0L) {
+                writerBusy.countDown();
+                gate.await(5, TimeUnit.SECONDS);
+            }
+            if (commands.stream().anyMatch(command -> command.inventoryItemId() == POISON_ITEM)) {
+                throw new DataIntegrityViolationException("check constraint");
+            }
+            return commands.stream().map(command -> new MovementResult(command.inventoryItemId() * 10,
+                    command.inventoryItemId(), 1L, 1L, 5, null)).toList();
+        });
+        pipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+    }
+
+    @Test
+    void failedBatchFallsBackToOneTransactionPerMovement() throws Exception {
+        // El primer movimiento retiene al escritor hasta que los demás se acumulan en la misma tanda.
+        CompletableFuture<MovementResult> first = pipeline.submit(command(0L));
+        assertThat(writerBusy.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<MovementResult> a = pipeline.submit(command(1L));
+        CompletableFuture<MovementResult> poison = pipeline.submit(command(POISON_ITEM));
+        CompletableFuture<MovementResult> b = pipeline.submit(command(2L));
+        gate.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).movementId()).isZero();
+        assertThat(a.get(5, TimeUnit.SECONDS).movementId()).isEqualTo(10L);
+        assertThat(b.get(5, TimeUnit.SECONDS).movementId()).isEqualTo(20L);
+        assertThatThrownBy(() -> poison.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause()
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR));
+
+        verify(applier).apply(List.of(command(1L), command(POISON_ITEM), command(2L)));
+        verify(applier).apply(List.of(command(1L)));
+        verify(applier).apply(List.of(command(POISON_ITEM)));
+        verify(applier).apply(List.of(command(2L)));
+    }
+
+    private static MovementCommand command(long inventoryItemId) {
+        return new MovementCommand(inventoryItemId, 1L, -1, MovementType.SALIDA_VENTA, "Venta",
+                LocalDateTime.of(2026, 1, 1, 12, 0), null, null, null);
+    }
+}
@@ -0,0 +1,30 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.MovementType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MovementTypeConstraintServiceTest {
+
+    @Test
+    void detectsValuesMissingFromAHibernateGeneratedConstraint() {
+        String definition = "CHECK (((type)::text = ANY ((ARRAY['ENTRADA'::character varying, " +
+                "'SALIDA_VENTA'::character varying, 'AJUSTE_DEVOLUCION'::character varying, " +
+                "'AJUSTE_PERDIDA'::character varying, 'TRANSFERENCIA'::character varying])::text[])))";
+
+        assertThat(MovementTypeConstraintService.missingFrom(definition))
+                .containsExactly(MovementType.AJUSTE_CONCILIACION);
+    }
+
+    @Test
+    void constraintWithEveryValueIsUpToDate() {
+        String definition = "CHECK (type IN (" + Arrays.stream(MovementType.values())
+                .map(type -> "'" + type.name() + "'").collect(Collectors.joining(", ")) + "))";
+
+        assertThat(MovementTypeConstraintService.missingFrom(definition)).isEmpty();
+    }
+}
@@ -0,0 +1,204 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.dto.CursorPage;
+import com.nomos.inventory.service.repository.ProductRepository;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Paginación por keyset del catálogo contra H2: recorrido completo por id y por nombre con empates,
+ * filtros combinados con el cursor y cursores inválidos.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-catalog;DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductCatalogServiceTest {
+
+    private static final Long TOOLS = 1L;
+    private static final Long HAMMERS = 2L;
+    private static final Long PAINT = 3L;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final CategoryTreeService categoryTreeService = mock(CategoryTreeService.class);
+
+    private ProductCatalogService catalogService;
+
+    private final List<Product> saved = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        saved.clear();
+        ProductEnrichmentService enrichmentService = mock(ProductEnrichmentService.class);
+        when(enrichmentService.enrich(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        catalogService = new ProductCatalogService(productRepository, enrichmentService, categoryTreeService);
+
+        // Nombres repetidos a propósito: el orden por nombre debe desempatar por id.
+        product("MART-001", "Martillo", 10L, 15.0, HAMMERS);
+        product("PINT-001", "Pintura", 20L, 30.0, PAINT);
+        product("MART-002", "Martillo", 10L, 22.0, HAMMERS);
+        product("LLAV-001", "Llave", 10L, 8.0, TOOLS);
+        product("MART-003", "Martillo", 20L, 18.0, HAMMERS);
+        product("PINT-002", "Brocha", 20L, 5.0, PAINT);
+        product("MART-004", "Martillo", 10L, 40.0, HAMMERS);
+    }
+
+    @Test
+    void pagesByIdWalkEveryProductOnce() {
+        List<Long> walked = walk(ProductCatalogService.SortKey.ID, 3);
+
+        assertThat(walked).containsExactlyElementsOf(saved.stream().map(Product::getId).sorted().toList());
+    }
+
+    @Test
+    void pagesByNameBreakTiesById() {
+        // Página de 2 con cuatro "Martillo": los cursores caen dentro del empate.
+        List<Long> walked = walk(ProductCatalogService.SortKey.NAME, 2);
+
+        List<Long> expected = saved.stream()
+                .sorted(Comparator.comparing(Product::getName).thenComparing(Product::getId))
+                .map(Product::getId)
+                .toList();
+        assertThat(walked).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void cursorContinuesStrictlyAfterTheLastRowOfATie() {
+        Product second = saved.get(2);
+        String cursor = KeysetCursor.encode(ProductCatalogService.SortKey.NAME, second.getName(), second.getId());
+
+        CursorPage<Product> page = catalogService.findPage(null, false, null, null, null, null,
+                ProductCatalogService.SortKey.NAME, cursor, 10);
+
+        assertThat(page.getItems()).extracting(Product::getSku)
+                .containsExactly("MART-003", "MART-004", "PINT-001");
+        assertThat(page.isHasMore()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void filtersAreCombinedWithEachOtherAndWithTheCursor() {
+        List<String> skus = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<Product> page = catalogService.findPage(HAMMERS, false, 10L, 16.0, 40.0, "MART-",
+                    ProductCatalogService.SortKey.ID, cursor, 1);
+            page.getItems().forEach(product -> skus.add(product.getSku()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(skus).containsExactly("MART-002", "MART-004");
+    }
+
+    @Test
+    void subcategoriesAreIncludedOnlyWhenRequested() {
+        when(categoryTreeService.subtreeIds(TOOLS)).thenReturn(Set.of(TOOLS, HAMMERS));
+        when(categoryTreeService.subtreeIds(99L)).thenReturn(Set.of());
+
+        assertThat(catalogService.findPage(TOOLS, true, null, null, null, null,
+                ProductCatalogService.SortKey.ID, null, 50).getItems())
+                .extracting(Product::getSku)
+                .containsExactly("MART-001", "MART-002", "LLAV-001", "MART-003", "MART-004");
+        assertThat(catalogService.findPage(TOOLS, false, null, null, null, null,
+                ProductCatalogService.SortKey.ID, null, 50).getItems())
+                .extracting(Product::getSku)
+                .containsExactly("LLAV-001");
+        assertThat(catalogService.findPage(99L, true, null, null, null, null,
+                ProductCatalogService.SortKey.ID, null, 50).getItems()).isEmpty();
+    }
+
+    @Test
+    void skuPrefixWildcardsAreLiteral() {
+        product("A_B-1", "Guion bajo", 10L, 1.0, TOOLS);
+        product("AXB-1", "Sin guion", 10L, 1.0, TOOLS);
+
+        assertThat(catalogService.findPage(null, false, null, null, null, "A_",
+                ProductCatalogService.SortKey.ID, null, 50).getItems())
+                .extracting(Product::getSku)
+                .containsExactly("A_B-1");
+    }
+
+    @Test
+    void malformedCursorsAreBadRequests() {
+        List<String> idCursors = List.of(
+                "%%%",
+                encodeRaw("ID"),
+                encodeRaw("ID\u001Fcinco"),
+                encodeRaw("ID\u001F5\u001F6"),
+                KeysetCursor.encode(ProductCatalogService.SortKey.NAME, 5));
+        for (String cursor : idCursors) {
+            assertBadRequest(() -> catalogService.findPage(null, false, null, null, null, null,
+                    ProductCatalogService.SortKey.ID, cursor, 10));
+        }
+        // Un cursor del orden por id no sirve para el orden por nombre.
+        assertBadRequest(() -> catalogService.findPage(null, false, null, null, null, null,
+                ProductCatalogService.SortKey.NAME, KeysetCursor.encode(ProductCatalogService.SortKey.ID, "x", 5), 10));
+        assertBadRequest(() -> catalogService.findPage(null, false, null, null, null, null,
+                ProductCatalogService.SortKey.NAME, encodeRaw("NAME\u001FMartillo\u001Fcinco"), 10));
+    }
+
+    @Test
+    void invalidPageSizesAndPriceRangesAreBadRequests() {
+        assertBadRequest(() -> catalogService.findPage(null, false, null, null, null, null,
+                ProductCatalogService.SortKey.ID, null, 0));
+        assertBadRequest(() -> catalogService.findPage(null, false, null, null, null, null,
+                ProductCatalogService.SortKey.ID, null, ProductCatalogService.MAX_PAGE_SIZE + 1));
+        assertBadRequest(() -> catalogService.findPage(null, false, null, 20.0, 10.0, null,
+                ProductCatalogService.SortKey.ID, null, 10));
+    }
+
+    private List<Long> walk(ProductCatalogService.SortKey sortKey, int pageSize) {
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<Product> page = catalogService.findPage(null, false, null, null, null, null,
+                    sortKey, cursor, pageSize);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(pageSize);
+            assertThat(page.isHasMore()).isEqualTo(page.getNextCursor() != null);
+            page.getItems().forEach(product -> walked.add(product.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return walked;
+    }
+
+    private void product(String sku, String name, Long brandId, Double price, Long categoryId) {
+        saved.add(productRepository.save(new Product(null, sku, name, brandId, price, 0, categoryId, 1L,
+                null, null, null, null, null)));
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertBadRequest(ThrowingCallable call) {
+        assertThatThrownBy(call).isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+}
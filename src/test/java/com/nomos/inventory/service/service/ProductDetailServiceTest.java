@@ -0,0 +1,92 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.repository.ProductAttributeValueRepository;
+import com.nomos.inventory.service.repository.ProductImageRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import com.nomos.inventory.service.repository.ProductSupplierRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductDetailServiceTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductImageRepository imageRepository = mock(ProductImageRepository.class);
+    private final ProductAttributeValueRepository pavRepository = mock(ProductAttributeValueRepository.class);
+    private final ProductSupplierRepository supplierRepository = mock(ProductSupplierRepository.class);
+    private final ProductStockSummaryService stockSummaryService = mock(ProductStockSummaryService.class);
+
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        // Un solo hilo: la primera parte lo ocupa y las demás quedan en cola.
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void timeoutInterruptsTheRunningPartAndDropsTheQueuedOnes() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(productRepository.findById(1L)).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return Optional.empty();
+        });
+        ProductDetailService service = service(100);
+
+        assertThatThrownBy(() -> service.getDetail(1L))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT));
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        // La cola se vacía (las tareas canceladas no se ejecutan) y el pool queda libre.
+        assertThat(executor.submit(() -> true).get(5, TimeUnit.SECONDS)).isTrue();
+        verify(imageRepository, never()).findByProductIdOrderBySortOrderAsc(1L);
+        verify(pavRepository, never()).findByProductId(1L);
+        verify(supplierRepository, never()).findByProductId(1L);
+        verify(stockSummaryService, never()).findOnHand(1L);
+    }
+
+    @Test
+    void partsAreCombinedWhenAllFinishInTime() {
+        when(productRepository.findById(1L)).thenReturn(Optional.empty());
+        when(imageRepository.findByProductIdOrderBySortOrderAsc(1L)).thenReturn(List.of());
+        when(pavRepository.findByProductId(1L)).thenReturn(List.of());
+        when(supplierRepository.findByProductId(1L)).thenReturn(List.of());
+        when(stockSummaryService.findOnHand(1L)).thenReturn(Optional.of(4));
+
+        assertThat(service(5000).getDetail(1L)).isEmpty();
+    }
+
+    private ProductDetailService service(long timeoutMillis) {
+        return new ProductDetailService(productRepository, mock(ProductEnrichmentService.class), imageRepository,
+                pavRepository, supplierRepository, stockSummaryService, executor, timeoutMillis);
+    }
+}
@@ -0,0 +1,162 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.Brand;
+import com.nomos.inventory.service.model.Category;
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.ProductImage;
+import com.nomos.inventory.service.model.ProductSupplier;
+import com.nomos.inventory.service.model.Supplier;
+import com.nomos.inventory.service.model.UnitOfMeasure;
+import com.nomos.inventory.service.repository.BrandRepository;
+import com.nomos.inventory.service.repository.CategoryRepository;
+import com.nomos.inventory.service.repository.ProductImageRepository;
+import com.nomos.inventory.service.repository.ProductSupplierRepository;
+import com.nomos.inventory.service.repository.SupplierRepository;
+import com.nomos.inventory.service.repository.UnitOfMeasureRepository;
+import com.nomos.inventory.service.repository.WarehouseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+class ProductEnrichmentServiceTest {
+
+    private BrandRepository brandRepository;
+    private CategoryRepository categoryRepository;
+    private UnitOfMeasureRepository unitOfMeasureRepository;
+    private ProductSupplierRepository productSupplierRepository;
+    private SupplierRepository supplierRepository;
+    private ProductImageRepository productImageRepository;
+
+    private ProductEnrichmentService service;
+
+    @BeforeEach
+    void setUp() {
+        brandRepository = mock(BrandRepository.class);
+        categoryRepository = mock(CategoryRepository.class);
+        unitOfMeasureRepository = mock(UnitOfMeasureRepository.class);
+        productSupplierRepository = mock(ProductSupplierRepository.class);
+        supplierRepository = mock(SupplierRepository.class);
+        productImageRepository = mock(ProductImageRepository.class);
+
+        MasterDataCacheService masterDataCache = new MasterDataCacheService(brandRepository, categoryRepository,
+                unitOfMeasureRepository, mock(WarehouseRepository.class), 1_000);
+
+        service = new ProductEnrichmentService(masterDataCache, productSupplierRepository, supplierRepository,
+                productImageRepository);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 50, 20_000})
+    void queryCountDoesNotGrowWithCatalogSize(int catalogSize) {
+        List<Product> products = catalog(catalogSize);
+        stubRelations(products);
+
+        service.enrich(products);
+
+        assertThat(totalQueries()).isEqualTo(6);
+        assertThat(products).allSatisfy(product -> {
+            assertThat(product.getBrandName()).isEqualTo("Marca " + product.getBrandId());
+            assertThat(product.getCategoryName()).isEqualTo("Categoría " + product.getCategoryId());
+            assertThat(product.getUnitOfMeasureName()).isEqualTo("Unidad");
+            assertThat(product.getSupplierName()).isEqualTo("Proveedor " + (product.getId() % 3));
+            assertThat(product.getImageUrl()).isEqualTo("main-" + product.getId());
+        });
+    }
+
+    @Test
+    void warmMasterDataCacheSkipsReferenceQueries() {
+        List<Product> products = catalog(500);
+        stubRelations(products);
+
+        service.enrich(products);
+        long coldQueries = totalQueries();
+        service.enrich(catalog(500));
+
+        assertThat(mockingDetails(brandRepository).getInvocations()).hasSize(1);
+        assertThat(mockingDetails(categoryRepository).getInvocations()).hasSize(1);
+        assertThat(mockingDetails(unitOfMeasureRepository).getInvocations()).hasSize(1);
+        assertThat(totalQueries() - coldQueries).isEqualTo(3);
+    }
+
+    @Test
+    void fallsBackToFirstImageWhenThereIsNoMainImage() {
+        Product product = catalog(1).get(0);
+        stubRelations(List.of());
+        when(productImageRepository.findByProductIdInOrderBySortOrderAsc(anyCollection())).thenReturn(List.of(
+                new ProductImage(1L, product.getId(), "first", false, 0, null),
+                new ProductImage(2L, product.getId(), "second", false, 1, null)
+        ));
+
+        service.enrich(product);
+
+        assertThat(product.getImageUrl()).isEqualTo("first");
+        assertThat(product.getSupplierName()).isNull();
+    }
+
+    @Test
+    void emptyPageRunsNoQueries() {
+        service.enrich(List.of());
+
+        assertThat(mockingDetails(brandRepository).getInvocations()).isEmpty();
+        assertThat(mockingDetails(productImageRepository).getInvocations()).isEmpty();
+    }
+
+    private long totalQueries() {
+        return Stream.of(brandRepository, categoryRepository, unitOfMeasureRepository,
+                        productSupplierRepository, supplierRepository, productImageRepository)
+                .mapToLong(repository -> mockingDetails(repository).getInvocations().size())
+                .sum();
+    }
+
+    private static List<Product> catalog(int size) {
+        List<Product> products = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            products.add(new Product(id, "SKU-" + id, "Producto " + id, id % 10, 10.0, 1, id % 7, 1L,
+                    null, null, null, null, null));
+        }
+        return products;
+    }
+
+    private void stubRelations(List<Product> products) {
+        List<Brand> brands = new ArrayList<>();
+        for (long id = 0; id < 10; id++) {
+            brands.add(new Brand(id, "Marca " + id, "B" + id, null, null));
+        }
+        List<Category> categories = new ArrayList<>();
+        for (long id = 0; id < 7; id++) {
+            categories.add(new Category(id, "Categoría " + id, null, null));
+        }
+        List<Supplier> suppliers = new ArrayList<>();
+        for (long id = 0; id < 3; id++) {
+            suppliers.add(new Supplier(id, "Proveedor " + id, "TAX" + id, null, null, null, null));
+        }
+
+        List<ProductSupplier> preferred = new ArrayList<>();
+        List<ProductImage> images = new ArrayList<>();
+        for (Product product : products) {
+            preferred.add(new ProductSupplier(product.getId(), product.getId() % 3, null, 1.0, 1, true, true));
+            images.add(new ProductImage(null, product.getId(), "extra-" + product.getId(), false, 0, null));
+            images.add(new ProductImage(null, product.getId(), "main-" + product.getId(), true, 1, null));
+        }
+
+        when(brandRepository.findAllById(any())).thenReturn(brands);
+        when(categoryRepository.findAllById(any())).thenReturn(categories);
+        when(unitOfMeasureRepository.findAllById(any())).thenReturn(List.of(new UnitOfMeasure(1L, "Unidad", "Un")));
+        when(productSupplierRepository.findByProductIdInAndIsPreferred(anyCollection(), eq(true))).thenReturn(preferred);
+        when(supplierRepository.findAllById(any())).thenReturn(suppliers);
+        when(productImageRepository.findByProductIdInOrderBySortOrderAsc(anyCollection())).thenReturn(images);
+    }
+}
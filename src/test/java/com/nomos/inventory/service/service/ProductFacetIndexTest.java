@@ -0,0 +1,110 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.ProductAttributeValue;
+import com.nomos.inventory.service.model.dto.FacetQueryDTO;
+import com.nomos.inventory.service.model.dto.FacetResultDTO;
+import com.nomos.inventory.service.repository.ProductAttributeValueRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductFacetIndexTest {
+
+    private static final Long COLOR = 1L;
+    private static final Long SIZE = 2L;
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ProductAttributeValueRepository repository = mock(ProductAttributeValueRepository.class);
+        when(repository.findAll()).thenReturn(List.of(
+                new ProductAttributeValue(1L, COLOR, "rojo"),
+                new ProductAttributeValue(2L, COLOR, "rojo"),
+                new ProductAttributeValue(3L, COLOR, "azul"),
+                new ProductAttributeValue(4L, COLOR, "verde"),
+                new ProductAttributeValue(1L, SIZE, "M"),
+                new ProductAttributeValue(2L, SIZE, "L"),
+                new ProductAttributeValue(3L, SIZE, "M"),
+                new ProductAttributeValue(5L, SIZE, "M")));
+        index = new ProductFacetIndex(repository);
+        index.rebuild();
+    }
+
+    @Test
+    void unfilteredCountsAreTheBitmapCardinalities() {
+        FacetResultDTO result = index.query(new FacetQueryDTO(null, null, null));
+
+        assertThat(result.getTotal()).isEqualTo(5);
+        assertThat(result.getFacets()).isEqualTo(Map.of(
+                COLOR, Map.of("rojo", 2, "azul", 1, "verde", 1),
+                SIZE, Map.of("M", 3, "L", 1)));
+    }
+
+    @Test
+    void countsOfOtherAttributesRespectTheFilterAndOwnCountsIgnoreIt() {
+        FacetResultDTO result = index.query(new FacetQueryDTO(Map.of(SIZE, List.of("M")), null, null));
+
+        assertThat(result.getProductIds()).containsExactly(1L, 3L, 5L);
+        // Colores entre los talles M; el producto 4 (sin talle) y el 2 (talle L) no cuentan.
+        assertThat(result.getFacets().get(COLOR)).isEqualTo(Map.of("rojo", 1, "azul", 1));
+        // Faceta disyuntiva: los talles se cuentan sin el filtro de talle.
+        assertThat(result.getFacets().get(SIZE)).isEqualTo(Map.of("M", 3, "L", 1));
+    }
+
+    @Test
+    void filtersOnSeveralAttributesIntersect() {
+        FacetResultDTO result = index.query(new FacetQueryDTO(
+                Map.of(COLOR, List.of("rojo", "azul"), SIZE, List.of("M")), List.of(COLOR, SIZE), 10));
+
+        assertThat(result.getProductIds()).containsExactly(1L, 3L);
+        assertThat(result.getFacets().get(COLOR)).isEqualTo(Map.of("rojo", 1, "azul", 1));
+        assertThat(result.getFacets().get(SIZE)).isEqualTo(Map.of("M", 2, "L", 1));
+    }
+
+    @Test
+    void updatesAreReflectedInTheCounts() {
+        index.put(4L, SIZE, "L");
+        index.removeProduct(1L);
+
+        FacetResultDTO result = index.query(new FacetQueryDTO(Map.of(SIZE, List.of("L")), null, null));
+
+        assertThat(result.getProductIds()).containsExactly(2L, 4L);
+        assertThat(result.getFacets().get(COLOR)).isEqualTo(Map.of("rojo", 1, "verde", 1));
+    }
+
+    @Test
+    void highProductIdsDoNotInflateTheBitmaps() {
+        ProductAttributeValueRepository repository = mock(ProductAttributeValueRepository.class);
+        when(repository.findAll()).thenReturn(List.of(
+                new ProductAttributeValue(2_000_000_000L, COLOR, "rojo"),
+                new ProductAttributeValue(1_500_000_000L, COLOR, "azul"),
+                new ProductAttributeValue(9_000_000_000L, SIZE, "M")));
+        ProductFacetIndex sparse = new ProductFacetIndex(repository);
+        sparse.rebuild();
+
+        // Indexados por id serían unos 250 MB por bitmap; con ordinales, una palabra de 64 bits cada uno.
+        assertThat(sparse.bitmapBytes()).isLessThanOrEqualTo(4 * Long.BYTES);
+        assertThat(sparse.query(new FacetQueryDTO(null, null, null)).getProductIds())
+                .containsExactly(1_500_000_000L, 2_000_000_000L, 9_000_000_000L);
+    }
+
+    @Test
+    void freedOrdinalsAreReusedAndResultsStaySortedById() {
+        index.removeProduct(2L);
+        index.put(100L, COLOR, "rojo");
+        index.put(50L, COLOR, "rojo");
+
+        FacetResultDTO result = index.query(new FacetQueryDTO(Map.of(COLOR, List.of("rojo")), null, 2));
+
+        assertThat(result.getTotal()).isEqualTo(3);
+        assertThat(result.getProductIds()).containsExactly(1L, 50L);
+        assertThat(index.bitmapBytes()).isLessThanOrEqualTo(8 * Long.BYTES);
+    }
+}
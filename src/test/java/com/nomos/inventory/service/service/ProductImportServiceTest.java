@@ -0,0 +1,78 @@
+package com.nomos.inventory.service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nomos.inventory.service.model.Brand;
+import com.nomos.inventory.service.model.Category;
+import com.nomos.inventory.service.model.UnitOfMeasure;
+import com.nomos.inventory.service.model.dto.ImportJobDTO;
+import com.nomos.inventory.service.model.dto.ImportRowErrorDTO;
+import com.nomos.inventory.service.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Los insertados salen del {@code RETURNING sku}, no de los conteos del batch. */
+class ProductImportServiceTest {
+
+    private ProductRepository productRepository;
+    private JdbcTemplate jdbcTemplate;
+    private ProductImportService service;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        MasterDataCacheService masterDataCacheService = mock(MasterDataCacheService.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        service = new ProductImportService(productRepository, masterDataCacheService, mock(ProductSearchIndex.class),
+                mock(CollectionVersionService.class), jdbcTemplate, mock(PlatformTransactionManager.class),
+                new ObjectMapper(), new SyncTaskExecutor(), 1000, 100);
+
+        when(productRepository.findExistingSkus(any())).thenReturn(Set.of());
+        when(masterDataCacheService.getBrands(any())).thenReturn(Map.of(1L, new Brand()));
+        when(masterDataCacheService.getCategories(any())).thenReturn(Map.of(1L, new Category()));
+        when(masterDataCacheService.getUnitsOfMeasure(any())).thenReturn(Map.of(1L, new UnitOfMeasure()));
+    }
+
+    @Test
+    void rowsSkippedByOnConflictAreReportedAsExisting() {
+        // B la insertó otro proceso entre la validación y el INSERT: no vuelve en RETURNING.
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of("A", "C"));
+
+        ImportJobDTO started = service.startImport(csv("A", "B", "C"), ProductImportService.Format.CSV);
+        ImportJobDTO job = service.getJob(started.getJobId()).orElseThrow();
+
+        assertThat(job.getStatus()).isEqualTo(ImportJobDTO.Status.COMPLETED);
+        assertThat(job.getInsertedRows()).isEqualTo(2);
+        assertThat(job.getFailedRows()).isEqualTo(1);
+        assertThat(job.getErrors()).extracting(ImportRowErrorDTO::getSku).containsExactly("B");
+        verify(jdbcTemplate).queryForList(argThat((String sql) -> sql.endsWith("ON CONFLICT (sku) DO NOTHING RETURNING sku")),
+                eq(String.class), any(Object[].class));
+        verify(productRepository).findBySkuIn(List.of("A", "C"));
+    }
+
+    private static MockMultipartFile csv(String... skus) {
+        StringBuilder csv = new StringBuilder("sku,name,brandId,price,minStockThreshold,categoryId,unitOfMeasureId\n");
+        for (String sku : skus) {
+            csv.append(sku).append(",Producto ").append(sku).append(",1,10.5,0,1,1\n");
+        }
+        return new MockMultipartFile("file", "products.csv", "text/csv", csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,124 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.Brand;
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.ProductAttributeValue;
+import com.nomos.inventory.service.repository.ProductAttributeValueRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private static final Long ACME = 1L;
+    private static final Long GLOBEX = 2L;
+
+    private ProductRepository productRepository;
+    private ProductAttributeValueRepository pavRepository;
+    private MasterDataCacheService masterDataCacheService;
+    private ProductSearchIndex index;
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        pavRepository = mock(ProductAttributeValueRepository.class);
+        masterDataCacheService = mock(MasterDataCacheService.class);
+
+        products.add(product(1L, "LP-100", "Taladro percutor", ACME));
+        products.add(product(2L, "LP-200", "Sierra circular", ACME));
+        products.add(product(3L, "GX-300", "Taladro inalámbrico", GLOBEX));
+        when(productRepository.findAll()).thenAnswer(invocation -> new ArrayList<>(products));
+        when(productRepository.findByBrandId(ACME)).thenAnswer(invocation ->
+                products.stream().filter(p -> p.getBrandId().equals(ACME)).toList());
+        when(productRepository.findById(anyLong())).thenAnswer(invocation ->
+                products.stream().filter(p -> p.getId().equals(invocation.getArgument(0))).findFirst());
+        when(pavRepository.findAll()).thenReturn(List.of(new ProductAttributeValue(1L, 9L, "Rojo")));
+        when(pavRepository.findByProductId(anyLong())).thenReturn(List.of());
+        brand(ACME, "Acme");
+        brand(GLOBEX, "Globex");
+
+        index = new ProductSearchIndex(productRepository, pavRepository, masterDataCacheService);
+        index.rebuild();
+    }
+
+    @Test
+    void reindexKeepsTheProductOrdinal() {
+        for (int i = 0; i < 50; i++) {
+            products.get(0).setName("Taladro percutor v" + i);
+            index.reindex(1L);
+        }
+
+        assertThat(index.allocatedOrdinals()).isEqualTo(3);
+        assertThat(index.search("v49", 10)).containsExactly(1L);
+        assertThat(index.search("v48", 10)).isEmpty();
+        assertThat(index.search("taladro", 10)).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void removedOrdinalsAreReusedByNewProducts() {
+        index.remove(2L);
+        Product added = product(4L, "LP-400", "Lijadora orbital", ACME);
+        products.add(added);
+        index.indexNew(List.of(added));
+
+        assertThat(index.allocatedOrdinals()).isEqualTo(3);
+        assertThat(index.search("sierra", 10)).isEmpty();
+        assertThat(index.search("lija", 10)).containsExactly(4L);
+        // El ordinal reutilizado es menor que el del producto 3: las intersecciones siguen ordenadas.
+        assertThat(index.search("ac", 10)).containsExactly(1L, 4L);
+    }
+
+    @Test
+    void reindexBrandLoadsProductsAndAttributesOnce() {
+        when(pavRepository.findByProductIdIn(anyCollection()))
+                .thenReturn(List.of(new ProductAttributeValue(2L, 9L, "Azul")));
+        brand(ACME, "Apex");
+
+        index.reindexBrand(ACME);
+
+        verify(pavRepository).findByProductIdIn(List.of(1L, 2L));
+        verify(productRepository, never()).findById(any());
+        verify(pavRepository, never()).findByProductId(any());
+        assertThat(index.search("apex", 10)).containsExactly(1L, 2L);
+        assertThat(index.search("acme", 10)).isEmpty();
+        assertThat(index.search("azul", 10)).containsExactly(2L);
+        // Los atributos que ya no están en la base se quitan del índice.
+        assertThat(index.search("rojo", 10)).isEmpty();
+        assertThat(index.allocatedOrdinals()).isEqualTo(3);
+    }
+
+    private void brand(Long id, String name) {
+        Brand brand = new Brand();
+        brand.setId(id);
+        brand.setName(name);
+        when(masterDataCacheService.getBrand(id)).thenReturn(Optional.of(brand));
+        when(masterDataCacheService.getBrands(anyCollection())).thenAnswer(invocation -> {
+            Map<Long, Brand> brands = new HashMap<>();
+            for (Object brandId : (Collection<?>) invocation.getArgument(0)) {
+                masterDataCacheService.getBrand((Long) brandId).ifPresent(b -> brands.put(b.getId(), b));
+            }
+            return brands;
+        });
+    }
+
+    private static Product product(Long id, String sku, String name, Long brandId) {
+        return new Product(id, sku, name, brandId, 10.0, 0, 1L, 1L, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,110 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.InventoryItem;
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.ProductStockSummary;
+import com.nomos.inventory.service.model.Warehouse;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import com.nomos.inventory.service.repository.ProductStockSummaryRepository;
+import com.nomos.inventory.service.repository.WarehouseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Construcción de {@code product_stock_summary} al arrancar contra H2, sin transacción abierta por el
+ * test: así corre el listener de {@code ApplicationReadyEvent}.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock-summary;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ProductStockSummaryService.class)
+class ProductStockSummaryServiceTest {
+
+    private static final LocalDateTime ENTRY = LocalDateTime.of(2026, 1, 1, 8, 0);
+
+    @Autowired
+    private ProductStockSummaryService productStockSummaryService;
+
+    @Autowired
+    private ProductStockSummaryRepository summaryRepository;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    private Product stocked;
+    private Product empty;
+    private Warehouse main;
+
+    @BeforeEach
+    void setUp() {
+        summaryRepository.deleteAll();
+        inventoryItemRepository.deleteAll();
+        productRepository.deleteAll();
+        warehouseRepository.deleteAll();
+
+        stocked = productRepository.save(new Product(null, "SUM-1", "Con stock", 1L, 10.0, 0, 1L, 1L,
+                null, null, null, null, null));
+        empty = productRepository.save(new Product(null, "SUM-2", "Sin lotes", 1L, 10.0, 0, 1L, 1L,
+                null, null, null, null, null));
+        main = warehouseRepository.save(new Warehouse(null, "Central", "Av. Principal 1", true));
+    }
+
+    @Test
+    void emptySummaryIsBuiltFromExistingLotsAtStartup() {
+        lot("L-1", 7, LocalDate.of(2026, 6, 30));
+        lot("L-2", 5, LocalDate.of(2026, 3, 31));
+        lot("L-3", 0, LocalDate.of(2026, 1, 31));
+
+        productStockSummaryService.rebuildIfEmpty();
+
+        ProductStockSummary summary = summaryRepository.findById(stocked.getId()).orElseThrow();
+        assertThat(summary.getOnHand()).isEqualTo(12);
+        assertThat(summary.getLotCount()).isEqualTo(2);
+        assertThat(summary.getEarliestExpiration()).isEqualTo(LocalDate.of(2026, 3, 31));
+        assertThat(productStockSummaryService.getOnHand(empty.getId())).contains(0);
+    }
+
+    @Test
+    void populatedSummaryIsLeftAsIs() {
+        lot("L-1", 7, null);
+        summaryRepository.save(new ProductStockSummary(stocked.getId(), 3, 1, null, ENTRY));
+
+        productStockSummaryService.rebuildIfEmpty();
+
+        assertThat(summaryRepository.count()).isEqualTo(1);
+        assertThat(productStockSummaryService.findOnHand(stocked.getId())).contains(3);
+    }
+
+    @Test
+    void nothingIsBuiltWithoutLots() {
+        productStockSummaryService.rebuildIfEmpty();
+
+        assertThat(summaryRepository.count()).isZero();
+    }
+
+    private void lot(String lotNumber, int quantity, LocalDate expiration) {
+        inventoryItemRepository.save(new InventoryItem(null, stocked, main, quantity, 2.5, lotNumber,
+                expiration, null, ENTRY));
+    }
+}
@@ -0,0 +1,76 @@
+package com.nomos.inventory.service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Una carga que se cruza con una escritura del mismo id no deja en caché la versión anterior. */
+class ReferenceDataCacheTest {
+
+    private record Item(Long id, String name) {
+    }
+
+    private final ReferenceDataCache<Item> cache = new ReferenceDataCache<>("items", 10, Item::id);
+
+    @Test
+    void loadedValuesAreCachedWhenNothingChanged() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, id -> { loads.incrementAndGet(); return Optional.of(new Item(id, "v1")); });
+        Optional<Item> second = cache.get(1L, id -> { loads.incrementAndGet(); return Optional.empty(); });
+
+        assertThat(second).contains(new Item(1L, "v1"));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void evictDuringALoadKeepsTheOldValueOutOfTheCache() {
+        // La carga leyó "v1"; mientras tanto se actualizó la fila y el controlador llamó a evict.
+        Optional<Item> stale = cache.get(1L, id -> {
+            cache.evict(id);
+            return Optional.of(new Item(id, "v1"));
+        });
+
+        assertThat(stale).contains(new Item(1L, "v1"));
+        assertThat(cache.get(1L, id -> Optional.of(new Item(id, "v2")))).contains(new Item(1L, "v2"));
+    }
+
+    @Test
+    void putDuringALoadWins() {
+        cache.get(1L, id -> {
+            cache.put(new Item(id, "v2"));
+            return Optional.of(new Item(id, "v1"));
+        });
+
+        assertThat(cache.get(1L, id -> Optional.empty())).contains(new Item(1L, "v2"));
+    }
+
+    @Test
+    void bulkLoadsOnlySkipTheIdsWrittenMeanwhile() {
+        Map<Long, Item> loaded = cache.getAll(List.of(1L, 2L), missing -> {
+            assertThat(missing).isEqualTo(Set.of(1L, 2L));
+            cache.evict(2L);
+            return List.of(new Item(1L, "a"), new Item(2L, "b-old"));
+        });
+
+        assertThat(loaded).containsOnlyKeys(1L, 2L);
+        assertThat(cache.get(1L, id -> Optional.empty())).contains(new Item(1L, "a"));
+        assertThat(cache.get(2L, id -> Optional.of(new Item(id, "b-new")))).contains(new Item(2L, "b-new"));
+    }
+
+    @Test
+    void clearDuringALoadDiscardsIt() {
+        cache.get(1L, id -> {
+            cache.clear();
+            return Optional.of(new Item(id, "v1"));
+        });
+
+        assertThat(cache.stats().getSize()).isZero();
+    }
+}
@@ -0,0 +1,73 @@
+package com.nomos.inventory.service.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReservationTimerWheelTest {
+
+    private static final long TICK = 100;
+
+    @Test
+    void expiresOnlyOnceTheDeadlineTickPassed() {
+        ReservationTimerWheel wheel = new ReservationTimerWheel(TICK, 8, 0);
+        wheel.schedule(1L, 250);
+
+        assertThat(wheel.advance(200)).isEmpty();
+        assertThat(wheel.advance(300)).containsExactly(1L);
+        assertThat(wheel.size()).isZero();
+        assertThat(wheel.advance(400)).isEmpty();
+    }
+
+    @Test
+    void alreadyExpiredDeadlineFiresOnTheNextAdvance() {
+        ReservationTimerWheel wheel = new ReservationTimerWheel(TICK, 8, 1_000);
+        wheel.schedule(1L, 500);
+
+        assertThat(wheel.advance(1_050)).isEmpty();
+        assertThat(wheel.advance(1_100)).containsExactly(1L);
+    }
+
+    @Test
+    void cancelAndRescheduleReplaceThePreviousDeadline() {
+        ReservationTimerWheel wheel = new ReservationTimerWheel(TICK, 8, 0);
+        wheel.schedule(1L, 200);
+        wheel.schedule(2L, 200);
+        wheel.schedule(2L, 500);
+
+        assertThat(wheel.cancel(1L)).isTrue();
+        assertThat(wheel.cancel(1L)).isFalse();
+        assertThat(wheel.advance(300)).isEmpty();
+        assertThat(wheel.advance(500)).containsExactly(2L);
+    }
+
+    @Test
+    void deadlineMoreThanOneTurnAheadWaitsForItsTurn() {
+        ReservationTimerWheel wheel = new ReservationTimerWheel(TICK, 8, 0);
+        // Tick 10 comparte la ranura 2 con el tick 2.
+        wheel.schedule(1L, 1_000);
+
+        assertThat(wheel.advance(200)).isEmpty();
+        assertThat(wheel.advance(900)).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(1_000)).containsExactly(1L);
+    }
+
+    @Test
+    void lagOfSeveralTurnsVisitsEverySlot() {
+        ReservationTimerWheel wheel = new ReservationTimerWheel(TICK, 8, 0);
+        for (long id = 1; id <= 20; id++) {
+            wheel.schedule(id, id * TICK);
+        }
+
+        assertThat(wheel.advance(5_000)).hasSize(20);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void slotCountMustBeAPowerOfTwo() {
+        assertThatThrownBy(() -> new ReservationTimerWheel(TICK, 6, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,50 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** La versión de la matriz depende solo de su contenido, no del orden de arranque de la instancia. */
+class StockMatrixServiceTest {
+
+    @Test
+    void sameContentGivesTheSameVersionOnAnotherInstance() {
+        List<Object[]> rows = rows(new Object[]{1L, 10L, 5L}, new Object[]{2L, 10L, 3L});
+
+        long first = new StockMatrixService(repository(rows)).getMatrix().getVersion();
+        long restarted = new StockMatrixService(repository(rows)).getMatrix().getVersion();
+
+        assertThat(restarted).isEqualTo(first);
+    }
+
+    @Test
+    void changedQuantityChangesTheVersion() {
+        InventoryItemRepository repository = repository(rows(new Object[]{1L, 10L, 5L}));
+        StockMatrixService service = new StockMatrixService(repository);
+        long before = service.getMatrix().getVersion();
+
+        when(repository.sumQuantityByProductAndWarehouse(List.of(1L))).thenReturn(rows(new Object[]{1L, 10L, 4L}));
+        service.onStockChanged(new StockChangedEvent(1L));
+
+        assertThat(service.getMatrix().getVersion()).isNotEqualTo(before);
+        // Otra instancia con los datos de antes emite la versión de antes: el ETag depende solo del contenido.
+        assertThat(new StockMatrixService(repository(rows(new Object[]{1L, 10L, 5L}))).getMatrix().getVersion())
+                .isEqualTo(before);
+    }
+
+    private static InventoryItemRepository repository(List<Object[]> rows) {
+        InventoryItemRepository repository = mock(InventoryItemRepository.class);
+        when(repository.sumQuantityByProductAndWarehouse()).thenReturn(rows);
+        return repository;
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
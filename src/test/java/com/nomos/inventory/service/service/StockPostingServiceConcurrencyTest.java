@@ -0,0 +1,191 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.InventoryItem;
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.Warehouse;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import com.nomos.inventory.service.repository.WarehouseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Prueba de estrés de {@link StockPostingService}: muchos escritores concurrentes sobre un único
+ * lote "caliente". Corre contra H2 en memoria con transacciones reales (sin la transacción de test).
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock-posting;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=60000;NON_KEYWORDS=VALUE",
+        "spring.datasource.hikari.maximum-pool-size=50",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({StockPostingService.class, ReservedStockIndex.class})
+class StockPostingServiceConcurrencyTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockPostingServiceConcurrencyTest.class);
+
+    private static final int WRITERS = 200;
+
+    @Autowired
+    private StockPostingService stockPostingService;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ReservedStockIndex reservedStockIndex;
+
+    @MockitoBean
+    private ProductStockSummaryService productStockSummaryService;
+
+    private Product product;
+    private Warehouse warehouse;
+
+    @BeforeEach
+    void setUp() {
+        inventoryItemRepository.deleteAll();
+        productRepository.deleteAll();
+        warehouseRepository.deleteAll();
+
+        product = productRepository.save(new Product(null, "HOT-1", "Producto caliente", 1L, 10.0, 0, 1L, 1L,
+                null, null, null, null, null));
+        warehouse = warehouseRepository.save(new Warehouse(null, "Central", "Av. Principal 1", true));
+    }
+
+    @Test
+    void concurrentWritersOnHotItemLoseNoUpdates() throws Exception {
+        int postsPerWriter = 25;
+        int initialStock = WRITERS * postsPerWriter * 2;
+        Long itemId = newItem(initialStock);
+
+        Set<Integer> balances = ConcurrentHashMap.newKeySet();
+        long elapsedNanos = runConcurrently(WRITERS, () -> {
+            for (int i = 0; i < postsPerWriter; i++) {
+                balances.add(stockPostingService.post(itemId, -1).balanceAfter());
+            }
+        });
+
+        int totalPosts = WRITERS * postsPerWriter;
+        assertThat(currentQuantity(itemId)).isEqualTo(initialStock - totalPosts);
+        // Cada confirmación vio un saldo distinto: ninguna escritura se perdió ni se leyó un saldo ajeno.
+        assertThat(balances).hasSize(totalPosts);
+        report("postings sobre un lote caliente", totalPosts, elapsedNanos);
+    }
+
+    @Test
+    void concurrentSalesNeverOversell() throws Exception {
+        int initialStock = WRITERS / 2;
+        Long itemId = newItem(initialStock);
+
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        long elapsedNanos = runConcurrently(WRITERS, () -> {
+            try {
+                stockPostingService.post(itemId, -1);
+                accepted.incrementAndGet();
+            } catch (ResponseStatusException e) {
+                assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertThat(accepted.get()).isEqualTo(initialStock);
+        assertThat(rejected.get()).isEqualTo(WRITERS - initialStock);
+        assertThat(currentQuantity(itemId)).isZero();
+        report("ventas con stock insuficiente", WRITERS, elapsedNanos);
+    }
+
+    @Test
+    void unknownItemIsRejected() {
+        assertThatThrownBy(() -> stockPostingService.post(-1L, 1))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    void saleCannotConsumeStockReservedInTheWarehouse() {
+        Long a = newItem(5);
+        Long b = newItem(5);
+        reservedStockIndex.add(product.getId(), warehouse.getId(), 8);
+        try {
+            assertThat(stockPostingService.post(a, -2).balanceAfter()).isEqualTo(3);
+            assertThatThrownBy(() -> stockPostingService.post(b, -1))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+            assertThat(currentQuantity(b)).isEqualTo(5);
+        } finally {
+            reservedStockIndex.remove(product.getId(), warehouse.getId(), 8);
+        }
+    }
+
+    private Long newItem(int quantity) {
+        return inventoryItemRepository.save(new InventoryItem(null, product, warehouse, quantity, 1.0,
+                "LOTE-" + System.nanoTime(), null, null, LocalDateTime.now())).getId();
+    }
+
+    private int currentQuantity(Long itemId) {
+        return inventoryItemRepository.findById(itemId).orElseThrow().getQuantity();
+    }
+
+    /** Lanza {@code writers} hilos que arrancan a la vez y devuelve el tiempo total en nanosegundos. */
+    private static long runConcurrently(int writers, Runnable task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(writers);
+        try {
+            for (int i = 0; i < writers; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void report(String scenario, int operations, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        logger.info("{}: {} operaciones, {} escritores, {} s, {} ops/s", scenario, operations, WRITERS,
+                String.format("%.2f", seconds), String.format("%.0f", operations / seconds));
+    }
+}
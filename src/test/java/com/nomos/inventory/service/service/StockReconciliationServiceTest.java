@@ -0,0 +1,231 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.InventoryItem;
+import com.nomos.inventory.service.model.MovementType;
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.ReconciliationDrift;
+import com.nomos.inventory.service.model.ReconciliationRun;
+import com.nomos.inventory.service.model.Warehouse;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import com.nomos.inventory.service.repository.ReconciliationDriftRepository;
+import com.nomos.inventory.service.repository.ReconciliationRunRepository;
+import com.nomos.inventory.service.repository.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+/**
+ * Conciliación contra H2: detección de diferencias, corrección, checkpoint sobre el prefijo contiguo de
+ * bloques y reanudación sin duplicar diferencias.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reconciliation;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockReconciliationServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 8, 0);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReconciliationRunRepository runRepository;
+
+    @Autowired
+    private ReconciliationDriftRepository driftRepository;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    private JdbcTemplate jdbc;
+    private Product product;
+    private Warehouse main;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("DELETE FROM reconciliation_drifts");
+        jdbc.update("DELETE FROM reconciliation_runs");
+        jdbc.update("DELETE FROM inventory_movement");
+        inventoryItemRepository.deleteAll();
+        productRepository.deleteAll();
+        warehouseRepository.deleteAll();
+
+        product = productRepository.save(new Product(null, "REC-1", "Producto", 1L, 10.0, 0, 1L, 1L,
+                null, null, null, null, null));
+        main = warehouseRepository.save(new Warehouse(null, "Central", "Av. Principal 1", true));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void driftsAreDetectedFromTheBalanceChain() {
+        InventoryItem ok = lot("OK", 7);
+        movement(ok, 10, 10);
+        movement(ok, -3, 7);
+        InventoryItem drifted = lot("DRIFT", 12);
+        movement(drifted, 10, 10);
+        movement(drifted, -2, 9);   // cadena rota: 10 - 2 no es 9
+        movement(drifted, 1, null); // anterior a balance_after: se suma al saldo conocido
+        InventoryItem noLedger = lot("NEW", 4);
+
+        ReconciliationRun run = service(new SyncTaskExecutor(), new NamedParameterJdbcTemplate(dataSource), 2)
+                .start(false);
+
+        ReconciliationRun finished = runRepository.findById(run.getId()).orElseThrow();
+        assertThat(finished.getStatus()).isEqualTo(ReconciliationRun.Status.COMPLETED);
+        assertThat(finished.getItemsChecked()).isEqualTo(3);
+        assertThat(finished.getCheckpointItemId()).isEqualTo(noLedger.getId());
+        assertThat(finished.getDriftCount()).isEqualTo(1);
+        ReconciliationDrift drift = driftRepository.findAll().get(0);
+        assertThat(drift.getInventoryItemId()).isEqualTo(drifted.getId());
+        assertThat(drift.getLedgerBalance()).isEqualTo(10);
+        assertThat(drift.getDrift()).isEqualTo(2);
+        assertThat(drift.getChainBreaks()).isEqualTo(1);
+        assertThat(drift.getAdjustmentMovementId()).isNull();
+    }
+
+    @Test
+    void fixDriftRecordsAnAdjustmentThatClosesTheChain() {
+        InventoryItem drifted = lot("DRIFT", 5);
+        movement(drifted, 8, 8);
+        StockReconciliationService service = service(new SyncTaskExecutor(), new NamedParameterJdbcTemplate(dataSource), 10);
+
+        ReconciliationRun run = service.start(true);
+
+        ReconciliationRun finished = runRepository.findById(run.getId()).orElseThrow();
+        assertThat(finished.getDriftCount()).isEqualTo(1);
+        assertThat(finished.getAdjustedCount()).isEqualTo(1);
+        Long adjustment = driftRepository.findAll().get(0).getAdjustmentMovementId();
+        assertThat(jdbc.queryForMap("SELECT type, quantity_change, balance_after FROM inventory_movement WHERE id = ?",
+                adjustment)).containsEntry("TYPE", MovementType.AJUSTE_CONCILIACION.name())
+                .containsEntry("QUANTITY_CHANGE", -3).containsEntry("BALANCE_AFTER", 5);
+
+        // El lote ya concilia: una nueva ejecución no encuentra diferencias.
+        ReconciliationRun again = service.start(true);
+        assertThat(runRepository.findById(again.getId()).orElseThrow().getDriftCount()).isZero();
+    }
+
+    @Test
+    void checkpointOnlyCoversTheContiguousPrefixAndResumeDoesNotDoubleCount() throws Exception {
+        InventoryItem first = lot("A", 3);
+        movement(first, 1, 1);
+        InventoryItem second = lot("B", 3);
+        movement(second, 3, 3);
+        InventoryItem third = lot("C", 5);
+        movement(third, 2, 2);
+        InventoryItem fourth = lot("D", 5);
+        movement(fourth, 5, 5);
+
+        // Dos bloques en paralelo: el primero falla después de que el segundo leyó sus movimientos.
+        NamedParameterJdbcTemplate named = spy(new NamedParameterJdbcTemplate(dataSource));
+        CountDownLatch secondChunkRead = new CountDownLatch(1);
+        boolean[] failFirstChunk = {true};
+        doAnswer(invocation -> {
+            long after = ((Number) ((SqlParameterSource) invocation.getArgument(1)).getValue("after")).longValue();
+            if (after == 0 && failFirstChunk[0]) {
+                secondChunkRead.await(5, TimeUnit.SECONDS);
+                throw new DataAccessResourceFailureException("Conexión perdida");
+            }
+            invocation.callRealMethod();
+            if (after != 0) {
+                secondChunkRead.countDown();
+            }
+            return null;
+        }).when(named).query(startsWith("SELECT inventory_item_id, id"), any(SqlParameterSource.class),
+                any(RowCallbackHandler.class));
+        pool = Executors.newFixedThreadPool(4);
+        StockReconciliationService service = service(pool::execute, named, 2);
+
+        ReconciliationRun run = service.start(false);
+        await().atMost(10, TimeUnit.SECONDS).until(() ->
+                runRepository.findById(run.getId()).orElseThrow().getStatus() == ReconciliationRun.Status.FAILED);
+
+        ReconciliationRun failed = runRepository.findById(run.getId()).orElseThrow();
+        // El segundo bloque terminó, pero sin el primero el checkpoint no puede avanzar.
+        assertThat(failed.getCheckpointItemId()).isZero();
+        assertThat(failed.getItemsChecked()).isZero();
+        assertThat(failed.getDriftCount()).isEqualTo(1);
+        assertThat(failed.getFailureMessage()).contains("Conexión perdida");
+
+        failFirstChunk[0] = false;
+        // El hilo coordinador libera la ejecución activa justo después de marcarla FAILED.
+        await().atMost(5, TimeUnit.SECONDS).ignoreExceptions().until(() -> service.resume(run.getId()) != null);
+        await().atMost(10, TimeUnit.SECONDS).until(() ->
+                runRepository.findById(run.getId()).orElseThrow().getStatus() == ReconciliationRun.Status.COMPLETED);
+
+        ReconciliationRun resumed = runRepository.findById(run.getId()).orElseThrow();
+        assertThat(resumed.getCheckpointItemId()).isEqualTo(fourth.getId());
+        assertThat(resumed.getItemsChecked()).isEqualTo(4);
+        // El segundo bloque se revisó dos veces; su diferencia se cuenta una sola.
+        assertThat(resumed.getDriftCount()).isEqualTo(2);
+        assertThat(driftRepository.findAll()).extracting(ReconciliationDrift::getInventoryItemId)
+                .containsExactlyInAnyOrder(first.getId(), third.getId());
+    }
+
+    private StockReconciliationService service(TaskExecutor executor, NamedParameterJdbcTemplate named, int chunkSize) {
+        return new StockReconciliationService(runRepository, driftRepository, named, transactionManager, executor,
+                mock(MovementTypeConstraintService.class), 2, chunkSize, false);
+    }
+
+    private InventoryItem lot(String lotNumber, int quantity) {
+        return inventoryItemRepository.save(new InventoryItem(null, product, main, quantity, 1.0, lotNumber,
+                LocalDate.of(2027, 1, 1), null, T0));
+    }
+
+    private void movement(InventoryItem item, int change, Integer balanceAfter) {
+        Long lastId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM inventory_movement", Long.class);
+        jdbc.update("INSERT INTO inventory_movement (inventory_item_id, product_id, quantity_change, balance_after, " +
+                        "warehouse_id, type, reason, movement_date) VALUES (?, ?, ?, ?, ?, ?, 'test', ?)",
+                item.getId(), product.getId(), change, balanceAfter, main.getId(),
+                change > 0 ? MovementType.ENTRADA.name() : MovementType.SALIDA_VENTA.name(), T0.plusSeconds(lastId));
+    }
+}
@@ -0,0 +1,153 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.AllocationPolicy;
+import com.nomos.inventory.service.model.StockReservation;
+import com.nomos.inventory.service.model.dto.AllocationResultDTO;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import com.nomos.inventory.service.repository.StockReservationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Recuperación al arrancar, vencimiento por la rueda y confirmación, con repositorios simulados. */
+class StockReservationServiceTest {
+
+    private static final long TICK_MILLIS = 20;
+
+    private StockReservationRepository reservationRepository;
+    private InventoryItemRepository inventoryItemRepository;
+    private LotAllocationService lotAllocationService;
+    private StockReservationService service;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository = mock(StockReservationRepository.class);
+        inventoryItemRepository = mock(InventoryItemRepository.class);
+        lotAllocationService = mock(LotAllocationService.class);
+        when(inventoryItemRepository.sumQuantityByProductIdAndWarehouseId(1L, 1L)).thenReturn(100L);
+        service = new StockReservationService(reservationRepository, inventoryItemRepository,
+                mock(ProductRepository.class), mock(ProductStockSummaryService.class),
+                mock(MasterDataCacheService.class), lotAllocationService, new ReservedStockIndex(),
+                mock(PlatformTransactionManager.class), 900, 86400, TICK_MILLIS, 64);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void recoverClosesRowsThatExpiredWhileStoppedAndTracksTheRest() {
+        LocalDateTime now = LocalDateTime.now();
+        when(reservationRepository.findByStatus(StockReservation.Status.ACTIVE)).thenReturn(List.of(
+                reservation(10L, 5, now.minusMinutes(1)),
+                reservation(11L, 7, now.plusMinutes(10)),
+                reservation(12L, 3, now.plusMinutes(10))));
+
+        service.recover();
+
+        verify(reservationRepository).resolveActive(eq(List.of(10L)), eq(StockReservation.Status.EXPIRED), any());
+        assertThat(service.availability(1L, 1L).getReserved()).isEqualTo(10);
+        assertThat(service.availability(1L, 1L).getAvailable()).isEqualTo(90);
+        assertThat(service.getReservation(11L).getQuantity()).isEqualTo(7);
+    }
+
+    @Test
+    void wheelExpiresReservationsAndReleasesTheirStock() {
+        when(reservationRepository.findByStatus(StockReservation.Status.ACTIVE)).thenReturn(List.of(
+                reservation(20L, 40, LocalDateTime.now().plusNanos(100_000_000)),
+                reservation(21L, 5, LocalDateTime.now().plusMinutes(10))));
+
+        service.recover();
+        assertThat(service.availability(1L, 1L).getReserved()).isEqualTo(45);
+
+        verify(reservationRepository, timeout(2_000))
+                .resolveActive(eq(List.of(20L)), eq(StockReservation.Status.EXPIRED), any());
+        assertThat(service.availability(1L, 1L).getReserved()).isEqualTo(5);
+        verify(reservationRepository, never()).resolveActive(eq(List.of(21L)), any(), any());
+    }
+
+    @Test
+    void releasedReservationIsNotExpiredAgain() throws InterruptedException {
+        when(reservationRepository.findByStatus(StockReservation.Status.ACTIVE)).thenReturn(List.of(
+                reservation(30L, 8, LocalDateTime.now().plusNanos(300_000_000))));
+        service.recover();
+
+        service.release(30L);
+        Thread.sleep(500);
+
+        verify(reservationRepository).resolveActive(eq(List.of(30L)), eq(StockReservation.Status.RELEASED), any());
+        verify(reservationRepository, never()).resolveActive(any(), eq(StockReservation.Status.EXPIRED), any());
+        assertThat(service.availability(1L, 1L).getReserved()).isZero();
+    }
+
+    @Test
+    void confirmClosesTheReservationInsideTheSaleTransaction() {
+        when(reservationRepository.findByStatus(StockReservation.Status.ACTIVE)).thenReturn(List.of(
+                reservation(40L, 5, LocalDateTime.now().plusMinutes(10))));
+        when(reservationRepository.resolveActive(eq(List.of(40L)), eq(StockReservation.Status.CONFIRMED), any()))
+                .thenReturn(1);
+        when(lotAllocationService.allocate(any(), any())).thenAnswer(invocation -> {
+            // La reserva se cierra dentro de la asignación, antes de que su transacción confirme.
+            verify(reservationRepository, never()).resolveActive(any(), eq(StockReservation.Status.CONFIRMED), any());
+            invocation.<Runnable>getArgument(1).run();
+            verify(reservationRepository).resolveActive(eq(List.of(40L)), eq(StockReservation.Status.CONFIRMED), any());
+            return new AllocationResultDTO(1L, AllocationPolicy.FEFO, 5, List.of());
+        });
+        service.recover();
+
+        assertThat(service.confirm(40L).getQuantity()).isEqualTo(5);
+        assertThat(service.availability(1L, 1L).getReserved()).isZero();
+    }
+
+    @Test
+    void failedSaleKeepsTheReservationActive() {
+        when(reservationRepository.findByStatus(StockReservation.Status.ACTIVE)).thenReturn(List.of(
+                reservation(41L, 5, LocalDateTime.now().plusMinutes(10))));
+        when(lotAllocationService.allocate(any(), any()))
+                .thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, "Stock insuficiente"));
+        service.recover();
+
+        assertThatThrownBy(() -> service.confirm(41L)).isInstanceOf(ResponseStatusException.class);
+        assertThat(service.availability(1L, 1L).getReserved()).isEqualTo(5);
+        verify(reservationRepository, never()).resolveActive(any(), eq(StockReservation.Status.CONFIRMED), any());
+    }
+
+    @Test
+    void reservationClosedElsewhereRollsTheSaleBackAndIsNotTrackedAgain() {
+        when(reservationRepository.findByStatus(StockReservation.Status.ACTIVE)).thenReturn(List.of(
+                reservation(42L, 5, LocalDateTime.now().plusMinutes(10))));
+        when(lotAllocationService.allocate(any(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return new AllocationResultDTO(1L, AllocationPolicy.FEFO, 5, List.of());
+        });
+        service.recover();
+
+        assertThatThrownBy(() -> service.confirm(42L))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        assertThat(service.availability(1L, 1L).getReserved()).isZero();
+    }
+
+    private static StockReservation reservation(Long id, int quantity, LocalDateTime expiresAt) {
+        return new StockReservation(id, 1L, 1L, quantity, StockReservation.Status.ACTIVE, null,
+                LocalDateTime.now().minusMinutes(5), expiresAt, null);
+    }
+}
@@ -0,0 +1,167 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.InventoryItem;
+import com.nomos.inventory.service.model.InventoryMovement;
+import com.nomos.inventory.service.model.MovementType;
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.Warehouse;
+import com.nomos.inventory.service.model.dto.StockAsOfDTO;
+import com.nomos.inventory.service.model.dto.StockAsOfReportDTO;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.InventoryMovementRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import com.nomos.inventory.service.repository.StockSnapshotRepository;
+import com.nomos.inventory.service.repository.WarehouseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reconstrucción de existencias a una fecha ({@code AS_OF_SQL}) contra H2: foto diaria, movimientos
+ * posteriores a la foto y un lote dado de alta después de ella.
+ * <p>
+ * Lote A (almacén 1, alta hace 10 días, 100 unidades hoy): -20 el día D-3, +30 y -10 el día D-1.
+ * Lote B (almacén 1, alta el día D-1 a las 09:00, 50 unidades hoy): -5 a las 10:00 y +7 a las 21:00.
+ * Lote C (almacén 2, alta hace 10 días, 9 unidades, sin movimientos). Foto del inicio de D-2.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock-snapshots;DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(StockSnapshotService.class)
+class StockSnapshotServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private StockSnapshotService stockSnapshotService;
+
+    @Autowired
+    private StockSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private InventoryMovementRepository movementRepository;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    private Product product;
+    private Warehouse main;
+    private Warehouse secondary;
+
+    @BeforeEach
+    void setUp() {
+        snapshotRepository.deleteAll();
+        movementRepository.deleteAll();
+        inventoryItemRepository.deleteAll();
+        productRepository.deleteAll();
+        warehouseRepository.deleteAll();
+
+        product = productRepository.save(new Product(null, "SNAP-1", "Producto", 1L, 10.0, 0, 1L, 1L,
+                null, null, null, null, null));
+        main = warehouseRepository.save(new Warehouse(null, "Central", "Av. Principal 1", true));
+        secondary = warehouseRepository.save(new Warehouse(null, "Norte", "Calle 2", true));
+
+        InventoryItem lotA = lot(main, "A", 100, TODAY.minusDays(10).atStartOfDay());
+        lot(secondary, "C", 9, TODAY.minusDays(10).atStartOfDay());
+        movement(lotA, -20, day(3, 10));
+        movement(lotA, 30, day(1, 8));
+        movement(lotA, -10, day(1, 20));
+
+        stockSnapshotService.takeSnapshot(TODAY.minusDays(2));
+
+        // Alta posterior a la foto: se reconstruye hacia atrás desde su cantidad actual.
+        InventoryItem lotB = lot(main, "B", 50, day(1, 9));
+        movement(lotB, -5, day(1, 10));
+        movement(lotB, 7, day(1, 21));
+    }
+
+    @Test
+    void snapshotHoldsTheQuantityAtTheStartOfTheDay() {
+        assertThat(stockSnapshotService.listSnapshotDates()).containsExactly(TODAY.minusDays(2));
+        assertThat(quantity(day(2, 1))).isEqualTo(80);
+    }
+
+    @Test
+    void replaysMovementsAfterTheSnapshotAndRebuildsNewerLots() {
+        StockAsOfReportDTO report = stockSnapshotService.stockAsOf(product.getId(), main.getId(), day(1, 12));
+
+        assertThat(report.getSnapshotDate()).isEqualTo(TODAY.minusDays(2));
+        // A: 80 de la foto + 30; B: 50 - 7 (el +7 es posterior al instante).
+        assertThat(report.getLines()).extracting(StockAsOfDTO::getQuantity).containsExactly(153L);
+    }
+
+    @Test
+    void movementAtTheRequestedInstantIsIncluded() {
+        assertThat(quantity(day(1, 20))).isEqualTo(80 + 30 - 10 + 50 - 7);
+        assertThat(quantity(LocalDateTime.now().minusSeconds(1))).isEqualTo(150);
+    }
+
+    @Test
+    void withoutAnEarlierSnapshotEverythingIsRebuiltBackwards() {
+        assertThat(stockSnapshotService.stockAsOf(product.getId(), main.getId(), day(3, 18)).getSnapshotDate()).isNull();
+        assertThat(quantity(day(3, 18))).isEqualTo(80);
+        assertThat(quantity(day(5, 0))).isEqualTo(100);
+    }
+
+    @Test
+    void stockAsOfAllGroupsByWarehouseAndHonoursTheFilter() {
+        StockAsOfReportDTO all = stockSnapshotService.stockAsOfAll(null, day(1, 12));
+        assertThat(all.getLines()).containsExactly(
+                new StockAsOfDTO(product.getId(), main.getId(), 153),
+                new StockAsOfDTO(product.getId(), secondary.getId(), 9));
+
+        assertThat(stockSnapshotService.stockAsOfAll(secondary.getId(), day(1, 12)).getLines())
+                .containsExactly(new StockAsOfDTO(product.getId(), secondary.getId(), 9));
+    }
+
+    @Test
+    void productWithoutLotsReportsZero() {
+        StockAsOfReportDTO report = stockSnapshotService.stockAsOf(product.getId() + 1, main.getId(), day(1, 12));
+        assertThat(report.getLines()).containsExactly(new StockAsOfDTO(product.getId() + 1, main.getId(), 0));
+    }
+
+    private long quantity(LocalDateTime asOf) {
+        return stockSnapshotService.stockAsOf(product.getId(), main.getId(), asOf).getLines().get(0).getQuantity();
+    }
+
+    private static LocalDateTime day(int daysAgo, int hour) {
+        return TODAY.minusDays(daysAgo).atTime(LocalTime.of(hour, 0));
+    }
+
+    private InventoryItem lot(Warehouse warehouse, String lotNumber, int quantity, LocalDateTime entryDate) {
+        return inventoryItemRepository.save(new InventoryItem(null, product, warehouse, quantity, 1.0, lotNumber,
+                null, null, entryDate));
+    }
+
+    private void movement(InventoryItem lot, int change, LocalDateTime at) {
+        InventoryMovement movement = new InventoryMovement();
+        movement.setInventoryItem(lot);
+        movement.setProduct(product);
+        movement.setWarehouseId(lot.getWarehouse().getId());
+        movement.setQuantityChange(change);
+        movement.setType(change > 0 ? MovementType.ENTRADA : MovementType.SALIDA_VENTA);
+        movement.setReason("Prueba");
+        movement.setMovementDate(at);
+        movementRepository.save(movement);
+    }
+}
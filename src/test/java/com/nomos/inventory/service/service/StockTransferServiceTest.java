@@ -0,0 +1,172 @@
+package com.nomos.inventory.service.service;
+
+import com.nomos.inventory.service.model.InventoryItem;
+import com.nomos.inventory.service.model.Product;
+import com.nomos.inventory.service.model.Warehouse;
+import com.nomos.inventory.service.model.dto.TransferRequestDTO;
+import com.nomos.inventory.service.model.dto.TransferResultDTO;
+import com.nomos.inventory.service.repository.InventoryItemRepository;
+import com.nomos.inventory.service.repository.InventoryMovementRepository;
+import com.nomos.inventory.service.repository.ProductRepository;
+import com.nomos.inventory.service.repository.WarehouseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link StockTransferService} contra H2 en modo PostgreSQL (por el {@code ON CONFLICT DO NOTHING} del
+ * alta de lotes destino), con transacciones reales.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock-transfers;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({StockTransferService.class, MovementBatchApplier.class, ReservedStockIndex.class})
+class StockTransferServiceTest {
+
+    private static final LocalDateTime ENTRY = LocalDateTime.of(2026, 1, 1, 8, 0);
+    private static final LocalDate EXPIRATION = LocalDate.of(2026, 12, 31);
+
+    @Autowired
+    private StockTransferService stockTransferService;
+
+    @Autowired
+    private InventoryMovementRepository movementRepository;
+
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @MockitoBean
+    private ProductStockSummaryService productStockSummaryService;
+
+    @MockitoBean
+    private MasterDataCacheService masterDataCacheService;
+
+    private Product product;
+    private Warehouse main;
+    private Warehouse north;
+
+    @BeforeEach
+    void setUp() {
+        movementRepository.deleteAll();
+        inventoryItemRepository.deleteAll();
+        productRepository.deleteAll();
+        warehouseRepository.deleteAll();
+
+        product = productRepository.save(new Product(null, "TRF-1", "Producto", 1L, 10.0, 0, 1L, 1L,
+                null, null, null, null, null));
+        main = warehouseRepository.save(new Warehouse(null, "Central", "Av. Principal 1", true));
+        north = warehouseRepository.save(new Warehouse(null, "Norte", "Calle 2", true));
+        when(masterDataCacheService.getWarehouse(any())).thenAnswer(invocation ->
+                warehouseRepository.findById(invocation.getArgument(0)));
+    }
+
+    @Test
+    void missingDestinationLotIsCreatedWithTheSourceLotData() {
+        InventoryItem source = lot(main, "L-1", 10);
+
+        TransferResultDTO result = stockTransferService.transfer(request(source, north, 4));
+
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.CREATED.value());
+        assertThat(result.getSourceBalanceAfter()).isEqualTo(6);
+        assertThat(result.getDestinationBalanceAfter()).isEqualTo(4);
+        InventoryItem destination = inventoryItemRepository.findById(result.getDestinationInventoryItemId()).orElseThrow();
+        assertThat(destination.getWarehouse().getId()).isEqualTo(north.getId());
+        assertThat(destination.getLotNumber()).isEqualTo("L-1");
+        assertThat(destination.getExpirationDate()).isEqualTo(EXPIRATION);
+        assertThat(destination.getQuantity()).isEqualTo(4);
+        assertThat(movementRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void existingDestinationLotIsReusedAcrossTheBatch() {
+        InventoryItem source = lot(main, "L-1", 10);
+        InventoryItem existing = lot(north, "L-1", 1);
+
+        List<TransferResultDTO> results = stockTransferService.transferBatch(List.of(
+                request(source, north, 2), request(source, north, 3)));
+
+        assertThat(results).extracting(TransferResultDTO::getDestinationInventoryItemId)
+                .containsExactly(existing.getId(), existing.getId());
+        assertThat(results).extracting(TransferResultDTO::getDestinationBalanceAfter).containsExactly(3, 6);
+        assertThat(quantity(source)).isEqualTo(5);
+        assertThat(inventoryItemRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectedDebitDoesNotCreditTheDestination() {
+        InventoryItem source = lot(main, "L-1", 2);
+        InventoryItem other = lot(main, "L-2", 5);
+
+        List<TransferResultDTO> results = stockTransferService.transferBatch(List.of(
+                request(source, north, 3), request(other, north, 5)));
+
+        assertThat(results.get(0).getStatus()).isEqualTo(HttpStatus.CONFLICT.value());
+        assertThat(results.get(0).getInMovementId()).isNull();
+        // El lote destino se creó en cero y quedó sin acreditar.
+        assertThat(quantity(inventoryItemRepository.findById(results.get(0).getDestinationInventoryItemId()).orElseThrow()))
+                .isZero();
+        assertThat(quantity(source)).isEqualTo(2);
+        assertThat(results.get(1).getStatus()).isEqualTo(HttpStatus.CREATED.value());
+        assertThat(movementRepository.count()).isEqualTo(2);
+
+        assertThatThrownBy(() -> stockTransferService.transfer(request(source, north, 3)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+    }
+
+    @Test
+    void invalidRequestsAreRejectedWithoutTouchingStock() {
+        InventoryItem source = lot(main, "L-1", 10);
+        when(masterDataCacheService.getWarehouse(999L)).thenReturn(Optional.empty());
+
+        List<TransferResultDTO> results = stockTransferService.transferBatch(List.of(
+                new TransferRequestDTO(-1L, north.getId(), 1, null, null),
+                request(source, main, 1),
+                new TransferRequestDTO(source.getId(), 999L, 1, null, null)));
+
+        assertThat(results).extracting(TransferResultDTO::getStatus).containsOnly(HttpStatus.BAD_REQUEST.value());
+        assertThat(results).extracting(TransferResultDTO::getLine).containsExactly(0, 1, 2);
+        assertThat(quantity(source)).isEqualTo(10);
+        assertThat(movementRepository.count()).isZero();
+    }
+
+    private InventoryItem lot(Warehouse warehouse, String lotNumber, int quantity) {
+        return inventoryItemRepository.save(new InventoryItem(null, product, warehouse, quantity, 2.5, lotNumber,
+                EXPIRATION, null, ENTRY));
+    }
+
+    private static TransferRequestDTO request(InventoryItem source, Warehouse to, int quantity) {
+        return new TransferRequestDTO(source.getId(), to.getId(), quantity, null, null);
+    }
+
+    private int quantity(InventoryItem item) {
+        return inventoryItemRepository.findById(item.getId()).orElseThrow().getQuantity();
+    }
+}